@@ -58,6 +58,7 @@ import com.ibm.jbatch.container.ws.smf.ZosJBatchSMFLogging;
 import com.ibm.jbatch.jsl.model.JSLProperties;
 import com.ibm.jbatch.jsl.model.Property;
 import com.ibm.jbatch.jsl.model.Step;
+import com.ibm.jbatch.spi.services.IBatchThreadPoolService;
 import com.ibm.jbatch.spi.services.ITransactionManagementService;
 import com.ibm.jbatch.spi.services.TransactionManagerAdapter;
 import com.ibm.ws.ffdc.annotation.FFDCIgnore;
@@ -217,6 +218,13 @@ public abstract class BaseStepControllerImpl implements IExecutionElementControl
         return ServicesManagerStaticAnchor.getServicesManager().getBatchEventsPublisher();
     }
 
+    /**
+     * @return the batch thread pool
+     */
+    protected IBatchThreadPoolService getThreadPoolService() {
+        return ServicesManagerStaticAnchor.getServicesManager().getThreadPoolService();
+    }
+
     ///////////////////////////
     // ABSTRACT METHODS ARE HERE
     ///////////////////////////
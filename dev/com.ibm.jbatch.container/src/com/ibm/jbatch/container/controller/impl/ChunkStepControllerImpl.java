@@ -71,6 +71,17 @@ public class ChunkStepControllerImpl extends SingleThreadedStepControllerImpl {
 
     protected static final int DEFAULT_TRAN_TIMEOUT_SECONDS = 180; // From the spec Sec. 9.7
 
+    /**
+     * Step property giving the number of items of a chunk that may be processed at the same
+     * time, on threads from the batch thread pool, while the step thread goes on reading.
+     * Values below 2, the default, process each item on the step thread as it is read.
+     *
+     * The ItemProcessor must be thread safe, and is called outside the chunk transaction.
+     * Reads, process listeners, skip and retry handling and writes all stay on the step
+     * thread, in item order.
+     */
+    protected static final String PROCESSOR_THREADS_PROPERTY = "com.ibm.websphere.batch.chunk.processorThreads";
+
     private Chunk chunk = null;
     private ItemReaderProxy readerProxy = null;
     private ItemProcessorProxy processorProxy = null;
@@ -106,6 +117,8 @@ public class ChunkStepControllerImpl extends SingleThreadedStepControllerImpl {
 
     protected int stepPropertyTranTimeoutSeconds = DEFAULT_TRAN_TIMEOUT_SECONDS;
 
+    protected int stepPropertyProcessorThreads = 1;
+
     public ChunkStepControllerImpl(RuntimeWorkUnitExecution runtimeWorkUnitExecution, Step step) {
         super(runtimeWorkUnitExecution, step);
     }
@@ -236,6 +249,10 @@ public class ChunkStepControllerImpl extends SingleThreadedStepControllerImpl {
      */
     private List<Object> readAndProcess() {
 
+        if (stepPropertyProcessorThreads > 1 && processorProxy != null && !currentChunkStatus.isRetryingAfterRollback()) {
+            return readAndProcessConcurrently();
+        }
+
         List<Object> chunkToWrite = new ArrayList<Object>();
         Object itemRead = null;
         Object itemProcessed = null;
@@ -260,54 +277,119 @@ public class ChunkStepControllerImpl extends SingleThreadedStepControllerImpl {
                 }
             }
 
-            // Break out of the loop to deliver one-at-a-time processing after rollback.
-            // No point calling isReadyToCheckpoint(), we know we're done.  Let's not
-            // complicate the checkpoint algorithm to hold this logic, just break right here.
-            if (currentChunkStatus.isRetryingAfterRollback()) {
+            if (isEndOfChunk()) {
                 break;
             }
+        }
+        return chunkToWrite;
+    }
 
-            // This will force the current item to finish processing on a stop request
-            if (runtimeStepExecution.getBatchStatus().equals(BatchStatus.STOPPING)) {
-                currentChunkStatus.markStopping();
-                break;
-            }
+    /**
+     * Like readAndProcess(), but while the step thread goes on reading, the items read are
+     * processed on threads from the batch thread pool, up to stepPropertyProcessorThreads
+     * at a time. The processed items are collected in the order they were read, and the
+     * process listeners and any skip or retry are handled on the step thread as each item
+     * is collected.
+     *
+     * @return an array list of objects to write
+     */
+    private List<Object> readAndProcessConcurrently() {
 
-            // Try the in memory map first, then the DB if not found
-            BatchStatus status = getBatchKernelService().getBatchStatus(runtimeWorkUnitExecution.getTopLevelExecutionId());
+        List<Object> chunkToWrite = new ArrayList<Object>();
+        ProcessItemQueue<SingleItemStatus> inProgress = new ProcessItemQueue<SingleItemStatus>(processorProxy, itemProcessListeners, getThreadPoolService(), stepPropertyProcessorThreads);
+        RuntimeException chunkFailure = null;
 
-            if (null == status) {
-                logger.finer("Local BatchStatus not found, querying DB");
-                JobExecutionEntity jobExecution = getPersistenceManagerService().getJobExecution(runtimeWorkUnitExecution.getTopLevelExecutionId());
-                status = jobExecution.getBatchStatus();
-            }
+        try {
+            while (true) {
+                currentItemStatus = new SingleItemStatus();
+                Object itemRead = readItem();
 
-            // This will force the current item to finish processing if top level job is stopping or stopped
-            if (status.equals(BatchStatus.STOPPING) || status.equals(BatchStatus.STOPPED)) {
-                currentChunkStatus.markStopping();
-                // The call below is important since the STOP may have been done against a top-level job executing remotely
-                // (at the time of this writing that implies the current object controls a partition level chunk).
-                // The above call breaks us out of the chunk loop.  The call below sets the step-level status to STOPPING (ultimately STOPPED)
-                // so it doesn't wrongly leave us with a COMPLETED partition.
-                markStepStopping();
-                break;
-            }
+                if (currentChunkStatus.wasMarkedForRollbackWithRetry()) {
+                    break;
+                }
 
-            // The spec, in Sec. 11.10, Chunk with Custom Checkpoint Processing, clearly
-            // outlines that this gets called even when we've already read a null (which
-            // arguably is pointless).   But we'll follow the spec.
-            if (checkpointManager.isReadyToCheckpoint()) {
-                break;
+                if (!currentItemStatus.isSkipped() && !currentChunkStatus.hasReadNull()) {
+                    if (inProgress.isFull()) {
+                        collectProcessedItem(inProgress.collect(), chunkToWrite);
+
+                        if (currentChunkStatus.wasMarkedForRollbackWithRetry()) {
+                            break;
+                        }
+                    }
+                    inProgress.submit(itemRead, currentItemStatus);
+                }
+
+                if (isEndOfChunk()) {
+                    break;
+                }
             }
 
-            // last record in readerProxy reached
-            if (currentChunkStatus.hasReadNull()) {
-                break;
+            while (!inProgress.isEmpty() && !currentChunkStatus.wasMarkedForRollbackWithRetry()) {
+                collectProcessedItem(inProgress.collect(), chunkToWrite);
+            }
+        } catch (RuntimeException e) {
+            chunkFailure = e;
+            throw e;
+        } finally {
+            // Items still in progress are not written, the chunk rolls back or fails.
+            if (!inProgress.isEmpty()) {
+                inProgress.abandon(chunkFailure != null ? chunkFailure : currentChunkStatus.getRetryableException());
             }
         }
         return chunkToWrite;
     }
 
+    /**
+     * Checks, after each item is read and processed, whether the chunk is complete.
+     *
+     * @return true if no more items should be read into the current chunk
+     */
+    private boolean isEndOfChunk() {
+
+        // Break out of the loop to deliver one-at-a-time processing after rollback.
+        // No point calling isReadyToCheckpoint(), we know we're done.  Let's not
+        // complicate the checkpoint algorithm to hold this logic, just break right here.
+        if (currentChunkStatus.isRetryingAfterRollback()) {
+            return true;
+        }
+
+        // This will force the current item to finish processing on a stop request
+        if (runtimeStepExecution.getBatchStatus().equals(BatchStatus.STOPPING)) {
+            currentChunkStatus.markStopping();
+            return true;
+        }
+
+        // Try the in memory map first, then the DB if not found
+        BatchStatus status = getBatchKernelService().getBatchStatus(runtimeWorkUnitExecution.getTopLevelExecutionId());
+
+        if (null == status) {
+            logger.finer("Local BatchStatus not found, querying DB");
+            JobExecutionEntity jobExecution = getPersistenceManagerService().getJobExecution(runtimeWorkUnitExecution.getTopLevelExecutionId());
+            status = jobExecution.getBatchStatus();
+        }
+
+        // This will force the current item to finish processing if top level job is stopping or stopped
+        if (status.equals(BatchStatus.STOPPING) || status.equals(BatchStatus.STOPPED)) {
+            currentChunkStatus.markStopping();
+            // The call below is important since the STOP may have been done against a top-level job executing remotely
+            // (at the time of this writing that implies the current object controls a partition level chunk).
+            // The above call breaks us out of the chunk loop.  The call below sets the step-level status to STOPPING (ultimately STOPPED)
+            // so it doesn't wrongly leave us with a COMPLETED partition.
+            markStepStopping();
+            return true;
+        }
+
+        // The spec, in Sec. 11.10, Chunk with Custom Checkpoint Processing, clearly
+        // outlines that this gets called even when we've already read a null (which
+        // arguably is pointless).   But we'll follow the spec.
+        if (checkpointManager.isReadyToCheckpoint()) {
+            return true;
+        }
+
+        // last record in readerProxy reached
+        return currentChunkStatus.hasReadNull();
+    }
+
     /**
      * Reads an item from the reader
      *
@@ -411,55 +493,116 @@ public class ChunkStepControllerImpl extends SingleThreadedStepControllerImpl {
 
             processedItem = processorProxy.processItem(itemRead);
 
-            if (processedItem == null) {
-                currentItemStatus.setFiltered(true);
-            }
-
-            for (ItemProcessListenerProxy processListenerProxy : itemProcessListeners) {
-                processListenerProxy.afterProcess(itemRead, processedItem);
-            }
+            afterProcessItem(itemRead, processedItem);
         } catch (Exception e) {
-            runtimeStepExecution.setException(e);
-            for (ItemProcessListenerProxy processListenerProxy : itemProcessListeners) {
-                processListenerProxy.onProcessError(itemRead, e);
-            }
-            if (!currentChunkStatus.isRetryingAfterRollback()) {
-                if (retryProcessException(e, itemRead)) {
-                    if (!retryHandler.isRollbackException(e)) {
-                        processedItem = processItem(itemRead);
-                    } else {
-                        currentChunkStatus.markForRollbackWithRetry(e);
-                    }
-                } else if (skipProcessException(e, itemRead)) {
-                    currentItemStatus.setSkipped(true);
-                    runtimeStepExecution.getMetric(MetricImpl.MetricType.PROCESS_SKIP_COUNT).incValue();
+            processedItem = handleProcessException(itemRead, e);
+        } catch (Throwable e) {
+            throw new BatchContainerRuntimeException(e);
+        }
+
+        logger.exiting(sourceClass, "processItem", processedItem == null ? "<null>" : processedItem);
+        return processedItem;
+    }
+
+    /**
+     * Marks the current item filtered if need be and calls the process listeners
+     * after an item has been processed.
+     *
+     * @param itemRead
+     *            the item read
+     * @param processedItem
+     *            the processed item
+     */
+    private void afterProcessItem(Object itemRead, Object processedItem) throws Exception {
+
+        if (processedItem == null) {
+            currentItemStatus.setFiltered(true);
+        }
+
+        for (ItemProcessListenerProxy processListenerProxy : itemProcessListeners) {
+            processListenerProxy.afterProcess(itemRead, processedItem);
+        }
+    }
+
+    /**
+     * Skips or retries an item whose processing failed, or fails the chunk.
+     *
+     * @param itemRead
+     *            the item read
+     * @param e
+     *            the exception from the processor or a process listener
+     * @return the processed item, if it was retried without rollback
+     */
+    private Object handleProcessException(Object itemRead, Exception e) {
+        Object processedItem = null;
+
+        runtimeStepExecution.setException(e);
+        for (ItemProcessListenerProxy processListenerProxy : itemProcessListeners) {
+            processListenerProxy.onProcessError(itemRead, e);
+        }
+        if (!currentChunkStatus.isRetryingAfterRollback()) {
+            if (retryProcessException(e, itemRead)) {
+                if (!retryHandler.isRollbackException(e)) {
+                    processedItem = processItem(itemRead);
                 } else {
-                    throw new BatchContainerRuntimeException(e);
+                    currentChunkStatus.markForRollbackWithRetry(e);
                 }
+            } else if (skipProcessException(e, itemRead)) {
+                currentItemStatus.setSkipped(true);
+                runtimeStepExecution.getMetric(MetricImpl.MetricType.PROCESS_SKIP_COUNT).incValue();
             } else {
-                if (skipProcessException(e, itemRead)) {
-                    currentItemStatus.setSkipped(true);
-                    runtimeStepExecution.getMetric(MetricImpl.MetricType.PROCESS_SKIP_COUNT).incValue();
-                } else if (retryProcessException(e, itemRead)) {
-
-                    if (!retryHandler.isRollbackException(e)) {
-                        // retry without rollback
-                        processedItem = processItem(itemRead);
-                    } else {
-                        // retry with rollback
-                        currentChunkStatus.markForRollbackWithRetry(e);
-                    }
+                throw new BatchContainerRuntimeException(e);
+            }
+        } else {
+            if (skipProcessException(e, itemRead)) {
+                currentItemStatus.setSkipped(true);
+                runtimeStepExecution.getMetric(MetricImpl.MetricType.PROCESS_SKIP_COUNT).incValue();
+            } else if (retryProcessException(e, itemRead)) {
+
+                if (!retryHandler.isRollbackException(e)) {
+                    // retry without rollback
+                    processedItem = processItem(itemRead);
                 } else {
-                    throw new BatchContainerRuntimeException(e);
+                    // retry with rollback
+                    currentChunkStatus.markForRollbackWithRetry(e);
                 }
+            } else {
+                throw new BatchContainerRuntimeException(e);
             }
+        }
 
+        return processedItem;
+    }
+
+    /**
+     * Handles the outcome of processing an item on the step thread, as processItem()
+     * would, adding the processed item to the chunk.
+     *
+     * @param task
+     *            the task which processed the item
+     * @param chunkToWrite
+     *            the chunk to add the processed item to
+     */
+    private void collectProcessedItem(ProcessItemQueue.Task<SingleItemStatus> task, List<Object> chunkToWrite) {
+        Object processedItem = null;
+
+        currentItemStatus = task.itemStatus;
+        try {
+            if (task.failure != null) {
+                throw task.failure;
+            }
+            processedItem = task.processedItem;
+
+            afterProcessItem(task.itemRead, processedItem);
+        } catch (Exception e) {
+            processedItem = handleProcessException(task.itemRead, e);
         } catch (Throwable e) {
             throw new BatchContainerRuntimeException(e);
         }
 
-        logger.exiting(sourceClass, "processItem", processedItem == null ? "<null>" : processedItem);
-        return processedItem;
+        if (!currentChunkStatus.wasMarkedForRollbackWithRetry() && !currentItemStatus.isSkipped() && !currentItemStatus.isFiltered()) {
+            chunkToWrite.add(processedItem);
+        }
     }
 
     /**
@@ -841,6 +984,8 @@ public class ChunkStepControllerImpl extends SingleThreadedStepControllerImpl {
         // A related piece of data we'll calculate here is the tran timeout.   Though we won't include
         // it in the checkpoint manager since we'll set it directly on the tran mgr before each chunk.
         stepPropertyTranTimeoutSeconds = initStepTransactionTimeout();
+
+        stepPropertyProcessorThreads = initStepProcessorThreads();
     }
 
     /*
@@ -1087,6 +1232,30 @@ public class ChunkStepControllerImpl extends SingleThreadedStepControllerImpl {
         return timeout;
     }
 
+    /**
+     * Note we can rely on the StepContext properties already having been set at this point.
+     *
+     * @return the number of items that may be processed at the same time, defined in
+     *         step properties. default is 1
+     */
+    private int initStepProcessorThreads() {
+        logger.entering(sourceClass, "initStepProcessorThreads");
+        Properties p = runtimeStepExecution.getProperties();
+        int threads = 1;
+        if (p != null && !p.isEmpty()) {
+
+            String propertyThreads = p.getProperty(PROCESSOR_THREADS_PROPERTY);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, PROCESSOR_THREADS_PROPERTY + " = {0}", propertyThreads == null ? "<null>" : propertyThreads);
+            }
+            if (propertyThreads != null && !propertyThreads.isEmpty()) {
+                threads = Integer.parseInt(propertyThreads.trim(), 10);
+            }
+        }
+        logger.exiting(sourceClass, "initStepProcessorThreads", threads);
+        return threads;
+    }
+
     private void positionReaderAtCheckpoint() {
 
         CheckpointData checkpointData = getStepThreadInstance().getCheckpointData();
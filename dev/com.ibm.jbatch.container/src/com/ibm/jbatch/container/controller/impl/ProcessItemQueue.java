@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.jbatch.container.controller.impl;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ibm.jbatch.container.artifact.proxy.ItemProcessListenerProxy;
+import com.ibm.jbatch.container.artifact.proxy.ItemProcessorProxy;
+import com.ibm.jbatch.container.exception.BatchContainerRuntimeException;
+import com.ibm.jbatch.spi.services.IBatchThreadPoolService;
+
+/**
+ * The items of a chunk being processed on threads from the batch thread pool for
+ * ChunkStepControllerImpl.readAndProcessConcurrently(). Items are collected in the
+ * order they were submitted.
+ *
+ * The process listeners are called on the step thread: beforeProcess as an item is
+ * submitted, and onProcessError for an item which is abandoned because the chunk rolls
+ * back or fails before it is collected. The caller calls afterProcess or onProcessError
+ * for the items it collects.
+ *
+ * @param <S> the status kept with each item
+ */
+class ProcessItemQueue<S> {
+
+    private final static String sourceClass = ProcessItemQueue.class.getName();
+    private final static Logger logger = Logger.getLogger(sourceClass);
+
+    private final ItemProcessorProxy processorProxy;
+    private final List<ItemProcessListenerProxy> itemProcessListeners;
+    private final IBatchThreadPoolService threadPoolService;
+    private final int maxInProgress;
+
+    private final LinkedList<Task<S>> inProgress = new LinkedList<Task<S>>();
+
+    ProcessItemQueue(ItemProcessorProxy processorProxy, List<ItemProcessListenerProxy> itemProcessListeners,
+                     IBatchThreadPoolService threadPoolService, int maxInProgress) {
+        this.processorProxy = processorProxy;
+        this.itemProcessListeners = itemProcessListeners;
+        this.threadPoolService = threadPoolService;
+        this.maxInProgress = maxInProgress;
+    }
+
+    /**
+     * @return true if no items are in progress
+     */
+    boolean isEmpty() {
+        return inProgress.isEmpty();
+    }
+
+    /**
+     * @return true if an item must be collected before another is submitted
+     */
+    boolean isFull() {
+        return inProgress.size() >= maxInProgress;
+    }
+
+    /**
+     * Calls the process listeners then hands an item to the batch thread pool to be processed.
+     * A failure of either is kept with the item, to be handled when it is collected.
+     *
+     * @param itemRead
+     *            the item read
+     * @param itemStatus
+     *            the status to keep with the item
+     */
+    void submit(Object itemRead, S itemStatus) {
+        logger.entering(sourceClass, "submit", itemRead);
+
+        Task<S> task = new Task<S>(processorProxy, itemRead, itemStatus);
+        inProgress.addLast(task);
+        try {
+            for (ItemProcessListenerProxy processListenerProxy : itemProcessListeners) {
+                processListenerProxy.beforeProcess(itemRead);
+            }
+            task.future = threadPoolService.executeParallelTask(task, null);
+        } catch (Throwable t) {
+            task.failure = t;
+        }
+
+        logger.exiting(sourceClass, "submit");
+    }
+
+    /**
+     * Waits for the item submitted first to be processed.
+     *
+     * @return the task which processed the item
+     */
+    Task<S> collect() {
+        Task<S> task = inProgress.removeFirst();
+        task.await();
+        return task;
+    }
+
+    /**
+     * Waits for the items which will not be collected, so the processor does not run on past
+     * a rollback or a failure of the chunk, and calls onProcessError for each of them so every
+     * beforeProcess is matched. Exceptions from the listeners are logged rather than thrown, so
+     * they don't hide the reason the chunk was abandoned.
+     *
+     * @param cause
+     *            the exception passed to the listeners for items which did not fail themselves
+     */
+    void abandon(Exception cause) {
+        while (!inProgress.isEmpty()) {
+            Task<S> task = inProgress.removeFirst();
+            task.awaitQuietly();
+
+            Exception e = task.failure instanceof Exception ? (Exception) task.failure : cause;
+            if (e == null) {
+                e = new BatchContainerRuntimeException("Processing of the item was abandoned");
+            }
+            for (ItemProcessListenerProxy processListenerProxy : itemProcessListeners) {
+                try {
+                    processListenerProxy.onProcessError(task.itemRead, e);
+                } catch (RuntimeException re) {
+                    if (logger.isLoggable(Level.FINE)) {
+                        logger.log(Level.FINE, "Ignoring exception from onProcessError for abandoned item " + task.itemRead, re);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes one item on a thread from the batch thread pool.
+     */
+    static class Task<S> implements Runnable {
+
+        private final ItemProcessorProxy processorProxy;
+        final Object itemRead;
+        final S itemStatus;
+        Future<?> future;
+        volatile Object processedItem;
+        volatile Throwable failure;
+
+        Task(ItemProcessorProxy processorProxy, Object itemRead, S itemStatus) {
+            this.processorProxy = processorProxy;
+            this.itemRead = itemRead;
+            this.itemStatus = itemStatus;
+        }
+
+        @Override
+        public void run() {
+            try {
+                processedItem = processorProxy.processItem(itemRead);
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        /**
+         * Waits for the item to be processed.
+         */
+        void await() {
+            if (future == null) {
+                return;
+            }
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BatchContainerRuntimeException(e);
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            }
+        }
+
+        /**
+         * Waits for the item to be processed, ignoring the outcome.
+         */
+        void awaitQuietly() {
+            try {
+                await();
+            } catch (BatchContainerRuntimeException e) {
+                // Interrupted, the chunk is failing anyway.
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -39,6 +40,7 @@ import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.transaction.NotSupportedException;
 import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
 import javax.transaction.Transaction;
 
@@ -158,6 +160,26 @@ public class JPAPersistenceManagerImpl extends AbstractPersistenceManager implem
     private static final int MAX_EXECUTION_VERSION = 2;
     private static final int MAX_INSTANCE_VERSION = 2;
 
+    /**
+     * The maximum number of job instances, and of job executions, in the identityCache.
+     */
+    private static final int MAX_IDENTITY_CACHE_ENTRIES = 1000;
+
+    /**
+     * Read-through cache of the application name and submitter of job instances, and of the
+     * job instance of job executions, none of which change once they have been created.
+     */
+    private final JobInstanceIdentityCache identityCache = new JobInstanceIdentityCache(MAX_IDENTITY_CACHE_ENTRIES);
+
+    /**
+     * EntityManagers shared by the step thread updates made within each global transaction.
+     * The checkpoint of a chunk updates both the step thread execution and the step thread
+     * instance; sharing one persistence context means each entity is loaded at most once
+     * per transaction, and updated by a single statement when the transaction commits,
+     * however many times it is changed.
+     */
+    private final ConcurrentHashMap<Transaction, EntityManager> tranEntityManagers = new ConcurrentHashMap<Transaction, EntityManager>();
+
     /**
      * Declarative Services method for setting the Liberty executor.
      *
@@ -426,6 +448,42 @@ public class JPAPersistenceManagerImpl extends AbstractPersistenceManager implem
         }
     }
 
+    @Override
+    public long getJobInstanceIdFromExecutionId(long jobExecutionId) throws NoSuchJobExecutionException {
+        Long jobInstanceId = identityCache.getInstanceId(jobExecutionId);
+        if (jobInstanceId == null) {
+            jobInstanceId = super.getJobInstanceIdFromExecutionId(jobExecutionId);
+            identityCache.putExecution(jobExecutionId, jobInstanceId);
+        }
+        return jobInstanceId;
+    }
+
+    @Override
+    public String getJobInstanceAppName(long jobInstanceId) throws NoSuchJobInstanceException {
+        return getJobInstanceIdentity(jobInstanceId).amcName;
+    }
+
+    @Override
+    public String getJobInstanceAppNameFromExecutionId(long jobExecutionId) throws NoSuchJobExecutionException {
+        return getJobInstanceIdentity(getJobInstanceIdFromExecutionId(jobExecutionId)).amcName;
+    }
+
+    @Override
+    public String getJobInstanceSubmitter(long jobInstanceId) throws NoSuchJobInstanceException {
+        return getJobInstanceIdentity(jobInstanceId).submitter;
+    }
+
+    /**
+     * @return the application name and submitter of the job instance, from the identityCache if possible
+     */
+    private JobInstanceIdentityCache.Identity getJobInstanceIdentity(long jobInstanceId) throws NoSuchJobInstanceException {
+        JobInstanceIdentityCache.Identity identity = identityCache.getInstance(jobInstanceId);
+        if (identity == null) {
+            identity = identityCache.putInstance(getJobInstance(jobInstanceId));
+        }
+        return identity;
+    }
+
     @Override
     public List<JobInstanceEntity> getJobInstances(String jobName, int start, int count) {
         EntityManager em = getPsu().createEntityManager();
@@ -1653,7 +1711,8 @@ public class JPAPersistenceManagerImpl extends AbstractPersistenceManager implem
 
     @Override
     public StepThreadInstanceEntity updateStepThreadInstanceWithCheckpointData(final StepThreadInstanceEntity stepThreadInstance) {
-        EntityManager em = getPsu().createEntityManager();
+        EntityManager tranEm = getTranEntityManager();
+        EntityManager em = (tranEm != null) ? tranEm : getPsu().createEntityManager();
         try {
             return new TranRequest<StepThreadInstanceEntity>(em) {
                 @Override
@@ -1663,7 +1722,9 @@ public class JPAPersistenceManagerImpl extends AbstractPersistenceManager implem
                 }
             }.runInNewOrExistingGlobalTran();
         } finally {
-            em.close();
+            if (tranEm == null) {
+                em.close();
+            }
         }
     }
 
@@ -1798,7 +1859,8 @@ public class JPAPersistenceManagerImpl extends AbstractPersistenceManager implem
 
     @Override
     public StepThreadExecutionEntity updateStepExecution(final RuntimeStepExecution runtimeStepExecution) {
-        EntityManager em = getPsu().createEntityManager();
+        EntityManager tranEm = getTranEntityManager();
+        EntityManager em = (tranEm != null) ? tranEm : getPsu().createEntityManager();
         //Create a synchronization object
         TranSynchronization tranSynch = new TranSynchronization(runtimeStepExecution);
         try {
@@ -1827,7 +1889,9 @@ public class JPAPersistenceManagerImpl extends AbstractPersistenceManager implem
                 }
             }.runInNewOrExistingGlobalTran();
         } finally {
-            em.close();
+            if (tranEm == null) {
+                em.close();
+            }
         }
     }
 
@@ -2228,6 +2292,7 @@ public class JPAPersistenceManagerImpl extends AbstractPersistenceManager implem
                 }
             }.runInNewOrExistingGlobalTran();
 
+            identityCache.remove(jobInstanceId);
             return true;
         } finally {
             em.close();
@@ -2295,6 +2360,64 @@ public class JPAPersistenceManagerImpl extends AbstractPersistenceManager implem
 //
 //    }
 
+    /**
+     * @return the EntityManager shared by the step thread updates made within the current global
+     *         transaction, closed when the transaction completes; or null if there is no global transaction
+     */
+    private EntityManager getTranEntityManager() {
+        final Transaction tran;
+        try {
+            tran = tranMgr.getTransaction();
+        } catch (SystemException e) {
+            throw new PersistenceException(e);
+        }
+        if (tran == null) {
+            return null;
+        }
+
+        EntityManager em = tranEntityManagers.get(tran);
+        if (em == null) {
+            em = getPsu().createEntityManager();
+            boolean registered = false;
+            try {
+                UOWCurrent uowCurrent = (UOWCurrent) tranMgr;
+                tranMgr.registerSynchronization(uowCurrent.getUOWCoord(), new TranEntityManagerCloser(tran), EmbeddableWebSphereTransactionManager.SYNC_TIER_NORMAL);
+                registered = true;
+            } finally {
+                // Nothing would close the EntityManager once the transaction completes.
+                if (!registered) {
+                    em.close();
+                }
+            }
+            // Only this thread runs in the transaction.
+            tranEntityManagers.put(tran, em);
+        }
+        return em;
+    }
+
+    /**
+     * Closes the EntityManager shared within a global transaction once the transaction has completed.
+     */
+    private class TranEntityManagerCloser implements Synchronization {
+
+        private final Transaction tran;
+
+        TranEntityManagerCloser(Transaction tran) {
+            this.tran = tran;
+        }
+
+        @Override
+        public void beforeCompletion() {}
+
+        @Override
+        public void afterCompletion(int status) {
+            EntityManager em = tranEntityManagers.remove(tran);
+            if (em != null) {
+                em.close();
+            }
+        }
+    }
+
     /**
      * Inner class for wrapping EntityManager persistence functions with transactions, if needed. Used
      * with handleRetry to manage rollbacks.
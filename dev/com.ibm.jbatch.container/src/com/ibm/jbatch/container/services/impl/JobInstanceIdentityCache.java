@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.jbatch.container.services.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ibm.jbatch.container.ws.WSJobInstance;
+
+/**
+ * Bounded, least recently used cache of the parts of a job instance that never change once
+ * it has been created: the application name and the submitter, and the job instance that
+ * each job execution belongs to.
+ *
+ * These are looked up for every authorization check made on a job, so caching them saves
+ * loading the job instance or job execution from the job repository each time.
+ */
+class JobInstanceIdentityCache {
+
+    /**
+     * The application name and submitter of a job instance.
+     */
+    static class Identity {
+        final String amcName;
+        final String submitter;
+
+        Identity(String amcName, String submitter) {
+            this.amcName = amcName;
+            this.submitter = submitter;
+        }
+    }
+
+    private final Map<Long, Identity> instances;
+
+    private final Map<Long, Long> executionToInstance;
+
+    /**
+     * @param maxEntries the maximum number of job instances, and of job executions, to cache
+     */
+    JobInstanceIdentityCache(final int maxEntries) {
+        instances = new LinkedHashMap<Long, Identity>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Identity> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        executionToInstance = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the cached identity of the job instance, or null
+     */
+    synchronized Identity getInstance(long jobInstanceId) {
+        return instances.get(jobInstanceId);
+    }
+
+    /**
+     * @return the cached id of the job instance the job execution belongs to, or null
+     */
+    synchronized Long getInstanceId(long jobExecutionId) {
+        return executionToInstance.get(jobExecutionId);
+    }
+
+    /**
+     * Cache the identity of a job instance.
+     *
+     * @return the identity cached
+     */
+    synchronized Identity putInstance(WSJobInstance jobInstance) {
+        Identity identity = new Identity(jobInstance.getAmcName(), jobInstance.getSubmitter());
+        instances.put(jobInstance.getInstanceId(), identity);
+        return identity;
+    }
+
+    /**
+     * Cache the job instance a job execution belongs to.
+     */
+    synchronized void putExecution(long jobExecutionId, long jobInstanceId) {
+        executionToInstance.put(jobExecutionId, jobInstanceId);
+    }
+
+    /**
+     * Forget a job instance, and its job executions, once it has been purged.
+     */
+    synchronized void remove(long jobInstanceId) {
+        instances.remove(jobInstanceId);
+        for (Iterator<Long> it = executionToInstance.values().iterator(); it.hasNext();) {
+            if (it.next() == jobInstanceId) {
+                it.remove();
+            }
+        }
+    }
+}
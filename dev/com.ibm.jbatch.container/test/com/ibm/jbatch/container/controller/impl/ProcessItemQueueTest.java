@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.jbatch.container.controller.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.ibm.jbatch.container.artifact.proxy.ItemProcessListenerProxy;
+import com.ibm.jbatch.container.artifact.proxy.ItemProcessorProxy;
+import com.ibm.jbatch.container.exception.BatchContainerRuntimeException;
+import com.ibm.jbatch.spi.services.IBatchThreadPoolService;
+
+/*
+ * Test the ordering of concurrently processed chunk items, and that every beforeProcess
+ * is matched by onProcessError when the items are abandoned.
+ */
+public class ProcessItemQueueTest {
+
+    private ExecutorService executor;
+    private IBatchThreadPoolService threadPoolService;
+    private ItemProcessorProxy processor;
+    private ItemProcessListenerProxy listener;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        threadPoolService = mock(IBatchThreadPoolService.class);
+        when(threadPoolService.executeParallelTask(any(Runnable.class), anyObject())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return executor.submit((Runnable) invocation.getArguments()[0]);
+            }
+        });
+        processor = mock(ItemProcessorProxy.class);
+        listener = mock(ItemProcessListenerProxy.class);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private ProcessItemQueue<String> newQueue(ItemProcessListenerProxy... listeners) {
+        return new ProcessItemQueue<String>(processor, Arrays.asList(listeners), threadPoolService, 2);
+    }
+
+    @Test
+    public void testCollectInSubmitOrder() throws Exception {
+        final CountDownLatch secondProcessed = new CountDownLatch(1);
+        when(processor.processItem(anyObject())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Exception {
+                Object item = invocation.getArguments()[0];
+                if ("a".equals(item)) {
+                    // finish after the second item
+                    assertTrue(secondProcessed.await(10, TimeUnit.SECONDS));
+                } else {
+                    secondProcessed.countDown();
+                }
+                return "processed " + item;
+            }
+        });
+
+        ProcessItemQueue<String> queue = newQueue(listener);
+        assertTrue(queue.isEmpty());
+        queue.submit("a", "status a");
+        assertFalse(queue.isFull());
+        queue.submit("b", "status b");
+        assertTrue(queue.isFull());
+
+        ProcessItemQueue.Task<String> first = queue.collect();
+        assertEquals("a", first.itemRead);
+        assertEquals("status a", first.itemStatus);
+        assertEquals("processed a", first.processedItem);
+        assertNull(first.failure);
+
+        ProcessItemQueue.Task<String> second = queue.collect();
+        assertEquals("b", second.itemRead);
+        assertEquals("processed b", second.processedItem);
+        assertTrue(queue.isEmpty());
+
+        InOrder inOrder = inOrder(listener, processor);
+        inOrder.verify(listener).beforeProcess("a");
+        inOrder.verify(processor).processItem("a");
+        verify(listener).beforeProcess("b");
+        // afterProcess is left to the step thread as each item is collected
+        verify(listener, never()).afterProcess(anyObject(), anyObject());
+        verify(listener, never()).onProcessError(anyObject(), any(Exception.class));
+    }
+
+    @Test
+    public void testProcessFailureKeptWithItem() throws Exception {
+        IllegalStateException failure = new IllegalStateException("a failed");
+        when(processor.processItem("a")).thenThrow(failure);
+
+        ProcessItemQueue<String> queue = newQueue(listener);
+        queue.submit("a", "status a");
+
+        ProcessItemQueue.Task<String> task = queue.collect();
+        assertSame(failure, task.failure);
+        assertNull(task.processedItem);
+    }
+
+    @Test
+    public void testBeforeProcessFailureKeptWithItem() throws Exception {
+        BatchContainerRuntimeException failure = new BatchContainerRuntimeException("listener failed");
+        doThrow(failure).when(listener).beforeProcess("a");
+
+        ProcessItemQueue<String> queue = newQueue(listener);
+        queue.submit("a", "status a");
+
+        ProcessItemQueue.Task<String> task = queue.collect();
+        assertSame(failure, task.failure);
+        verify(processor, never()).processItem(anyObject());
+    }
+
+    @Test
+    public void testAbandonCallsOnProcessErrorForItemsNotCollected() throws Exception {
+        when(processor.processItem(anyObject())).thenReturn("processed");
+        Exception rollback = new Exception("rollback");
+
+        ProcessItemQueue<String> queue = newQueue(listener);
+        queue.submit("a", "status a");
+        queue.submit("b", "status b");
+        queue.collect();
+        queue.submit("c", "status c");
+        queue.abandon(rollback);
+
+        assertTrue(queue.isEmpty());
+        verify(listener).beforeProcess("a");
+        verify(listener).beforeProcess("b");
+        verify(listener).beforeProcess("c");
+        verify(listener, never()).onProcessError(eq("a"), any(Exception.class));
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onProcessError("b", rollback);
+        inOrder.verify(listener).onProcessError("c", rollback);
+    }
+
+    @Test
+    public void testAbandonWaitsForProcessing() throws Exception {
+        final AtomicBoolean processed = new AtomicBoolean();
+        when(processor.processItem("a")).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Exception {
+                Thread.sleep(200);
+                processed.set(true);
+                return "processed";
+            }
+        });
+
+        ProcessItemQueue<String> queue = newQueue(listener);
+        queue.submit("a", "status a");
+        queue.abandon(new Exception("rollback"));
+
+        assertTrue("the processor ran on past the rollback", processed.get());
+        verify(listener).onProcessError(eq("a"), any(Exception.class));
+    }
+
+    @Test
+    public void testAbandonPassesFailureOfItem() throws Exception {
+        IllegalStateException failure = new IllegalStateException("a failed");
+        when(processor.processItem("a")).thenThrow(failure);
+
+        ProcessItemQueue<String> queue = newQueue(listener);
+        queue.submit("a", "status a");
+        queue.abandon(new Exception("rollback"));
+
+        verify(listener).onProcessError("a", failure);
+    }
+
+    @Test
+    public void testAbandonWithoutCause() throws Exception {
+        when(processor.processItem("a")).thenReturn("processed");
+
+        ProcessItemQueue<String> queue = newQueue(listener);
+        queue.submit("a", "status a");
+        queue.abandon(null);
+
+        verify(listener).onProcessError(eq("a"), any(BatchContainerRuntimeException.class));
+    }
+
+    @Test
+    public void testAbandonIgnoresListenerFailures() throws Exception {
+        when(processor.processItem(anyObject())).thenReturn("processed");
+        ItemProcessListenerProxy failingListener = mock(ItemProcessListenerProxy.class);
+        doThrow(new BatchContainerRuntimeException("listener failed")).when(failingListener).onProcessError(anyObject(), any(Exception.class));
+        Exception rollback = new Exception("rollback");
+
+        ProcessItemQueue<String> queue = newQueue(failingListener, listener);
+        queue.submit("a", "status a");
+        queue.submit("b", "status b");
+        queue.abandon(rollback);
+
+        assertTrue(queue.isEmpty());
+        verify(failingListener).onProcessError("a", rollback);
+        verify(failingListener).onProcessError("b", rollback);
+        verify(listener).onProcessError("a", rollback);
+        verify(listener).onProcessError("b", rollback);
+    }
+}
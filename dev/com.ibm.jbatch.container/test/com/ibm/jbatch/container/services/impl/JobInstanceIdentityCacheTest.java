@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.jbatch.container.services.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import com.ibm.jbatch.container.ws.WSJobInstance;
+
+/*
+ * Test the bounded cache of job instance application names, submitters and execution ids.
+ */
+public class JobInstanceIdentityCacheTest {
+
+    private WSJobInstance mockJobInstance(long instanceId, String amcName, String submitter) {
+        WSJobInstance jobInstance = mock(WSJobInstance.class);
+        when(jobInstance.getInstanceId()).thenReturn(instanceId);
+        when(jobInstance.getAmcName()).thenReturn(amcName);
+        when(jobInstance.getSubmitter()).thenReturn(submitter);
+        return jobInstance;
+    }
+
+    @Test
+    public void testPutAndGetInstance() {
+        JobInstanceIdentityCache cache = new JobInstanceIdentityCache(10);
+
+        assertNull(cache.getInstance(1));
+        cache.putInstance(mockJobInstance(1, "app1", "bob"));
+
+        JobInstanceIdentityCache.Identity identity = cache.getInstance(1);
+        assertEquals("app1", identity.amcName);
+        assertEquals("bob", identity.submitter);
+    }
+
+    @Test
+    public void testPutAndGetExecution() {
+        JobInstanceIdentityCache cache = new JobInstanceIdentityCache(10);
+
+        assertNull(cache.getInstanceId(5));
+        cache.putExecution(5, 1);
+
+        assertEquals(Long.valueOf(1), cache.getInstanceId(5));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        JobInstanceIdentityCache cache = new JobInstanceIdentityCache(2);
+
+        cache.putInstance(mockJobInstance(1, "app1", "bob"));
+        cache.putInstance(mockJobInstance(2, "app2", "bob"));
+        cache.getInstance(1);
+        cache.putInstance(mockJobInstance(3, "app3", "bob"));
+
+        assertEquals("app1", cache.getInstance(1).amcName);
+        assertNull(cache.getInstance(2));
+        assertEquals("app3", cache.getInstance(3).amcName);
+    }
+
+    @Test
+    public void testRemove() {
+        JobInstanceIdentityCache cache = new JobInstanceIdentityCache(10);
+
+        cache.putInstance(mockJobInstance(1, "app1", "bob"));
+        cache.putInstance(mockJobInstance(2, "app2", "bob"));
+        cache.putExecution(5, 1);
+        cache.putExecution(6, 1);
+        cache.putExecution(7, 2);
+        cache.remove(1);
+
+        assertNull(cache.getInstance(1));
+        assertNull(cache.getInstanceId(5));
+        assertNull(cache.getInstanceId(6));
+        assertEquals("app2", cache.getInstance(2).amcName);
+        assertEquals(Long.valueOf(2), cache.getInstanceId(7));
+    }
+}
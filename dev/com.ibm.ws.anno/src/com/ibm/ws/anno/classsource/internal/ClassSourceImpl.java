@@ -11,6 +11,7 @@
 
 package com.ibm.ws.anno.classsource.internal;
 
+import java.io.File;
 import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.Set;
@@ -200,6 +201,21 @@ public abstract class ClassSourceImpl implements ClassSource {
 
     //
 
+    /**
+     * <p>Answer the archive file which holds the classes of this class source.
+     * Answer null if the classes are not held by a single archive file.</p>
+     *
+     * <p>Scan results are only cached for class sources which have an archive file.</p>
+     *
+     * @return The archive file which holds the classes of this class source. Null if
+     *         the classes are not held by a single archive file.
+     */
+    public File getArchiveFile() {
+        return null;
+    }
+
+    //
+
     protected final ClassSourceImpl_ScanCounts scanCounts;
 
     @Override
@@ -393,6 +409,44 @@ public abstract class ClassSourceImpl implements ClassSource {
         return classInclusionCount;
     }
 
+    // Entry from:
+    //   ClassSourceImpl_ParallelScan.streamClasses(ClassSourceImpl, List, ClassSource_Streamer, Set, ScanPolicy)
+    //
+    // A class which was read on a scan thread, and which was counted as included, is
+    // masked by the same class in an earlier class source.  Count the class as a
+    // duplicate instead.
+
+    protected void markDuplicate(boolean didProcess) {
+        classInclusionCount--;
+        classExclusionCount++;
+
+        scanCounts.decrement(didProcess ? ClassSource_ScanCounts.ResultField.PROCESSED_CLASS
+                                        : ClassSource_ScanCounts.ResultField.UNPROCESSED_CLASS);
+        markResult(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS);
+    }
+
+    // Entry from:
+    //   AnnotationTargetsImpl_Streamer.loadScan(ClassSourceImpl, ScanPolicy, Set)
+    //
+    // A class is being loaded from the cached results of an earlier scan instead of
+    // being read from this class source.  Record and count the class as if it were
+    // read.  Answer the interned class name, or null if the class is masked by the
+    // same class in an earlier class source.
+
+    public String i_maybeAddCachedClass(String className, Set<String> i_seedClassNames) {
+        String i_className = internClassName(className);
+
+        if (!i_maybeAdd(i_className, i_seedClassNames)) {
+            incrementClassExclusionCount();
+            markResult(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS);
+            return null;
+        }
+
+        incrementClassInclusionCount();
+        markResult(ClassSource_ScanCounts.ResultField.PROCESSED_CLASS);
+        return i_className;
+    }
+
     //
 
     @Override
@@ -338,50 +338,69 @@ public class ClassSourceImpl_Aggregate extends ClassSourceImpl implements ClassS
         // Only scan the children which were successfully opened.
         // Children which could not be opened are removed from view.
 
-        for (ClassSource childSource : getSuccessfulOpens()) {
-            String childName = childSource.getCanonicalName();
-
-            ScanPolicy scanPolicy = getScanPolicy(childSource);
-            if (scanPolicy == ScanPolicy.EXTERNAL) {
-                continue; // completely skip it!
+        int scanThreads = ClassSourceImpl_ParallelScan.getScanThreads();
+        if (scanThreads > 1) {
+            List<ClassSource> childSources = new ArrayList<ClassSource>();
+            List<ScanPolicy> scanPolicies = new ArrayList<ScanPolicy>();
+            for (ClassSource childSource : getSuccessfulOpens()) {
+                ScanPolicy scanPolicy = getScanPolicy(childSource);
+                if (scanPolicy != ScanPolicy.EXTERNAL) {
+                    childSources.add(childSource);
+                    scanPolicies.add(scanPolicy);
+                }
             }
 
-            // Processing notes:
-            //
-            // Make sure to record the class before attempting processing.
-            //
-            // Only one version of the class is to be processed, even if processing
-            // fails on that one version.
-            //
-            // That is, if two child class sources have versions of a class, and
-            // the version from the first class source is non-valid, the version
-            // of the class in the second class source is still masked by the
-            // version in the first class source.
-
-            // TODO: Should the seed class scan update the lookup tables?
-            //       Currently, the lookup tables are only populated on demand
-            //       from info store usage.  That keeps the lookup tables small,
-            //       with the added cost of repeating lookups across the class
-            //       sources.  The alternative would be to populate the lookup
-            //       tables during this initial scan step, which would add a
-            //       storage overhead as a tradeoff for faster lookups.
+            ClassSourceImpl_ParallelScan parallelScan = new ClassSourceImpl_ParallelScan(this, scanThreads);
+            parallelScan.scanClasses(streamer, childSources, scanPolicies, i_seedClassNames);
 
-            childSource.scanClasses(streamer, i_seedClassNames, scanPolicy);
-            // throws ClassSource_Exception
+            finalSize = i_seedClassNames.size();
 
-            ClassSource_ScanCounts childScanCounts = childSource.getScanResults();
-            addResults(childScanCounts);
+        } else {
+            for (ClassSource childSource : getSuccessfulOpens()) {
+                String childName = childSource.getCanonicalName();
 
-            int nextSize = i_seedClassNames.size();
+                ScanPolicy scanPolicy = getScanPolicy(childSource);
+                if (scanPolicy == ScanPolicy.EXTERNAL) {
+                    continue; // completely skip it!
+                }
 
-            if (tc.isDebugEnabled()) {
-                Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] [ {2} ] Added [ {3} ]",
-                                                  new Object[] { getHashText(), childName,
-                                                                childSource.getHashText(),
-                                                                Integer.valueOf(nextSize - finalSize) }));
-            }
+                // Processing notes:
+                //
+                // Make sure to record the class before attempting processing.
+                //
+                // Only one version of the class is to be processed, even if processing
+                // fails on that one version.
+                //
+                // That is, if two child class sources have versions of a class, and
+                // the version from the first class source is non-valid, the version
+                // of the class in the second class source is still masked by the
+                // version in the first class source.
+
+                // TODO: Should the seed class scan update the lookup tables?
+                //       Currently, the lookup tables are only populated on demand
+                //       from info store usage.  That keeps the lookup tables small,
+                //       with the added cost of repeating lookups across the class
+                //       sources.  The alternative would be to populate the lookup
+                //       tables during this initial scan step, which would add a
+                //       storage overhead as a tradeoff for faster lookups.
+
+                scanChildClasses(childSource, streamer, i_seedClassNames, scanPolicy);
+                // throws ClassSource_Exception
+
+                ClassSource_ScanCounts childScanCounts = childSource.getScanResults();
+                addResults(childScanCounts);
+
+                int nextSize = i_seedClassNames.size();
+
+                if (tc.isDebugEnabled()) {
+                    Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] [ {2} ] Added [ {3} ]",
+                                                      new Object[] { getHashText(), childName,
+                                                                    childSource.getHashText(),
+                                                                    Integer.valueOf(nextSize - finalSize) }));
+                }
 
-            finalSize = nextSize;
+                finalSize = nextSize;
+            }
         }
 
         if (tc.isDebugEnabled()) {
@@ -402,6 +421,71 @@ public class ClassSourceImpl_Aggregate extends ClassSourceImpl implements ClassS
         }
     }
 
+    // Scan of a single child class source.
+    //
+    // When the streamer can cache scan results, and the child class source is held
+    // by an archive file, the results of an earlier scan are loaded when available.
+    // Otherwise, the child class source is scanned, and the streamer is told when the
+    // scan begins and ends so that it can save the results.
+    //
+    // Results are only saved when every class of the child class source reached the
+    // streamer.  Classes which are masked by earlier class sources do not reach the
+    // streamer, and would be missing from the saved results if the masking class were
+    // later removed.
+
+    protected ClassSourceImpl_CachingStreamer getCachingStreamer(ClassSource childSource, ClassSource_Streamer streamer) {
+        if (!(streamer instanceof ClassSourceImpl_CachingStreamer) || !(childSource instanceof ClassSourceImpl)) {
+            return null;
+        } else if (((ClassSourceImpl) childSource).getArchiveFile() == null) {
+            return null;
+        } else {
+            return (ClassSourceImpl_CachingStreamer) streamer;
+        }
+    }
+
+    protected boolean hasCachedScan(ClassSource childSource, ClassSource_Streamer streamer, ScanPolicy scanPolicy) {
+        ClassSourceImpl_CachingStreamer cachingStreamer = getCachingStreamer(childSource, streamer);
+        return ((cachingStreamer != null) && cachingStreamer.hasScan((ClassSourceImpl) childSource, scanPolicy));
+    }
+
+    protected void scanChildClasses(ClassSource childSource, ClassSource_Streamer streamer,
+                                    Set<String> i_seedClassNames, ScanPolicy scanPolicy) {
+
+        ClassSourceImpl_CachingStreamer cachingStreamer = getCachingStreamer(childSource, streamer);
+        if (cachingStreamer == null) {
+            childSource.scanClasses(streamer, i_seedClassNames, scanPolicy);
+            // throws ClassSource_Exception
+            return;
+        }
+
+        ClassSourceImpl useChildSource = (ClassSourceImpl) childSource;
+
+        if (cachingStreamer.loadScan(useChildSource, scanPolicy, i_seedClassNames)) {
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] Loaded cached scan results",
+                                                  new Object[] { getHashText(), useChildSource.getHashText() }));
+            }
+            return;
+        }
+
+        int initialDuplicates = useChildSource.getResult(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS);
+        int initialUnprocessed = useChildSource.getResult(ClassSource_ScanCounts.ResultField.UNPROCESSED_CLASS);
+
+        boolean isComplete = false;
+
+        cachingStreamer.beginScan(useChildSource, scanPolicy);
+        try {
+            childSource.scanClasses(streamer, i_seedClassNames, scanPolicy);
+            // throws ClassSource_Exception
+
+            isComplete = (useChildSource.getResult(ClassSource_ScanCounts.ResultField.DUPLICATE_CLASS) == initialDuplicates) &&
+                         (useChildSource.getResult(ClassSource_ScanCounts.ResultField.UNPROCESSED_CLASS) == initialUnprocessed);
+
+        } finally {
+            cachingStreamer.endScan(useChildSource, scanPolicy, isComplete);
+        }
+    }
+
     // Currently, aggregate class sources are not allowed to be children.
 
     @Override
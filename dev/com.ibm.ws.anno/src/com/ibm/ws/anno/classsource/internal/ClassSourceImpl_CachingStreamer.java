@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.ws.anno.classsource.internal;
+
+import java.util.Set;
+
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_Streamer;
+
+/**
+ * <p>Streamer which can reuse the results of earlier scans of child class sources.</p>
+ *
+ * <p>When the results of an earlier scan of a child class source are available,
+ * an aggregate class source has the streamer load those results instead of scanning
+ * the child class source. Otherwise, the aggregate class source tells the streamer
+ * when the scan of a child class source begins and ends, so that the streamer can
+ * save the results of the scan.</p>
+ */
+public interface ClassSourceImpl_CachingStreamer extends ClassSource_Streamer {
+    /**
+     * <p>Tell if the results of an earlier scan of a class source are available.</p>
+     *
+     * @param classSource The class source which is to be scanned.
+     * @param scanPolicy The policy of the class source.
+     *
+     * @return True if results are available for the class source. Otherwise, false.
+     */
+    boolean hasScan(ClassSourceImpl classSource, ScanPolicy scanPolicy);
+
+    /**
+     * <p>Load the results of an earlier scan of a class source. Record the names of
+     * the classes of the class source into the seed class names, skipping classes
+     * which are already recorded.</p>
+     *
+     * @param classSource The class source which is to be scanned.
+     * @param scanPolicy The policy of the class source.
+     * @param i_seedClassNames The names of the classes which have been scanned.
+     *
+     * @return True if results were loaded for the class source. False if the
+     *         class source must be scanned.
+     */
+    boolean loadScan(ClassSourceImpl classSource, ScanPolicy scanPolicy, Set<String> i_seedClassNames);
+
+    /**
+     * <p>Tell the streamer that the scan of a class source is beginning.</p>
+     *
+     * @param classSource The class source which is being scanned.
+     * @param scanPolicy The policy of the class source.
+     */
+    void beginScan(ClassSourceImpl classSource, ScanPolicy scanPolicy);
+
+    /**
+     * <p>Tell the streamer that the scan of a class source has ended.</p>
+     *
+     * @param classSource The class source which was scanned.
+     * @param scanPolicy The policy of the class source.
+     * @param isComplete True if every class of the class source was handed to
+     *            the streamer; false if classes were masked by other class sources
+     *            or could not be read.
+     */
+    void endScan(ClassSourceImpl classSource, ScanPolicy scanPolicy, boolean isComplete);
+}
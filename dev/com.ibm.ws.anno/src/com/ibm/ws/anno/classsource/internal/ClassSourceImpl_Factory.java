@@ -12,6 +12,10 @@
 package com.ibm.ws.anno.classsource.internal;
 
 import java.text.MessageFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
@@ -72,6 +76,53 @@ public class ClassSourceImpl_Factory implements ClassSource_Factory {
         return utilFactory;
     }
 
+    protected void deactivate() {
+        shutdownScanExecutor();
+    }
+
+    //
+
+    // Scan threads shared by the parallel scans of aggregate class sources created
+    // by this factory.  The pool is created on first use and grows to the largest
+    // number of scan threads requested.  Idle scan threads time out.  The threads
+    // are stopped when the factory is deactivated.
+
+    public static final long SCAN_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    protected ThreadPoolExecutor scanExecutor;
+
+    public synchronized ExecutorService getScanExecutor(int scanThreads) {
+        if (scanExecutor == null) {
+            scanExecutor = new ThreadPoolExecutor(scanThreads, scanThreads,
+                                                  SCAN_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                                                  new LinkedBlockingQueue<Runnable>(),
+                                                  new ClassSourceImpl_ParallelScan.ScanThreadFactory(getHashText()));
+            scanExecutor.allowCoreThreadTimeOut(true);
+
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] Created scan executor with [ {1} ] threads",
+                                                  new Object[] { getHashText(), Integer.valueOf(scanThreads) }));
+            }
+
+        } else if (scanThreads > scanExecutor.getMaximumPoolSize()) {
+            scanExecutor.setMaximumPoolSize(scanThreads);
+            scanExecutor.setCorePoolSize(scanThreads);
+        }
+
+        return scanExecutor;
+    }
+
+    public synchronized void shutdownScanExecutor() {
+        if (scanExecutor != null) {
+            scanExecutor.shutdownNow();
+            scanExecutor = null;
+
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] Shut down scan executor", getHashText()));
+            }
+        }
+    }
+
     //
 
     @Override
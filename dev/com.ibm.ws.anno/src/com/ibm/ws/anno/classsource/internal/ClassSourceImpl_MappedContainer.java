@@ -11,6 +11,7 @@
 
 package com.ibm.ws.anno.classsource.internal;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
@@ -117,6 +118,21 @@ public class ClassSourceImpl_MappedContainer
         return container;
     }
 
+    // A container is backed by an archive file when its physical path is a file.
+    // Expanded containers, and containers which have no physical path, have no
+    // archive file.
+
+    @Override
+    public File getArchiveFile() {
+        String physicalPath = getContainer().getPhysicalPath();
+        if (physicalPath == null) {
+            return null;
+        }
+
+        File physicalFile = new File(physicalPath);
+        return (physicalFile.isFile() ? physicalFile : null);
+    }
+
     //
 
     @Override
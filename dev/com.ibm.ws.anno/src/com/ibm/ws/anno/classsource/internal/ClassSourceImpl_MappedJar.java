@@ -11,6 +11,7 @@
 
 package com.ibm.ws.anno.classsource.internal;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
@@ -177,6 +178,11 @@ public class ClassSourceImpl_MappedJar
         return jarPath;
     }
 
+    @Override
+    public File getArchiveFile() {
+        return new File(getJarPath());
+    }
+
     protected JarFile jarFile;
 
     public JarFile getJarFile() {
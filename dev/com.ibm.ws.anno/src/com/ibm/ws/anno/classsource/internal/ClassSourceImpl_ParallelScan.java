@@ -0,0 +1,428 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.ws.anno.classsource.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.anno.service.internal.AnnotationServiceImpl_Logging;
+import com.ibm.wsspi.anno.classsource.ClassSource;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_Exception;
+import com.ibm.wsspi.anno.classsource.ClassSource_ScanCounts;
+import com.ibm.wsspi.anno.classsource.ClassSource_Streamer;
+
+/**
+ * <p>Parallel scan of the child class sources of an aggregate class source.</p>
+ *
+ * <p>Child class sources which are mapped jars, directories, or containers are
+ * read on scan threads: Each scan thread iterates across one child class source
+ * and reads the data of each of its classes into memory. The data is then handed
+ * to the streamer on the thread which requested the scan, in the order of the child
+ * class sources. Annotation targets are not thread safe, and the first class source
+ * which has a class must mask the same class in later class sources; handing the
+ * class data to the streamer in order keeps both of these.</p>
+ *
+ * <p>The scan threads are shared by the aggregate class sources of a class source factory.
+ * The number of child class sources which are read ahead of the streamer is limited to the
+ * number of scan threads, which bounds the class data held in memory by a scan.</p>
+ */
+public class ClassSourceImpl_ParallelScan {
+    private static final TraceComponent tc = Tr.register(ClassSourceImpl_ParallelScan.class);
+    public static final String CLASS_NAME = ClassSourceImpl_ParallelScan.class.getName();
+
+    // Number of threads used to scan the child class sources of an aggregate class source.
+    // Scanning is performed entirely on the requesting thread when the value is less than 2.
+
+    public static final String SCAN_THREADS_PROPERTY_NAME = "com.ibm.ws.anno.scanThreads";
+
+    public static final int DEFAULT_SCAN_THREADS = 1;
+    public static final int MAX_SCAN_THREADS = 64;
+
+    public static int getScanThreads() {
+        String scanThreadsText = AccessController.doPrivileged(new PrivilegedAction<String>() {
+            @Override
+            public String run() {
+                return System.getProperty(SCAN_THREADS_PROPERTY_NAME);
+            }
+        });
+
+        int scanThreads;
+        if (scanThreadsText == null) {
+            scanThreads = DEFAULT_SCAN_THREADS;
+        } else {
+            try {
+                scanThreads = Math.min(Integer.parseInt(scanThreadsText.trim()), MAX_SCAN_THREADS);
+            } catch (NumberFormatException nfe) {
+                scanThreads = DEFAULT_SCAN_THREADS;
+            }
+        }
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("Scan threads property [ {0} ] value [ {1} ]: [ {2} ]",
+                                              new Object[] { SCAN_THREADS_PROPERTY_NAME, scanThreadsText,
+                                                            Integer.valueOf(scanThreads) }));
+        }
+
+        return scanThreads;
+    }
+
+    //
+
+    protected final String hashText;
+
+    public String getHashText() {
+        return hashText;
+    }
+
+    public ClassSourceImpl_ParallelScan(ClassSourceImpl_Aggregate aggregate, int scanThreads) {
+        super();
+
+        this.hashText = AnnotationServiceImpl_Logging.getBaseHash(this);
+
+        this.aggregate = aggregate;
+        this.scanThreads = scanThreads;
+
+        this.threadCounts = new LinkedHashMap<String, ClassSourceImpl_ScanCounts>();
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Aggregate [ {1} ] Threads [ {2} ]",
+                                              new Object[] { this.hashText, aggregate.getHashText(),
+                                                            Integer.valueOf(scanThreads) }));
+        }
+    }
+
+    protected final ClassSourceImpl_Aggregate aggregate;
+
+    protected final int scanThreads;
+
+    // Scan counts of the child class sources read by each scan thread, by thread name.
+
+    protected final Map<String, ClassSourceImpl_ScanCounts> threadCounts;
+
+    protected void addThreadCounts(ClassSource_ScanCounts childCounts) {
+        String threadName = Thread.currentThread().getName();
+
+        synchronized (threadCounts) {
+            ClassSourceImpl_ScanCounts counts = threadCounts.get(threadName);
+            if (counts == null) {
+                counts = new ClassSourceImpl_ScanCounts();
+                threadCounts.put(threadName, counts);
+            }
+            for (int resultNo = 0; resultNo < ClassSource_ScanCounts.NUM_RESULT_FIELDS; resultNo++) {
+                counts.results[resultNo] += childCounts.getResult(resultNo);
+            }
+        }
+    }
+
+    //
+
+    /**
+     * <p>Tell if a child class source can be read on a scan thread.</p>
+     *
+     * @param childSource The child class source to test.
+     *
+     * @return True if the child class source can be read on a scan thread. Otherwise, false.
+     */
+    protected boolean isParallel(ClassSource childSource) {
+        return (childSource instanceof ClassSourceImpl_MappedJar) ||
+               (childSource instanceof ClassSourceImpl_MappedDirectory) ||
+               (childSource instanceof ClassSourceImpl_MappedContainer);
+    }
+
+    /**
+     * <p>Scan the child class sources, in order.</p>
+     *
+     * @param streamer The streamer which is to receive the class data.
+     * @param childSources The child class sources to scan.
+     * @param scanPolicies The scan policies of the child class sources.
+     * @param i_seedClassNames The names of the classes which have been scanned.
+     */
+    public void scanClasses(ClassSource_Streamer streamer,
+                            List<ClassSource> childSources, List<ScanPolicy> scanPolicies,
+                            Set<String> i_seedClassNames) {
+
+        ExecutorService executor = aggregate.getFactory().getScanExecutor(scanThreads);
+
+        int numChildren = childSources.size();
+        List<Future<List<ReadClass>>> reads = new ArrayList<Future<List<ReadClass>>>(numChildren);
+
+        try {
+            int maxReadAhead = scanThreads;
+            int nextRead = 0;
+
+            for (int childNo = 0; childNo < numChildren; childNo++) {
+                while ((nextRead < numChildren) && (nextRead - childNo < maxReadAhead)) {
+                    ClassSource nextSource = childSources.get(nextRead);
+                    if (isParallel(nextSource) && !aggregate.hasCachedScan(nextSource, streamer, scanPolicies.get(nextRead))) {
+                        reads.add(executor.submit(new ReadTask((ClassSourceImpl) nextSource, scanPolicies.get(nextRead))));
+                    } else {
+                        reads.add(null);
+                    }
+                    nextRead++;
+                }
+
+                ClassSource childSource = childSources.get(childNo);
+                ScanPolicy scanPolicy = scanPolicies.get(childNo);
+
+                int initialSize = i_seedClassNames.size();
+
+                Future<List<ReadClass>> read = reads.get(childNo);
+                reads.set(childNo, null); // Allow the class data to be collected.
+
+                if (read == null) {
+                    aggregate.scanChildClasses(childSource, streamer, i_seedClassNames, scanPolicy);
+                } else {
+                    streamClasses((ClassSourceImpl) childSource, getReadClasses(childSource, read), streamer, i_seedClassNames, scanPolicy);
+                }
+
+                aggregate.addResults(childSource.getScanResults());
+
+                if (tc.isDebugEnabled()) {
+                    Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] [ {2} ] Added [ {3} ]",
+                                                      new Object[] { getHashText(), childSource.getCanonicalName(),
+                                                                    childSource.getHashText(),
+                                                                    Integer.valueOf(i_seedClassNames.size() - initialSize) }));
+                }
+            }
+
+        } finally {
+            // Stop reads which are no longer needed when the scan fails.
+            // Reads which are in progress are left to complete; their data is discarded.
+            for (Future<List<ReadClass>> read : reads) {
+                if (read != null) {
+                    read.cancel(false);
+                }
+            }
+        }
+
+        if (tc.isDebugEnabled()) {
+            logThreadCounts();
+        }
+    }
+
+    protected List<ReadClass> getReadClasses(ClassSource childSource, Future<List<ReadClass>> read) {
+        try {
+            return read.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    // Hand the classes read from a child class source to the streamer, skipping classes
+    // which are masked by an earlier child class source.  The child class source counted
+    // each class as included, since the scan thread could not know of the earlier class
+    // sources.  Those counts are corrected here.
+    //
+    // As for a scan on the requesting thread, the scan results are only saved when
+    // every class of the child class source reached the streamer.
+
+    protected void streamClasses(ClassSourceImpl childSource, List<ReadClass> readClasses,
+                                 ClassSource_Streamer streamer,
+                                 Set<String> i_seedClassNames, ScanPolicy scanPolicy) {
+
+        String childName = childSource.getCanonicalName();
+
+        ClassSourceImpl_CachingStreamer cachingStreamer = aggregate.getCachingStreamer(childSource, streamer);
+        boolean isComplete = true;
+
+        if (cachingStreamer != null) {
+            cachingStreamer.beginScan(childSource, scanPolicy);
+        }
+
+        try {
+            for (ReadClass readClass : readClasses) {
+                String i_className = childSource.internClassName(readClass.className);
+
+                if (!aggregate.i_maybeAdd(i_className, i_seedClassNames)) {
+                    childSource.markDuplicate(readClass.bytes != null);
+                    isComplete = false;
+
+                } else if (readClass.bytes == null) {
+                    isComplete = false;
+
+                } else if (streamer.doProcess(readClass.className, scanPolicy)) {
+                    try {
+                        streamer.process(childName, readClass.className, new ByteArrayInputStream(readClass.bytes), scanPolicy);
+                        // 'process' throws ClassSource_Exception
+
+                    } catch (ClassSource_Exception e) {
+                        isComplete = false;
+
+                        // CWWKC0044W: An exception occurred while scanning class and annotation data.
+                        Tr.warning(tc, "ANNO_TARGETS_SCAN_EXCEPTION", e);
+                    }
+                }
+            }
+
+        } finally {
+            if (cachingStreamer != null) {
+                cachingStreamer.endScan(childSource, scanPolicy, isComplete);
+            }
+        }
+    }
+
+    protected void logThreadCounts() {
+        synchronized (threadCounts) {
+            Object[] logParms = new Object[] { getHashText(), null, null, null };
+
+            for (Map.Entry<String, ClassSourceImpl_ScanCounts> threadEntry : threadCounts.entrySet()) {
+                logParms[1] = threadEntry.getKey();
+
+                for (ClassSource_ScanCounts.ResultField resultField : ClassSource_ScanCounts.ResultField.values()) {
+                    logParms[2] = Integer.valueOf(threadEntry.getValue().getResult(resultField));
+                    logParms[3] = resultField.getTag();
+
+                    Tr.debug(tc, MessageFormat.format("[ {0} ] Thread [ {1} ]  [ {2} ] {3}", logParms));
+                }
+            }
+        }
+    }
+
+    //
+
+    /**
+     * <p>The data of a class read on a scan thread. The data is null if the class
+     * could not be read.</p>
+     */
+    protected static class ReadClass {
+        protected final String className;
+        protected final byte[] bytes;
+
+        protected ReadClass(String className, byte[] bytes) {
+            this.className = className;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * <p>Task which reads the classes of a child class source on a scan thread.</p>
+     */
+    protected class ReadTask implements Callable<List<ReadClass>> {
+        protected final ClassSourceImpl childSource;
+        protected final ScanPolicy scanPolicy;
+
+        protected ReadTask(ClassSourceImpl childSource, ScanPolicy scanPolicy) {
+            this.childSource = childSource;
+            this.scanPolicy = scanPolicy;
+        }
+
+        @Override
+        public List<ReadClass> call() {
+            ReadingStreamer readingStreamer = new ReadingStreamer();
+
+            // The class names are recorded into a set local to the child class source.
+            // Classes masked by earlier child class sources are skipped when the classes
+            // are handed to the streamer.
+
+            childSource.scanClasses(readingStreamer, new HashSet<String>(), scanPolicy);
+
+            addThreadCounts(childSource.getScanResults());
+
+            return readingStreamer.readClasses;
+        }
+    }
+
+    /**
+     * <p>Streamer used on scan threads: Reads the data of each class into memory.</p>
+     */
+    protected class ReadingStreamer implements ClassSource_Streamer {
+        protected final List<ReadClass> readClasses = new ArrayList<ReadClass>();
+
+        @Override
+        public boolean doProcess(String className, ScanPolicy scanPolicy) {
+            return true;
+        }
+
+        @Override
+        public boolean process(String classSourceName, String className, InputStream inputStream, ScanPolicy scanPolicy) throws ClassSource_Exception {
+            String methodName = "process";
+
+            byte[] bytes;
+            try {
+                bytes = read(inputStream); // throws IOException
+
+            } catch (IOException e) {
+                // Record the class, so that it still masks the same class in later class sources.
+                readClasses.add(new ReadClass(className, null));
+
+                throw aggregate.getFactory().wrapIntoClassSourceException(CLASS_NAME, methodName,
+                                                                          "Failed to read class [ " + className + " ] of [ " + classSourceName + " ]", e);
+            }
+
+            readClasses.add(new ReadClass(className, bytes));
+            return true;
+        }
+
+        protected byte[] read(InputStream inputStream) throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(4096);
+
+            byte[] buffer = new byte[4096];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+            }
+
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * <p>Factory for the daemon scan threads of a class source factory.</p>
+     */
+    protected static class ScanThreadFactory implements ThreadFactory {
+        protected final String namePrefix;
+        protected final AtomicInteger threadNo = new AtomicInteger();
+
+        protected ScanThreadFactory(String hashText) {
+            this.namePrefix = "Annotation Scan " + hashText + " ";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -52,4 +52,8 @@ public class ClassSourceImpl_ScanCounts implements ClassSource_ScanCounts {
     public void increment(int resultField) {
         results[resultField]++;
     }
+
+    public void decrement(ResultField resultField) {
+        results[resultField.ordinal()]--;
+    }
 }
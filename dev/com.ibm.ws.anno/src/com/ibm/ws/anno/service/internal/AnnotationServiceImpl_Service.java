@@ -11,6 +11,9 @@
 
 package com.ibm.ws.anno.service.internal;
 
+import java.io.File;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.text.MessageFormat;
 import java.util.Map;
 
@@ -44,6 +47,26 @@ public class AnnotationServiceImpl_Service implements AnnotationService_Service
 
     protected BundleContext bundleContext;
 
+    // Caching of the results of scans of archive class sources is enabled by
+    // setting this property to "true".  The cache is kept in the data area of
+    // this bundle, under the server workarea, and is discarded with the workarea
+    // when the server is started clean.
+
+    public static final String SCAN_CACHE_PROPERTY_NAME = "com.ibm.ws.anno.scanCache";
+
+    public static final String SCAN_CACHE_DIR_NAME = "scanCache";
+
+    protected static boolean isScanCacheEnabled() {
+        String scanCacheText = AccessController.doPrivileged(new PrivilegedAction<String>() {
+            @Override
+            public String run() {
+                return System.getProperty(SCAN_CACHE_PROPERTY_NAME);
+            }
+        });
+
+        return Boolean.parseBoolean(scanCacheText);
+    }
+
     protected void activate(ComponentContext componentContext, Map<String, Object> properties) {
         String methodName = "activate";
 
@@ -52,6 +75,28 @@ public class AnnotationServiceImpl_Service implements AnnotationService_Service
         }
         bundleContext = componentContext.getBundleContext();
 
+        if (isScanCacheEnabled()) {
+            File scanCacheDir = bundleContext.getDataFile(SCAN_CACHE_DIR_NAME);
+            if (scanCacheDir != null) {
+                getAnnotationTargetsFactory().setScanCache(scanCacheDir);
+            }
+        }
+
+        if (tc.isEntryEnabled()) {
+            Tr.exit(tc, methodName, getHashText());
+        }
+    }
+
+    protected void deactivate(ComponentContext componentContext) {
+        String methodName = "deactivate";
+
+        if (tc.isEntryEnabled()) {
+            Tr.entry(tc, methodName, getHashText());
+        }
+
+        // Stop the scan threads of parallel scans.
+        getClassSourceFactory().shutdownScanExecutor();
+
         if (tc.isEntryEnabled()) {
             Tr.exit(tc, methodName, getHashText());
         }
@@ -11,6 +11,7 @@
 
 package com.ibm.ws.anno.targets.internal;
 
+import java.io.File;
 import java.text.MessageFormat;
 
 import com.ibm.websphere.ras.Tr;
@@ -65,6 +66,27 @@ public class AnnotationTargetsImpl_Factory implements AnnotationTargets_Factory
 
     //
 
+    // Cache of the results of scans of archive class sources.  Null unless
+    // scan caching is enabled.
+
+    protected AnnotationTargetsImpl_ScanCache scanCache;
+
+    public AnnotationTargetsImpl_ScanCache getScanCache() {
+        return scanCache;
+    }
+
+    public void setScanCache(File cacheDir) {
+        this.scanCache = ((cacheDir == null) ? null : new AnnotationTargetsImpl_ScanCache(cacheDir));
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Scan cache [ {1} ]",
+                                              this.hashText,
+                                              (this.scanCache == null) ? null : this.scanCache.getHashText()));
+        }
+    }
+
+    //
+
     @Override
     public AnnotationTargets_Exception newAnnotationTargetsException(TraceComponent logger, String message) {
         AnnotationTargets_Exception exception = new AnnotationTargets_Exception(message);
@@ -0,0 +1,593 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.ibm.ws.anno.targets.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl;
+import com.ibm.ws.anno.service.internal.AnnotationServiceImpl_Logging;
+import com.ibm.ws.ffdc.annotation.FFDCIgnore;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.targets.AnnotationTargets_Targets.AnnotationCategory;
+
+/**
+ * <p>On disk cache of the results of scans of archive class sources.</p>
+ *
+ * <p>The results of a scan of a class source are stored as the list of classes
+ * which the scan handed to the annotation targets visitor, and, for each class,
+ * the class data which the visitor recorded: the superclass, the interfaces,
+ * and the annotations. Loading the results replays the class data into the
+ * annotation targets, which is much faster than reading and visiting the classes.</p>
+ *
+ * <p>Each entry is keyed by the path of the archive, the scan policy, and the
+ * detail setting of the targets. An entry is used only while the length, the
+ * modification time, and the fingerprint of the central directory of the archive
+ * match those recorded in the entry. The central directory holds the name, size,
+ * and CRC of every entry of the archive, which makes its fingerprint a hash of the
+ * archive content which is obtained without reading the archive entries.</p>
+ *
+ * <p>The archive of a class source is fingerprinted once per scan: The caller
+ * obtains the archive key of the class source, then uses that key to load and
+ * to store the results of the class source.</p>
+ *
+ * <p>Failures to read or to write the cache are not errors: The class source is
+ * scanned instead, and the failure is written to debug trace.</p>
+ */
+public class AnnotationTargetsImpl_ScanCache {
+    private static final TraceComponent tc = Tr.register(AnnotationTargetsImpl_ScanCache.class);
+
+    public static final String CLASS_NAME = AnnotationTargetsImpl_ScanCache.class.getName();
+
+    //
+
+    protected final String hashText;
+
+    public String getHashText() {
+        return hashText;
+    }
+
+    //
+
+    public AnnotationTargetsImpl_ScanCache(File cacheDir) {
+        super();
+
+        this.hashText = AnnotationServiceImpl_Logging.getBaseHash(this);
+
+        this.cacheDir = cacheDir;
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Cache directory [ {1} ]",
+                                              this.hashText, this.cacheDir.getAbsolutePath()));
+        }
+    }
+
+    //
+
+    protected final File cacheDir;
+
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    // Cache file layout:
+    //
+    // Header:
+    //   int magic, int version
+    //   string archivePath, int scanPolicy, byte isDetailEnabled
+    //   long archiveLength, long archiveLastModified, long archiveFingerprint
+    // String table:
+    //   int count, ( int length, byte[length] UTF-8 )*
+    // Classes:
+    //   int count, ( int className, byte flags,
+    //                int superclassName, int interfaceCount, int[interfaceCount] interfaceNames,
+    //                int annotationCount, ( byte category, int annotationClassName )* )*
+    //
+    // Names are written as indexes into the string table, -1 for no name.
+
+    protected static final int CACHE_MAGIC = 0x414E4E4F; // "ANNO"
+    protected static final int CACHE_VERSION = 1;
+
+    protected static final byte FLAG_RECORDED = 0x01;
+    protected static final byte FLAG_PACKAGE = 0x02;
+
+    protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+    protected static final AnnotationCategory[] CATEGORIES = AnnotationCategory.values();
+
+    // Cache files are named using a SHA-256 digest of the archive path, so that
+    // the files of different archives do not collide.  The archive path is also
+    // recorded in the file, and is verified when the file is read.
+
+    protected static final String PATH_DIGEST_ALGORITHM = "SHA-256";
+
+    protected File getCacheFile(String archivePath, ScanPolicy scanPolicy, boolean isDetailEnabled) {
+        String fileName = "scan_" + digest(archivePath) +
+                          "_" + scanPolicy.ordinal() + (isDetailEnabled ? "d" : "") + ".bin";
+        return new File(cacheDir, fileName);
+    }
+
+    protected static String digest(String archivePath) {
+        byte[] digestBytes;
+        try {
+            digestBytes = MessageDigest.getInstance(PATH_DIGEST_ALGORITHM).digest(archivePath.getBytes(UTF8));
+            // 'getInstance' throws NoSuchAlgorithmException
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+
+        StringBuilder digestText = new StringBuilder(digestBytes.length * 2);
+        for (byte digestByte : digestBytes) {
+            digestText.append(Character.forDigit((digestByte >> 4) & 0x0F, 16));
+            digestText.append(Character.forDigit(digestByte & 0x0F, 16));
+        }
+        return digestText.toString();
+    }
+
+    //
+
+    /**
+     * <p>The class data recorded for one class of a class source.</p>
+     */
+    public static class ClassData {
+        public final String className;
+
+        public ClassData(String className) {
+            this.className = className;
+
+            this.annotationCategories = new ArrayList<AnnotationCategory>();
+            this.annotationClassNames = new ArrayList<String>();
+        }
+
+        // The name which was recorded for the class or package.  Null if
+        // the visitor recorded nothing for the class.
+
+        public String recordedName;
+        public boolean isPackage;
+
+        public String superclassName;
+        public String[] interfaceNames;
+
+        public final List<AnnotationCategory> annotationCategories;
+        public final List<String> annotationClassNames;
+    }
+
+    /**
+     * <p>Capture of the class data recorded by the annotation targets visitor
+     * during the scan of a single class source.</p>
+     */
+    public static class Capture {
+        protected final List<ClassData> classes = new ArrayList<ClassData>();
+        protected ClassData current;
+        protected boolean isComplete = true;
+
+        public List<ClassData> getClasses() {
+            return classes;
+        }
+
+        public boolean isComplete() {
+            return isComplete;
+        }
+
+        public void beginClass(String className) {
+            current = new ClassData(className);
+            classes.add(current);
+        }
+
+        public void failClass() {
+            isComplete = false;
+        }
+
+        public void recordClass(String i_className) {
+            if (current != null) {
+                current.recordedName = i_className;
+                current.isPackage = false;
+            }
+        }
+
+        public void recordPackage(String i_packageName) {
+            if (current != null) {
+                current.recordedName = i_packageName;
+                current.isPackage = true;
+            }
+        }
+
+        public void recordSuperclass(String i_superclassName) {
+            if (current != null) {
+                current.superclassName = i_superclassName;
+            }
+        }
+
+        public void recordInterfaces(String[] i_interfaceNames) {
+            if (current != null) {
+                current.interfaceNames = i_interfaceNames;
+            }
+        }
+
+        public void recordAnnotation(AnnotationCategory category, String i_annotationClassName) {
+            if (current != null) {
+                current.annotationCategories.add(category);
+                current.annotationClassNames.add(i_annotationClassName);
+            }
+        }
+    }
+
+    //
+
+    // The identity of an archive: Its path, length, modification time, and
+    // the fingerprint of its central directory.
+
+    public static class ArchiveKey {
+        public final String path;
+        public final long length;
+        public final long lastModified;
+        public final long fingerprint;
+
+        public ArchiveKey(String path, long length, long lastModified, long fingerprint) {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * <p>Obtain the key of the archive of a class source. The archive is opened
+     * to fingerprint its central directory.</p>
+     *
+     * @param classSource The class source.
+     *
+     * @return The key of the archive of the class source. Null if the class source
+     *         is not held by an archive file, or if the archive cannot be read.
+     */
+    @FFDCIgnore(IOException.class)
+    public ArchiveKey getArchiveKey(ClassSourceImpl classSource) {
+        File archiveFile = classSource.getArchiveFile();
+        if ((archiveFile == null) || !archiveFile.isFile()) {
+            return null;
+        }
+
+        long length = archiveFile.length();
+        long lastModified = archiveFile.lastModified();
+
+        CRC32 crc = new CRC32();
+        try {
+            ZipFile zipFile = new ZipFile(archiveFile); // throws IOException
+            try {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    crc.update(entry.getName().getBytes(UTF8));
+                    updateLong(crc, entry.getCrc());
+                    updateLong(crc, entry.getSize());
+                }
+            } finally {
+                zipFile.close(); // throws IOException
+            }
+        } catch (IOException e) {
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] Archive [ {1} ] cannot be fingerprinted: {2}",
+                                                  getHashText(), archiveFile.getPath(), e));
+            }
+            return null;
+        }
+
+        return new ArchiveKey(archiveFile.getAbsolutePath(), length, lastModified, crc.getValue());
+    }
+
+    protected static void updateLong(CRC32 crc, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (value >>> shift));
+        }
+    }
+
+    //
+
+    /**
+     * <p>Load the results stored for the archive of a class source.</p>
+     *
+     * @param archiveKey The key of the archive of the class source.
+     * @param scanPolicy The scan policy of the class source.
+     * @param isDetailEnabled The detail setting of the targets.
+     *
+     * @return The class data of the class source. Null if no results are stored for
+     *         the archive, or if the archive has changed since the results were stored.
+     */
+    public List<ClassData> load(ArchiveKey archiveKey, ScanPolicy scanPolicy, boolean isDetailEnabled) {
+        File cacheFile = getCacheFile(archiveKey.path, scanPolicy, isDetailEnabled);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        List<ClassData> classes = read(cacheFile, archiveKey, scanPolicy, isDetailEnabled);
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Load [ {1} ] from [ {2} ]: [ {3} ]",
+                                              getHashText(), archiveKey.path, cacheFile.getName(),
+                                              (classes == null) ? "Stale" : Integer.valueOf(classes.size())));
+        }
+
+        return classes;
+    }
+
+    /**
+     * <p>Store the results of the scan of a class source.</p>
+     *
+     * @param archiveKey The key of the archive of the class source, as obtained
+     *            before the class source was scanned.
+     * @param scanPolicy The scan policy of the class source.
+     * @param isDetailEnabled The detail setting of the targets.
+     * @param capture The class data recorded by the scan.
+     */
+    @FFDCIgnore(IOException.class)
+    public void store(ArchiveKey archiveKey, ScanPolicy scanPolicy, boolean isDetailEnabled, Capture capture) {
+        File cacheFile = getCacheFile(archiveKey.path, scanPolicy, isDetailEnabled);
+
+        try {
+            if (!cacheDir.isDirectory() && !cacheDir.mkdirs() && !cacheDir.isDirectory()) {
+                throw new IOException("Failed to create [ " + cacheDir.getPath() + " ]");
+            }
+
+            // Write to a temporary file, then rename it, so that a partially
+            // written cache file is never read.
+
+            File tempFile = File.createTempFile("scan", ".tmp", cacheDir); // throws IOException
+            try {
+                write(tempFile, archiveKey, scanPolicy, isDetailEnabled, capture.getClasses()); // throws IOException
+
+                if (!tempFile.renameTo(cacheFile)) {
+                    if (!cacheFile.delete() || !tempFile.renameTo(cacheFile)) {
+                        throw new IOException("Failed to rename [ " + tempFile.getPath() + " ] to [ " + cacheFile.getPath() + " ]");
+                    }
+                }
+            } finally {
+                if (tempFile.exists()) {
+                    tempFile.delete();
+                }
+            }
+
+        } catch (IOException e) {
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] Store [ {1} ] failed: {2}",
+                                                  getHashText(), archiveKey.path, e));
+            }
+            return;
+        }
+
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] Store [ {1} ] to [ {2} ]: [ {3} ]",
+                                              getHashText(), archiveKey.path, cacheFile.getName(),
+                                              Integer.valueOf(capture.getClasses().size())));
+        }
+    }
+
+    //
+
+    protected void write(File file, ArchiveKey archiveKey,
+                         ScanPolicy scanPolicy, boolean isDetailEnabled,
+                         List<ClassData> classes) throws IOException {
+
+        Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+        List<String> strings = new ArrayList<String>();
+
+        for (ClassData classData : classes) {
+            addString(classData.className, stringIndexes, strings);
+            addString(classData.recordedName, stringIndexes, strings);
+            addString(classData.superclassName, stringIndexes, strings);
+            if (classData.interfaceNames != null) {
+                for (String interfaceName : classData.interfaceNames) {
+                    addString(interfaceName, stringIndexes, strings);
+                }
+            }
+            for (String annotationClassName : classData.annotationClassNames) {
+                addString(annotationClassName, stringIndexes, strings);
+            }
+        }
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))); // throws IOException
+        try {
+            output.writeInt(CACHE_MAGIC);
+            output.writeInt(CACHE_VERSION);
+
+            writeString(output, archiveKey.path);
+            output.writeInt(scanPolicy.ordinal());
+            output.writeByte(isDetailEnabled ? 1 : 0);
+            output.writeLong(archiveKey.length);
+            output.writeLong(archiveKey.lastModified);
+            output.writeLong(archiveKey.fingerprint);
+
+            output.writeInt(strings.size());
+            for (String string : strings) {
+                writeString(output, string);
+            }
+
+            output.writeInt(classes.size());
+            for (ClassData classData : classes) {
+                output.writeInt(indexOf(classData.className, stringIndexes));
+
+                byte flags = 0;
+                if (classData.recordedName != null) {
+                    flags |= FLAG_RECORDED;
+                }
+                if (classData.isPackage) {
+                    flags |= FLAG_PACKAGE;
+                }
+                output.writeByte(flags);
+                output.writeInt(indexOf(classData.recordedName, stringIndexes));
+
+                output.writeInt(indexOf(classData.superclassName, stringIndexes));
+
+                String[] interfaceNames = classData.interfaceNames;
+                int interfaceCount = ((interfaceNames == null) ? 0 : interfaceNames.length);
+                output.writeInt(interfaceCount);
+                for (int interfaceNo = 0; interfaceNo < interfaceCount; interfaceNo++) {
+                    output.writeInt(indexOf(interfaceNames[interfaceNo], stringIndexes));
+                }
+
+                int annotationCount = classData.annotationClassNames.size();
+                output.writeInt(annotationCount);
+                for (int annotationNo = 0; annotationNo < annotationCount; annotationNo++) {
+                    output.writeByte(classData.annotationCategories.get(annotationNo).ordinal());
+                    output.writeInt(indexOf(classData.annotationClassNames.get(annotationNo), stringIndexes));
+                }
+            }
+
+        } finally {
+            output.close(); // throws IOException
+        }
+    }
+
+    protected static void addString(String string, Map<String, Integer> stringIndexes, List<String> strings) {
+        if ((string != null) && !stringIndexes.containsKey(string)) {
+            stringIndexes.put(string, Integer.valueOf(strings.size()));
+            strings.add(string);
+        }
+    }
+
+    protected static int indexOf(String string, Map<String, Integer> stringIndexes) {
+        return ((string == null) ? -1 : stringIndexes.get(string).intValue());
+    }
+
+    protected static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(UTF8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    //
+
+    // Read a cache file.  Answer null if the file was written for a different
+    // archive, or if the archive has since changed.
+    //
+    // The file is read into a heap buffer, and is closed before the buffer is
+    // parsed.  (A mapping of the file would hold the file open until the mapping
+    // is collected, which prevents the file from being replaced or deleted on
+    // some platforms.)
+
+    @FFDCIgnore({ IOException.class, RuntimeException.class })
+    protected List<ClassData> read(File file, ArchiveKey archiveKey,
+                                   ScanPolicy scanPolicy, boolean isDetailEnabled) {
+        try {
+            byte[] fileBytes;
+
+            DataInputStream input = new DataInputStream(new FileInputStream(file)); // throws IOException
+            try {
+                long fileLength = file.length();
+                if (fileLength > Integer.MAX_VALUE) {
+                    throw new IOException("Length [ " + fileLength + " ] is too large");
+                }
+                fileBytes = new byte[(int) fileLength];
+                input.readFully(fileBytes); // throws IOException
+            } finally {
+                input.close(); // throws IOException
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(fileBytes);
+
+            if ((buffer.getInt() != CACHE_MAGIC) ||
+                (buffer.getInt() != CACHE_VERSION) ||
+                !archiveKey.path.equals(readString(buffer)) ||
+                (buffer.getInt() != scanPolicy.ordinal()) ||
+                ((buffer.get() != 0) != isDetailEnabled) ||
+                (buffer.getLong() != archiveKey.length) ||
+                (buffer.getLong() != archiveKey.lastModified) ||
+                (buffer.getLong() != archiveKey.fingerprint)) {
+                return null;
+            }
+
+            String[] strings = new String[buffer.getInt()];
+            for (int stringNo = 0; stringNo < strings.length; stringNo++) {
+                strings[stringNo] = readString(buffer);
+            }
+
+            int classCount = buffer.getInt();
+            List<ClassData> classes = new ArrayList<ClassData>(classCount);
+
+            for (int classNo = 0; classNo < classCount; classNo++) {
+                ClassData classData = new ClassData(strings[buffer.getInt()]);
+
+                byte flags = buffer.get();
+                int recordedName = buffer.getInt();
+                if ((flags & FLAG_RECORDED) != 0) {
+                    classData.recordedName = strings[recordedName];
+                }
+                classData.isPackage = ((flags & FLAG_PACKAGE) != 0);
+
+                int superclassName = buffer.getInt();
+                if (superclassName != -1) {
+                    classData.superclassName = strings[superclassName];
+                }
+
+                int interfaceCount = buffer.getInt();
+                if (interfaceCount > 0) {
+                    String[] interfaceNames = new String[interfaceCount];
+                    for (int interfaceNo = 0; interfaceNo < interfaceCount; interfaceNo++) {
+                        interfaceNames[interfaceNo] = strings[buffer.getInt()];
+                    }
+                    classData.interfaceNames = interfaceNames;
+                }
+
+                int annotationCount = buffer.getInt();
+                for (int annotationNo = 0; annotationNo < annotationCount; annotationNo++) {
+                    classData.annotationCategories.add(CATEGORIES[buffer.get()]);
+                    classData.annotationClassNames.add(strings[buffer.getInt()]);
+                }
+
+                classes.add(classData);
+            }
+
+            return classes;
+
+        } catch (IOException e) {
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] Read [ {1} ] failed: {2}",
+                                                  getHashText(), file.getPath(), e));
+            }
+            return null;
+
+        } catch (RuntimeException e) {
+            // A truncated or corrupted cache file.
+            if (tc.isDebugEnabled()) {
+                Tr.debug(tc, MessageFormat.format("[ {0} ] Read [ {1} ] failed: {2}",
+                                                  getHashText(), file.getPath(), e));
+            }
+            return null;
+        }
+    }
+
+    protected static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -13,16 +13,21 @@ package com.ibm.ws.anno.targets.internal;
 
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl;
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_CachingStreamer;
 import com.ibm.ws.anno.service.internal.AnnotationServiceImpl_Logging;
 import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
 import com.ibm.wsspi.anno.classsource.ClassSource_Exception;
 import com.ibm.wsspi.anno.classsource.ClassSource_Factory;
-import com.ibm.wsspi.anno.classsource.ClassSource_Streamer;
 
-public class AnnotationTargetsImpl_Streamer implements ClassSource_Streamer {
+public class AnnotationTargetsImpl_Streamer implements ClassSourceImpl_CachingStreamer {
     private static final TraceComponent tc = Tr.register(AnnotationTargetsImpl_Streamer.class);
 
     public static final String CLASS_NAME = AnnotationTargetsImpl_Streamer.class.getName();
@@ -42,6 +47,7 @@ public class AnnotationTargetsImpl_Streamer implements ClassSource_Streamer {
 
         this.scanner = scanner;
         this.targets = scanner.getAnnotationTargets();
+        this.scanCache = this.targets.getFactory().getScanCache();
 
         if (tc.isDebugEnabled()) {
             Tr.debug(tc, MessageFormat.format(" [ {0} ]", this.hashText));
@@ -85,6 +91,137 @@ public class AnnotationTargetsImpl_Streamer implements ClassSource_Streamer {
 
     @Override
     public boolean process(String classSourceName, String className, InputStream inputStream, ScanPolicy scanPolicy) {
-        return getTargets().scanClass(classSourceName, className, inputStream, scanPolicy);
+        AnnotationTargetsImpl_ScanCache.Capture capture = getTargets().getVisitor().getCapture();
+        if (capture == null) {
+            return getTargets().scanClass(classSourceName, className, inputStream, scanPolicy);
+        }
+
+        capture.beginClass(className);
+
+        boolean didScan = getTargets().scanClass(classSourceName, className, inputStream, scanPolicy);
+        if (!didScan) {
+            capture.failClass();
+        }
+        return didScan;
+    }
+
+    // Caching of scan results ...
+    //
+    // Entry from aggregate class sources, for example:
+    //   ClassSourceImpl_Aggregate.scanChildClasses(ClassSource, ClassSource_Streamer, Set, ScanPolicy)
+
+    protected final AnnotationTargetsImpl_ScanCache scanCache;
+
+    protected AnnotationTargetsImpl_ScanCache getScanCache() {
+        return scanCache;
+    }
+
+    // The archive of each class source is fingerprinted, and its cached results are
+    // read and validated, at most once per scan.  Results which were loaded to answer
+    // 'hasScan' are kept until 'loadScan' replays them.  The archive key is kept for
+    // storing the results of a class source which is scanned.
+
+    protected final Map<ClassSourceImpl, AnnotationTargetsImpl_ScanCache.ArchiveKey> archiveKeys =
+                    new IdentityHashMap<ClassSourceImpl, AnnotationTargetsImpl_ScanCache.ArchiveKey>();
+
+    protected final Map<ClassSourceImpl, List<AnnotationTargetsImpl_ScanCache.ClassData>> loadedScans =
+                    new IdentityHashMap<ClassSourceImpl, List<AnnotationTargetsImpl_ScanCache.ClassData>>();
+
+    protected AnnotationTargetsImpl_ScanCache.ArchiveKey getArchiveKey(ClassSourceImpl classSource) {
+        if (archiveKeys.containsKey(classSource)) {
+            return archiveKeys.get(classSource);
+        }
+
+        AnnotationTargetsImpl_ScanCache.ArchiveKey archiveKey = scanCache.getArchiveKey(classSource);
+        archiveKeys.put(classSource, archiveKey);
+        return archiveKey;
+    }
+
+    protected List<AnnotationTargetsImpl_ScanCache.ClassData> getLoadedScan(ClassSourceImpl classSource, ScanPolicy scanPolicy) {
+        if (loadedScans.containsKey(classSource)) {
+            return loadedScans.get(classSource);
+        }
+
+        AnnotationTargetsImpl_ScanCache.ArchiveKey archiveKey = getArchiveKey(classSource);
+
+        List<AnnotationTargetsImpl_ScanCache.ClassData> classes;
+        if (archiveKey == null) {
+            classes = null;
+        } else {
+            classes = scanCache.load(archiveKey, scanPolicy, getTargets().getIsDetailEnabled());
+        }
+
+        loadedScans.put(classSource, classes);
+        return classes;
+    }
+
+    @Override
+    public boolean hasScan(ClassSourceImpl classSource, ScanPolicy scanPolicy) {
+        return ((scanCache != null) && (getLoadedScan(classSource, scanPolicy) != null));
+    }
+
+    // Replay the class data of the cached scan into the targets, through the same
+    // steps which the visitor takes when visiting each class.  Classes which are
+    // masked by earlier class sources are skipped, as they would be by a scan.
+
+    @Override
+    public boolean loadScan(ClassSourceImpl classSource, ScanPolicy scanPolicy, Set<String> i_seedClassNames) {
+        if (scanCache == null) {
+            return false;
+        }
+
+        List<AnnotationTargetsImpl_ScanCache.ClassData> classes = getLoadedScan(classSource, scanPolicy);
+        loadedScans.remove(classSource); // Allow the class data to be collected.
+        if (classes == null) {
+            return false;
+        }
+
+        AnnotationTargetsImpl_Targets useTargets = getTargets();
+        AnnotationTargetsVisitor useVisitor = useTargets.getVisitor();
+
+        useVisitor.i_setClassSourceName(useTargets.internClassSourceName(classSource.getCanonicalName()));
+        useVisitor.setScanPolicy(scanPolicy);
+
+        for (AnnotationTargetsImpl_ScanCache.ClassData classData : classes) {
+            if (classSource.i_maybeAddCachedClass(classData.className, i_seedClassNames) == null) {
+                continue;
+            }
+
+            if (classData.recordedName == null) {
+                continue;
+            }
+
+            useVisitor.replay(classData);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void beginScan(ClassSourceImpl classSource, ScanPolicy scanPolicy) {
+        if (scanCache != null) {
+            getTargets().getVisitor().setCapture(new AnnotationTargetsImpl_ScanCache.Capture());
+        }
+    }
+
+    @Override
+    public void endScan(ClassSourceImpl classSource, ScanPolicy scanPolicy, boolean isComplete) {
+        if (scanCache == null) {
+            return;
+        }
+
+        AnnotationTargetsVisitor useVisitor = getTargets().getVisitor();
+        AnnotationTargetsImpl_ScanCache.Capture capture = useVisitor.getCapture();
+        useVisitor.setCapture(null);
+
+        AnnotationTargetsImpl_ScanCache.ArchiveKey archiveKey = getArchiveKey(classSource);
+        loadedScans.remove(classSource);
+
+        if ((capture != null) && (archiveKey != null) && isComplete && capture.isComplete()) {
+            scanCache.store(archiveKey, scanPolicy, getTargets().getIsDetailEnabled(), capture);
+        } else if (tc.isDebugEnabled()) {
+            Tr.debug(tc, MessageFormat.format("[ {0} ] [ {1} ] Incomplete scan is not cached",
+                                              getHashText(), classSource.getHashText()));
+        }
     }
 }
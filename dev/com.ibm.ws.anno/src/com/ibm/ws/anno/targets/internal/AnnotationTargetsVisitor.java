@@ -278,6 +278,19 @@ public class AnnotationTargetsVisitor extends ClassVisitor {
 
     protected String i_className; // A package name when 'isClass' is false!
 
+    // Capture of the recorded class data, for caching the results of the scan
+    // of a class source.  Null unless the results are being captured.
+
+    protected AnnotationTargetsImpl_ScanCache.Capture capture;
+
+    protected void setCapture(AnnotationTargetsImpl_ScanCache.Capture capture) {
+        this.capture = capture;
+    }
+
+    protected AnnotationTargetsImpl_ScanCache.Capture getCapture() {
+        return capture;
+    }
+
     // Main record methods ...
 
     protected boolean i_recordScannedClassName(String i_className) {
@@ -287,15 +300,28 @@ public class AnnotationTargetsVisitor extends ClassVisitor {
         }
 
         boolean didAddClass = annotationTargets.i_addScannedClassName(i_className, getScanPolicy());
+
+        if (capture != null) {
+            capture.recordClass(i_className);
+        }
+
         return didAddClass;
     }
 
     protected void i_recordSuperclassName(String i_className, String i_superclassName) {
         annotationTargets.i_setSuperclassName(i_className, i_superclassName);
+
+        if (capture != null) {
+            capture.recordSuperclass(i_superclassName);
+        }
     }
 
     protected void i_recordInterfaceNames(String i_className, String[] i_interfaceNames) {
         annotationTargets.i_setInterfaceNames(i_className, i_interfaceNames);
+
+        if (capture != null) {
+            capture.recordInterfaces(i_interfaceNames);
+        }
     }
 
     protected void i_recordReferencedClassName(String i_className) {
@@ -315,7 +341,96 @@ public class AnnotationTargetsVisitor extends ClassVisitor {
 
         String i_annotationClassName = internClassName(annotationClassName);
 
+        i_recordAnnotation(annotationCategory, i_annotationClassName);
+    }
+
+    protected void i_recordAnnotation(AnnotationCategory annotationCategory, String i_annotationClassName) {
         annotationTargets.i_recordAnnotation(getScanPolicy(), annotationCategory, i_className, i_annotationClassName);
+
+        if (capture != null) {
+            capture.recordAnnotation(annotationCategory, i_annotationClassName);
+        }
+    }
+
+    // Record a class of the current class source: Place the class in the class
+    // source, record the class as scanned, and record its superclass and interfaces.
+    //
+    // Answer false if the class was already placed in a class source.
+
+    protected boolean i_recordClass(String i_className, String i_superclassName, String[] i_interfaceNames) {
+        if (!i_recordScannedClassName(i_className)) {
+            return false;
+        }
+
+        i_removeReferencedClassName(i_className);
+
+        if (i_superclassName != null) {
+            i_recordSuperclassName(i_className, i_superclassName);
+            i_recordReferencedClassName(i_superclassName);
+        }
+
+        if (i_interfaceNames != null) {
+            i_recordInterfaceNames(i_className, i_interfaceNames);
+
+            for (String i_interfaceName : i_interfaceNames) {
+                i_recordReferencedClassName(i_interfaceName);
+            }
+        }
+
+        return true;
+    }
+
+    // Replay entry point ...
+    //
+    // Record the class data which an earlier scan recorded for a class or package,
+    // taking the same steps as 'visit' and 'visitAnnotation'.  The class source and
+    // the scan policy must be set before replaying a class.
+    //
+    // Entry is from:
+    //     AnnotationTargetsImpl_Streamer.loadScan(ClassSourceImpl, ScanPolicy, Set)
+
+    protected boolean replay(AnnotationTargetsImpl_ScanCache.ClassData classData) {
+        if (classData.isPackage) {
+            isClass = false;
+
+            i_className = internClassName(classData.recordedName, Util_InternMap.DO_FORCE);
+
+        } else {
+            isClass = true;
+
+            i_className = internClassName(classData.recordedName);
+
+            String i_superclassName;
+            if (classData.superclassName != null) {
+                i_superclassName = internClassName(classData.superclassName);
+            } else {
+                i_superclassName = null;
+            }
+
+            String[] i_interfaceNames;
+            if (classData.interfaceNames != null) {
+                i_interfaceNames = new String[classData.interfaceNames.length];
+                for (int nameNo = 0; nameNo < i_interfaceNames.length; nameNo++) {
+                    i_interfaceNames[nameNo] = internClassName(classData.interfaceNames[nameNo]);
+                }
+            } else {
+                i_interfaceNames = null;
+            }
+
+            if (!i_recordClass(i_className, i_superclassName, i_interfaceNames)) {
+                Tr.warning(tc, "ANNO_TARGETS_DUPLICATE_CLASS", getHashText(), i_className); // CWWKC0055W
+                return false;
+            }
+        }
+
+        int annotationCount = classData.annotationClassNames.size();
+        for (int annotationNo = 0; annotationNo < annotationCount; annotationNo++) {
+            String i_annotationClassName = internClassName(classData.annotationClassNames.get(annotationNo));
+
+            i_recordAnnotation(classData.annotationCategories.get(annotationNo), i_annotationClassName);
+        }
+
+        return true;
     }
 
     // Main visit entry point ... package and class processing begin with a call to visit.
@@ -374,6 +489,10 @@ public class AnnotationTargetsVisitor extends ClassVisitor {
 
             i_className = internClassName(className, Util_InternMap.DO_FORCE); // Remember this for recording annotations.
 
+            if (capture != null) {
+                capture.recordPackage(i_className);
+            }
+
             // if ( !i_recordScannedPackageName(name) ) {
             //     name = null;
             //
@@ -406,24 +525,18 @@ public class AnnotationTargetsVisitor extends ClassVisitor {
 
             i_className = internClassName(className); // Remember this for recording annotations.
 
-            if (!i_recordScannedClassName(i_className)) {
-                Tr.warning(tc, "ANNO_TARGETS_DUPLICATE_CLASS", getHashText(), i_className); // CWWKC0055W
-                throw VISIT_ENDED_DUPLICATE_CLASS;
-            }
-
-            i_removeReferencedClassName(i_className);
-
+            String i_superclassName;
             if (superClassResourceName != null) {
                 superClassResourceName = getClassNameFromPartialResourceName(superClassResourceName);
 
-                String i_superclassName = internClassName(superClassResourceName);
-
-                i_recordSuperclassName(i_className, i_superclassName);
-                i_recordReferencedClassName(i_superclassName);
+                i_superclassName = internClassName(superClassResourceName);
+            } else {
+                i_superclassName = null;
             }
 
+            String[] i_interfaceNames;
             if ((interfaceResourceNames != null) && (interfaceResourceNames.length > 0)) {
-                String[] i_interfaceNames = new String[interfaceResourceNames.length];
+                i_interfaceNames = new String[interfaceResourceNames.length];
 
                 for (int nameNo = 0; nameNo < interfaceResourceNames.length; nameNo++) {
                     String nextInterfaceResourceName = interfaceResourceNames[nameNo];
@@ -434,12 +547,13 @@ public class AnnotationTargetsVisitor extends ClassVisitor {
 
                     i_interfaceNames[nameNo] = i_nextInterfaceName;
                 }
+            } else {
+                i_interfaceNames = null;
+            }
 
-                i_recordInterfaceNames(i_className, i_interfaceNames);
-
-                for (String i_interfaceName : i_interfaceNames) {
-                    i_recordReferencedClassName(i_interfaceName);
-                }
+            if (!i_recordClass(i_className, i_superclassName, i_interfaceNames)) {
+                Tr.warning(tc, "ANNO_TARGETS_DUPLICATE_CLASS", getHashText(), i_className); // CWWKC0055W
+                throw VISIT_ENDED_DUPLICATE_CLASS;
             }
         }
     }
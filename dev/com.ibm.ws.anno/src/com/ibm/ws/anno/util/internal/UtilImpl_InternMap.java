@@ -195,6 +195,9 @@ public class UtilImpl_InternMap implements Util_InternMap {
     }
 
     // Name intern map ...
+    //
+    // Access to the map is synchronized: Class sources may be scanned on several
+    // threads, which intern class names into the same map.
 
     protected final Map<String, String> internMap;
     protected int lastReportedLength; // Used for logging.
@@ -218,13 +221,13 @@ public class UtilImpl_InternMap implements Util_InternMap {
 
     @Override
     @Trivial
-    public int getSize() {
+    public synchronized int getSize() {
         return getInternMap().size();
     }
 
     @Override
     @Trivial
-    public int getTotalLength() {
+    public synchronized int getTotalLength() {
         return totalLength;
     }
 
@@ -267,7 +270,7 @@ public class UtilImpl_InternMap implements Util_InternMap {
      */
     // Not set as Trivial: We want to trace intern calls.
     @Override
-    public String intern(String value, boolean doForce) {
+    public synchronized String intern(String value, boolean doForce) {
         if (value == null) {
             return value;
         }
@@ -317,7 +320,7 @@ public class UtilImpl_InternMap implements Util_InternMap {
     // And: UtilImpl_BidirectionalMap.containsHolder(String)
     @Override
     @Trivial
-    public boolean contains(String value) {
+    public synchronized boolean contains(String value) {
         return internMap.containsKey(value);
     }
 
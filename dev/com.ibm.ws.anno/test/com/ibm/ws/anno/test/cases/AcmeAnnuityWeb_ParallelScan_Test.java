@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.test.cases;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_ParallelScan;
+import com.ibm.ws.anno.classsource.specification.ClassSource_Specification_Direct_WAR;
+import com.ibm.ws.anno.test.data.AcmeAnnuityWeb_AcmeAnnuityWeb_war_Data;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate;
+import com.ibm.wsspi.anno.classsource.ClassSource_Aggregate.ScanPolicy;
+import com.ibm.wsspi.anno.classsource.ClassSource_Exception;
+import com.ibm.wsspi.anno.classsource.ClassSource_ScanCounts;
+import com.ibm.wsspi.anno.classsource.ClassSource_Streamer;
+
+/**
+ * Scan AcmeAnnuityWeb, which has the same jar both in WEB-INF/lib and as a manifest jar,
+ * on the requesting thread and on scan threads. Both scans must hand the same classes,
+ * with the same data, to the streamer in the same order, and must count the same results.
+ */
+public class AcmeAnnuityWeb_ParallelScan_Test extends AnnotationTest_BaseClass {
+
+    @Override
+    public ClassSource_Specification_Direct_WAR createClassSourceSpecification() {
+        return AcmeAnnuityWeb_AcmeAnnuityWeb_war_Data.createClassSourceSpecification(getClassSourceFactory(),
+                                                                                     getProjectPath(),
+                                                                                     getDataPath());
+    }
+
+    @Override
+    public String getTargetName() {
+        return AcmeAnnuityWeb_AcmeAnnuityWeb_war_Data.WAR_NAME;
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp(); // throws Exception
+
+        setDataPath(AcmeAnnuityWeb_AcmeAnnuityWeb_war_Data.EAR_NAME);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(ClassSourceImpl_ParallelScan.SCAN_THREADS_PROPERTY_NAME);
+
+        getClassSourceFactory().shutdownScanExecutor();
+    }
+
+    //
+
+    /**
+     * Streamer which records the class source, name, and data checksum of each class.
+     */
+    protected static class RecordingStreamer implements ClassSource_Streamer {
+        protected final List<String> classes = new ArrayList<String>();
+
+        @Override
+        public boolean doProcess(String className, ScanPolicy scanPolicy) {
+            return true;
+        }
+
+        @Override
+        public boolean process(String classSourceName, String className, InputStream inputStream, ScanPolicy scanPolicy) throws ClassSource_Exception {
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[4096];
+            try {
+                int bytesRead;
+                while ((bytesRead = inputStream.read(buffer)) != -1) {
+                    crc.update(buffer, 0, bytesRead);
+                }
+            } catch (IOException e) {
+                throw new ClassSource_Exception("Failed to read [ " + className + " ]", e);
+            }
+
+            classes.add(classSourceName + " " + className + " " + scanPolicy + " " + crc.getValue());
+            return true;
+        }
+    }
+
+    protected List<String> scan(String scanThreads, List<Integer> results) throws Exception {
+        if (scanThreads == null) {
+            System.clearProperty(ClassSourceImpl_ParallelScan.SCAN_THREADS_PROPERTY_NAME);
+        } else {
+            System.setProperty(ClassSourceImpl_ParallelScan.SCAN_THREADS_PROPERTY_NAME, scanThreads);
+        }
+
+        RecordingStreamer streamer = new RecordingStreamer();
+
+        ClassSource_Aggregate classSource = createClassSource(); // throws ClassSource_Exception
+        classSource.open(); // throws ClassSource_Exception
+        try {
+            classSource.scanClasses(streamer);
+        } finally {
+            classSource.close(); // throws ClassSource_Exception
+        }
+
+        for (ClassSource_ScanCounts.ResultField resultField : ClassSource_ScanCounts.ResultField.values()) {
+            results.add(Integer.valueOf(classSource.getResult(resultField)));
+        }
+
+        return streamer.classes;
+    }
+
+    @Test
+    public void testParallelScanMatchesSequentialScan() throws Exception {
+        List<Integer> sequentialResults = new ArrayList<Integer>();
+        List<String> sequentialClasses = scan(null, sequentialResults);
+        Assert.assertFalse("No classes were scanned", sequentialClasses.isEmpty());
+
+        for (String scanThreads : new String[] { "2", "4" }) {
+            List<Integer> parallelResults = new ArrayList<Integer>();
+            List<String> parallelClasses = scan(scanThreads, parallelResults);
+
+            Assert.assertEquals("Classes with " + scanThreads + " scan threads", sequentialClasses, parallelClasses);
+            Assert.assertEquals("Scan counts with " + scanThreads + " scan threads", sequentialResults, parallelResults);
+        }
+    }
+
+    @Test
+    public void testScanAfterShutdown() throws Exception {
+        List<Integer> firstResults = new ArrayList<Integer>();
+        List<String> firstClasses = scan("2", firstResults);
+
+        // The scan threads are recreated when needed after the factory stops them.
+        getClassSourceFactory().shutdownScanExecutor();
+
+        List<Integer> secondResults = new ArrayList<Integer>();
+        Assert.assertEquals(firstClasses, scan("2", secondResults));
+        Assert.assertEquals(firstResults, secondResults);
+    }
+}
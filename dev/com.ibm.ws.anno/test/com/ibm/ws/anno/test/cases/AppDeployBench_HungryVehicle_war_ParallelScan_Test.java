@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.test.cases;
+
+import org.junit.After;
+import org.junit.Before;
+
+import com.ibm.ws.anno.classsource.internal.ClassSourceImpl_ParallelScan;
+
+/**
+ * Repeat the HungryVehicle scans, which have many jars, reading the jars on several scan threads.
+ * The results must match those of the single threaded scan.
+ */
+public class AppDeployBench_HungryVehicle_war_ParallelScan_Test extends AppDeployBench_HungryVehicle_war_Test {
+
+    public static final String SCAN_THREADS = "4";
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp(); // throws Exception
+
+        System.setProperty(ClassSourceImpl_ParallelScan.SCAN_THREADS_PROPERTY_NAME, SCAN_THREADS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(ClassSourceImpl_ParallelScan.SCAN_THREADS_PROPERTY_NAME);
+    }
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.anno.test.cases;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+
+/**
+ * Repeat the HungryVehicle scans, which have many jars, with scan caching enabled.
+ * The first iteration stores the scan results of the jars, and later iterations
+ * load those results. The results must match those of scans which are not cached.
+ */
+public class AppDeployBench_HungryVehicle_war_ScanCache_Test extends AppDeployBench_HungryVehicle_war_Test {
+
+    protected File scanCacheDir;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp(); // throws Exception
+
+        scanCacheDir = File.createTempFile("scanCache", null); // throws IOException
+        scanCacheDir.delete();
+
+        getAnnotationTargetsFactory().setScanCache(scanCacheDir);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        getAnnotationTargetsFactory().setScanCache(null);
+
+        File[] cacheFiles = scanCacheDir.listFiles();
+        if (cacheFiles != null) {
+            for (File cacheFile : cacheFiles) {
+                cacheFile.delete();
+            }
+        }
+        scanCacheDir.delete();
+    }
+}
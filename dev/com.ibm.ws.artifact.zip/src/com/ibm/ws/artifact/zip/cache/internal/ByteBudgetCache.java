@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.artifact.zip.cache.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of byte arrays, bounded by the total number of bytes held.
+ */
+class ByteBudgetCache {
+
+    private final long maxBytes;
+    private long bytes;
+
+    private final LinkedHashMap<String, byte[]> map = new LinkedHashMap<String, byte[]>(16, .75f, true);
+
+    ByteBudgetCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized byte[] get(String key) {
+        return map.get(key);
+    }
+
+    synchronized void put(String key, byte[] data) {
+        if (data.length > maxBytes) {
+            return;
+        }
+
+        byte[] old = map.put(key, data);
+        if (old != null) {
+            bytes -= old.length;
+        }
+        bytes += data.length;
+
+        Iterator<Map.Entry<String, byte[]>> eldest = map.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+}
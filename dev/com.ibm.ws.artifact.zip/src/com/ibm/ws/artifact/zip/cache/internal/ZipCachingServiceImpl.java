@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 IBM Corporation and others.
+ * Copyright (c) 2012, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,40 +11,247 @@
 package com.ibm.ws.artifact.zip.cache.internal;
 
 import java.io.IOException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
 import com.ibm.ws.artifact.zip.cache.ZipCachingService;
 import com.ibm.ws.artifact.zip.cache.ZipFileHandle;
 
 /**
- *
+ * Cache of zip file handles, keyed by the path of the zip file.
+ * <p>
+ * Handles are held in a concurrent map, so that opening a cached handle does not
+ * contend with other threads opening other zip files. When more than the maximum
+ * number of handles are cached, the least recently used handles are evicted in a
+ * batch. An evicted handle remains usable by the callers which hold it, and closes
+ * its zip file when the last of them closes it.
+ * <p>
+ * A handle closes its zip file when its reference count drops to zero. To avoid
+ * reopening zip files which are opened and closed repeatedly, up to a budget of
+ * bytes of idle zip files may be kept open. The budget is zero by default, since an
+ * open zip file prevents the file from being deleted on some platforms.
  */
 public class ZipCachingServiceImpl implements ZipCachingService {
 
-    final private static int MAXCACHE = 250;
-    final private static Map<String, ZipFileHandle> cache = Collections.synchronizedMap(new CacheHashMap<String, ZipFileHandle>(MAXCACHE));
+    static final TraceComponent tc = Tr.register(ZipCachingServiceImpl.class);
+
+    // Settings, read once from system properties.
+
+    static final String MAX_HANDLES_PROPERTY_NAME = "com.ibm.ws.artifact.zip.cache.maxHandles";
+    static final String IDLE_OPEN_BYTES_PROPERTY_NAME = "com.ibm.ws.artifact.zip.cache.idleOpenBytes";
+    static final String DATA_BYTES_PROPERTY_NAME = "com.ibm.ws.artifact.zip.cache.dataBytes";
+    static final String DATA_ENTRY_BYTES_PROPERTY_NAME = "com.ibm.ws.artifact.zip.cache.dataEntryBytes";
+
+    final static int MAX_HANDLES = (int) getLongProperty(MAX_HANDLES_PROPERTY_NAME, 250);
+    final static long IDLE_OPEN_BYTES = getLongProperty(IDLE_OPEN_BYTES_PROPERTY_NAME, 0);
+    final static long DATA_BYTES = getLongProperty(DATA_BYTES_PROPERTY_NAME, 16 * 8192);
+    final static int DATA_ENTRY_BYTES = (int) getLongProperty(DATA_ENTRY_BYTES_PROPERTY_NAME, 8192);
+
+    private static long getLongProperty(final String name, long defaultValue) {
+        String value = AccessController.doPrivileged(new PrivilegedAction<String>() {
+            @Override
+            public String run() {
+                return System.getProperty(name);
+            }
+        });
+
+        if (value != null) {
+            try {
+                long longValue = Long.parseLong(value.trim());
+                if (longValue >= 0) {
+                    return longValue;
+                }
+            } catch (NumberFormatException e) {
+                // fall through to the default
+            }
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "Ignoring non-valid value " + value + " of " + name);
+        }
+        return defaultValue;
+    }
+
+    // Statistics
+
+    static final AtomicLong handleHits = new AtomicLong();
+    static final AtomicLong handleMisses = new AtomicLong();
+    static final AtomicLong handleEvictions = new AtomicLong();
+    static final AtomicLong zipOpens = new AtomicLong();
+    static final AtomicLong zipCloses = new AtomicLong();
+    static final AtomicLong idleReopens = new AtomicLong();
+    static final AtomicLong dataHits = new AtomicLong();
+    static final AtomicLong dataMisses = new AtomicLong();
+
+    /**
+     * @return the cache statistics, for trace and diagnostics
+     */
+    public static String getStatistics() {
+        return "handles=" + cache.size() + " handleHits=" + handleHits + " handleMisses=" + handleMisses +
+               " handleEvictions=" + handleEvictions + " zipOpens=" + zipOpens + " zipCloses=" + zipCloses +
+               " idleReopens=" + idleReopens + " idleOpenBytes=" + idleBytes +
+               " dataHits=" + dataHits + " dataMisses=" + dataMisses;
+    }
+
+    // Handle cache
+
+    final private static ConcurrentHashMap<String, ZipFileHandleImpl> cache = new ConcurrentHashMap<String, ZipFileHandleImpl>();
+
+    // Orders handle accesses for least recently used eviction.
+    final private static AtomicLong accessClock = new AtomicLong();
+
+    final private static ReentrantLock evictionLock = new ReentrantLock();
 
     // PK72252 - Returns a ZipFileHandle that has been referenced.  Callers are
     // required to call close() when the ZipFile is no longer needed.
     private static ZipFileHandle internalOpenZipFile(String path) throws IOException {
-        ZipFileHandle handle;
-
         //MUST NOT RETURN NULL.
 
-        //optimistic threadsafe cache usage.. 
-        handle = cache.get(path);
-        //handle was not in cache.. add it & remove oldest if needed.
-        if (handle == null) {
-            handle = new ZipFileHandleImpl(path);
-            //because we were not sync'd on anything, this could mean 2 threads built their own handle,
-            //but only the last thread will win & get it's handle into the cache.. not too much of a problem.
-            cache.put(path, handle);
+        ZipFileHandleImpl handle = cache.get(path);
+        if (handle != null) {
+            handleHits.incrementAndGet();
+        } else {
+            ZipFileHandleImpl newHandle = new ZipFileHandleImpl(path);
+            //a new handle is the most recently used, and must not be chosen by its own eviction.
+            newHandle.lastAccess = accessClock.incrementAndGet();
+            //two threads may build a handle for the same path, but only one is cached,
+            //and both threads use the cached handle.
+            handle = cache.putIfAbsent(path, newHandle);
+            if (handle == null) {
+                handle = newHandle;
+                handleMisses.incrementAndGet();
+                if (cache.size() > MAX_HANDLES) {
+                    evictHandles();
+                }
+            } else {
+                handleHits.incrementAndGet();
+            }
         }
 
+        handle.lastAccess = accessClock.incrementAndGet();
         return handle;
     }
 
+    // Evict the least recently used handles, down to nine tenths of the maximum,
+    // so that eviction is not done on every miss once the cache is full.  Threads
+    // which find eviction under way do not wait for it.
+    private static void evictHandles() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+
+        List<ZipFileHandleImpl> evicted = new ArrayList<ZipFileHandleImpl>();
+        try {
+            int target = MAX_HANDLES - (MAX_HANDLES / 10);
+            int excess = cache.size() - target;
+            if (excess <= 0) {
+                return;
+            }
+
+            // Sort on a snapshot of the access times, which change while sorting.
+            List<long[]> accesses = new ArrayList<long[]>(cache.size());
+            List<Map.Entry<String, ZipFileHandleImpl>> entries = new ArrayList<Map.Entry<String, ZipFileHandleImpl>>(cache.size());
+            for (Map.Entry<String, ZipFileHandleImpl> entry : cache.entrySet()) {
+                accesses.add(new long[] { entry.getValue().lastAccess, entries.size() });
+                entries.add(entry);
+            }
+            Collections.sort(accesses, new Comparator<long[]>() {
+                @Override
+                public int compare(long[] a1, long[] a2) {
+                    return (a1[0] < a2[0]) ? -1 : ((a1[0] == a2[0]) ? 0 : 1);
+                }
+            });
+
+            for (int i = 0; (i < accesses.size()) && (evicted.size() < excess); i++) {
+                Map.Entry<String, ZipFileHandleImpl> entry = entries.get((int) accesses.get(i)[1]);
+                if (cache.remove(entry.getKey(), entry.getValue())) {
+                    evicted.add(entry.getValue());
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+
+        handleEvictions.addAndGet(evicted.size());
+        for (ZipFileHandleImpl handle : evicted) {
+            handle.evict();
+        }
+
+        if (tc.isDebugEnabled())
+            Tr.debug(tc, "Evicted " + evicted.size() + " handles: " + getStatistics());
+    }
+
+    // Idle zip files which are kept open, oldest first, with the length of each as
+    // it was counted against the budget.
+    //
+    // Handles call in while holding their own lock, so the lock of a handle must
+    // never be obtained while holding the lock of the idle handles.
+
+    final private static Map<ZipFileHandleImpl, Long> idleHandles = new LinkedHashMap<ZipFileHandleImpl, Long>();
+    private static volatile long idleBytes;
+
+    /**
+     * Offer to keep open the zip file of a handle whose reference count dropped to zero.
+     * Called while holding the lock of the handle. Handles which must be closed to stay
+     * within the budget are added to the victims, which the caller must close once it
+     * has released the lock of the handle.
+     *
+     * @return true if the zip file is to be kept open
+     */
+    static boolean offerIdle(ZipFileHandleImpl handle, long length, List<ZipFileHandleImpl> victims) {
+        if (length > IDLE_OPEN_BYTES) {
+            return false;
+        }
+
+        synchronized (idleHandles) {
+            if (!idleHandles.containsKey(handle)) {
+                idleHandles.put(handle, Long.valueOf(length));
+                idleBytes += length;
+            }
+
+            Iterator<Map.Entry<ZipFileHandleImpl, Long>> idle = idleHandles.entrySet().iterator();
+            while ((idleBytes > IDLE_OPEN_BYTES) && idle.hasNext()) {
+                Map.Entry<ZipFileHandleImpl, Long> victim = idle.next();
+                if (victim.getKey() != handle) {
+                    idle.remove();
+                    idleBytes -= victim.getValue().longValue();
+                    victims.add(victim.getKey());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop tracking the zip file of a handle as idle.
+     */
+    static void removeIdle(ZipFileHandleImpl handle) {
+        synchronized (idleHandles) {
+            Long length = idleHandles.remove(handle);
+            if (length != null) {
+                idleBytes -= length.longValue();
+            }
+        }
+    }
+
+    /**
+     * @return the total length of the idle zip files which are kept open
+     */
+    static long getIdleBytes() {
+        return idleBytes;
+    }
+
+    @Override
     public ZipFileHandle openZipFile(String path) throws IOException {
         return ZipCachingServiceImpl.internalOpenZipFile(path);
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 IBM Corporation and others.
+ * Copyright (c) 2012, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,8 +18,9 @@ import java.io.InputStream;
 import java.io.PrintStream;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.Collections;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -29,7 +30,12 @@ import com.ibm.ws.artifact.zip.cache.ZipFileHandle;
 import com.ibm.ws.artifact.zip.internal.Utils;
 
 /**
- *
+ * A reference counted handle to a zip file.
+ * <p>
+ * The zip file is opened by the first open of the handle, and is closed when the
+ * reference count drops to zero, unless the caching service keeps it open while
+ * idle. Opening and closing a handle which is already open by other callers only
+ * updates the reference count, without locking the handle.
  */
 public class ZipFileHandleImpl implements ZipFileHandle {
 
@@ -37,8 +43,20 @@ public class ZipFileHandleImpl implements ZipFileHandle {
 
     private final String path;
     private final File file;
-    private ZipFile zipFile;
-    private int refs;
+    private volatile ZipFile zipFile;
+    private final AtomicInteger refs = new AtomicInteger();
+
+    // The modification time and length of the file when the zip file was opened.
+    private long zipFileLastModified;
+    private long zipFileLength;
+
+    // Guarded by this: Whether the zip file is open while the reference count is zero,
+    // and whether the handle was evicted from the caching service.
+    private boolean isIdle;
+    private boolean isEvicted;
+
+    // Set by the caching service on every access, for least recently used eviction.
+    volatile long lastAccess;
 
     ZipFileHandleImpl(String path) {
         this.path = path;
@@ -50,61 +68,130 @@ public class ZipFileHandleImpl implements ZipFileHandle {
     }
 
     @Override
-    public synchronized ZipFile open() throws IOException {
-        if (zipFile == null) {
+    public ZipFile open() throws IOException {
+        //quick path, the zip file is already open and held open by other callers.
+        for (int current = refs.get(); current > 0; current = refs.get()) {
+            if (refs.compareAndSet(current, current + 1)) {
+                return zipFile;
+            }
+        }
+
+        synchronized (this) {
+            if (isIdle) {
+                isIdle = false;
+                ZipCachingServiceImpl.removeIdle(this);
+                //an idle zip file is only reused if the file was not changed.
+                if (getLastModified() != zipFileLastModified) {
+                    closeZipFile();
+                } else {
+                    ZipCachingServiceImpl.idleReopens.incrementAndGet();
+                }
+            }
+            if (zipFile == null) {
+                if (tc.isDebugEnabled())
+                    Tr.debug(tc, "[" + this.hashCode() + "] Opening FileHandle to " + path);
+                zipFileLastModified = getLastModified();
+                zipFileLength = getLength();
+                zipFile = Utils.newZipFile(file);
+                ZipCachingServiceImpl.zipOpens.incrementAndGet();
+            }
+            int current = refs.incrementAndGet();
             if (tc.isDebugEnabled())
-                Tr.debug(tc, "[" + this.hashCode() + "] Opening FileHandle to " + path);
-            zipFile = Utils.newZipFile(file);
+                Tr.debug(tc, "[" + this.hashCode() + "] refCount now " + current);
+            return zipFile;
         }
-        refs++;
-        if (tc.isDebugEnabled())
-            Tr.debug(tc, "[" + this.hashCode() + "] refCount now " + refs);
-        return zipFile;
     }
 
     @Override
-    public synchronized void close() {
-        //quick exit if anyone is trying to close us when we are closed!
-        if (refs == 0) {
-            if (tc.isDebugEnabled()) {
-                Tr.debug(tc, "[" + this.hashCode() + "] attempt to call close when closed & ref at zero.. caused by.. ");
-                Exception e = new Exception();
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                PrintStream ps = new PrintStream(baos);
-                e.printStackTrace(ps);
-                Tr.debug(tc, baos.toString());
+    public void close() {
+        //quick path, other callers still hold the zip file open.
+        for (int current = refs.get(); current > 1; current = refs.get()) {
+            if (refs.compareAndSet(current, current - 1)) {
+                return;
             }
-            return;
         }
 
-        if (--refs != 0) {
-            if (tc.isDebugEnabled())
-                Tr.debug(tc, "[" + this.hashCode() + "] refCount now " + refs);
-            return;
-        }
+        List<ZipFileHandleImpl> victims = new ArrayList<ZipFileHandleImpl>(0);
 
-        // PK96275
-        // Make sure the zipFile has been opened, as it is
-        // possible for a newly created ZipFileHandle to be kicked
-        // out of the zipFileCache before it's been opened.
-        if (zipFile != null) {
-            try {
-                if (tc.isDebugEnabled())
-                    Tr.debug(tc, "[" + this.hashCode() + "] Closing handle to path " + path);
-                zipFile.close();
+        synchronized (this) {
+            //quick exit if anyone is trying to close us when we are closed!
+            if (refs.get() == 0) {
+                if (tc.isDebugEnabled()) {
+                    Tr.debug(tc, "[" + this.hashCode() + "] attempt to call close when closed & ref at zero.. caused by.. ");
+                    Exception e = new Exception();
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    PrintStream ps = new PrintStream(baos);
+                    e.printStackTrace(ps);
+                    Tr.debug(tc, baos.toString());
+                }
+                return;
+            }
+
+            int current = refs.decrementAndGet();
+            if (current != 0) {
                 if (tc.isDebugEnabled())
-                    Tr.debug(tc, "[" + this.hashCode() + "] refCount now " + refs);
-            } catch (IOException ex) {
-                //instrumented ffdc.
-            } finally {
-                zipFile = null;
+                    Tr.debug(tc, "[" + this.hashCode() + "] refCount now " + current);
+                return;
+            }
+
+            // PK96275
+            // Make sure the zipFile has been opened, as it is
+            // possible for a newly created ZipFileHandle to be kicked
+            // out of the zipFileCache before it's been opened.
+            if (zipFile != null) {
+                if (!isEvicted && ZipCachingServiceImpl.offerIdle(this, zipFileLength, victims)) {
+                    isIdle = true;
+                    if (tc.isDebugEnabled())
+                        Tr.debug(tc, "[" + this.hashCode() + "] Keeping idle handle open to path " + path);
+                } else {
+                    closeZipFile();
+                }
             }
         }
+
+        //close idle zip files pushed out of the idle budget, outside of the lock of this handle.
+        for (ZipFileHandleImpl victim : victims) {
+            victim.closeIfIdle();
+        }
+    }
+
+    // Called while holding the lock of this handle.
+    private void closeZipFile() {
+        try {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, "[" + this.hashCode() + "] Closing handle to path " + path);
+            zipFile.close();
+            ZipCachingServiceImpl.zipCloses.incrementAndGet();
+        } catch (IOException ex) {
+            //instrumented ffdc.
+        } finally {
+            zipFile = null;
+        }
+    }
+
+    /**
+     * Close the zip file if it is open only because it was kept idle.
+     */
+    synchronized void closeIfIdle() {
+        if (isIdle && (refs.get() == 0)) {
+            isIdle = false;
+            //the handle may have been offered as idle again since it was chosen to be closed.
+            ZipCachingServiceImpl.removeIdle(this);
+            closeZipFile();
+        }
+    }
+
+    /**
+     * Called by the caching service when it evicts this handle. Callers which still
+     * hold the handle can continue to use it. The zip file is closed once idle.
+     */
+    synchronized void evict() {
+        isEvicted = true;
+        closeIfIdle();
     }
 
-    final private static int MAX_CACHE_ENTRY_SIZE = 8192;
-    final private static int MAX_CACHE_ENTRIES = 16;
-    final private static Map<String, byte[]> dataCache = Collections.synchronizedMap(new CacheHashMap<String, byte[]>(MAX_CACHE_ENTRIES));
+    // Cache of the data of small entries, shared by all handles, and bounded by a byte budget.
+    final private static ByteBudgetCache dataCache = new ByteBudgetCache(ZipCachingServiceImpl.DATA_BYTES);
 
     private byte[] readDataToByteArray(InputStream in) throws IOException {
         if (in == null) {
@@ -142,6 +229,16 @@ public class ZipFileHandleImpl implements ZipFileHandle {
         });
     }
 
+    private long getLength() {
+        return AccessController.doPrivileged(new PrivilegedAction<Long>() {
+            @Override
+            public Long run() {
+                return file.length();
+            }
+
+        });
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -151,23 +248,28 @@ public class ZipFileHandleImpl implements ZipFileHandle {
     public InputStream getInputStream(ZipFile zf, ZipEntry ze) throws IOException {
         //entry was small enough that it might be in cache, or need to be put there.
         long size = ze.getSize();
-        if (size < MAX_CACHE_ENTRY_SIZE && size > 0 && !ze.getName().endsWith(".class")) {
-            //build a key that includes the entry crc, if the zip changes, we'll only return stale data if the crc clashes.. 
-            //which is pretty remote.. 
-            String path = ze.getName();
-            path += ":::" + ze.getCrc();
-            path += ":::" + getLastModified();
-
-            byte[] data = dataCache.get(path);
+        if (size <= ZipCachingServiceImpl.DATA_ENTRY_BYTES && size > 0 && !ze.getName().endsWith(".class")) {
+            //build a key that includes the zip path, the entry crc, and the modification time
+            //of the zip when it was opened.  if the zip changes, we'll only return stale data
+            //if the crc clashes.. which is pretty remote..
+            long lastModified;
+            synchronized (this) {
+                lastModified = zipFileLastModified;
+            }
+            String key = path + "!/" + ze.getName() + ":::" + ze.getCrc() + ":::" + lastModified;
+
+            byte[] data = dataCache.get(key);
             if (data != null) {
+                ZipCachingServiceImpl.dataHits.incrementAndGet();
                 return new ByteArrayInputStream(data);
             } else {
+                ZipCachingServiceImpl.dataMisses.incrementAndGet();
                 data = readDataToByteArray(zf.getInputStream(ze));
                 if (data != null) {
                     //no sync block means that we might in a race condition
                     //retrieve the inputstream multiple times, but only the 
                     //last one will end up in the cache, this is fine.
-                    dataCache.put(path, data);
+                    dataCache.put(key, data);
                     return new ByteArrayInputStream(data);
                 }
             }
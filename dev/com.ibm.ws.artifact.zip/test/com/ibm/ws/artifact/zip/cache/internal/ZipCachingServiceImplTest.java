@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.artifact.zip.cache.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.ws.artifact.zip.cache.ZipFileHandle;
+
+/**
+ * Unit test for the idle budget and the eviction of the zip file handle cache.
+ */
+public class ZipCachingServiceImplTest {
+
+    private static final int MAX_HANDLES = 10;
+    private static final long IDLE_OPEN_BYTES = 10000;
+
+    // The settings are read once, when the caching service class is initialized.
+    static {
+        System.setProperty(ZipCachingServiceImpl.MAX_HANDLES_PROPERTY_NAME, Integer.toString(MAX_HANDLES));
+        System.setProperty(ZipCachingServiceImpl.IDLE_OPEN_BYTES_PROPERTY_NAME, Long.toString(IDLE_OPEN_BYTES));
+    }
+
+    private static final List<File> files = new ArrayList<File>();
+
+    private final ZipCachingServiceImpl service = new ZipCachingServiceImpl();
+
+    @AfterClass
+    public static void tearDown() {
+        for (File file : files)
+            file.delete();
+    }
+
+    /**
+     * Creates a zip file with an entry of random data, which does not compress,
+     * so that the zip file is slightly longer than the entry.
+     */
+    private static String createZipFile(int entryLength) throws IOException {
+        File file = File.createTempFile("zipCache", ".zip");
+        files.add(file);
+
+        byte[] data = new byte[entryLength];
+        new Random().nextBytes(data);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        ZipEntry entry = new ZipEntry("data");
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCrc(crc.getValue());
+
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            out.putNextEntry(entry);
+            out.write(data);
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        return file.getAbsolutePath();
+    }
+
+    private ZipFileHandleImpl openAndClose(String path) throws IOException {
+        ZipFileHandleImpl handle = (ZipFileHandleImpl) service.openZipFile(path);
+        Assert.assertNotNull(handle.open());
+        handle.close();
+        return handle;
+    }
+
+    @Test
+    public void testIdleZipFileReused() throws Exception {
+        String path = createZipFile(4000);
+
+        ZipFileHandleImpl handle = openAndClose(path);
+        Assert.assertNotNull("idle zip file was closed", handle.getZipFile());
+        long idleBytes = ZipCachingServiceImpl.getIdleBytes();
+
+        long zipOpens = ZipCachingServiceImpl.zipOpens.get();
+        long idleReopens = ZipCachingServiceImpl.idleReopens.get();
+        Assert.assertSame(handle, openAndClose(path));
+        Assert.assertEquals(zipOpens, ZipCachingServiceImpl.zipOpens.get());
+        Assert.assertEquals(idleReopens + 1, ZipCachingServiceImpl.idleReopens.get());
+
+        handle.evict();
+        Assert.assertNull("evicted zip file was not closed", handle.getZipFile());
+        Assert.assertEquals(idleBytes - new File(path).length(), ZipCachingServiceImpl.getIdleBytes());
+    }
+
+    @Test
+    public void testZipFileLargerThanBudgetClosed() throws Exception {
+        long idleBytes = ZipCachingServiceImpl.getIdleBytes();
+
+        ZipFileHandleImpl handle = openAndClose(createZipFile(20000));
+        Assert.assertNull("zip file larger than the budget was kept open", handle.getZipFile());
+        Assert.assertEquals(idleBytes, ZipCachingServiceImpl.getIdleBytes());
+    }
+
+    @Test
+    public void testOldestIdleZipFileClosedOverBudget() throws Exception {
+        // Idle zip files left by other tests are older, and are closed first.
+        ZipFileHandleImpl handle1 = openAndClose(createZipFile(4000));
+        ZipFileHandleImpl handle2 = openAndClose(createZipFile(4000));
+        String path3 = createZipFile(4000);
+        ZipFileHandleImpl handle3 = openAndClose(path3);
+
+        Assert.assertNull("oldest idle zip file was not closed", handle1.getZipFile());
+        Assert.assertNotNull(handle2.getZipFile());
+        Assert.assertNotNull(handle3.getZipFile());
+        long idleBytes = ZipCachingServiceImpl.getIdleBytes();
+        Assert.assertTrue(idleBytes <= IDLE_OPEN_BYTES);
+
+        handle3.evict();
+        Assert.assertEquals(idleBytes - new File(path3).length(), ZipCachingServiceImpl.getIdleBytes());
+        handle2.evict();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedHandlesEvicted() throws Exception {
+        List<String> paths = new ArrayList<String>();
+        for (int i = 0; i <= MAX_HANDLES; i++)
+            paths.add(createZipFile(100));
+
+        // Hold the first handle open across its eviction.
+        ZipFileHandle held = service.openZipFile(paths.get(0));
+        held.open();
+
+        long handleEvictions = ZipCachingServiceImpl.handleEvictions.get();
+        for (String path : paths)
+            openAndClose(path);
+        Assert.assertTrue("no handles were evicted", ZipCachingServiceImpl.handleEvictions.get() > handleEvictions);
+
+        // The evicted handle remains usable, and its zip file is closed by its last close.
+        ZipFileHandleImpl heldImpl = (ZipFileHandleImpl) held;
+        Assert.assertNotSame("handle was not evicted", held, service.openZipFile(paths.get(0)));
+        Assert.assertNotNull(heldImpl.getZipFile());
+        held.close();
+        Assert.assertNull("evicted zip file was not closed", heldImpl.getZipFile());
+    }
+
+    /**
+     * Opens and closes handles on several threads while the idle budget closes idle zip
+     * files and the cache evicts handles, which deadlocked when the lock of the idle
+     * handles was held while obtaining the lock of a handle.
+     */
+    @Test
+    public void testConcurrentOpenCloseEvict() throws Exception {
+        final List<String> paths = new ArrayList<String>();
+        for (int i = 0; i < MAX_HANDLES * 2; i++)
+            paths.add(createZipFile(3000));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < 8; t++) {
+                final int seed = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        Random random = new Random(seed);
+                        for (int i = 0; i < 2000; i++)
+                            openAndClose(paths.get(random.nextInt(paths.size())));
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+                future.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertTrue(ZipCachingServiceImpl.getIdleBytes() <= IDLE_OPEN_BYTES);
+    }
+}
@@ -717,6 +717,20 @@ public class ClassLoadingServiceImpl implements LibertyClassLoadingService, Clas
             }
         }
 
+        out.println();
+        out.println();
+
+        out.println("App Class Loader lookups:");
+        CanonicalStore<ClassLoaderIdentity, AppClassLoader> useAclStore = aclStore;
+        if (useAclStore != null) {
+            for (ClassLoaderIdentity id : useAclStore.keys()) {
+                AppClassLoader acl = useAclStore.retrieve(id);
+                if (acl != null) {
+                    out.println("  " + id + " " + acl.getLookupStatistics());
+                }
+            }
+        }
+
         out.println();
         out.println();
         out.println("Leaked (or active) TCCLs - note that tracing must be enabled to see these stacks:");
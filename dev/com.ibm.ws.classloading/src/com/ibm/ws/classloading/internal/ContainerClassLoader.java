@@ -33,11 +33,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
@@ -582,6 +584,11 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
         Collection<URL> getResourceURLs(String path);
 
         boolean containsContainer(Container container);
+
+        /**
+         * @return the lookup statistics of the classpath, for trace and diagnostics
+         */
+        String getLookupStatistics();
     }
 
     /**
@@ -680,10 +687,13 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
         final int MAX_LASTFOUND = maxLastFound;
         final Map<String, URL> lastFoundURL = Collections.synchronizedMap(new CacheHashMap<String, URL>(MAX_LASTFOUND));
         /**
-         * How many 'really not found' (eg, not known at all to this classloader) to cache.
+         * How many 'really not found' (eg, not known at all to this classloader) to cache.<p>
+         * Each path is recorded with the classpath generation which was searched, and is only
+         * treated as not found while the generation is current. Checked on every class load,
+         * so this is a concurrent map rather than a synchronized least recently used map.
          */
         final int MAX_LASTREALLYNOTFOUND = maxLastReallyNotFound;
-        final Map<String, Object> lastReallyNotFoundURL = Collections.synchronizedMap(new CacheHashMap<String, Object>(MAX_LASTREALLYNOTFOUND));
+        final ConcurrentHashMap<String, Integer> lastReallyNotFoundURL = new ConcurrentHashMap<String, Integer>();
 
         /**
          * This containers package map, indexed from hashCode of package string to list of relevant containers.
@@ -692,6 +702,21 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
 
         final Set<Container> containers = Collections.newSetFromMap(new WeakHashMap<Container, Boolean>());
 
+        /**
+         * Incremented whenever a container is added, so that a 'really not found' recorded
+         * by a lookup which ran against the old classpath is not used.
+         */
+        volatile int classPathGeneration;
+
+        /**
+         * Lookup statistics, for class bytes and resource URL lookups.
+         */
+        final AtomicLong lookups = new AtomicLong();
+        final AtomicLong notFoundCacheHits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong containerProbes = new AtomicLong();
+        final AtomicLong lookupNanos = new AtomicLong();
+
         /**
          * Internal method to add a new UniversalContainer to the list.
          * 
@@ -745,6 +770,11 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
             //set is used with a given cp entry. They all start empty, and are equiv at this stage.
             classPath.add(uc);
             lastNotFound.add(Collections.synchronizedSet(new LinkedHashSet<String>()));
+
+            //a path that was not found anywhere may be found in the new container.
+            //entries of older generations are ignored, clearing them only frees the space.
+            classPathGeneration++;
+            lastReallyNotFoundURL.clear();
         }
 
         @Override
@@ -817,41 +847,77 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
 
         @Override
         public ByteResourceInformation getByteResourceInformation(String path) throws IOException {
-            int idx = 0;
-            List<UniversalContainer> locationsToCheck = classPath;
-            if (usePackageMap) {
-                locationsToCheck = getUniversalContainersForPath(path, locationsToCheck);
-            }
+            long startNanos = System.nanoTime();
+            lookups.incrementAndGet();
+            try {
+                //test negative cache 1st, this catches repeated probes such as Class.forName
+                //of optional classes by frameworks.
+                if (isReallyNotFound(path)) {
+                    notFoundCacheHits.incrementAndGet();
+                    return null;
+                }
 
-            for (UniversalContainer uc : locationsToCheck) {
-                Set<String> lastNotFoundForThisContainer = lastNotFound.get(idx);
-                //when we use package map, the index for the cache lookup is invalid
-                //to fix this needs the cache moving inside the universal containers
-                if (usePackageMap || pathNotInlastNotFound(path, lastNotFoundForThisContainer)) {
-                    //no hit in not-found-cache.. try to obtain.
-                    UniversalContainer.UniversalResource ur = uc.getResource(path);
-                    if (ur != null) {
-                        //got one.. 
-                        ByteResourceInformation is = ur.getByteResourceInformation();
-                        if (is != null) {
-                            return is;
-                        }
-                    } else {
-                        //looked, but did not find.. update the not-found-cache.
-                        //(unless we used packagemap to get here, in which case it's 
-                        //(not the right cache! so don't touch it!
-                        if (!usePackageMap && lastNotFoundForThisContainer != null) {
-                            addPath(lastNotFoundForThisContainer, path);
+                int generation = classPathGeneration;
+                List<UniversalContainer> locationsToCheck = classPath;
+                if (usePackageMap) {
+                    locationsToCheck = getUniversalContainersForPath(path, locationsToCheck);
+                }
+                //the per container not-found caches are indexed by classpath position, so can
+                //only be used when the full classpath is searched, which includes the time
+                //before the package map is built.
+                boolean useLastNotFound = (locationsToCheck == classPath);
+
+                int idx = 0;
+                boolean foundAny = false;
+                for (UniversalContainer uc : locationsToCheck) {
+                    Set<String> lastNotFoundForThisContainer = useLastNotFound ? getLastNotFound(idx) : null;
+                    if (!useLastNotFound || pathNotInlastNotFound(path, lastNotFoundForThisContainer)) {
+                        //no hit in not-found-cache.. try to obtain.
+                        containerProbes.incrementAndGet();
+                        UniversalContainer.UniversalResource ur = uc.getResource(path);
+                        if (ur != null) {
+                            //got one.. 
+                            foundAny = true;
+                            ByteResourceInformation is = ur.getByteResourceInformation();
+                            if (is != null) {
+                                return is;
+                            }
+                        } else {
+                            //looked, but did not find.. update the not-found-cache.
+                            //(unless we used packagemap to get here, in which case it's 
+                            //(not the right cache! so don't touch it!
+                            if (lastNotFoundForThisContainer != null) {
+                                addPath(lastNotFoundForThisContainer, path);
+                            }
                         }
                     }
+                    idx++;
                 }
-                idx++;
+
+                misses.incrementAndGet();
+                //only remember paths that are not present at all, a path that was present but had
+                //no bytes (eg, a directory) may still have a URL.
+                if (!foundAny) {
+                    addReallyNotFound(path, generation);
+                }
+                return null;
+            } finally {
+                lookupNanos.addAndGet(System.nanoTime() - startNanos);
             }
-            return null;
         }
 
         @Override
         public URL getResourceURL(String path) {
+            long startNanos = System.nanoTime();
+            lookups.incrementAndGet();
+            try {
+                return findResourceURL(path);
+            } finally {
+                lookupNanos.addAndGet(System.nanoTime() - startNanos);
+            }
+        }
+
+        private URL findResourceURL(String path) {
             //test positive cache 1st.
             URL cached = lastFoundURL.get(path);
             if (cached != null) {
@@ -860,23 +926,27 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
                 return cached;
             }
             //test negative cache next.. 
-            if (lastReallyNotFoundURL.containsKey(path)) {
+            if (isReallyNotFound(path)) {
+                notFoundCacheHits.incrementAndGet();
                 if (tc.isDebugEnabled())
                     Tr.debug(tc, "CCL: [" + this.hashCode() + "]  getResourceURL : '" + path + "' " + "lastReallyNotFound hit.");
                 return null;
             }
 
+            int generation = classPathGeneration;
             List<UniversalContainer> locationsToCheck = classPath;
             if (usePackageMap) {
                 locationsToCheck = getUniversalContainersForPath(path, locationsToCheck);
             }
+            boolean useLastNotFound = (locationsToCheck == classPath);
 
             int idx = 0;
             int skipped = 0;
             for (UniversalContainer uc : locationsToCheck) {
-                Set<String> lastNotFoundForThisContainer = lastNotFound.get(idx);
-                if (usePackageMap || pathNotInlastNotFound(path, lastNotFoundForThisContainer)) {
+                Set<String> lastNotFoundForThisContainer = useLastNotFound ? getLastNotFound(idx) : null;
+                if (!useLastNotFound || pathNotInlastNotFound(path, lastNotFoundForThisContainer)) {
                     //no hit found, try getResource
+                    containerProbes.incrementAndGet();
                     UniversalContainer.UniversalResource ur = uc.getResource(path);
                     if (ur != null) {
                         URL url = ur.getResourceURL();
@@ -892,7 +962,7 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
                         }
                     } else {
                         //looked, but did not find, update cache.
-                        if (!usePackageMap && lastNotFoundForThisContainer != null) {
+                        if (lastNotFoundForThisContainer != null) {
                             addPath(lastNotFoundForThisContainer, path);
                         }
                     }
@@ -901,29 +971,32 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
                 }
                 idx++;
             }
+            misses.incrementAndGet();
             if (tc.isDebugEnabled())
                 Tr.debug(tc, "CCL: [" + this.hashCode() + "]  getResourceURL : '" + path + "' " + "really not found. Cache size is now.. " + lastReallyNotFoundURL.size()
-                             + " path already known to cache? " + lastReallyNotFoundURL.containsKey(path));
-            lastReallyNotFoundURL.put(path, null);//abusing a map as a set here =)
+                             + " path already known to cache? " + lastReallyNotFoundURL.containsKey(path) + " " + getLookupStatistics());
+            addReallyNotFound(path, generation);
             return null;
         }
 
         @Override
         public Collection<URL> getResourceURLs(String path) {
             List<URL> urls = new ArrayList<URL>();
-            if (lastReallyNotFoundURL.containsKey(path)) {
+            if (isReallyNotFound(path)) {
                 return urls;
             }
 
+            int generation = classPathGeneration;
             List<UniversalContainer> locationsToCheck = classPath;
             if (usePackageMap) {
                 locationsToCheck = getUniversalContainersForPath(path, locationsToCheck);
             }
+            boolean useLastNotFound = (locationsToCheck == classPath);
 
             int idx = 0;
             for (UniversalContainer uc : locationsToCheck) {
-                Set<String> lastNotFoundForThisContainer = lastNotFound.get(idx);
-                if (usePackageMap || pathNotInlastNotFound(path, lastNotFoundForThisContainer)) {
+                Set<String> lastNotFoundForThisContainer = useLastNotFound ? getLastNotFound(idx) : null;
+                if (!useLastNotFound || pathNotInlastNotFound(path, lastNotFoundForThisContainer)) {
                     //cache did not know this path, attempt getResource
                     UniversalContainer.UniversalResource ur = uc.getResource(path);
                     if (ur != null) {
@@ -933,7 +1006,7 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
                         }
                     } else {
                         //looked but did not find.. update cache. 
-                        if (!usePackageMap && lastNotFoundForThisContainer != null) {
+                        if (lastNotFoundForThisContainer != null) {
                             addPath(lastNotFoundForThisContainer, path);
                         }
                     }
@@ -941,11 +1014,46 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
                 idx++;
             }
             if (urls.isEmpty()) {
-                lastReallyNotFoundURL.put(path, null);
+                addReallyNotFound(path, generation);
             }
             return urls;
         }
 
+        /**
+         * Whether a path was not found in any container of the current classpath.
+         */
+        private boolean isReallyNotFound(String path) {
+            Integer generation = lastReallyNotFoundURL.get(path);
+            return generation != null && generation.intValue() == classPathGeneration;
+        }
+
+        /**
+         * Record a path which was not found in any container of the given classpath generation.
+         * When the cache is full an arbitrary path is removed to make room.
+         */
+        private void addReallyNotFound(String path, int generation) {
+            if (generation != classPathGeneration) {
+                return;
+            }
+            if (lastReallyNotFoundURL.size() >= MAX_LASTREALLYNOTFOUND) {
+                Iterator<String> i = lastReallyNotFoundURL.keySet().iterator();
+                if (i.hasNext()) {
+                    i.next();
+                    i.remove();
+                }
+            }
+            lastReallyNotFoundURL.put(path, Integer.valueOf(generation));
+        }
+
+        /**
+         * The not-found cache for a classpath index, or null if a container is being added
+         * and its cache is not yet present.
+         */
+        private Set<String> getLastNotFound(int idx) {
+            List<Set<String>> useLastNotFound = lastNotFound;
+            return idx < useLastNotFound.size() ? useLastNotFound.get(idx) : null;
+        }
+
         private void addPath(Set<String> lastNotFoundForThisContainer, String path) {
             synchronized (lastNotFoundForThisContainer) {
                 if (lastNotFoundForThisContainer.size() >= MAX_LASTNOTFOUND) {
@@ -978,6 +1086,12 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
         public boolean containsContainer(Container container) {
             return containers.contains(container);
         }
+
+        @Override
+        public String getLookupStatistics() {
+            return "lookups=" + lookups + " notFoundCacheHits=" + notFoundCacheHits + " misses=" + misses
+                   + " containerProbes=" + containerProbes + " lookupMillis=" + (lookupNanos.get() / 1000000);
+        }
     }
 
     /**
@@ -1054,6 +1168,11 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
         public boolean containsContainer(Container container) {
             return delegate.containsContainer(container);
         }
+
+        @Override
+        public String getLookupStatistics() {
+            return delegate.getLookupStatistics();
+        }
     }
 
     /**
@@ -1366,6 +1485,16 @@ abstract class ContainerClassLoader extends IdentifiedLoader {
         }
     }
 
+    /**
+     * @return the number of class and resource lookups made against the class path of this loader,
+     *         how many were answered by the not-found cache, how many were not found, how many
+     *         containers were probed, and the total time spent in lookups.
+     */
+    @Trivial
+    String getLookupStatistics() {
+        return smartClassPath.getLookupStatistics();
+    }
+
     //define package impl, that uses package sealing information as defined on wikipedia
     //to set vars passed up to ClassLoader.definePackage.
     public Package definePackage(String name, Manifest manifest, URL sealBase) throws IllegalArgumentException {
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package com.ibm.ws.classloading.internal.util;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
@@ -47,6 +49,13 @@ public class CanonicalStore<K, V extends Keyed<K>> {
         return ref == null ? null : ref.get();
     }
 
+    /**
+     * @return a snapshot of the keys currently stored, for diagnostics
+     */
+    public Set<K> keys() {
+        return new HashSet<K>(map.keySet());
+    }
+
     /**
      * Remove any mapping for the provided id
      * 
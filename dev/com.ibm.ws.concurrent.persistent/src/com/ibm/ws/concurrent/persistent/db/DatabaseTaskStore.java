@@ -452,6 +452,30 @@ public class DatabaseTaskStore implements TaskStore {
         return taskRecord;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<Object[]> findLeases(String executor) throws Exception {
+        String find = "SELECT p.ID,p.EXPIRY FROM Partition p WHERE p.EXECUTOR=:x AND p.EXPIRY<:m ORDER BY p.ID ASC";
+
+        final boolean trace = TraceComponent.isAnyTracingEnabled();
+        if (trace && tc.isEntryEnabled())
+            Tr.entry(this, tc, "findLeases", executor, find);
+
+        EntityManager em = getPersistenceServiceUnit().createEntityManager();
+        try {
+            TypedQuery<Object[]> query = em.createQuery(find, Object[].class);
+            query.setParameter("x", executor);
+            query.setParameter("m", Long.MAX_VALUE);
+            List<Object[]> results = query.getResultList();
+
+            if (trace && tc.isEntryEnabled())
+                Tr.exit(this, tc, "findLeases", results.size());
+            return results;
+        } finally {
+            em.close();
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public long findOrCreate(PartitionRecord record) throws Exception {
@@ -626,21 +650,27 @@ public class DatabaseTaskStore implements TaskStore {
 
     /** {@inheritDoc} */
     @Override
-    public List<Object[]> findUpcomingTasks(long partition, long maxNextExecTime, Integer maxResults) throws Exception {
-        StringBuilder find = new StringBuilder(129)
+    public List<Object[]> findUpcomingTasks(long partition, Long minNextExecTime, long maxNextExecTime, Integer maxResults) throws Exception {
+        StringBuilder find = new StringBuilder(148)
                         .append("SELECT t.ID,t.MBITS,t.NEXTEXEC,t.TXTIMEOUT FROM Task t WHERE t.PARTN=:p AND t.STATES<")
-                        .append(TaskState.SUSPENDED.bit)
-                        .append(" AND t.NEXTEXEC<=:m ORDER BY t.NEXTEXEC");
+                        .append(TaskState.SUSPENDED.bit);
+        if (minNextExecTime != null)
+            find.append(" AND t.NEXTEXEC>:n");
+        find.append(" AND t.NEXTEXEC<=:m ORDER BY t.NEXTEXEC");
 
         final boolean trace = TraceComponent.isAnyTracingEnabled();
         if (trace && tc.isEntryEnabled())
-            Tr.entry(this, tc, "findUpcomingTasks", partition, Utils.appendDate(new StringBuilder(30), maxNextExecTime), maxResults, find);
+            Tr.entry(this, tc, "findUpcomingTasks", partition,
+                     minNextExecTime == null ? null : Utils.appendDate(new StringBuilder(30), minNextExecTime),
+                     Utils.appendDate(new StringBuilder(30), maxNextExecTime), maxResults, find);
 
         List<Object[]> resultList;
         EntityManager em = getPersistenceServiceUnit().createEntityManager();
         try {
             TypedQuery<Object[]> query = em.createQuery(find.toString(), Object[].class);
             query.setParameter("p", partition);
+            if (minNextExecTime != null)
+                query.setParameter("n", minNextExecTime);
             query.setParameter("m", maxNextExecTime);
             if (maxResults != null)
                 query.setMaxResults(maxResults);
@@ -1092,6 +1122,30 @@ public class DatabaseTaskStore implements TaskStore {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public boolean renewLease(long partitionId, long expiry) throws Exception {
+        String update = "UPDATE Partition SET EXPIRY=:e WHERE ID=:i";
+
+        final boolean trace = TraceComponent.isAnyTracingEnabled();
+        if (trace && tc.isEntryEnabled())
+            Tr.entry(this, tc, "renewLease", partitionId, Utils.appendDate(new StringBuilder(30), expiry), update);
+
+        EntityManager em = getPersistenceServiceUnit().createEntityManager();
+        try {
+            Query query = em.createQuery(update);
+            query.setParameter("e", expiry);
+            query.setParameter("i", partitionId);
+            boolean renewed = query.executeUpdate() > 0;
+
+            if (trace && tc.isEntryEnabled())
+                Tr.exit(this, tc, "renewLease", renewed);
+            return renewed;
+        } finally {
+            em.close();
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean remove(long taskId, String owner, boolean removeIfEnded) throws Exception {
@@ -1282,6 +1336,30 @@ public class DatabaseTaskStore implements TaskStore {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public boolean retireLease(long partitionId, long expiry) throws Exception {
+        String update = "UPDATE Partition SET EXPIRY=-1 WHERE ID=:i AND EXPIRY=:e";
+
+        final boolean trace = TraceComponent.isAnyTracingEnabled();
+        if (trace && tc.isEntryEnabled())
+            Tr.entry(this, tc, "retireLease", partitionId, Utils.appendDate(new StringBuilder(30), expiry), update);
+
+        EntityManager em = getPersistenceServiceUnit().createEntityManager();
+        try {
+            Query query = em.createQuery(update);
+            query.setParameter("i", partitionId);
+            query.setParameter("e", expiry);
+            boolean retired = query.executeUpdate() > 0;
+
+            if (trace && tc.isEntryEnabled())
+                Tr.exit(this, tc, "retireLease", retired);
+            return retired;
+        } finally {
+            em.close();
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean setProperty(String name, String value) throws Exception {
@@ -1336,4 +1414,30 @@ public class DatabaseTaskStore implements TaskStore {
             em.close();
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public int transfer(long oldPartitionId, long newPartitionId, int shardCount, int shard) throws Exception {
+        StringBuilder update = new StringBuilder(100)
+                        .append("UPDATE Task SET PARTN=:p2 WHERE PARTN=:p1 AND STATES<").append(TaskState.ENDED.bit)
+                        .append(" AND MOD(ID,").append(shardCount).append(")=").append(shard);
+
+        final boolean trace = TraceComponent.isAnyTracingEnabled();
+        if (trace && tc.isEntryEnabled())
+            Tr.entry(this, tc, "transfer", "shard " + shard + " of " + shardCount, "partition:" + oldPartitionId + "-->" + newPartitionId, update);
+
+        EntityManager em = getPersistenceServiceUnit().createEntityManager();
+        try {
+            Query query = em.createQuery(update.toString());
+            query.setParameter("p2", newPartitionId);
+            query.setParameter("p1", oldPartitionId);
+            int count = query.executeUpdate();
+
+            if (trace && tc.isEntryEnabled())
+                Tr.exit(this, tc, "transfer", count);
+            return count;
+        } finally {
+            em.close();
+        }
+    }
 }
@@ -58,7 +58,9 @@ public class Partition {
     public String USERDIR;
 
     /**
-     * Currently unused. Reserved for possible future use.
+     * Time (in milliseconds) at which the lease of the partition expires.
+     * Long.MAX_VALUE if the persistent executor instance does not use leases.
+     * -1 if the lease expired and the tasks of the partition were transferred to other partitions.
      */
     @Column(nullable = false)
     public long EXPIRY = Long.MAX_VALUE;
@@ -24,6 +24,12 @@ class Config {
      */
     final boolean enableTaskExecution;
 
+    /**
+     * Interval between polls that find all upcoming tasks, rather than only those not already in memory.
+     * A value of -1 makes every poll a full poll.
+     */
+    final long fullPollInterval;
+
     /**
      * Id. Null if none.
      */
@@ -39,6 +45,12 @@ class Config {
      */
     final String jndiName;
 
+    /**
+     * Duration of the lease that is renewed upon each poll, after which other instances can take over the tasks of this instance.
+     * A value of -1 disables leases.
+     */
+    final long leaseDuration;
+
     /**
      * Interval between polling for tasks to run. A value of -1 disables all polling after the initial poll.
      */
@@ -73,6 +85,8 @@ class Config {
         initialPollDelay = (Long) properties.get("initialPollDelay");
         pollInterval = enableTaskExecution ? (Long) properties.get("pollInterval") : -1;
         pollSize = enableTaskExecution ? (Integer) properties.get("pollSize") : null;
+        fullPollInterval = enableTaskExecution ? (Long) properties.get("fullPollInterval") : -1;
+        leaseDuration = enableTaskExecution ? (Long) properties.get("leaseDuration") : -1;
         retryInterval = (Long) properties.get("retryInterval");
         retryLimit = (Short) properties.get("retryLimit");
         xpathId = (String) properties.get("config.displayId");
@@ -83,6 +97,10 @@ class Config {
             throw new IllegalArgumentException("initialPollDelay: " + initialPollDelay + "ms");
         if (pollInterval < -1)
             throw new IllegalArgumentException("pollInterval: " + pollInterval + "ms");
+        if (fullPollInterval < -1)
+            throw new IllegalArgumentException("fullPollInterval: " + fullPollInterval + "ms");
+        if (leaseDuration < -1 || leaseDuration >= 0 && (pollInterval < 0 || leaseDuration <= pollInterval))
+            throw new IllegalArgumentException("leaseDuration: " + leaseDuration + "ms, pollInterval: " + pollInterval + "ms");
         if (retryInterval < 0)
             throw new IllegalArgumentException("retryInterval: " + retryInterval + "ms");
     }
@@ -96,6 +114,8 @@ class Config {
                         .append(",initialPollDelay=").append(initialPollDelay)
                         .append(",pollInterval=").append(pollInterval)
                         .append(",pollSize=").append(pollSize)
+                        .append(",fullPollInterval=").append(fullPollInterval)
+                        .append(",leaseDuration=").append(leaseDuration)
                         .append(",retryInterval=").append(retryInterval)
                         .append(",retryLimit=").append(retryLimit)
                         .append(",xpathId=").append(xpathId)
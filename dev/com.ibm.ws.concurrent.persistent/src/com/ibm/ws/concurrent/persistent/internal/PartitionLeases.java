@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.concurrent.persistent.internal;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.wsspi.concurrent.persistent.TaskStore;
+
+/**
+ * Renews the lease of a persistent executor instance's partition, and divides the tasks of partitions
+ * whose leases have expired among the partitions that hold unexpired leases.
+ *
+ * The first instance to find that a lease has expired retires the partition and, in the same transaction,
+ * assigns its tasks by task id to the unexpired partitions in the order of their ids. Retiring the partition
+ * is conditional upon the expiry that was read, so only one instance divides the tasks of each partition,
+ * and only once. Other instances learn that tasks might have been assigned to them when they find that
+ * another partition has been retired.
+ */
+class PartitionLeases {
+    private static final TraceComponent tc = Tr.register(PartitionLeases.class);
+
+    /**
+     * Expiry of a partition whose lease expired and whose tasks were divided among other partitions.
+     */
+    static final long RETIRED = -1;
+
+    /**
+     * Id, JNDI name, or config.displayId of the persistent executor.
+     */
+    private final String executor;
+
+    /**
+     * Partitions that were found to be retired by the previous invocation of renewAndClaim.
+     */
+    private Set<Long> retired = new HashSet<Long>();
+
+    /**
+     * Persistent store for tasks and partitions.
+     */
+    private final TaskStore taskStore;
+
+    PartitionLeases(TaskStore taskStore, String executor) {
+        this.taskStore = taskStore;
+        this.executor = executor;
+    }
+
+    /**
+     * Renews the lease of a partition and divides the tasks of each partition whose lease has expired.
+     * Must be invoked within a global transaction.
+     *
+     * @param partitionId partition of this persistent executor instance.
+     * @param now current time (in milliseconds).
+     * @param leaseDuration duration of the lease (in milliseconds).
+     * @return true if tasks might have been assigned to the partition since the previous invocation, otherwise false.
+     * @throws Exception if an error occurs when attempting to access the persistent task store.
+     */
+    synchronized boolean renewAndClaim(long partitionId, long now, long leaseDuration) throws Exception {
+        final boolean trace = TraceComponent.isAnyTracingEnabled();
+
+        // Read the leases before updating any, so that no instance holds a lock while waiting to read
+        List<Object[]> leases = taskStore.findLeases(executor);
+
+        if (!taskStore.renewLease(partitionId, now + leaseDuration)) {
+            if (trace && tc.isDebugEnabled())
+                Tr.debug(this, tc, "Partition " + partitionId + " not found. Unable to renew lease.");
+            return false;
+        }
+
+        List<Long> live = new ArrayList<Long>();
+        List<Object[]> expired = new ArrayList<Object[]>();
+        Set<Long> found = new HashSet<Long>();
+        boolean foundSelf = false;
+        for (Object[] lease : leases) {
+            long id = (Long) lease[0];
+            long expiry = (Long) lease[1];
+            if (!foundSelf && id >= partitionId) {
+                // The partition might not have held a lease before now
+                live.add(partitionId);
+                foundSelf = true;
+                if (id == partitionId)
+                    continue;
+            }
+            if (expiry == RETIRED)
+                found.add(id);
+            else if (expiry >= now)
+                live.add(id);
+            else
+                expired.add(lease);
+        }
+        if (!foundSelf)
+            live.add(partitionId);
+
+        int count = 0;
+        for (Object[] lease : expired) {
+            long id = (Long) lease[0];
+            if (taskStore.retireLease(id, (Long) lease[1])) {
+                for (int shard = 0; shard < live.size(); shard++)
+                    count += taskStore.transfer(id, live.get(shard), live.size(), shard);
+                found.add(id);
+                if (trace && tc.isDebugEnabled())
+                    Tr.debug(this, tc, "Retired partition " + id + " and divided its tasks among " + live);
+            }
+        }
+
+        boolean claimed = !retired.containsAll(found);
+        retired = found;
+
+        if (trace && tc.isDebugEnabled())
+            Tr.debug(this, tc, "Transferred " + count + " tasks. Retired partitions " + found + (claimed ? " include new partitions" : ""));
+        return claimed;
+    }
+}
@@ -212,6 +212,12 @@ public class PersistentExecutorImpl implements ApplicationRecycleComponent, DDLG
      */
     final ConcurrentHashMap<Long, Boolean> inMemoryTaskIds = new ConcurrentHashMap<Long, Boolean>();
 
+    /**
+     * Indicates that the next poll must find all upcoming tasks, rather than only those that were not within range of the previous poll,
+     * because tasks might have been added to this instance's partition without being scheduled in memory.
+     */
+    volatile boolean fullPollRequired;
+
     /**
      * Reference to a service that controls local transactions.
      */
@@ -247,6 +253,11 @@ public class PersistentExecutorImpl implements ApplicationRecycleComponent, DDLG
      */
     private final ReadWriteLock partitionIdLock = new ReentrantReadWriteLock();
 
+    /**
+     * Leases of the partitions of this persistent executor, which are renewed upon each poll if leaseDuration is enabled.
+     */
+    PartitionLeases partitionLeases;
+
     /**
      * Persistent store.
      */
@@ -341,6 +352,7 @@ public class PersistentExecutorImpl implements ApplicationRecycleComponent, DDLG
         tranMgrRef.activate(context);
 
         taskStore = DatabaseTaskStore.get(persistentStore);
+        partitionLeases = new PartitionLeases(taskStore, name);
 
         if (config.initialPollDelay < 0)
             readyForPollingTask.add(PollingManager.SIGNAL_REQUIRED);
@@ -1780,6 +1792,10 @@ public class PersistentExecutorImpl implements ApplicationRecycleComponent, DDLG
 
             count = taskStore.transfer(maxTaskId, oldPartitionId, partitionId);
 
+            // Transferred tasks are not in memory, and their next execution times might already be within range of previous polls
+            if (count > 0)
+                fullPollRequired = true;
+
             Config config = configRef.get();
             if (config.enableTaskExecution && count > 0 && config.pollInterval < 0) {
                 // Schedule a poll to find the transferred tasks
@@ -2189,6 +2205,18 @@ public class PersistentExecutorImpl implements ApplicationRecycleComponent, DDLG
          */
         private final Config initialConfig;
 
+        /**
+         * Next execution time up to which the previous poll found all upcoming tasks. Tasks that are scheduled by this instance
+         * for execution at or before this time are scheduled in memory, so subsequent polls only need to look for tasks after it.
+         * A value of -1 indicates that the next poll must find all upcoming tasks.
+         */
+        private long watermark = -1;
+
+        /**
+         * Time (in milliseconds) of the most recent poll that found all upcoming tasks.
+         */
+        private long lastFullPollTime;
+
         private PollingTask(Config config) {
             initialConfig = config;
         }
@@ -2234,16 +2262,38 @@ public class PersistentExecutorImpl implements ApplicationRecycleComponent, DDLG
                 try {
                     EmbeddableWebSphereTransactionManager tranMgr = tranMgrRef.getServiceWithException();
 
-                    long maxNextExecTime = config.pollInterval >= 0 ? (config.pollInterval + new Date().getTime()) : Long.MAX_VALUE;
+                    long now = new Date().getTime();
+                    long maxNextExecTime = config.pollInterval >= 0 ? (config.pollInterval + now) : Long.MAX_VALUE;
+                    boolean fullPoll = fullPollRequired
+                                       || watermark == -1
+                                       || config.fullPollInterval < 0
+                                       || now - lastFullPollTime >= config.fullPollInterval;
+                    if (fullPoll)
+                        fullPollRequired = false;
                     List<Object[]> results;
                     tranMgr.begin();
                     try {
-                        results = taskStore.findUpcomingTasks(getPartitionId(), maxNextExecTime, config.pollSize);
+                        // Tasks transferred from expired partitions are not in memory
+                        if (config.leaseDuration >= 0 && partitionLeases.renewAndClaim(getPartitionId(), now, config.leaseDuration))
+                            fullPoll = true;
+                        results = taskStore.findUpcomingTasks(getPartitionId(), fullPoll ? null : watermark, maxNextExecTime, config.pollSize);
                     } catch (Throwable x) {
+                        if (fullPoll)
+                            fullPollRequired = true;
                         throw failure = x;
                     } finally {
                         tranMgr.commit();
                     }
+
+                    if (fullPoll)
+                        lastFullPollTime = now;
+                    // If the results were limited by pollSize, the next poll resumes from the last task found
+                    if (config.pollSize == null || results.size() < config.pollSize)
+                        watermark = maxNextExecTime;
+                    else if (!results.isEmpty())
+                        watermark = (Long) results.get(results.size() - 1)[2] - 1;
+                    if (trace && tc.isDebugEnabled())
+                        Tr.debug(PersistentExecutorImpl.this, tc, (fullPoll ? "Full poll" : "Poll") + " found " + results.size() + " tasks. Next poll starts after " + watermark);
                     for (Object[] result : results) {
                         long taskId = (Long) result[0];
                         Boolean previous = inMemoryTaskIds.put(taskId, Boolean.TRUE);
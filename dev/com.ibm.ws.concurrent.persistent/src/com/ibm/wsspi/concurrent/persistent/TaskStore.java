@@ -109,6 +109,16 @@ public interface TaskStore {
      */
     TaskRecord findById(long taskId, String owner, boolean includeTrigger) throws Exception;
 
+    /**
+     * Find the partitions of a persistent executor that hold leases, including expired and retired leases.
+     * Partitions that have never held a lease are not included. Retired leases have an expiry of -1.
+     * 
+     * @param executor id, JNDI name, or config.displayId of the persistent executor.
+     * @return List of (Id, Expiry) pairs, ordered by partition id.
+     * @throws Exception if an error occurs when attempting to access the persistent task store.
+     */
+    List<Object[]> findLeases(String executor) throws Exception;
+
     /**
      * Creates an entry for a partition record if one with the specified combination of executor/host/server/userdir
      * does not already exist in the persistent store.
@@ -172,15 +182,16 @@ public interface TaskStore {
                                        PersistentExecutor executor) throws Exception;
 
     /**
-     * Find all tasks to execute on or before maxNextExecTime (up to a maximum of maxResults).
+     * Find all tasks to execute after minNextExecTime (if specified) and on or before maxNextExecTime (up to a maximum of maxResults).
      * 
      * @param partition partition number
+     * @param minNextExecTime next execution time (in milliseconds) after which to find tasks. Null means no minimum.
      * @param maxNextExecTime maximum next execution time (in milliseconds)
      * @param maxResults maximum number of results to return. Null means unlimited.
      * @return List of (Id, MiscBinaryFlags, NextExecutionTime, TransactionTimeout) pairs, ordered by next execution time.
      * @throws Exception if an error occurs when attempting to access the persistent task store.
      */
-    List<Object[]> findUpcomingTasks(long partition, long maxNextExecTime, Integer maxResults) throws Exception;
+    List<Object[]> findUpcomingTasks(long partition, Long minNextExecTime, long maxNextExecTime, Integer maxResults) throws Exception;
 
     /**
      * Returns a task record with information about the expected next execution time for the task with the specified id.
@@ -256,6 +267,16 @@ public interface TaskStore {
      */
     boolean persist(TaskRecord updates, TaskRecord expected) throws Exception;
 
+    /**
+     * Renews the lease of a partition.
+     * 
+     * @param partitionId unique identifier for a partition.
+     * @param expiry time (in milliseconds) at which the lease expires.
+     * @return true if the partition was found and updated, otherwise false.
+     * @throws Exception if an error occurs when attempting to update the persistent store.
+     */
+    boolean renewLease(long partitionId, long expiry) throws Exception;
+
     /**
      * Remove the record for a task from the persistent store.
      * 
@@ -314,6 +335,18 @@ public interface TaskStore {
      */
     boolean removeProperty(String name) throws Exception;
 
+    /**
+     * Retires the expired lease of a partition, by setting its expiry to -1, unless the lease was renewed or
+     * retired since it was read. The tasks of the partition are then to be transferred to other partitions
+     * within the same transaction.
+     * 
+     * @param partitionId unique identifier for a partition.
+     * @param expiry the expiry of the lease when it was read.
+     * @return true if the partition was found with the expected expiry and updated, otherwise false.
+     * @throws Exception if an error occurs when attempting to update the persistent store.
+     */
+    boolean retireLease(long partitionId, long expiry) throws Exception;
+
     /**
      * Assigns the value of the property with the specified name, if it exists in the persistent store.
      * 
@@ -336,4 +369,17 @@ public interface TaskStore {
      * @throws Exception if an error occurs when attempting to update the persistent task store.
      */
     int transfer(Long maxTaskId, long oldPartitionId, long newPartitionId) throws Exception;
+
+    /**
+     * Transfers one shard of the tasks that have not yet completed all executions to another partition.
+     * Tasks are assigned to shards according to their ids, such that tasks with (id % shardCount) == shard belong to the shard.
+     * 
+     * @param oldPartitionId partition id from which to take tasks.
+     * @param newPartitionId partition id to which to assign tasks.
+     * @param shardCount number of shards into which the tasks are divided.
+     * @param shard the shard to transfer, from 0 to shardCount - 1.
+     * @return number of tasks updated.
+     * @throws Exception if an error occurs when attempting to update the persistent task store.
+     */
+    int transfer(long oldPartitionId, long newPartitionId, int shardCount, int shard) throws Exception;
 }
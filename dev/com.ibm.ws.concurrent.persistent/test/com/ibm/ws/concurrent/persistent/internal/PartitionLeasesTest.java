@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.concurrent.persistent.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ibm.wsspi.concurrent.persistent.TaskStore;
+
+/**
+ * Unit test for renewing the leases of partitions and dividing the tasks of expired partitions.
+ */
+public class PartitionLeasesTest {
+
+    private static final long LEASE = 10000;
+    private static final long NOW = 1000000;
+
+    /**
+     * Expiry of each partition, by partition id.
+     */
+    private final Map<Long, Long> partitions = new TreeMap<Long, Long>();
+
+    /**
+     * Partition of each task, by task id.
+     */
+    private final Map<Long, Long> tasks = new TreeMap<Long, Long>();
+
+    /**
+     * Count of transfer invocations.
+     */
+    private int transfers;
+
+    /**
+     * Runs after the leases are read, to simulate an update by another instance.
+     */
+    private Runnable afterFindLeases;
+
+    private TaskStore taskStore;
+
+    /**
+     * Task store that keeps the partitions and tasks of a single persistent executor in memory.
+     */
+    @Before
+    public void setUp() {
+        taskStore = (TaskStore) Proxy.newProxyInstance(TaskStore.class.getClassLoader(), new Class<?>[] { TaskStore.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("findLeases".equals(name)) {
+                    List<Object[]> leases = new ArrayList<Object[]>();
+                    for (Map.Entry<Long, Long> partition : partitions.entrySet())
+                        if (partition.getValue() < Long.MAX_VALUE)
+                            leases.add(new Object[] { partition.getKey(), partition.getValue() });
+                    if (afterFindLeases != null)
+                        afterFindLeases.run();
+                    return leases;
+                } else if ("renewLease".equals(name)) {
+                    if (!partitions.containsKey(args[0]))
+                        return false;
+                    partitions.put((Long) args[0], (Long) args[1]);
+                    return true;
+                } else if ("retireLease".equals(name)) {
+                    if (!args[1].equals(partitions.get(args[0])))
+                        return false;
+                    partitions.put((Long) args[0], PartitionLeases.RETIRED);
+                    return true;
+                } else if ("transfer".equals(name) && args.length == 4) {
+                    transfers++;
+                    int count = 0;
+                    for (Map.Entry<Long, Long> task : tasks.entrySet())
+                        if (task.getValue().equals(args[0]) && task.getKey() % (Integer) args[2] == (Integer) args[3]) {
+                            task.setValue((Long) args[1]);
+                            count++;
+                        }
+                    return count;
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    private void addTasks(long partitionId, long firstTaskId, int count) {
+        for (long id = firstTaskId; id < firstTaskId + count; id++)
+            tasks.put(id, partitionId);
+    }
+
+    private int countTasks(long partitionId) {
+        int count = 0;
+        for (Long p : tasks.values())
+            if (p == partitionId)
+                count++;
+        return count;
+    }
+
+    @Test
+    public void testRenewFirstLease() throws Exception {
+        partitions.put(1L, Long.MAX_VALUE);
+
+        Assert.assertFalse(new PartitionLeases(taskStore, "executor").renewAndClaim(1, NOW, LEASE));
+        Assert.assertEquals(Long.valueOf(NOW + LEASE), partitions.get(1L));
+    }
+
+    @Test
+    public void testPartitionNotFound() throws Exception {
+        partitions.put(2L, NOW - 1);
+        addTasks(2, 10, 4);
+
+        Assert.assertFalse(new PartitionLeases(taskStore, "executor").renewAndClaim(1, NOW, LEASE));
+        Assert.assertEquals(0, transfers);
+        Assert.assertEquals(4, countTasks(2));
+    }
+
+    @Test
+    public void testExpiredPartitionDividedAmongLivePartitions() throws Exception {
+        partitions.put(1L, NOW + 5);
+        partitions.put(2L, NOW - 1);
+        partitions.put(3L, Long.MAX_VALUE);
+        addTasks(2, 10, 10);
+
+        // partition 3 takes its first lease as it divides the tasks of partition 2
+        Assert.assertTrue(new PartitionLeases(taskStore, "executor").renewAndClaim(3, NOW, LEASE));
+        Assert.assertEquals(Long.valueOf(PartitionLeases.RETIRED), partitions.get(2L));
+        Assert.assertEquals(0, countTasks(2));
+        Assert.assertEquals(5, countTasks(1));
+        Assert.assertEquals(5, countTasks(3));
+        for (long id = 10; id < 20; id++)
+            Assert.assertEquals(Long.valueOf(id % 2 == 0 ? 1 : 3), tasks.get(id));
+    }
+
+    @Test
+    public void testExpiredPartitionRetiredOnce() throws Exception {
+        partitions.put(1L, NOW + 5);
+        partitions.put(2L, NOW + 5);
+        partitions.put(3L, NOW - 1);
+        addTasks(3, 10, 10);
+        PartitionLeases leases1 = new PartitionLeases(taskStore, "executor");
+        PartitionLeases leases2 = new PartitionLeases(taskStore, "executor");
+
+        Assert.assertTrue(leases1.renewAndClaim(1, NOW, LEASE));
+        Assert.assertEquals(2, transfers);
+
+        // the other instance finds that tasks might have been assigned to it, without updating any tasks
+        Assert.assertTrue(leases2.renewAndClaim(2, NOW, LEASE));
+        Assert.assertEquals(2, transfers);
+        Assert.assertEquals(5, countTasks(2));
+
+        // subsequent polls neither update tasks nor report new tasks
+        Assert.assertFalse(leases1.renewAndClaim(1, NOW + 1, LEASE));
+        Assert.assertFalse(leases2.renewAndClaim(2, NOW + 1, LEASE));
+        Assert.assertEquals(2, transfers);
+    }
+
+    @Test
+    public void testLeaseRenewedAfterItWasRead() throws Exception {
+        partitions.put(1L, NOW + 5);
+        partitions.put(2L, NOW - 1);
+        addTasks(2, 10, 4);
+        afterFindLeases = new Runnable() {
+            @Override
+            public void run() {
+                partitions.put(2L, NOW + LEASE);
+            }
+        };
+
+        Assert.assertFalse(new PartitionLeases(taskStore, "executor").renewAndClaim(1, NOW, LEASE));
+        Assert.assertEquals(Long.valueOf(NOW + LEASE), partitions.get(2L));
+        Assert.assertEquals(0, transfers);
+        Assert.assertEquals(4, countTasks(2));
+    }
+
+    @Test
+    public void testRetiredPartitionRenewsLease() throws Exception {
+        partitions.put(1L, NOW + 5);
+        partitions.put(2L, PartitionLeases.RETIRED);
+        partitions.put(3L, NOW - 1);
+        addTasks(3, 10, 10);
+        PartitionLeases leases1 = new PartitionLeases(taskStore, "executor");
+        PartitionLeases leases2 = new PartitionLeases(taskStore, "executor");
+
+        // the server of retired partition 2 polls again, so it shares the tasks of partition 3
+        Assert.assertTrue(leases2.renewAndClaim(2, NOW, LEASE));
+        Assert.assertEquals(5, countTasks(1));
+        Assert.assertEquals(5, countTasks(2));
+
+        Assert.assertTrue(leases1.renewAndClaim(1, NOW, LEASE));
+        Assert.assertFalse(leases1.renewAndClaim(1, NOW + 1, LEASE));
+    }
+}
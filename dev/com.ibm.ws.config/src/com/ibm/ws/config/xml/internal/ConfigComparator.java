@@ -556,12 +556,16 @@ class ConfigComparator {
 
         LinkedList<String> stack = new LinkedList<String>();
 
+        // The delta of each variable compared so far, null if unchanged. Variables which
+        // refer to other variables are compared once, however many variables refer to them.
+        Map<String, DeltaType> compared = new HashMap<String, DeltaType>();
+
         Map<String, ConfigVariable> newVariables = newConfiguration.getVariables();
 
         Map<String, ConfigVariable> oldVariables = oldConfiguration.getVariables();
         for (ConfigVariable oldVariable : oldVariables.values()) {
             String variableName = oldVariable.getName();
-            DeltaType delta = compareVariable(oldVariables, newVariables, variableName, stack);
+            DeltaType delta = compareVariable(oldVariables, newVariables, variableName, stack, compared);
             if (delta != null) {
                 deltaMap.put(variableName, delta);
             }
@@ -573,7 +577,7 @@ class ConfigComparator {
             if (oldVariables.containsKey(variableName)) {
                 continue;
             }
-            DeltaType delta = compareVariable(oldVariables, newVariables, variableName, stack);
+            DeltaType delta = compareVariable(oldVariables, newVariables, variableName, stack, compared);
             deltaMap.put(variableName, delta);
         }
 
@@ -583,7 +587,12 @@ class ConfigComparator {
     private DeltaType compareVariable(Map<String, ConfigVariable> oldVariables,
                                       Map<String, ConfigVariable> newVariables,
                                       String variableName,
-                                      LinkedList<String> stack) throws ConfigUpdateException {
+                                      LinkedList<String> stack,
+                                      Map<String, DeltaType> compared) throws ConfigUpdateException {
+        if (compared.containsKey(variableName)) {
+            return compared.get(variableName);
+        }
+
         if (stack.contains(variableName)) {
             throw new ConfigUpdateException("Variable loop detected: " + stack.subList(stack.indexOf(variableName), stack.size()));
         } else {
@@ -600,12 +609,13 @@ class ConfigComparator {
         } else if (newVariable == null) {
             delta = DeltaType.REMOVED;
         } else if (oldVariable.getValue().equals(newVariable.getValue())) {
-            delta = compareVariableReferences(oldVariables, newVariables, oldVariable.getValue(), stack);
+            delta = compareVariableReferences(oldVariables, newVariables, oldVariable.getValue(), stack, compared);
         } else {
             delta = DeltaType.MODIFIED;
         }
 
         stack.removeLast();
+        compared.put(variableName, delta);
 
         return delta;
     }
@@ -613,11 +623,12 @@ class ConfigComparator {
     private DeltaType compareVariableReferences(Map<String, ConfigVariable> oldVariables,
                                                 Map<String, ConfigVariable> newVariables,
                                                 String variableValue,
-                                                LinkedList<String> stack) throws ConfigUpdateException {
+                                                LinkedList<String> stack,
+                                                Map<String, DeltaType> compared) throws ConfigUpdateException {
         Matcher matcher = XMLConfigConstants.VAR_PATTERN.matcher(variableValue);
         while (matcher.find()) {
             String variable = matcher.group(1);
-            if (compareVariable(oldVariables, newVariables, variable, stack) != null) {
+            if (compareVariable(oldVariables, newVariables, variable, stack, compared) != null) {
                 return DeltaType.MODIFIED;
             }
         }
@@ -103,6 +103,9 @@ public class ConfigIntrospection implements IntrospectableService {
 
         ServerConfiguration server = systemConfiguration.getServerConfiguration();
 
+        ps.println("Configurations updated by the last configuration refresh: " + systemConfiguration.getLastRefreshUpdatedIds());
+        ps.println("Configurations deleted by the last configuration refresh: " + systemConfiguration.getLastRefreshDeletedIds());
+
         for (String name : server.getConfigurationNames()) {
             ps.println("");
             ps.println("Configuration Element Information for top level PID: " + name);
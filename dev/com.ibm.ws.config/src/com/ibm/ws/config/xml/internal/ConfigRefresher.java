@@ -12,6 +12,8 @@ package com.ibm.ws.config.xml.internal;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
@@ -50,6 +52,10 @@ class ConfigRefresher {
     private long configStartTime = 0;
     private Collection<Future<?>> futuresForChanges = null;
 
+    /** Full ids of the configurations updated and deleted by the last refresh which found changes. */
+    private volatile List<String> lastUpdatedIds = Collections.emptyList();
+    private volatile List<String> lastDeletedIds = Collections.emptyList();
+
     ConfigRefresher(BundleContext bundleContext,
                     ChangeHandler changeHandler, ServerXMLConfiguration serverXMLConfig) {
         this.changeHandler = changeHandler;
@@ -121,6 +127,7 @@ class ConfigRefresher {
             configurationMonitor.updateDirectoryMonitor(serverXMLConfig.getDirectoriesToMonitor());
 
             if (configurations != null) {
+                recordConfigurationChanges(configurations);
                 futuresForChanges = fireConfigurationChanges(configurations);
             }
         } catch (Exception e) {
@@ -150,6 +157,36 @@ class ConfigRefresher {
         return result;
     }
 
+    private void recordConfigurationChanges(Collection<ConfigurationInfo> configurations) {
+        List<String> updatedIds = new ArrayList<String>();
+        List<String> deletedIds = new ArrayList<String>();
+        for (ConfigurationInfo info : configurations) {
+            (info.deleted ? deletedIds : updatedIds).add(info.configElement.getFullId());
+        }
+        lastUpdatedIds = Collections.unmodifiableList(updatedIds);
+        lastDeletedIds = Collections.unmodifiableList(deletedIds);
+
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "Configuration refresh updated " + updatedIds + " deleted " + deletedIds);
+        }
+    }
+
+    /**
+     * @return the full ids of the configurations which were updated by the last
+     *         refresh that found changes, and which were sent update events
+     */
+    List<String> getLastUpdatedIds() {
+        return lastUpdatedIds;
+    }
+
+    /**
+     * @return the full ids of the configurations which were deleted by the last
+     *         refresh that found changes
+     */
+    List<String> getLastDeletedIds() {
+        return lastDeletedIds;
+    }
+
     private Collection<Future<?>> fireConfigurationChanges(Collection<ConfigurationInfo> configurations) {
         /*
          * This avoids waiting on futures under BundleProcessor lock.
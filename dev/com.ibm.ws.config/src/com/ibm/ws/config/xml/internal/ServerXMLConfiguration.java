@@ -12,11 +12,14 @@ package com.ibm.ws.config.xml.internal;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.osgi.framework.BundleContext;
@@ -51,11 +54,15 @@ class ServerXMLConfiguration {
     private static final String CONFIG_DROPIN_DEFAULTS = CONFIG_DROPINS + "/" + "defaults/";
     private static final String CONFIG_DROPIN_OVERRIDES = CONFIG_DROPINS + "/" + "overrides/";
 
+    /** Seed and multiplier of the FNV-1a hash used to fingerprint the config files. */
+    private static final long FINGERPRINT_SEED = 0xcbf29ce484222325L;
+    private static final long FINGERPRINT_PRIME = 0x100000001b3L;
+
     /**
-     * last time config files(root config document and its included documents) are
-     * read
+     * fingerprint of the config files(root config document, its included documents
+     * and the dropins) when they were last read
      */
-    private volatile long configReadTime = 0;
+    private volatile long configFingerprint = 0;
 
     private final XMLConfigParser parser;
 
@@ -75,7 +82,7 @@ class ServerXMLConfiguration {
 
         // Determines if any of the configuration files used by current server has
         // been updated since the last run.
-        this.configReadTime = getInitialConfigReadTime(bundleContext);
+        this.configFingerprint = getInitialConfigFingerprint(bundleContext);
 
     }
 
@@ -83,7 +90,7 @@ class ServerXMLConfiguration {
         return configRoot != null;
     }
 
-    private static long getInitialConfigReadTime(BundleContext bundleContext) {
+    private static long getInitialConfigFingerprint(BundleContext bundleContext) {
         if (bundleContext == null) {
             return 0;
         }
@@ -144,59 +151,89 @@ class ServerXMLConfiguration {
 
     }
 
-    public void setConfigReadTime() {
-        long time = getLastResourceModifiedTime(); //serverConfiguration.getLastModified();
-        // Update time stamp for configReadTime on next run.
-        TimestampUtils.writeTimeToFile(bundleContext.getDataFile("configStamp"), time);
-        configReadTime = time;
+    /**
+     * Record the fingerprint of the config files which were read, so that
+     * the next run can tell if any of them changed.
+     */
+    public void markConfigRead() {
+        markConfigRead(serverConfiguration);
     }
 
-    private long getLastResourceModifiedTime() {
-        long lastModified = configRoot.getLastModified();
+    private void markConfigRead(ServerConfiguration configuration) {
+        long fingerprint = getConfigFingerprint(configuration);
+        // Update the fingerprint for the next run.
+        TimestampUtils.writeTimeToFile(bundleContext.getDataFile("configStamp"), fingerprint);
+        configFingerprint = fingerprint;
+    }
 
-        if (serverConfiguration != null) {
-            for (WsResource resource : serverConfiguration.getIncludes()) {
-                long modified = resource.getLastModified();
-                if (modified > lastModified) {
-                    lastModified = modified;
-                }
+    /**
+     * Fingerprint the config files: the path, size and last modified time of
+     * the root document, of its includes and of the files in the dropins
+     * directories. Unlike the latest modified time of the files, the fingerprint
+     * changes when a file is removed, or replaced by a file with an older time.
+     */
+    private long getConfigFingerprint(ServerConfiguration configuration) {
+        long fingerprint = fingerprint(FINGERPRINT_SEED, configRoot);
+
+        if (configuration != null) {
+            for (WsResource resource : configuration.getIncludes()) {
+                fingerprint = fingerprint(fingerprint, resource);
             }
         }
 
-        if (configDropinDefaults != null) {
-            Iterator<String> defaults = configDropinDefaults.getChildren();
-            while (defaults.hasNext()) {
-                String name = defaults.next();
-                WsResource resource = configDropinDefaults.getChild(name);
-                long modified = resource.getLastModified();
-                if (modified > lastModified) {
-                    lastModified = modified;
-                }
-            }
+        fingerprint = fingerprintChildren(fingerprint, configDropinDefaults);
+        fingerprint = fingerprintChildren(fingerprint, configDropinOverrides);
 
-        }
+        return fingerprint;
+    }
 
-        if (configDropinOverrides != null) {
-            Iterator<String> defaults = configDropinOverrides.getChildren();
-            while (defaults.hasNext()) {
-                String name = defaults.next();
-                WsResource resource = configDropinOverrides.getChild(name);
-                long modified = resource.getLastModified();
-                if (modified > lastModified) {
-                    lastModified = modified;
+    private static long fingerprintChildren(long fingerprint, WsResource directory) {
+        if (directory != null) {
+            // The order of the children depends on the platform.
+            List<String> names = new ArrayList<String>();
+            Iterator<String> children = directory.getChildren();
+            while (children.hasNext()) {
+                names.add(children.next());
+            }
+            Collections.sort(names);
+
+            for (String name : names) {
+                WsResource resource = directory.getChild(name);
+                if (resource != null) {
+                    fingerprint = fingerprint(fingerprint, resource);
                 }
             }
+        }
+        return fingerprint;
+    }
+
+    private static long fingerprint(long fingerprint, WsResource resource) {
+        String path = resource.toRepositoryPath();
+        fingerprint = fingerprint(fingerprint, path == null ? resource.getName() : path);
+        fingerprint = fingerprint(fingerprint, resource.length());
+        return fingerprint(fingerprint, resource.getLastModified());
+    }
 
+    private static long fingerprint(long fingerprint, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            fingerprint = (fingerprint ^ value.charAt(i)) * FINGERPRINT_PRIME;
         }
+        return fingerprint;
+    }
 
-        return lastModified;
+    private static long fingerprint(long fingerprint, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            fingerprint = (fingerprint ^ ((value >>> shift) & 0xff)) * FINGERPRINT_PRIME;
+        }
+        return fingerprint;
     }
 
     /**
-     * @return
+     * @return true if the config files changed since they were last read,
+     *         in this or a previous run
      */
     public boolean isModified() {
-        return getLastResourceModifiedTime() != configReadTime;
+        return getConfigFingerprint(serverConfiguration) != configFingerprint;
     }
 
     public Collection<String> getFilesToMonitor() {
@@ -369,7 +406,7 @@ class ServerXMLConfiguration {
 
             try {
                 newConfiguration = loadServerConfiguration();
-                setConfigReadTime();
+                markConfigRead(newConfiguration);
             } catch (ConfigParserTolerableException e) {
                 // This is only thrown if OnError = FAIL
                 String message = e.getMessage() == null ? "Parser Failure" : e.getMessage();
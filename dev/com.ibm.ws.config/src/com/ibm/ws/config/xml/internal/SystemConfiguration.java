@@ -14,6 +14,7 @@ import java.io.InputStream;
 import java.util.Collection;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.List;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -134,7 +135,7 @@ class SystemConfiguration {
         if (serverXMLConfig.isModified() || variableRegistry.variablesChanged()) {
             variableRegistry.clearVariableCache();
             changeHandler.updateAtStartup(serverXMLConfig.getConfiguration());
-            serverXMLConfig.setConfigReadTime();
+            serverXMLConfig.markConfigRead();
             reprocessConfig = true;
         } else {
             reprocessConfig = false;
@@ -169,6 +170,20 @@ class SystemConfiguration {
         return this.serverXMLConfig.copyConfiguration();
     }
 
+    /**
+     * @return the full ids of the configurations updated by the last configuration refresh
+     */
+    List<String> getLastRefreshUpdatedIds() {
+        return configRefresher.getLastUpdatedIds();
+    }
+
+    /**
+     * @return the full ids of the configurations deleted by the last configuration refresh
+     */
+    List<String> getLastRefreshDeletedIds() {
+        return configRefresher.getLastDeletedIds();
+    }
+
     Collection<String> fetchConfigurationFilePaths() {
         return this.serverXMLConfig.getFilesToMonitor();
     }
@@ -1085,6 +1085,46 @@ public class ConfigComparatorTest {
         assertVariable(result.getVariableDelta(), "combined", DeltaType.MODIFIED);
     }
 
+    /**
+     * Each variable in the chain refers twice to the previous one. Comparing the chain must
+     * compare each variable once, rather than once for every path through the chain.
+     */
+    @Test(timeout = 60000)
+    public void testVariableChainChange() throws Exception {
+        changeLocationSettings("default");
+
+        int length = 40;
+        StringBuilder chain = new StringBuilder();
+        for (int i = 1; i < length; i++) {
+            chain.append("  <variable name=\"v" + i + "\" value=\"${v" + (i - 1) + "}-${v" + (i - 1) + "}\"/>");
+        }
+
+        ServerConfiguration oldConfig = parseServerConfiguration("<server>" +
+                                                                 "  <variable name=\"v0\" value=\"A\"/>" +
+                                                                 chain +
+                                                                 "</server>");
+
+        // no change
+        ServerConfiguration newConfig = parseServerConfiguration("<server>" +
+                                                                 "  <variable name=\"v0\" value=\"A\"/>" +
+                                                                 chain +
+                                                                 "</server>");
+        ComparatorResult result = new ConfigComparator(oldConfig, newConfig, null).computeDelta();
+        assertFalse("No change", result.hasDelta());
+
+        // change the start of the chain
+        newConfig = parseServerConfiguration("<server>" +
+                                             "  <variable name=\"v0\" value=\"B\"/>" +
+                                             chain +
+                                             "</server>");
+        result = new ConfigComparator(oldConfig, newConfig, null).computeDelta();
+        assertTrue("No config change", result.getConfigDelta().isEmpty());
+        assertEquals("Variable change", length, result.getVariableDelta().size());
+        for (int i = 0; i < length; i++) {
+            assertVariable(result.getVariableDelta(), "v" + i, DeltaType.MODIFIED);
+        }
+    }
+
     @Test
     public void testVariableConfigChange() throws Exception {
         changeLocationSettings("default");
@@ -242,7 +242,11 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
             // -------------------------------------
             // swapToDisk is true
             // -------------------------------------
-            diskCache = new CacheOnDisk(cacheConfig, this);
+            if (cacheConfig.diskCacheLogStructured) {
+                diskCache = new LogStructuredCacheOnDisk(cacheConfig, this);
+            } else {
+                diskCache = new CacheOnDisk(cacheConfig, this);
+            }
             // -------------------------------------
             // swapToDisk may change to "false" due
             // to CacheOnDisk unrecoverable error.
@@ -2532,7 +2536,9 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
         // No write to disk if loadedFromDisk is true. It is because
         // the cache is already in the disk.
         if (!cacheEntry.loadedFromDisk) {
-            ((CacheOnDisk) diskCache).htod.diskCacheException = null;
+            if (diskCache instanceof CacheOnDisk) {
+                ((CacheOnDisk) diskCache).htod.diskCacheException = null;
+            }
             if (!cacheEntry.prepareForSerialization()) {
                 // a msg was logged during the above call
                 discard = true;
@@ -2922,29 +2928,33 @@ public class Cache extends DCacheBase implements com.ibm.websphere.cache.CacheLo
                 if (diskCache.writeAuxiliaryDepTables() == HTODDynacache.DISK_EXCEPTION)
                     return;
                 StringBuffer message = new StringBuffer();
-                CacheOnDisk cacheOnDisk = (CacheOnDisk) diskCache;
                 message.append(" numOfEntriesFlushToDisk=");
                 message.append(numOffload);
                 message.append(" numOfBytesFlushToDisk=");
                 message.append(cacheStatisticsListener.getObjectsWriteToDiskSizeCount() - lastWriteObjectSize);
                 message.append(" timeElapsedEntriesFlushToDisk=");
                 message.append(TimeUnit.NANOSECONDS.toMillis(time2 - time1));
-                message.append(" numDepIdsInAuxTable=");
-                message.append(cacheOnDisk.htod.numDepIdsInAuxTable);
-                message.append(" numCacheIdsInDepIdAuxTable=");
-                message.append(cacheOnDisk.htod.numCacheIdsInDepIdAuxTable);
-                message.append(" numTemplatesInAuxTable=");
-                message.append(cacheOnDisk.htod.numTemplatesInAuxTable);
-                message.append(" numCacheIdsInTemplateAuxTable=");
-                message.append(cacheOnDisk.htod.numCacheIdsInTemplateAuxTable);
-                message.append(" timeElapsedWriteAuxTables=");
-                message.append(cacheOnDisk.htod.timeElapsedWriteAuxTables);
-                int numExplicitBufferFlushToDisk = cacheOnDisk.htod.numExplicitBufferLimitOnStop;
-                if (numExplicitBufferFlushToDisk > 0) {
-                    message.append(" numExplicitBufferFlushToDisk=");
-                    message.append(numExplicitBufferFlushToDisk);
-                    message.append(" explicitBufferLimitOnStop=");
-                    message.append(cacheOnDisk.explicitBufferLimitOnStop);
+                if (diskCache instanceof CacheOnDisk) {
+                    CacheOnDisk cacheOnDisk = (CacheOnDisk) diskCache;
+                    message.append(" numDepIdsInAuxTable=");
+                    message.append(cacheOnDisk.htod.numDepIdsInAuxTable);
+                    message.append(" numCacheIdsInDepIdAuxTable=");
+                    message.append(cacheOnDisk.htod.numCacheIdsInDepIdAuxTable);
+                    message.append(" numTemplatesInAuxTable=");
+                    message.append(cacheOnDisk.htod.numTemplatesInAuxTable);
+                    message.append(" numCacheIdsInTemplateAuxTable=");
+                    message.append(cacheOnDisk.htod.numCacheIdsInTemplateAuxTable);
+                    message.append(" timeElapsedWriteAuxTables=");
+                    message.append(cacheOnDisk.htod.timeElapsedWriteAuxTables);
+                    int numExplicitBufferFlushToDisk = cacheOnDisk.htod.numExplicitBufferLimitOnStop;
+                    if (numExplicitBufferFlushToDisk > 0) {
+                        message.append(" numExplicitBufferFlushToDisk=");
+                        message.append(numExplicitBufferFlushToDisk);
+                        message.append(" explicitBufferLimitOnStop=");
+                        message.append(cacheOnDisk.explicitBufferLimitOnStop);
+                    }
+                } else if (diskCache instanceof LogStructuredCacheOnDisk) {
+                    message.append(' ').append(((LogStructuredCacheOnDisk) diskCache).getStatistics());
                 }
                 Tr.info(tc, "DYNA0073I", new Object[] { cacheName, message.toString() });
                 diskCache.close(CacheOnDisk.DELETE_IN_PROGRESS_FILE);
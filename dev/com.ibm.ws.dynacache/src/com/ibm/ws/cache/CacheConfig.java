@@ -60,6 +60,10 @@ public class CacheConfig implements DCacheConfig, Cloneable {
     public static final String DISKCACHE_SIZE = "com.ibm.ws.cache.CacheConfig.diskCacheSize";
     public static final String DISKCACHE_SIZE_GB = "com.ibm.ws.cache.CacheConfig.diskCacheSizeInGB";
     public static final String DISKCACHE_ENTRY_SIZE_MB = "com.ibm.ws.cache.CacheConfig.diskCacheEntrySizeInMB";
+    public static final String DISKCACHE_LOG_STRUCTURED = "com.ibm.ws.cache.CacheConfig.diskCacheLogStructured";
+    public static final String DISKCACHE_LOG_SEGMENT_SIZE_MB = "com.ibm.ws.cache.CacheConfig.diskCacheLogSegmentSizeInMB";
+    public static final String DISKCACHE_LOG_COMPACTION_THRESHOLD = "com.ibm.ws.cache.CacheConfig.diskCacheLogCompactionThreshold";
+    public static final String DISKCACHE_LOG_COMPACTION_INTERVAL = "com.ibm.ws.cache.CacheConfig.diskCacheLogCompactionInterval";
     public static final String USE_SERVER_CLASSLOADER = "com.ibm.ws.cache.CacheConfig.useServerClassLoader";
     public static final String DISKCACHE_EXPLICIT_BUFFER_LIMIT_ON_STOP = "com.ibm.ws.cache.CacheConfig.explicitBufferLimitOnStop";
     public static final String DISABLE_STORE_COOKIES = "com.ibm.ws.cache.CacheConfig.disableStoreCookies";
@@ -144,6 +148,9 @@ public class CacheConfig implements DCacheConfig, Cloneable {
     public static final int DEFAULT_LRU_TO_DISK_TRIGGER_PERCENT = 0; // unit in percent
     public static final int DEFAULT_LRU_TO_DISK_TRIGGER_TIME_FOR_TRIMCACHE = 1000; // unit in msec
     public static final int DEFAULT_REPLICATION_PAYLOAD_SIZE_IN_MB = 10; // 10 MB
+    public static final int DEFAULT_DISKCACHE_LOG_SEGMENT_SIZE_MB = 64; // unit in MB
+    public static final int DEFAULT_DISKCACHE_LOG_COMPACTION_THRESHOLD = 50; // unit in percent of live bytes
+    public static final int DEFAULT_DISKCACHE_LOG_COMPACTION_INTERVAL = 60 * 1000; // unit in msec
 
     // Define for maxinum and mininum values
     public static final int MAX_DISKCACHE_PERFORMANCE_LEVEL = HIGH;
@@ -245,6 +252,12 @@ public class CacheConfig implements DCacheConfig, Cloneable {
     int diskCacheSize = DEFAULT_DISKCACHE_SIZE; // default: 0 means disable or maximum disk cache size
 
     int diskCacheEvictionPolicy = EVICTION_RANDOM;
+
+    // Use the memory-mapped segment log (LogStructuredCacheOnDisk) instead of the hashtable on disk.
+    boolean diskCacheLogStructured = false;
+    int diskCacheLogSegmentSizeInMB = DEFAULT_DISKCACHE_LOG_SEGMENT_SIZE_MB; // size of each log segment file
+    int diskCacheLogCompactionThreshold = DEFAULT_DISKCACHE_LOG_COMPACTION_THRESHOLD; // compact segments with less live data
+    int diskCacheLogCompactionInterval = DEFAULT_DISKCACHE_LOG_COMPACTION_INTERVAL; // msec between compaction passes
     int diskCacheHighThreshold = DEFAULT_HIGH_THRESHOLD;
     int diskCacheLowThreshold = DEFAULT_LOW_THRESHOLD;
 
@@ -446,6 +459,10 @@ public class CacheConfig implements DCacheConfig, Cloneable {
         diskCacheEvictionPolicy = config.diskCacheEvictionPolicy;
         diskCacheHighThreshold = config.diskCacheHighThreshold;
         diskCacheLowThreshold = config.diskCacheLowThreshold;
+        diskCacheLogStructured = config.diskCacheLogStructured;
+        diskCacheLogSegmentSizeInMB = config.diskCacheLogSegmentSizeInMB;
+        diskCacheLogCompactionThreshold = config.diskCacheLogCompactionThreshold;
+        diskCacheLogCompactionInterval = config.diskCacheLogCompactionInterval;
         htodDelayOffloadEntriesLimit = config.htodDelayOffloadEntriesLimit;
         htodDelayOffloadDepIdBuckets = config.htodDelayOffloadDepIdBuckets;
         htodDelayOffloadTemplateBuckets = config.htodDelayOffloadTemplateBuckets;
@@ -998,7 +1015,9 @@ public class CacheConfig implements DCacheConfig, Cloneable {
                + disableDependencyId + ", disableStoreCookies=" + disableStoreCookies + ", disableTemplateInvalidation="
                + disableTemplateInvalidation + ", disableTemplatesSupport=" + disableTemplatesSupport + ", diskCacheEntrySizeInMB="
                + diskCacheEntrySizeInMB + ", diskCacheEvictionPolicy=" + diskCacheEvictionPolicy + ", diskCacheHighThreshold="
-               + diskCacheHighThreshold + ", diskCacheLowThreshold=" + diskCacheLowThreshold + ", diskCachePerformanceLevel="
+               + diskCacheHighThreshold + ", diskCacheLowThreshold=" + diskCacheLowThreshold + ", diskCacheLogStructured=" + diskCacheLogStructured
+               + ", diskCacheLogSegmentSizeInMB=" + diskCacheLogSegmentSizeInMB + ", diskCacheLogCompactionThreshold="
+               + diskCacheLogCompactionThreshold + ", diskCacheLogCompactionInterval=" + diskCacheLogCompactionInterval + ", diskCachePerformanceLevel="
                + diskCachePerformanceLevel + ", diskCacheSize=" + diskCacheSize + ", diskCacheSizeInGB=" + diskCacheSizeInGB + ", diskHashBuckets="
                + diskHashBuckets + ", diskOffloadLocation=" + diskOffloadLocation + ", htodCleanupFrequency=" + htodCleanupFrequency
                + ", htodCleanupHour=" + htodCleanupHour + ", htodDataHashtableSize=" + htodDataHashtableSize + ", htodDelayOffload="
@@ -0,0 +1,1265 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.ibm.websphere.cache.InvalidationEvent;
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.websphere.ras.annotation.Trivial;
+import com.ibm.ws.cache.intf.DCache;
+import com.ibm.ws.cache.persistent.mmlog.LogLocation;
+import com.ibm.ws.cache.persistent.mmlog.SegmentLog;
+import com.ibm.ws.cache.stat.CachePerf;
+import com.ibm.ws.cache.util.ExceptionUtility;
+import com.ibm.ws.cache.util.SerializationUtility;
+
+/**
+ * Disk offload built on memory-mapped, append-only segment logs instead of HashtableOnDisk.
+ *
+ * Cache entries, aliases, dependency ids and templates each live in their own {@link SegmentLog}
+ * under <code>&lt;diskOffloadLocation&gt;/&lt;cacheName&gt;/mmlog</code>. Lookups go through the
+ * in-memory key index of the log, so a read is a single copy out of the mapping and a write is a
+ * single append; there is no free-space management and no rehashing on startup. Dependency ids and
+ * templates are kept in memory (as with diskCachePerformanceLevel=HIGH) and written to their logs
+ * when the auxiliary tables are flushed and on close. Overwritten and removed records are reclaimed
+ * by a background compaction pass, and each log writes an index snapshot so that a restart only
+ * replays the records written after the last snapshot.
+ *
+ * Enabled with diskCacheLogStructured=true on the cache instance.
+ */
+public class LogStructuredCacheOnDisk implements DynacacheOnDisk {
+
+    private static TraceComponent tc = Tr.register(LogStructuredCacheOnDisk.class, "WebSphere Dynamic Cache", "com.ibm.ws.cache.resources.dynacache");
+
+    public final static String LOG_DIRECTORY = "mmlog";
+    public final static String DATA_LOG = "data";
+    public final static String ALIAS_LOG = "alias";
+    public final static String DEPENDENCY_LOG = "dependency";
+    public final static String TEMPLATE_LOG = "template";
+
+    // layout of a cache entry value in the data log:
+    // int valueHashcode, long validatorExpirationTime, int entryLength, byte entry[entryLength], byte serializedValue[]
+    private final static int VALUE_HASHCODE_OFFSET = 0;
+    private final static int VALIDATOR_EXPIRATION_OFFSET = 4;
+    private final static int ENTRY_LENGTH_OFFSET = 12;
+    private final static int ENTRY_OFFSET = 16;
+
+    private final static boolean FIRE_EVENT = true;
+
+    protected DCache cache = null;
+    protected String cacheName = null;
+    protected String swapDirPath = null;
+
+    protected SegmentLog dataLog = null;
+    protected SegmentLog aliasLog = null;
+    protected SegmentLog dependencyLog = null;
+    protected SegmentLog templateLog = null;
+
+    // alias id -> cache id
+    protected final ConcurrentHashMap<Object, Object> aliases = new ConcurrentHashMap<Object, Object>();
+    // dependency id / template -> cache ids; written to the logs by writeAuxiliaryDepTables()
+    protected final ConcurrentHashMap<Object, ValueSet> dependencies = new ConcurrentHashMap<Object, ValueSet>();
+    protected final ConcurrentHashMap<Object, ValueSet> templates = new ConcurrentHashMap<Object, ValueSet>();
+    protected final Set<Object> dirtyDependencies = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+    protected final Set<Object> dirtyTemplates = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+    // updates of the dependency and template tables hold the read lock, and each value set is also
+    // updated under its own monitor; writeAuxiliaryDepTables() takes the write lock to copy the changes
+    protected final ReentrantReadWriteLock depTablesLock = new ReentrantReadWriteLock();
+    // serializes writers of the dependency and template logs, so that they are written in the order
+    // in which the changes were copied
+    protected final Object depTablesFlushMonitor = new Object() {};
+
+    protected boolean disableDependencyId = false;
+    protected boolean disableTemplatesSupport = false;
+    protected boolean ignoreValueInInvalidationEvent = false;
+    protected int diskCachePerformanceLevel = CacheConfig.DEFAULT_DISKCACHE_PERFORMANCE_LEVEL;
+    protected int evictionPolicy = CacheConfig.DEFAULT_DISKCACHE_EVICTION_POLICY;
+    protected int compactionThreshold = CacheConfig.DEFAULT_DISKCACHE_LOG_COMPACTION_THRESHOLD;
+    protected long compactionInterval = CacheConfig.DEFAULT_DISKCACHE_LOG_COMPACTION_INTERVAL;
+    protected DiskCacheSizeInfo diskCacheSizeInfo = null;
+
+    protected volatile boolean stopping = false;
+    protected volatile Exception diskCacheException = null;
+
+    protected final AtomicBoolean cleanupRunning = new AtomicBoolean();
+    protected final AtomicBoolean gcRunning = new AtomicBoolean();
+    protected final Object cleanupMonitor = new Object() {};
+
+    // range cursors used by the cache monitor
+    protected Iterator<Object> cacheIdRange = null;
+    protected Iterator<Object> depIdRange = null;
+    protected Iterator<Object> templateRange = null;
+    protected Iterator<Object> hashcodeRange = null;
+
+    // statistics
+    protected final AtomicLong reads = new AtomicLong();
+    protected final AtomicLong readMisses = new AtomicLong();
+    protected final AtomicLong writes = new AtomicLong();
+    protected final AtomicLong removes = new AtomicLong();
+    protected final AtomicLong expired = new AtomicLong();
+    protected final AtomicLong evicted = new AtomicLong();
+
+    public LogStructuredCacheOnDisk(CacheConfig cacheConfig, DCache c) {
+        final String methodName = "constructor()";
+        if (cacheConfig.diskOffloadLocation == null) {
+            cacheConfig.setOffloadOffloadLocationAndProcess("");
+        }
+        this.cache = c;
+        this.cacheName = c.getCacheName();
+        this.disableDependencyId = cacheConfig.disableDependencyId;
+        this.disableTemplatesSupport = cacheConfig.enableServletSupport ? cacheConfig.disableTemplatesSupport : true;
+        this.ignoreValueInInvalidationEvent = cacheConfig.ignoreValueInInvalidationEvent;
+        this.diskCachePerformanceLevel = cacheConfig.diskCachePerformanceLevel;
+        this.evictionPolicy = cacheConfig.diskCacheEvictionPolicy;
+        this.compactionThreshold = cacheConfig.diskCacheLogCompactionThreshold;
+        this.compactionInterval = cacheConfig.diskCacheLogCompactionInterval;
+
+        int segmentSizeInMB = cacheConfig.diskCacheLogSegmentSizeInMB;
+        if (segmentSizeInMB < 1 || segmentSizeInMB > 1024) {
+            Tr.warning(tc, "DYNA0069W", new Object[] { new Integer(segmentSizeInMB), "diskCacheLogSegmentSizeInMB", this.cacheName,
+                                                      new Integer(1), new Integer(1024), new Integer(CacheConfig.DEFAULT_DISKCACHE_LOG_SEGMENT_SIZE_MB) });
+            segmentSizeInMB = CacheConfig.DEFAULT_DISKCACHE_LOG_SEGMENT_SIZE_MB;
+        }
+        if (this.compactionThreshold < 1 || this.compactionThreshold > 100) {
+            Tr.warning(tc, "DYNA0069W", new Object[] { new Integer(this.compactionThreshold), "diskCacheLogCompactionThreshold", this.cacheName,
+                                                      new Integer(1), new Integer(100), new Integer(CacheConfig.DEFAULT_DISKCACHE_LOG_COMPACTION_THRESHOLD) });
+            this.compactionThreshold = CacheConfig.DEFAULT_DISKCACHE_LOG_COMPACTION_THRESHOLD;
+        }
+
+        int diskCacheSizeLimit = cacheConfig.diskCacheSize;
+        int diskCacheSizeInGBLimit = cacheConfig.diskCacheSizeInGB;
+        int highThreshold = cacheConfig.diskCacheHighThreshold;
+        int lowThreshold = cacheConfig.diskCacheLowThreshold;
+        if (highThreshold < CacheConfig.MIN_HIGH_THRESHOLD || highThreshold > CacheConfig.MAX_HIGH_THRESHOLD
+            || lowThreshold < CacheConfig.MIN_LOW_THRESHOLD || lowThreshold > CacheConfig.MAX_LOW_THRESHOLD || highThreshold <= lowThreshold) {
+            highThreshold = CacheConfig.DEFAULT_HIGH_THRESHOLD;
+            lowThreshold = CacheConfig.DEFAULT_LOW_THRESHOLD;
+        }
+        if (diskCacheSizeLimit > 0 && diskCacheSizeLimit < CacheConfig.MIN_DISKCACHE_SIZE) {
+            diskCacheSizeLimit = CacheConfig.MIN_DISKCACHE_SIZE;
+        }
+        this.diskCacheSizeInfo = new DiskCacheSizeInfo(this.cacheName);
+        // the data log is the only one that grows with the cache, so the whole GB limit applies to it
+        this.diskCacheSizeInfo.initialize(diskCacheSizeLimit, Math.max(cacheConfig.diskCacheEntrySizeInMB, 0), Math.max(diskCacheSizeInGBLimit, 0),
+                                          1, 0, 0, highThreshold, lowThreshold);
+        c.setEnableDiskCacheSizeInBytesChecking(diskCacheSizeInGBLimit > 0);
+
+        String location = cacheConfig.diskOffloadLocation;
+        int index = location.indexOf("##");
+        if (index != -1) {
+            String defined = location.substring(0, index);
+            location = defined.length() > 0 ? defined : location.substring(index + 2);
+        }
+        if (location.length() == 0) {
+            Tr.error(tc, "DYNA0055E", new Object[] { this.cacheName, "", cacheConfig.diskOffloadLocation });
+            c.setSwapToDisk(false);
+            return;
+        }
+        String diskCacheName = this.cacheName.replace('/', '_').replace('\\', '_');
+        this.swapDirPath = location + File.separator + diskCacheName + File.separator + LOG_DIRECTORY;
+
+        final int segmentSize = segmentSizeInMB * (int) DiskCacheSizeInfo.MB_SIZE;
+        try {
+            AccessController.doPrivileged(new PrivilegedAction<Object>() {
+                @Override
+                public Object run() {
+                    try {
+                        openLogs(segmentSize);
+                    } catch (IOException e) {
+                        throw new SegmentLogOpenException(e);
+                    }
+                    return null;
+                }
+            });
+        } catch (Throwable t) {
+            Throwable cause = t instanceof SegmentLogOpenException ? t.getCause() : t;
+            com.ibm.ws.ffdc.FFDCFilter.processException(cause, "com.ibm.ws.cache.LogStructuredCacheOnDisk.LogStructuredCacheOnDisk", "173", this);
+            traceDebug(methodName, "cacheName=" + this.cacheName + "\nException: " + ExceptionUtility.getStackTrace(cause));
+            Tr.error(tc, "DYNA0055E", new Object[] { this.cacheName, this.swapDirPath, "" });
+            closeLogs();
+            c.setSwapToDisk(false);
+            return;
+        }
+        Tr.info(tc, "DYNA0053I", new Object[] { this.cacheName, this.swapDirPath });
+        scheduleCompaction();
+    }
+
+    private void openLogs(int segmentSize) throws IOException {
+        final String methodName = "openLogs()";
+        SegmentLog.KeyDeserializer deserializer = new SegmentLog.KeyDeserializer() {
+            @Override
+            public Object deserialize(byte[] key) throws Exception {
+                return SerializationUtility.deserialize(key, cacheName);
+            }
+        };
+        // metadata logs stay small, so they use smaller segments
+        int metadataSegmentSize = Math.max(segmentSize / 16, 1024 * 1024);
+        dataLog = new SegmentLog(new File(swapDirPath, DATA_LOG), segmentSize, deserializer);
+        aliasLog = new SegmentLog(new File(swapDirPath, ALIAS_LOG), metadataSegmentSize, deserializer);
+        dependencyLog = new SegmentLog(new File(swapDirPath, DEPENDENCY_LOG), metadataSegmentSize, deserializer);
+        templateLog = new SegmentLog(new File(swapDirPath, TEMPLATE_LOG), metadataSegmentSize, deserializer);
+
+        boolean warm = dataLog.open();
+        // the metadata logs are only meaningful together with the data they describe
+        if (aliasLog.open() != warm || dependencyLog.open() != warm || templateLog.open() != warm || !warm) {
+            if (warm) {
+                traceDebug(methodName, "cacheName=" + this.cacheName + " metadata logs could not be recovered, discarding the disk cache");
+            }
+            dataLog.clear();
+            aliasLog.clear();
+            dependencyLog.clear();
+            templateLog.clear();
+            return;
+        }
+        try {
+            loadTable(aliasLog, null);
+            loadTable(dependencyLog, dependencies);
+            loadTable(templateLog, templates);
+        } catch (Exception e) {
+            traceDebug(methodName, "cacheName=" + this.cacheName + " unable to load metadata, discarding the disk cache\n" + ExceptionUtility.getStackTrace(e));
+            aliases.clear();
+            dependencies.clear();
+            templates.clear();
+            dataLog.clear();
+            aliasLog.clear();
+            dependencyLog.clear();
+            templateLog.clear();
+            return;
+        }
+        traceDebug(methodName, "cacheName=" + this.cacheName + " recovered entries=" + dataLog.size() + " aliases=" + aliases.size() + " dependencies="
+                               + dependencies.size() + " templates=" + templates.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadTable(SegmentLog log, ConcurrentHashMap<Object, ValueSet> table) throws Exception {
+        Iterator<Map.Entry<Object, LogLocation>> it = log.entries();
+        while (it.hasNext()) {
+            Map.Entry<Object, LogLocation> entry = it.next();
+            Object value = SerializationUtility.deserialize(log.readValue(entry.getValue()), cacheName);
+            if (table == null) {
+                aliases.put(entry.getKey(), value);
+            } else {
+                table.put(entry.getKey(), (ValueSet) value);
+            }
+        }
+    }
+
+    private void closeLogs() {
+        SegmentLog[] logs = new SegmentLog[] { dataLog, aliasLog, dependencyLog, templateLog };
+        for (SegmentLog log : logs) {
+            if (log != null) {
+                try {
+                    log.close();
+                } catch (Exception e) {
+                    com.ibm.ws.ffdc.FFDCFilter.processException(e, "com.ibm.ws.cache.LogStructuredCacheOnDisk.closeLogs", "245", this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Call this method to clear the disk cache per cache instance.
+     */
+    @Override
+    public void clearDiskCache() {
+        try {
+            aliases.clear();
+            synchronized (depTablesFlushMonitor) {
+                depTablesLock.writeLock().lock();
+                try {
+                    dependencies.clear();
+                    templates.clear();
+                    dirtyDependencies.clear();
+                    dirtyTemplates.clear();
+                } finally {
+                    depTablesLock.writeLock().unlock();
+                }
+                dependencyLog.clear();
+                templateLog.clear();
+            }
+            dataLog.clear();
+            aliasLog.clear();
+        } catch (Exception e) {
+            stopOnError(e);
+        }
+    }
+
+    /**
+     * Call this method to write a cache entry to the disk.
+     */
+    @Override
+    public int writeCacheEntry(CacheEntry ce) {
+        final String methodName = "writeCacheEntry()";
+        byte[] entry = null;
+        try {
+            ce.skipValueSerialized = true;
+            entry = SerializationUtility.serialize(ce);
+        } catch (Exception ex) {
+            com.ibm.ws.ffdc.FFDCFilter.processException(ex, "com.ibm.ws.cache.LogStructuredCacheOnDisk.writeCacheEntry", "280", this);
+            traceDebug(methodName, "cacheName=" + this.cacheName + "\nException: " + ExceptionUtility.getStackTrace(ex));
+            return HTODDynacache.SERIALIZATION_EXCEPTION;
+        } finally {
+            ce.skipValueSerialized = false;
+        }
+        int returnCode = HTODDynacache.NO_EXCEPTION;
+        try {
+            if (ce.valueHashcode == 0 && null != ce.value) {
+                ce.valueHashcode = ce.value.hashCode();
+            }
+            byte[] serializedValue = ce.serializedValue == null ? new byte[0] : ce.serializedValue;
+            ByteBuffer value = ByteBuffer.allocate(ENTRY_OFFSET + entry.length + serializedValue.length);
+            value.putInt(ce.valueHashcode);
+            value.putLong(ce.validatorExpirationTime);
+            value.putInt(entry.length);
+            value.put(entry);
+            value.put(serializedValue);
+            byte[] serializedId = ce.serializedId != null ? ce.serializedId : SerializationUtility.serialize((Serializable) ce.id);
+            long expirationTime = ce.timeLimit > 0 ? ce.expirationTime : -1;
+            LogLocation old = dataLog.put(ce.id, serializedId, value.array(), expirationTime);
+            if (old != null) {
+                returnCode = HTODDynacache.NO_EXCEPTION_ENTRY_OVERWRITTEN;
+            }
+            writes.incrementAndGet();
+            this.cache.getCacheStatisticsListener().writeEntryToDisk(ce.id, value.capacity());
+            for (int i = 0; i < ce.aliasList.length; i++) {
+                Object alias = ce.aliasList[i];
+                aliases.put(alias, ce.id);
+                aliasLog.put(alias, SerializationUtility.serialize((Serializable) alias), serializedId, -1);
+            }
+        } catch (Exception ex) {
+            returnCode = handleException(methodName, ex, "305");
+        }
+        return returnCode;
+    }
+
+    /**
+     * Call this method to read a cache entry from the disk.
+     */
+    @Override
+    public CacheEntry readCacheEntry(Object id) {
+        return readCacheEntry(id, !HTODDynacache.CALLED_FROM_REMOVE);
+    }
+
+    /**
+     * Call this method to read a cache entry from the disk.
+     */
+    @Override
+    public CacheEntry readCacheEntry(Object id, boolean calledFromRemove) {
+        final String methodName = "readCacheEntry()";
+        reads.incrementAndGet();
+        Object cacheId = id;
+        LogLocation location = dataLog.getLocation(id);
+        if (location == null) {
+            Object aliasOf = aliases.get(id);
+            if (aliasOf != null) {
+                cacheId = aliasOf;
+                location = dataLog.getLocation(aliasOf);
+            }
+        }
+        if (location == null) {
+            readMisses.incrementAndGet();
+            return null;
+        }
+        boolean checkExpired = !(cache.isEnableListener() && cache.getEventSource().getInvalidationListenerCount() > 0 && !this.ignoreValueInInvalidationEvent);
+        if (checkExpired && location.isExpired(System.currentTimeMillis())) {
+            if (cache.isEnableListener() && cache.getEventSource().getInvalidationListenerCount() > 0) {
+                cache.getEventSource().fireEvent(new InvalidationEvent(cacheId, null, InvalidationEvent.DISK_TIMEOUT, InvalidationEvent.LOCAL, this.cacheName));
+            }
+            removeEntry(cacheId, CachePerf.TIMEOUT, CachePerf.LOCAL, !Cache.FROM_DEPID_TEMPLATE_INVALIDATION, !FIRE_EVENT);
+            expired.incrementAndGet();
+            if (this.diskCachePerformanceLevel != CacheConfig.HIGH && !calledFromRemove) {
+                this.cache.internalInvalidateByDepId(cacheId, CachePerf.TIMEOUT, CachePerf.LOCAL, Cache.FIRE_INVALIDATION_LISTENER);
+            }
+            readMisses.incrementAndGet();
+            return null;
+        }
+        CacheEntry answer = null;
+        try {
+            answer = decodeEntry(dataLog.readValue(location));
+        } catch (Exception ex) {
+            com.ibm.ws.ffdc.FFDCFilter.processException(ex, "com.ibm.ws.cache.LogStructuredCacheOnDisk.readCacheEntry", "356", this);
+            traceDebug(methodName, "cacheName=" + this.cacheName + " id=" + id + "\nException: " + ExceptionUtility.getStackTrace(ex));
+            return null;
+        }
+        if (location.isExpired(System.currentTimeMillis())) {
+            // only reached when listeners want the value of the expired entry
+            cache.getEventSource().fireEvent(new InvalidationEvent(answer.id, answer.serializedValue, InvalidationEvent.DISK_TIMEOUT, InvalidationEvent.LOCAL,
+                                                                   this.cacheName));
+            removeEntry(cacheId, CachePerf.TIMEOUT, CachePerf.LOCAL, !Cache.FROM_DEPID_TEMPLATE_INVALIDATION, !FIRE_EVENT);
+            expired.incrementAndGet();
+            if (this.diskCachePerformanceLevel != CacheConfig.HIGH && !calledFromRemove) {
+                this.cache.internalInvalidateByDepId(answer.id, CachePerf.TIMEOUT, CachePerf.LOCAL, Cache.FIRE_INVALIDATION_LISTENER);
+            }
+            readMisses.incrementAndGet();
+            return null;
+        }
+        if (!calledFromRemove && answer.serializedValue != null) {
+            this.cache.getCacheStatisticsListener().readEntryFromDisk(answer.id, location.valueSize());
+        }
+        return answer;
+    }
+
+    private CacheEntry decodeEntry(byte[] value) throws IOException, ClassNotFoundException {
+        ByteBuffer bb = ByteBuffer.wrap(value);
+        int valueHashcode = bb.getInt(VALUE_HASHCODE_OFFSET);
+        long validatorExpirationTime = bb.getLong(VALIDATOR_EXPIRATION_OFFSET);
+        int entryLength = bb.getInt(ENTRY_LENGTH_OFFSET);
+        byte[] entry = new byte[entryLength];
+        bb.position(ENTRY_OFFSET);
+        bb.get(entry);
+        CacheEntry ce = (CacheEntry) SerializationUtility.deserialize(entry, cacheName);
+        ce.setValidatorExpirationTime(validatorExpirationTime);
+        ce.valueHashcode = valueHashcode;
+        int valueLength = value.length - ENTRY_OFFSET - entryLength;
+        if (valueLength > 0) {
+            byte[] serializedValue = new byte[valueLength];
+            bb.get(serializedValue);
+            ce.serializedValue = serializedValue;
+        }
+        return ce;
+    }
+
+    /**
+     * Call this method to remove a cache entry from the disk.
+     */
+    @Override
+    public void delCacheEntry(CacheEntry ce, int cause, int source, boolean fromDepIdTemplateInvalidation) {
+        removeEntry(ce.id, cause, source, fromDepIdTemplateInvalidation, !FIRE_EVENT);
+        for (int i = 0; i < ce.aliasList.length; i++) {
+            removeAlias(ce.aliasList[i]);
+        }
+    }
+
+    /**
+     * Call this method to remove multiple of cache ids from the disk.
+     */
+    @Override
+    public void delCacheEntry(ValueSet removeList, int cause, int source, boolean fromDepIdTemplateInvalidation, boolean fireEvent) {
+        if (removeList == null) {
+            return;
+        }
+        Object[] ids = removeList.toArray();
+        for (Object id : ids) {
+            removeEntry(id, cause, source, fromDepIdTemplateInvalidation, fireEvent);
+        }
+    }
+
+    /**
+     * Removes a cache entry, its aliases and its dependency and template memberships.
+     *
+     * @return the number of bytes released, or 0 if the entry was not on disk.
+     */
+    protected int removeEntry(Object id, int cause, int source, boolean fromDepIdTemplateInvalidation, boolean fireEvent) {
+        final String methodName = "removeEntry()";
+        LogLocation location = dataLog.getLocation(id);
+        if (location == null) {
+            return 0;
+        }
+        CacheEntry ce = null;
+        try {
+            ce = decodeEntry(dataLog.readValue(location));
+        } catch (Exception ex) {
+            traceDebug(methodName, "cacheName=" + this.cacheName + " id=" + id + " unable to read entry\nException: " + ExceptionUtility.getStackTrace(ex));
+        }
+        try {
+            if (dataLog.remove(id) == null) {
+                // removed by another thread
+                return 0;
+            }
+        } catch (Exception ex) {
+            handleException(methodName, ex, "446");
+            return 0;
+        }
+        removes.incrementAndGet();
+        this.cache.getCacheStatisticsListener().deleteEntryFromDisk(id, location.valueSize());
+        if (ce != null) {
+            if (ce._dataIds != null) {
+                for (int i = 0; i < ce._dataIds.length; i++) {
+                    delDependencyEntry(ce._dataIds[i], ce.id);
+                }
+            }
+            if (ce._templates != null) {
+                for (int i = 0; i < ce._templates.length; i++) {
+                    delTemplateEntry(ce._templates[i], ce.id);
+                }
+            }
+            for (int i = 0; i < ce.aliasList.length; i++) {
+                removeAlias(ce.aliasList[i]);
+            }
+            if (fromDepIdTemplateInvalidation && source == CachePerf.LOCAL
+                && (ce.sharingPolicy == EntryInfo.SHARED_PUSH_PULL || ce.sharingPolicy == EntryInfo.SHARED_PULL)) {
+                this.cache.invalidateById(ce.id, cause, source, false, !InvalidateByIdEvent.INVOKE_INTERNAL_INVALIDATE_BY_ID);
+            }
+            if (fireEvent && cache.isEnableListener() && cache.getEventSource().getInvalidationListenerCount() > 0) {
+                Object value = this.ignoreValueInInvalidationEvent ? null : ce.serializedValue;
+                int eventCause = cause == CachePerf.DISK_GARBAGE_COLLECTOR ? InvalidationEvent.DISK_GARBAGE_COLLECTOR : InvalidationEvent.DISK_TIMEOUT;
+                cache.getEventSource().fireEvent(new InvalidationEvent(ce.id, value, eventCause, InvalidationEvent.LOCAL, this.cacheName));
+            }
+        }
+        return location.size();
+    }
+
+    private void removeAlias(Object alias) {
+        if (aliases.remove(alias) != null) {
+            try {
+                aliasLog.remove(alias);
+            } catch (Exception ex) {
+                handleException("removeAlias()", ex, "490");
+            }
+        }
+    }
+
+    /**
+     * This method returns true if disk cache contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(Object id) {
+        return dataLog.containsKey(id) || aliases.containsKey(id);
+    }
+
+    /**
+     * This method is used to update expiration times in the disk entry.
+     */
+    @Override
+    public int updateExpirationTime(Object id, long oldExpirationTime, int size, long newExpirationTime, long newValidatorExpirationTime) {
+        LogLocation location = dataLog.getLocation(id);
+        if (location == null) {
+            return HTODDynacache.NO_EXCEPTION;
+        }
+        try {
+            byte[] value = dataLog.readValue(location);
+            ByteBuffer.wrap(value).putLong(VALIDATOR_EXPIRATION_OFFSET, newValidatorExpirationTime);
+            dataLog.replace(id, value, newExpirationTime);
+        } catch (Exception ex) {
+            return handleException("updateExpirationTime()", ex, "518");
+        }
+        return HTODDynacache.NO_EXCEPTION;
+    }
+
+    // ----------------------------------------------------------------------
+    // dependency ids and templates
+    // ----------------------------------------------------------------------
+
+    @Override
+    public ValueSet readDependency(Object id, boolean delete) {
+        if (id == null || this.disableDependencyId) {
+            return HTODDynacache.EMPTY_VS;
+        }
+        return readValueSet(dependencies, dirtyDependencies, id, delete);
+    }
+
+    @Override
+    public ValueSet readTemplate(String template, boolean delete) {
+        if (template == null || this.disableTemplatesSupport) {
+            return HTODDynacache.EMPTY_VS;
+        }
+        return readValueSet(templates, dirtyTemplates, template, delete);
+    }
+
+    private ValueSet readValueSet(ConcurrentHashMap<Object, ValueSet> table, Set<Object> dirty, Object id, boolean delete) {
+        ValueSet vs;
+        if (delete) {
+            depTablesLock.readLock().lock();
+            try {
+                vs = table.remove(id);
+                if (vs != null) {
+                    dirty.add(id);
+                }
+            } finally {
+                depTablesLock.readLock().unlock();
+            }
+        } else {
+            ValueSet current = table.get(id);
+            if (current == null) {
+                vs = null;
+            } else {
+                synchronized (current) {
+                    vs = new ValueSet(current.size());
+                    vs.addAll(current);
+                }
+            }
+        }
+        return vs == null ? HTODDynacache.EMPTY_VS : vs;
+    }
+
+    @Override
+    public int writeDependency(Object id, ValueSet vs) {
+        if (!this.disableDependencyId) {
+            writeValueSet(dependencies, dirtyDependencies, id, vs);
+        }
+        return HTODDynacache.NO_EXCEPTION;
+    }
+
+    @Override
+    public int writeTemplate(String template, ValueSet vs) {
+        if (!this.disableTemplatesSupport) {
+            writeValueSet(templates, dirtyTemplates, template, vs);
+        }
+        return HTODDynacache.NO_EXCEPTION;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeValueSet(ConcurrentHashMap<Object, ValueSet> table, Set<Object> dirty, Object id, ValueSet vs) {
+        if (vs == null || vs.isEmpty()) {
+            return;
+        }
+        depTablesLock.readLock().lock();
+        try {
+            while (true) {
+                ValueSet current = valueSetFor(table, id);
+                synchronized (current) {
+                    // the set is dropped from the table when its last entry is removed
+                    if (table.get(id) == current) {
+                        current.addAll(vs);
+                        break;
+                    }
+                }
+            }
+            dirty.add(id);
+        } finally {
+            depTablesLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int writeDependencyEntry(Object id, Object entry) {
+        if (!this.disableDependencyId) {
+            addValueSetEntry(dependencies, dirtyDependencies, id, entry);
+        }
+        return HTODDynacache.NO_EXCEPTION;
+    }
+
+    @Override
+    public int writeTemplateEntry(String template, Object entry) {
+        if (!this.disableTemplatesSupport) {
+            addValueSetEntry(templates, dirtyTemplates, template, entry);
+        }
+        return HTODDynacache.NO_EXCEPTION;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addValueSetEntry(ConcurrentHashMap<Object, ValueSet> table, Set<Object> dirty, Object id, Object entry) {
+        depTablesLock.readLock().lock();
+        try {
+            while (true) {
+                ValueSet current = valueSetFor(table, id);
+                synchronized (current) {
+                    // the set is dropped from the table when its last entry is removed
+                    if (table.get(id) == current) {
+                        current.add(entry);
+                        break;
+                    }
+                }
+            }
+            dirty.add(id);
+        } finally {
+            depTablesLock.readLock().unlock();
+        }
+    }
+
+    private ValueSet valueSetFor(ConcurrentHashMap<Object, ValueSet> table, Object id) {
+        ValueSet current = table.get(id);
+        if (current == null) {
+            ValueSet created = new ValueSet(4);
+            current = table.putIfAbsent(id, created);
+            if (current == null) {
+                current = created;
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void delDependency(Object id) {
+        depTablesLock.readLock().lock();
+        try {
+            if (dependencies.remove(id) != null) {
+                dirtyDependencies.add(id);
+            }
+        } finally {
+            depTablesLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void delTemplate(String template) {
+        depTablesLock.readLock().lock();
+        try {
+            if (templates.remove(template) != null) {
+                dirtyTemplates.add(template);
+            }
+        } finally {
+            depTablesLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void delDependencyEntry(Object id, Object entry) {
+        removeValueSetEntry(dependencies, dirtyDependencies, id, entry);
+    }
+
+    @Override
+    public void delTemplateEntry(String template, Object entry) {
+        removeValueSetEntry(templates, dirtyTemplates, template, entry);
+    }
+
+    private void removeValueSetEntry(ConcurrentHashMap<Object, ValueSet> table, Set<Object> dirty, Object id, Object entry) {
+        depTablesLock.readLock().lock();
+        try {
+            ValueSet current = table.get(id);
+            if (current != null) {
+                synchronized (current) {
+                    if (current.remove(entry) && current.isEmpty()) {
+                        table.remove(id, current);
+                    }
+                }
+                dirty.add(id);
+            }
+        } finally {
+            depTablesLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the changed dependency ids and templates to their logs. Called by cache threads and by
+     * the compaction thread, so concurrent calls are serialized.
+     */
+    @Override
+    public int writeAuxiliaryDepTables() {
+        try {
+            synchronized (depTablesFlushMonitor) {
+                flushTable(dependencies, dirtyDependencies, dependencyLog);
+                flushTable(templates, dirtyTemplates, templateLog);
+            }
+        } catch (Exception ex) {
+            int returnCode = handleException("writeAuxiliaryDepTables()", ex, "668");
+            if (returnCode == HTODDynacache.DISK_EXCEPTION) {
+                stopOnError(ex);
+            }
+            return returnCode;
+        }
+        return HTODDynacache.NO_EXCEPTION;
+    }
+
+    /**
+     * Copies the changed entries of the table while no update is in progress, and then writes the
+     * copies to the log. Must be called while holding the depTablesFlushMonitor.
+     */
+    @SuppressWarnings("unchecked")
+    private void flushTable(ConcurrentHashMap<Object, ValueSet> table, Set<Object> dirty, SegmentLog log) throws IOException {
+        Map<Object, ValueSet> changed = new HashMap<Object, ValueSet>();
+        depTablesLock.writeLock().lock();
+        try {
+            for (Object id : dirty) {
+                ValueSet current = table.get(id);
+                ValueSet copy = null;
+                if (current != null && !current.isEmpty()) {
+                    copy = new ValueSet(current.size());
+                    copy.addAll(current);
+                }
+                changed.put(id, copy);
+            }
+            dirty.clear();
+        } finally {
+            depTablesLock.writeLock().unlock();
+        }
+
+        boolean written = false;
+        try {
+            for (Map.Entry<Object, ValueSet> entry : changed.entrySet()) {
+                Object id = entry.getKey();
+                if (entry.getValue() == null) {
+                    log.remove(id);
+                } else {
+                    log.put(id, SerializationUtility.serialize((Serializable) id), SerializationUtility.serialize(entry.getValue()), -1);
+                }
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                // write them again on the next flush
+                dirty.addAll(changed.keySet());
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // ranges and sizes used by the cache monitor
+    // ----------------------------------------------------------------------
+
+    @Override
+    public ValueSet readCacheIdsByRange(int index, int length) {
+        if (index <= 0 || cacheIdRange == null) {
+            cacheIdRange = dataLog.keySet().iterator();
+        }
+        return readRange(cacheIdRange, length);
+    }
+
+    @Override
+    public ValueSet readDependencyByRange(int index, int length) {
+        if (index <= 0 || depIdRange == null) {
+            depIdRange = dependencies.keySet().iterator();
+        }
+        return readRange(depIdRange, length);
+    }
+
+    @Override
+    public ValueSet readTemplatesByRange(int index, int length) {
+        if (index <= 0 || templateRange == null) {
+            templateRange = templates.keySet().iterator();
+        }
+        return readRange(templateRange, length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ValueSet readRange(Iterator<Object> it, int length) {
+        ValueSet vs = new ValueSet(length > 0 ? length : 16);
+        while (it.hasNext() && (length < 0 || vs.size() < length)) {
+            vs.add(it.next());
+        }
+        if (it.hasNext()) {
+            vs.add(HTODDynacache.DISKCACHE_MORE);
+        }
+        return vs;
+    }
+
+    @Override
+    public Result readHashcodeByRange(int index, int length, boolean debug, boolean useValue) {
+        Result result = new Result();
+        if (index <= 0 || hashcodeRange == null) {
+            hashcodeRange = dataLog.keySet().iterator();
+        }
+        if (length == -1) {
+            length = dataLog.size();
+        }
+        List<String> list = new ArrayList<String>(debug ? 100 : 0);
+        long now = System.currentTimeMillis();
+        int count = 0;
+        int expiredCount = 0;
+        while (count + expiredCount < length && hashcodeRange.hasNext()) {
+            Object id = hashcodeRange.next();
+            LogLocation location = dataLog.getLocation(id);
+            if (location == null || location.isExpired(now)) {
+                expiredCount++;
+                continue;
+            }
+            int id_hc = id.hashCode();
+            result.totalHashcode += id_hc;
+            int value_hc = 0;
+            if (useValue) {
+                value_hc = ByteBuffer.wrap(dataLog.readValuePrefix(location, 4)).getInt(VALUE_HASHCODE_OFFSET);
+                result.totalHashcode += value_hc;
+            }
+            count++;
+            if (debug) {
+                StringBuilder sb = new StringBuilder();
+                sb.append("\nid=").append(id).append(" id_hashcode=").append(id_hc);
+                if (useValue) {
+                    sb.append(" value_hashcode=").append(value_hc);
+                }
+                list.add(sb.toString());
+            }
+        }
+        result.data = list;
+        result.dataSize = count;
+        result.bMore = count + expiredCount == length && hashcodeRange.hasNext();
+        return result;
+    }
+
+    @Override
+    public int getCacheIdsSize(boolean filter) {
+        return dataLog.size();
+    }
+
+    @Override
+    public int getDepIdsSize() {
+        return this.disableDependencyId ? 0 : dependencies.size();
+    }
+
+    @Override
+    public int getTemplatesSize() {
+        return this.disableTemplatesSupport ? 0 : templates.size();
+    }
+
+    /**
+     * @return the number of bytes of live cache entry records on disk.
+     */
+    @Override
+    public long getCacheSizeInBytes() {
+        return dataLog.getLiveBytes();
+    }
+
+    @Override
+    public int getPendingRemovalSize() {
+        return 0;
+    }
+
+    @Override
+    public int getDepIdsBufferedSize() {
+        return dirtyDependencies.size();
+    }
+
+    @Override
+    public int getTemplatesBufferedSize() {
+        return dirtyTemplates.size();
+    }
+
+    @Override
+    public int getDiskCacheSizeLimit() {
+        return this.diskCacheSizeInfo.diskCacheSizeLimit;
+    }
+
+    @Override
+    public int getDiskCacheSizeHighLimit() {
+        return this.diskCacheSizeInfo.diskCacheSizeHighLimit;
+    }
+
+    @Override
+    public int getDiskCacheSizeInGBLimit() {
+        return this.diskCacheSizeInfo.diskCacheSizeInGBLimit;
+    }
+
+    @Override
+    public long getDiskCacheSizeInBytesLimit() {
+        return this.diskCacheSizeInfo.getDiskCacheSizeInBytesLimit();
+    }
+
+    @Override
+    public long getDiskCacheSizeInBytesHighLimit() {
+        return this.diskCacheSizeInfo.getDiskCacheSizeInBytesHighLimit();
+    }
+
+    @Override
+    public long getDiskCacheEntrySizeInBytesLimit() {
+        return this.diskCacheSizeInfo.diskCacheEntrySizeInBytesLimit;
+    }
+
+    @Override
+    public int getEvictionPolicy() {
+        return this.evictionPolicy;
+    }
+
+    // ----------------------------------------------------------------------
+    // background work: expiration scan, eviction and compaction
+    // ----------------------------------------------------------------------
+
+    /**
+     * Removes expired entries on a background thread. The log keeps the expiration time in the
+     * index, so the scan does not read the data.
+     */
+    @Override
+    public void invokeDiskCleanup(boolean scan) {
+        if (stopping || !cleanupRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    removeExpiredEntries();
+                } finally {
+                    cleanupRunning.set(false);
+                    synchronized (cleanupMonitor) {
+                        cleanupMonitor.notifyAll();
+                    }
+                }
+            }
+        };
+        if (Scheduler.submit(task) == null) {
+            cleanupRunning.set(false);
+        }
+    }
+
+    protected void removeExpiredEntries() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        Iterator<Map.Entry<Object, LogLocation>> it = dataLog.entries();
+        while (it.hasNext() && !stopping) {
+            Map.Entry<Object, LogLocation> entry = it.next();
+            if (entry.getValue().isExpired(now)) {
+                if (removeEntry(entry.getKey(), CachePerf.TIMEOUT, CachePerf.LOCAL, !Cache.FROM_DEPID_TEMPLATE_INVALIDATION, FIRE_EVENT) > 0) {
+                    count++;
+                }
+            }
+        }
+        expired.addAndGet(count);
+        traceDebug("removeExpiredEntries()", "cacheName=" + this.cacheName + " removed=" + count);
+    }
+
+    @Override
+    public boolean isCleanupRunning() {
+        return cleanupRunning.get();
+    }
+
+    @Override
+    public void waitForCleanupComplete() {
+        synchronized (cleanupMonitor) {
+            if (cleanupRunning.get()) {
+                try {
+                    cleanupMonitor.wait(5000);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts entries on a background thread until the disk cache is below the low threshold.
+     * Expired entries go first, then the oldest records of the log; the log order is the order in
+     * which entries were offloaded, so this is a FIFO policy that needs no eviction table.
+     */
+    @Override
+    public boolean invokeDiskCacheGarbageCollector(final int GCType) {
+        if (stopping || !gcRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    evict(GCType);
+                } finally {
+                    gcRunning.set(false);
+                }
+            }
+        };
+        if (Scheduler.submit(task) == null) {
+            gcRunning.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    protected void evict(int GCType) {
+        removeExpiredEntries();
+        List<Map.Entry<Object, LogLocation>> candidates = new ArrayList<Map.Entry<Object, LogLocation>>(dataLog.size());
+        Iterator<Map.Entry<Object, LogLocation>> it = dataLog.entries();
+        while (it.hasNext()) {
+            candidates.add(it.next());
+        }
+        Collections.sort(candidates, new Comparator<Map.Entry<Object, LogLocation>>() {
+            @Override
+            public int compare(Map.Entry<Object, LogLocation> e1, Map.Entry<Object, LogLocation> e2) {
+                LogLocation l1 = e1.getValue();
+                LogLocation l2 = e2.getValue();
+                if (l1.segmentId() != l2.segmentId()) {
+                    return l1.segmentId() < l2.segmentId() ? -1 : 1;
+                }
+                return l1.offset() < l2.offset() ? -1 : (l1.offset() == l2.offset() ? 0 : 1);
+            }
+        });
+        int count = 0;
+        for (Map.Entry<Object, LogLocation> candidate : candidates) {
+            if (stopping || !overLowLimit(GCType)) {
+                break;
+            }
+            if (removeEntry(candidate.getKey(), CachePerf.DISK_GARBAGE_COLLECTOR, CachePerf.LOCAL, !Cache.FROM_DEPID_TEMPLATE_INVALIDATION, FIRE_EVENT) > 0) {
+                count++;
+            }
+        }
+        evicted.addAndGet(count);
+        traceDebug("evict()", "cacheName=" + this.cacheName + " GCType=" + GCType + " evicted=" + count + " entries=" + dataLog.size() + " bytes="
+                              + getCacheSizeInBytes());
+    }
+
+    private boolean overLowLimit(int GCType) {
+        if (GCType == CacheOnDisk.DISK_CACHE_SIZE_IN_ENTRIES_TYPE) {
+            return dataLog.size() > this.diskCacheSizeInfo.diskCacheSizeLowLimit;
+        }
+        return getCacheSizeInBytes() > this.diskCacheSizeInfo.getDiskCacheSizeInBytesLowLimit();
+    }
+
+    private void scheduleCompaction() {
+        if (this.compactionInterval <= 0 || stopping) {
+            return;
+        }
+        Scheduler.createNonDeferrable(this.compactionInterval, this, new Runnable() {
+            @Override
+            public void run() {
+                if (stopping) {
+                    return;
+                }
+                try {
+                    compact();
+                } finally {
+                    scheduleCompaction();
+                }
+            }
+        });
+    }
+
+    /**
+     * Reclaims sparse segments of all logs and refreshes the index snapshots.
+     */
+    protected void compact() {
+        final String methodName = "compact()";
+        try {
+            writeAuxiliaryDepTables();
+            SegmentLog[] logs = new SegmentLog[] { dataLog, aliasLog, dependencyLog, templateLog };
+            for (SegmentLog log : logs) {
+                if (log.compact(this.compactionThreshold) == 0) {
+                    // keep the replay tail short even when nothing was reclaimed
+                    log.writeSnapshot();
+                }
+            }
+            traceDebug(methodName, "cacheName=" + this.cacheName + " " + getStatistics());
+        } catch (Exception ex) {
+            if (!stopping) {
+                com.ibm.ws.ffdc.FFDCFilter.processException(ex, "com.ibm.ws.cache.LogStructuredCacheOnDisk.compact", "963", this);
+                traceDebug(methodName, "cacheName=" + this.cacheName + "\nException: " + ExceptionUtility.getStackTrace(ex));
+            }
+        }
+    }
+
+    /**
+     * @return a one-line summary of the disk cache counters, for trace and the cache monitor.
+     */
+    public String getStatistics() {
+        return "entries=" + dataLog.size() + " liveBytes=" + dataLog.getLiveBytes() + " totalBytes=" + dataLog.getTotalBytes() + " segments="
+               + dataLog.getSegmentCount() + " reads=" + reads.get() + " readMisses=" + readMisses.get() + " writes=" + writes.get() + " removes="
+               + removes.get() + " expired=" + expired.get() + " evicted=" + evicted.get() + " compactions=" + dataLog.getCompactionCount()
+               + " compactedSegments=" + dataLog.getCompactedSegments() + " relocatedBytes=" + dataLog.getRelocatedBytes();
+    }
+
+    // ----------------------------------------------------------------------
+    // lifecycle
+    // ----------------------------------------------------------------------
+
+    @Override
+    public void stop(boolean completeClear) {
+        stopping = true;
+    }
+
+    /**
+     * Flushes the dependency tables and writes the index snapshots so that the next start is warm.
+     */
+    @Override
+    public void close(boolean deleteInProgressFile) {
+        stopping = true;
+        writeAuxiliaryDepTables();
+        closeLogs();
+    }
+
+    @Override
+    public void stopOnError(Exception exception) {
+        this.diskCacheException = exception;
+        this.cache.setSwapToDisk(false);
+        stop(HTODDynacache.COMPLETE_CLEAR);
+        closeLogs();
+        Tr.error(tc, "DYNA0072E", new Object[] { this.cacheName, this.swapDirPath, exception.getMessage() });
+    }
+
+    @Override
+    public void deleteDiskCacheFiles() {
+        final File dir = new File(this.swapDirPath);
+        AccessController.doPrivileged(new PrivilegedAction<Object>() {
+            @Override
+            public Object run() {
+                deleteRecursively(dir);
+                return null;
+            }
+        });
+    }
+
+    private static void deleteRecursively(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        f.delete();
+    }
+
+    @Override
+    public Exception getDiskCacheException() {
+        return this.diskCacheException;
+    }
+
+    @Override
+    public int getStartState() {
+        return CacheOnDisk.START_NONE;
+    }
+
+    @Override
+    public boolean shouldPopulateEvictionTable() {
+        return false;
+    }
+
+    @Override
+    public void clearInvalidationBuffers() {
+        // removals are applied to the log immediately, nothing is buffered
+    }
+
+    @Override
+    @Trivial
+    public boolean isInvalidationBuffersFull() {
+        return false;
+    }
+
+    @Override
+    public void releaseUnusedPools() {
+        // no pools
+    }
+
+    @Override
+    public boolean isCacheIdInAuxDepIdTable(Object id) {
+        // all dependency tables are on disk and in memory; containsKey() answers the question
+        return false;
+    }
+
+    private int handleException(String methodName, Exception ex, String probe) {
+        com.ibm.ws.ffdc.FFDCFilter.processException(ex, "com.ibm.ws.cache.LogStructuredCacheOnDisk." + methodName, probe, this);
+        traceDebug(methodName, "cacheName=" + this.cacheName + "\nException: " + ExceptionUtility.getStackTrace(ex));
+        if (ex instanceof IOException || ex instanceof com.ibm.ws.cache.persistent.mmlog.SegmentLogException) {
+            this.diskCacheException = ex;
+            return HTODDynacache.DISK_EXCEPTION;
+        }
+        return HTODDynacache.OTHER_EXCEPTION;
+    }
+
+    private void traceDebug(String methodName, String message) {
+        if (tc.isDebugEnabled()) {
+            Tr.debug(tc, methodName + " " + message);
+        }
+    }
+
+    /**
+     * Carries an IOException out of the privileged action that opens the logs.
+     */
+    private static class SegmentLogOpenException extends RuntimeException {
+        private static final long serialVersionUID = -2260858925290224371L;
+
+        SegmentLogOpenException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.cache.persistent.mmlog;
+
+/**
+ * The in-memory index entry of a {@link SegmentLog}: where the current record of a key lives.
+ * Instances are immutable; an update of the key replaces the location in the index.
+ */
+public final class LogLocation {
+
+    final Segment segment;
+    final int offset;
+    final int keyLength;
+    final int valueLength;
+    final long expirationTime;
+
+    LogLocation(Segment segment, int offset, int keyLength, int valueLength, long expirationTime) {
+        this.segment = segment;
+        this.offset = offset;
+        this.keyLength = keyLength;
+        this.valueLength = valueLength;
+        this.expirationTime = expirationTime;
+    }
+
+    /**
+     * @return the size of the record on disk, including header and trailer.
+     */
+    public int size() {
+        return Segment.recordSize(keyLength, valueLength);
+    }
+
+    /**
+     * @return the id of the segment holding the record; lower ids were written earlier.
+     */
+    public int segmentId() {
+        return segment.getId();
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public int valueSize() {
+        return valueLength;
+    }
+
+    public long expirationTime() {
+        return expirationTime;
+    }
+
+    public boolean isExpired(long now) {
+        return expirationTime > 0 && expirationTime <= now;
+    }
+
+    @Override
+    public String toString() {
+        return "LogLocation[segment=" + segment.getId() + " offset=" + offset + " size=" + size() + " expirationTime=" + expirationTime + "]";
+    }
+}
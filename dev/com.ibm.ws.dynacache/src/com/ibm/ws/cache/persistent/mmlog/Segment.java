@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.cache.persistent.mmlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A single fixed-size, memory-mapped file of a {@link SegmentLog}.
+ *
+ * Records are only ever appended. Each record has the layout
+ *
+ * <pre>
+ * int  type              PUT or DELETE
+ * int  keyLength
+ * int  valueLength
+ * long expirationTime
+ * byte key[keyLength]
+ * byte value[valueLength]
+ * int  crc               CRC32 of all preceding bytes of the record
+ * </pre>
+ *
+ * A zero type marks the end of the written part of the segment. Appends are serialized by the
+ * owning log; reads use private duplicates of the mapping and never block.
+ */
+public class Segment {
+
+    public static final int RECORD_PUT = 0x4D4C0001;
+    public static final int RECORD_DELETE = 0x4D4C0002;
+
+    public static final int HEADER_SIZE = 20;
+    public static final int TRAILER_SIZE = 4;
+
+    private final int id;
+    private final File file;
+    private final int capacity;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    // only updated while holding the log append lock
+    private volatile int writePosition;
+
+    // bytes of records that are still referenced by the index
+    private final AtomicLong liveBytes = new AtomicLong();
+
+    private volatile boolean dirty = false;
+
+    private Segment(int id, File file, int capacity, int writePosition) throws IOException {
+        this.id = id;
+        this.file = file;
+        this.capacity = capacity;
+        this.raf = new RandomAccessFile(file, "rw");
+        if (raf.length() < capacity) {
+            raf.setLength(capacity);
+        }
+        this.channel = raf.getChannel();
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.writePosition = writePosition;
+    }
+
+    /**
+     * Creates a new, empty segment file of the given capacity.
+     */
+    static Segment create(File file, int id, int capacity) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable to replace segment file " + file);
+        }
+        return new Segment(id, file, capacity, 0);
+    }
+
+    /**
+     * Maps an existing segment file. The write position must be established by the caller,
+     * either from an index snapshot or by scanning the records.
+     */
+    static Segment open(File file, int id) throws IOException {
+        long length = file.length();
+        if (length <= HEADER_SIZE + TRAILER_SIZE || length > Integer.MAX_VALUE) {
+            throw new IOException("Segment file " + file + " has invalid length " + length);
+        }
+        return new Segment(id, file, (int) length, 0);
+    }
+
+    public static int recordSize(int keyLength, int valueLength) {
+        return HEADER_SIZE + keyLength + valueLength + TRAILER_SIZE;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getWritePosition() {
+        return writePosition;
+    }
+
+    void setWritePosition(int writePosition) {
+        this.writePosition = writePosition;
+    }
+
+    public long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    void addLiveBytes(long delta) {
+        liveBytes.addAndGet(delta);
+    }
+
+    void resetLiveBytes() {
+        liveBytes.set(0);
+    }
+
+    public boolean hasRoom(int recordSize) {
+        return writePosition + recordSize + 4 <= capacity;
+    }
+
+    /**
+     * Appends a record. Must be called while holding the log append lock.
+     *
+     * @return the offset of the new record, or -1 if the segment does not have room for it.
+     */
+    int append(int type, byte[] key, byte[] value, long expirationTime) {
+        int valueLength = value == null ? 0 : value.length;
+        int size = recordSize(key.length, valueLength);
+        if (!hasRoom(size)) {
+            return -1;
+        }
+        byte[] record = new byte[size];
+        ByteBuffer bb = ByteBuffer.wrap(record);
+        bb.putInt(type);
+        bb.putInt(key.length);
+        bb.putInt(valueLength);
+        bb.putLong(expirationTime);
+        bb.put(key);
+        if (valueLength > 0) {
+            bb.put(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, size - TRAILER_SIZE);
+        bb.putInt((int) crc.getValue());
+
+        int offset = writePosition;
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset);
+        dup.put(record);
+        // terminate the written region so that a scan stops here
+        dup.putInt(0);
+        writePosition = offset + size;
+        dirty = true;
+        return offset;
+    }
+
+    /**
+     * Reads and validates the header of the record at the offset.
+     *
+     * @return the record, or null if there is no record at the offset or its checksum does not match.
+     * @throws IOException if the length fields of the record cannot describe a record of this segment.
+     */
+    public Record readRecord(int offset) throws IOException {
+        if (offset < 0 || (long) offset + HEADER_SIZE + TRAILER_SIZE > capacity) {
+            return null;
+        }
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset);
+        int type = dup.getInt();
+        if (type != RECORD_PUT && type != RECORD_DELETE) {
+            return null;
+        }
+        int keyLength = dup.getInt();
+        int valueLength = dup.getInt();
+        long expirationTime = dup.getLong();
+        // in long, so that corrupt lengths cannot wrap around to a size that passes the bounds check
+        long size = (long) HEADER_SIZE + keyLength + valueLength + TRAILER_SIZE;
+        if (keyLength < 0 || valueLength < 0 || offset + size > capacity) {
+            throw new IOException("Corrupt record at offset " + offset + " of " + file + ": keyLength=" + keyLength + " valueLength=" + valueLength);
+        }
+        byte[] record = new byte[(int) size - TRAILER_SIZE];
+        dup.position(offset);
+        dup.get(record);
+        int storedCrc = dup.getInt();
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        if ((int) crc.getValue() != storedCrc) {
+            return null;
+        }
+        return new Record(type, offset, keyLength, valueLength, expirationTime);
+    }
+
+    public byte[] readKey(int offset, int keyLength) {
+        byte[] key = new byte[keyLength];
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset + HEADER_SIZE);
+        dup.get(key);
+        return key;
+    }
+
+    public byte[] readValue(int offset, int keyLength, int valueLength) {
+        byte[] value = new byte[valueLength];
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset + HEADER_SIZE + keyLength);
+        dup.get(value);
+        return value;
+    }
+
+    /**
+     * Flushes the written part of the segment to the device if it changed since the last force.
+     */
+    void force() {
+        if (dirty) {
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    void close() {
+        try {
+            force();
+        } finally {
+            try {
+                channel.close();
+                raf.close();
+            } catch (IOException e) {
+                // nothing to do, the mapping stays valid until it is collected
+            }
+        }
+    }
+
+    boolean delete() {
+        close();
+        return file.delete();
+    }
+
+    @Override
+    public String toString() {
+        return "Segment[" + id + " " + file.getName() + " write=" + writePosition + " live=" + liveBytes.get() + " capacity=" + capacity + "]";
+    }
+
+    /**
+     * The header of a validated record.
+     */
+    public static class Record {
+        public final int type;
+        public final int offset;
+        public final int keyLength;
+        public final int valueLength;
+        public final long expirationTime;
+
+        Record(int type, int offset, int keyLength, int valueLength, long expirationTime) {
+            this.type = type;
+            this.offset = offset;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+            this.expirationTime = expirationTime;
+        }
+
+        public int size() {
+            return recordSize(keyLength, valueLength);
+        }
+    }
+}
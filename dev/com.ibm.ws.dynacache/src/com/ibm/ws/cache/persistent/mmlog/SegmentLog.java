@@ -0,0 +1,759 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.cache.persistent.mmlog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+
+/**
+ * An append-only, memory-mapped key/value log with an in-memory key index.
+ *
+ * Every put or remove appends a record to the active {@link Segment}; the index maps each live key
+ * to the location of its newest record, so a read is one lookup plus one copy out of the mapping.
+ * When the active segment is full a new one is started. Space held by overwritten and removed
+ * records is reclaimed by {@link #compact(int)}, which copies the few live records of sparse
+ * segments to the head of the log and deletes the old files.
+ *
+ * The index is persisted by {@link #writeSnapshot()} together with a high-water mark (segment and
+ * offset). On {@link #open()} the snapshot is loaded and only the records written after the mark are
+ * replayed, so a warm restart does not scan the data. The snapshot is written to a temporary file,
+ * synced and renamed, and the snapshot it replaces is kept as the previous snapshot. Compaction only
+ * deletes segments that lie entirely before the mark of the previous snapshot, and only after the new
+ * snapshot is durable, so if the latest snapshot cannot be read the previous one plus the replayed
+ * tail still describes the log. If neither can be read, the segments are replayed from the start
+ * when no segment has ever been reclaimed, since the log then still holds every removal.
+ */
+public class SegmentLog {
+
+    private static TraceComponent tc = Tr.register(SegmentLog.class, "WebSphere Dynamic Cache", "com.ibm.ws.cache.resources.dynacache");
+
+    public static final String SEGMENT_PREFIX = "segment-";
+    public static final String SEGMENT_SUFFIX = ".log";
+    public static final String SNAPSHOT_FILENAME = "index.snapshot";
+    public static final String PREVIOUS_SNAPSHOT_FILENAME = "index.snapshot.prev";
+
+    private static final int SNAPSHOT_MAGIC = 0x4D4C4958;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * Converts the serialized form of a key, as stored in the log, back to the key object.
+     * It is only called while the index is rebuilt in {@link SegmentLog#open()}.
+     */
+    public interface KeyDeserializer {
+        Object deserialize(byte[] key) throws Exception;
+    }
+
+    private final File directory;
+    private final int segmentSize;
+    private final KeyDeserializer keyDeserializer;
+
+    private final ConcurrentHashMap<Object, LogLocation> index = new ConcurrentHashMap<Object, LogLocation>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<Integer, Segment>();
+
+    // serializes appends, index updates and segment rollover; reads never take it
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Segment activeSegment = null;
+
+    // serializes compaction and snapshot writes with each other
+    private final Object snapshotLock = new Object();
+
+    // segment of the high-water mark of the newest snapshot; guarded by snapshotLock
+    private int snapshotMarkSegment = 0;
+
+    private volatile boolean closed = true;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong appendCount = new AtomicLong();
+    private final AtomicLong compactionCount = new AtomicLong();
+    private final AtomicLong compactedSegments = new AtomicLong();
+    private final AtomicLong relocatedBytes = new AtomicLong();
+
+    public SegmentLog(File directory, int segmentSize, KeyDeserializer keyDeserializer) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.keyDeserializer = keyDeserializer;
+    }
+
+    /**
+     * Opens the log, rebuilding the index from the snapshot and the tail of the log.
+     *
+     * If the snapshot cannot be read, the previous snapshot is used instead, and failing that the
+     * segments are replayed from the start. The segments are only discarded if none of these can
+     * reconstruct the log, since records of reclaimed segments cannot be replayed.
+     *
+     * @return true if existing content was recovered, false if the log starts empty.
+     */
+    public boolean open() throws IOException {
+        final String methodName = "open()";
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        boolean recovered = false;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                int id = segmentId(f.getName());
+                if (id > 0) {
+                    try {
+                        segments.put(id, Segment.open(f, id));
+                    } catch (IOException e) {
+                        if (tc.isDebugEnabled())
+                            Tr.debug(tc, methodName, "ignoring unusable segment " + f + " " + e);
+                        f.delete();
+                    }
+                }
+            }
+        }
+        boolean fromSnapshot = false;
+        if (!segments.isEmpty()) {
+            fromSnapshot = loadSnapshot(new File(directory, SNAPSHOT_FILENAME));
+            recovered = fromSnapshot || loadSnapshot(new File(directory, PREVIOUS_SNAPSHOT_FILENAME)) || replayAll();
+            if (!recovered) {
+                index.clear();
+                discardAll();
+            }
+        }
+        if (segments.isEmpty()) {
+            activeSegment = newSegment(1, segmentSize);
+        } else {
+            activeSegment = segments.lastEntry().getValue();
+        }
+        closed = false;
+        if (!fromSnapshot) {
+            // mark the starting point so that a crash before the next snapshot can still be replayed
+            writeSnapshot();
+        }
+        if (tc.isDebugEnabled())
+            Tr.debug(tc, methodName, "directory=" + directory + " recovered=" + recovered + " keys=" + index.size() + " segments=" + segments.size());
+        return recovered;
+    }
+
+    /**
+     * Appends a new record for the key and makes it the current one.
+     *
+     * @return the location of the record that was replaced, or null if the key was not present.
+     */
+    public LogLocation put(Object key, byte[] serializedKey, byte[] value, long expirationTime) {
+        int size = Segment.recordSize(serializedKey.length, value.length);
+        appendLock.lock();
+        try {
+            checkOpen();
+            Segment segment = segmentWithRoom(size);
+            int offset = segment.append(Segment.RECORD_PUT, serializedKey, value, expirationTime);
+            LogLocation location = new LogLocation(segment, offset, serializedKey.length, value.length, expirationTime);
+            segment.addLiveBytes(size);
+            totalBytes.addAndGet(size);
+            appendCount.incrementAndGet();
+            LogLocation old = index.put(key, location);
+            if (old != null) {
+                old.segment.addLiveBytes(-old.size());
+            }
+            return old;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the key, appending a tombstone so that the removal survives a restart.
+     *
+     * @return the location of the record that was removed, or null if the key was not present.
+     */
+    public LogLocation remove(Object key) {
+        appendLock.lock();
+        try {
+            checkOpen();
+            LogLocation old = index.get(key);
+            if (old == null) {
+                return null;
+            }
+            byte[] serializedKey = old.segment.readKey(old.offset, old.keyLength);
+            int size = Segment.recordSize(serializedKey.length, 0);
+            Segment segment = segmentWithRoom(size);
+            segment.append(Segment.RECORD_DELETE, serializedKey, null, 0);
+            totalBytes.addAndGet(size);
+            appendCount.incrementAndGet();
+            index.remove(key);
+            old.segment.addLiveBytes(-old.size());
+            return old;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the value of a key that is already present, reusing its serialized key.
+     *
+     * @return false if the key is not present.
+     */
+    public boolean replace(Object key, byte[] value, long expirationTime) {
+        appendLock.lock();
+        try {
+            checkOpen();
+            LogLocation old = index.get(key);
+            if (old == null) {
+                return false;
+            }
+            put(key, old.segment.readKey(old.offset, old.keyLength), value, expirationTime);
+            return true;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * @return a copy of the current value of the key, or null if the key is not present.
+     */
+    public byte[] get(Object key) {
+        LogLocation location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        return location.segment.readValue(location.offset, location.keyLength, location.valueLength);
+    }
+
+    public LogLocation getLocation(Object key) {
+        return index.get(key);
+    }
+
+    public byte[] readValue(LogLocation location) {
+        return location.segment.readValue(location.offset, location.keyLength, location.valueLength);
+    }
+
+    /**
+     * @return a copy of at most the first length bytes of the value at the location.
+     */
+    public byte[] readValuePrefix(LogLocation location, int length) {
+        return location.segment.readValue(location.offset, location.keyLength, Math.min(length, location.valueLength));
+    }
+
+    public boolean containsKey(Object key) {
+        return index.containsKey(key);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @return a weakly consistent view of the keys in the log.
+     */
+    public Set<Object> keySet() {
+        return index.keySet();
+    }
+
+    public Iterator<Map.Entry<Object, LogLocation>> entries() {
+        return index.entrySet().iterator();
+    }
+
+    /**
+     * Removes all keys and deletes every segment.
+     */
+    public void clear() throws IOException {
+        synchronized (snapshotLock) {
+            appendLock.lock();
+            try {
+                checkOpen();
+                index.clear();
+                discardAll();
+                activeSegment = newSegment(1, segmentSize);
+            } finally {
+                appendLock.unlock();
+            }
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Reclaims segments in which less than the given percentage of the bytes are still live.
+     * The live records are copied to the head of the log, a snapshot is written, and then the
+     * reclaimed segment files are deleted. The active segment is never reclaimed, and neither is
+     * any segment at or after the mark of the newest snapshot, which becomes the previous snapshot.
+     *
+     * @return the number of segments deleted.
+     */
+    public int compact(int minLivePercent) throws IOException {
+        final String methodName = "compact()";
+        synchronized (snapshotLock) {
+            if (closed) {
+                return 0;
+            }
+            Set<Segment> victims = new HashSet<Segment>();
+            for (Segment segment : segments.values()) {
+                if (segment != activeSegment && segment.getId() < snapshotMarkSegment && segment.getWritePosition() > 0
+                    && segment.getLiveBytes() * 100 < (long) segment.getWritePosition() * minLivePercent) {
+                    victims.add(segment);
+                }
+            }
+            if (victims.isEmpty()) {
+                return 0;
+            }
+            long moved = 0;
+            for (Map.Entry<Object, LogLocation> entry : index.entrySet()) {
+                LogLocation location = entry.getValue();
+                if (!victims.contains(location.segment)) {
+                    continue;
+                }
+                appendLock.lock();
+                try {
+                    // the key may have been rewritten or removed since the scan started
+                    if (closed || index.get(entry.getKey()) != location) {
+                        continue;
+                    }
+                    Segment from = location.segment;
+                    byte[] serializedKey = from.readKey(location.offset, location.keyLength);
+                    byte[] value = from.readValue(location.offset, location.keyLength, location.valueLength);
+                    put(entry.getKey(), serializedKey, value, location.expirationTime);
+                    moved += location.size();
+                } finally {
+                    appendLock.unlock();
+                }
+            }
+            // the snapshot and the directory are synced before any segment it no longer references is deleted
+            writeSnapshot();
+            for (Segment segment : victims) {
+                segments.remove(segment.getId());
+                totalBytes.addAndGet(-segment.getWritePosition());
+                if (!segment.delete() && tc.isDebugEnabled()) {
+                    Tr.debug(tc, methodName, "unable to delete " + segment);
+                }
+            }
+            compactionCount.incrementAndGet();
+            compactedSegments.addAndGet(victims.size());
+            relocatedBytes.addAndGet(moved);
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, methodName, "directory=" + directory + " reclaimed=" + victims.size() + " relocatedBytes=" + moved + " segments=" + segments.size());
+            return victims.size();
+        }
+    }
+
+    /**
+     * Forces all modified segments and persists the index with the current high-water mark.
+     * The snapshot being replaced is kept as the previous snapshot.
+     */
+    public void writeSnapshot() throws IOException {
+        synchronized (snapshotLock) {
+            List<Segment> segmentTable;
+            List<LogLocation> locations;
+            int markSegment;
+            int markOffset;
+            appendLock.lock();
+            try {
+                if (activeSegment == null) {
+                    return;
+                }
+                markSegment = activeSegment.getId();
+                markOffset = activeSegment.getWritePosition();
+                segmentTable = new ArrayList<Segment>(segments.values());
+                locations = new ArrayList<LogLocation>(index.values());
+            } finally {
+                appendLock.unlock();
+            }
+            for (Segment segment : segmentTable) {
+                segment.force();
+            }
+
+            File tmp = new File(directory, SNAPSHOT_FILENAME + ".tmp");
+            CRC32 crc = new CRC32();
+            FileOutputStream fos = new FileOutputStream(tmp);
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fos, 64 * 1024), crc));
+            try {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(markSegment);
+                out.writeInt(markOffset);
+                out.writeInt(segmentTable.size());
+                for (Segment segment : segmentTable) {
+                    out.writeInt(segment.getId());
+                    // the active segment may have grown since the mark was taken; it is replayed from the mark
+                    out.writeInt(segment.getId() == markSegment ? markOffset : segment.getWritePosition());
+                }
+                out.writeInt(locations.size());
+                for (LogLocation location : locations) {
+                    out.writeInt(location.segment.getId());
+                    out.writeInt(location.offset);
+                }
+                out.flush();
+                int checksum = (int) crc.getValue();
+                out.writeInt(checksum);
+                out.flush();
+                // the new snapshot must be on the device before it replaces the current one
+                fos.getFD().sync();
+            } finally {
+                out.close();
+            }
+            File snapshot = new File(directory, SNAPSHOT_FILENAME);
+            if (snapshot.exists()) {
+                move(snapshot, new File(directory, PREVIOUS_SNAPSHOT_FILENAME));
+            }
+            move(tmp, snapshot);
+            syncDirectory();
+            snapshotMarkSegment = markSegment;
+        }
+    }
+
+    private static void move(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Makes the renames of the snapshot files durable. Not every platform can open a directory;
+     * there the rename itself is relied on.
+     */
+    private void syncDirectory() {
+        final String methodName = "syncDirectory()";
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+            channel.force(true);
+        } catch (IOException e) {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, methodName, "unable to sync " + directory + " " + e);
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a final snapshot and releases all segments.
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            writeSnapshot();
+        } finally {
+            synchronized (snapshotLock) {
+                appendLock.lock();
+                try {
+                    closed = true;
+                    for (Segment segment : segments.values()) {
+                        segment.close();
+                    }
+                    segments.clear();
+                    index.clear();
+                    activeSegment = null;
+                } finally {
+                    appendLock.unlock();
+                }
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return the number of bytes written to segments that still exist, live or not.
+     */
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    /**
+     * @return the number of bytes of records that are referenced by the index.
+     */
+    public long getLiveBytes() {
+        long live = 0;
+        for (Segment segment : segments.values()) {
+            live += segment.getLiveBytes();
+        }
+        return live;
+    }
+
+    public long getAppendCount() {
+        return appendCount.get();
+    }
+
+    public long getCompactionCount() {
+        return compactionCount.get();
+    }
+
+    public long getCompactedSegments() {
+        return compactedSegments.get();
+    }
+
+    public long getRelocatedBytes() {
+        return relocatedBytes.get();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new SegmentLogException("Segment log " + directory + " is closed");
+        }
+    }
+
+    /**
+     * Returns the active segment, starting a new one if the record does not fit.
+     * Must be called while holding the append lock.
+     */
+    private Segment segmentWithRoom(int recordSize) {
+        if (activeSegment.hasRoom(recordSize)) {
+            return activeSegment;
+        }
+        try {
+            activeSegment.force();
+            // a record larger than the configured size gets a segment of its own
+            activeSegment = newSegment(activeSegment.getId() + 1, Math.max(segmentSize, recordSize + 4));
+        } catch (IOException e) {
+            throw new SegmentLogException("Unable to create a new segment in " + directory, e);
+        }
+        return activeSegment;
+    }
+
+    private Segment newSegment(int id, int capacity) throws IOException {
+        Segment segment = Segment.create(new File(directory, segmentFileName(id)), id, capacity);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void discardAll() {
+        for (Segment segment : segments.values()) {
+            segment.delete();
+        }
+        segments.clear();
+        totalBytes.set(0);
+        new File(directory, SNAPSHOT_FILENAME).delete();
+        new File(directory, PREVIOUS_SNAPSHOT_FILENAME).delete();
+    }
+
+    /**
+     * Clears the index and the segment positions left by a recovery attempt that failed.
+     */
+    private void resetRecovery() {
+        index.clear();
+        for (Segment segment : segments.values()) {
+            segment.setWritePosition(0);
+            segment.resetLiveBytes();
+        }
+    }
+
+    /**
+     * Loads an index snapshot and replays the records written after its high-water mark.
+     *
+     * @return false if the snapshot does not exist or is not valid.
+     */
+    private boolean loadSnapshot(File snapshot) {
+        final String methodName = "loadSnapshot()";
+        if (!snapshot.exists()) {
+            return false;
+        }
+        resetRecovery();
+        int markSegment;
+        int markOffset;
+        CRC32 crc = new CRC32();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(new FileInputStream(snapshot), 64 * 1024), crc));
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return false;
+            }
+            markSegment = in.readInt();
+            markOffset = in.readInt();
+            int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                int id = in.readInt();
+                int written = in.readInt();
+                Segment segment = segments.get(id);
+                if (segment != null) {
+                    segment.setWritePosition(written);
+                }
+            }
+            int count = in.readInt();
+            int[] segmentIds = new int[count];
+            int[] offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                segmentIds[i] = in.readInt();
+                offsets[i] = in.readInt();
+            }
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                Segment segment = segments.get(segmentIds[i]);
+                if (segment == null) {
+                    // the segment was reclaimed after this snapshot; the record was relocated into the tail
+                    continue;
+                }
+                Segment.Record record = segment.readRecord(offsets[i]);
+                if (record == null || record.type != Segment.RECORD_PUT) {
+                    return false;
+                }
+                applyPut(segment, record);
+            }
+        } catch (EOFException e) {
+            return false;
+        } catch (Exception e) {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, methodName, "unable to load " + snapshot + " " + e);
+            return false;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+
+        if (!replay(markSegment, markOffset)) {
+            return false;
+        }
+        snapshotMarkSegment = markSegment;
+        return true;
+    }
+
+    /**
+     * Rebuilds the index by replaying every segment. This is only valid while no segment has been
+     * reclaimed: compaction drops the tombstones of the segments it deletes, so replaying a log with
+     * gaps could bring back keys that were removed.
+     *
+     * @return false if segments have been reclaimed or cannot be replayed.
+     */
+    private boolean replayAll() {
+        final String methodName = "replayAll()";
+        if (segments.firstKey() != 1 || segments.lastKey() != segments.size()) {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, methodName, "segments of " + directory + " have been reclaimed, unable to replay " + segments.keySet());
+            return false;
+        }
+        resetRecovery();
+        return replay(1, 0);
+    }
+
+    /**
+     * Replays the records from the given position to the end of the log into the index.
+     */
+    private boolean replay(int fromSegment, int fromOffset) {
+        final String methodName = "replay()";
+        try {
+            for (Segment segment : segments.tailMap(fromSegment, true).values()) {
+                int position = segment.getId() == fromSegment ? fromOffset : 0;
+                Segment.Record record;
+                while ((record = readReplayRecord(segment, position)) != null) {
+                    if (record.type == Segment.RECORD_PUT) {
+                        applyPut(segment, record);
+                    } else {
+                        Object key = keyDeserializer.deserialize(segment.readKey(record.offset, record.keyLength));
+                        LogLocation old = index.remove(key);
+                        if (old != null) {
+                            old.segment.addLiveBytes(-old.size());
+                        }
+                    }
+                    position += record.size();
+                }
+                // anything after the last valid record is a torn write and will be overwritten
+                segment.setWritePosition(position);
+            }
+        } catch (Exception e) {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, methodName, "unable to replay " + directory + " " + e);
+            resetRecovery();
+            return false;
+        }
+        long total = 0;
+        for (Segment segment : segments.values()) {
+            total += segment.getWritePosition();
+        }
+        totalBytes.set(total);
+        return true;
+    }
+
+    /**
+     * A record whose lengths are corrupt ends the replay of its segment in the same way as a
+     * record with a bad checksum: both are what a write torn by a crash leaves behind.
+     */
+    private Segment.Record readReplayRecord(Segment segment, int position) {
+        final String methodName = "readReplayRecord()";
+        try {
+            return segment.readRecord(position);
+        } catch (IOException e) {
+            if (tc.isDebugEnabled())
+                Tr.debug(tc, methodName, e.getMessage());
+            return null;
+        }
+    }
+
+    private void applyPut(Segment segment, Segment.Record record) throws Exception {
+        Object key = keyDeserializer.deserialize(segment.readKey(record.offset, record.keyLength));
+        LogLocation location = new LogLocation(segment, record.offset, record.keyLength, record.valueLength, record.expirationTime);
+        segment.addLiveBytes(location.size());
+        LogLocation old = index.put(key, location);
+        if (old != null) {
+            old.segment.addLiveBytes(-old.size());
+        }
+    }
+
+    static String segmentFileName(int id) {
+        return SEGMENT_PREFIX + String.format("%08d", id) + SEGMENT_SUFFIX;
+    }
+
+    static int segmentId(String fileName) {
+        if (fileName.startsWith(SEGMENT_PREFIX) && fileName.endsWith(SEGMENT_SUFFIX)) {
+            try {
+                return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.cache.persistent.mmlog;
+
+/**
+ * Thrown to indicate that a segment log could not be read, written or recovered.
+ */
+public class SegmentLogException extends RuntimeException {
+
+    private static final long serialVersionUID = 4370216529848411513L;
+
+    public SegmentLogException(String message) {
+        super(message);
+    }
+
+    public SegmentLogException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
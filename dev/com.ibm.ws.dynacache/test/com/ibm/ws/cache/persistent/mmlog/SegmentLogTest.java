@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.cache.persistent.mmlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SegmentLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    private static final SegmentLog.KeyDeserializer KEYS = new SegmentLog.KeyDeserializer() {
+        @Override
+        public Object deserialize(byte[] key) throws Exception {
+            return new String(key, "UTF-8");
+        }
+    };
+
+    private File directory;
+    private SegmentLog log;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("SegmentLogTest", "");
+        Assert.assertTrue(directory.delete());
+        log = new SegmentLog(directory, SEGMENT_SIZE, KEYS);
+        Assert.assertFalse("a new log has nothing to recover", log.open());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (log != null && !log.isClosed()) {
+            log.close();
+        }
+        delete(directory);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static byte[] bytes(String s) throws Exception {
+        return s.getBytes("UTF-8");
+    }
+
+    private void put(String key, String value) throws Exception {
+        log.put(key, bytes(key), bytes(value), 0);
+    }
+
+    private String get(String key) throws Exception {
+        byte[] value = log.get(key);
+        return value == null ? null : new String(value, "UTF-8");
+    }
+
+    private SegmentLog reopen() throws Exception {
+        log = new SegmentLog(directory, SEGMENT_SIZE, KEYS);
+        return log;
+    }
+
+    /**
+     * Close the log without a final snapshot, as a crash would leave it.
+     */
+    private void crash() throws Exception {
+        // the mappings stay valid until they are collected, only the files need to be released
+        log = null;
+        System.gc();
+    }
+
+    private static String value(int i) {
+        StringBuilder sb = new StringBuilder("value-").append(i).append('-');
+        while (sb.length() < 200) {
+            sb.append('x');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testAppendAndRead() throws Exception {
+        put("a", "1");
+        put("b", "2");
+        put("a", "3");
+        Assert.assertEquals("3", get("a"));
+        Assert.assertEquals("2", get("b"));
+        Assert.assertNull(get("c"));
+        Assert.assertEquals(2, log.size());
+        Assert.assertEquals(3, log.getAppendCount());
+
+        Assert.assertNotNull(log.remove("b"));
+        Assert.assertNull(log.remove("b"));
+        Assert.assertNull(get("b"));
+        Assert.assertTrue(log.replace("a", bytes("4"), 0));
+        Assert.assertFalse(log.replace("b", bytes("5"), 0));
+        Assert.assertEquals("4", get("a"));
+        Assert.assertEquals(1, log.size());
+    }
+
+    @Test
+    public void testRolloverToNewSegments() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            put("key" + i, value(i));
+        }
+        Assert.assertTrue(log.getSegmentCount() > 1);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(value(i), get("key" + i));
+        }
+
+        // a record larger than a segment gets a segment of its own
+        StringBuilder large = new StringBuilder();
+        while (large.length() < 2 * SEGMENT_SIZE) {
+            large.append("large");
+        }
+        put("large", large.toString());
+        Assert.assertEquals(large.toString(), get("large"));
+    }
+
+    @Test
+    public void testSnapshotAndReload() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            put("key" + i, value(i));
+        }
+        for (int i = 0; i < 50; i += 2) {
+            log.remove("key" + i);
+        }
+        log.close();
+
+        Assert.assertTrue(reopen().open());
+        Assert.assertEquals(25, log.size());
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals(i % 2 == 0 ? null : value(i), get("key" + i));
+        }
+    }
+
+    @Test
+    public void testReplayTailAfterSnapshot() throws Exception {
+        put("before", "1");
+        log.writeSnapshot();
+        put("after", "2");
+        put("before", "3");
+        log.remove("after");
+        put("last", "4");
+        crash();
+
+        Assert.assertTrue(reopen().open());
+        Assert.assertEquals("3", get("before"));
+        Assert.assertNull(get("after"));
+        Assert.assertEquals("4", get("last"));
+    }
+
+    @Test
+    public void testTruncatedTail() throws Exception {
+        put("a", "1");
+        log.writeSnapshot();
+        put("b", "2");
+        put("c", "3");
+        LogLocation c = log.getLocation("c");
+        crash();
+
+        // tear the last record, as a crash in the middle of the write would
+        File segment = new File(directory, SegmentLog.segmentFileName(c.segmentId()));
+        RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+        try {
+            raf.seek(c.offset() + Segment.HEADER_SIZE);
+            raf.write(new byte[] { 'X' });
+        } finally {
+            raf.close();
+        }
+
+        Assert.assertTrue(reopen().open());
+        Assert.assertEquals("1", get("a"));
+        Assert.assertEquals("2", get("b"));
+        Assert.assertNull(get("c"));
+
+        // the torn record is overwritten by the next append
+        put("d", "4");
+        log.close();
+        Assert.assertTrue(reopen().open());
+        Assert.assertEquals("2", get("b"));
+        Assert.assertEquals("4", get("d"));
+    }
+
+    @Test
+    public void testCorruptRecordLengths() throws Exception {
+        put("a", "1");
+        log.writeSnapshot();
+        put("b", "2");
+        LogLocation b = log.getLocation("b");
+        crash();
+
+        // lengths which overflow an int when added must not pass the bounds check
+        File segment = new File(directory, SegmentLog.segmentFileName(b.segmentId()));
+        RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+        try {
+            raf.seek(b.offset() + 4);
+            raf.writeInt(Integer.MAX_VALUE);
+            raf.writeInt(Integer.MAX_VALUE);
+        } finally {
+            raf.close();
+        }
+
+        Segment opened = Segment.open(segment, b.segmentId());
+        try {
+            opened.readRecord(b.offset());
+            Assert.fail("expected the record to be reported as corrupt");
+        } catch (IOException e) {
+            // expected
+        } finally {
+            opened.close();
+        }
+
+        Assert.assertTrue(reopen().open());
+        Assert.assertEquals("1", get("a"));
+        Assert.assertNull(get("b"));
+    }
+
+    @Test
+    public void testCorruptSnapshotFallsBackToPreviousSnapshot() throws Exception {
+        put("a", "1");
+        log.writeSnapshot();
+        put("b", "2");
+        log.remove("a");
+        log.writeSnapshot();
+        put("c", "3");
+        crash();
+
+        truncate(new File(directory, SegmentLog.SNAPSHOT_FILENAME), 0);
+        Assert.assertTrue(new File(directory, SegmentLog.PREVIOUS_SNAPSHOT_FILENAME).exists());
+
+        Assert.assertTrue(reopen().open());
+        Assert.assertNull(get("a"));
+        Assert.assertEquals("2", get("b"));
+        Assert.assertEquals("3", get("c"));
+    }
+
+    @Test
+    public void testUnreadableSnapshotsReplayTheSegments() throws Exception {
+        put("a", "1");
+        put("b", "2");
+        log.remove("a");
+        log.writeSnapshot();
+        put("c", "3");
+        crash();
+
+        truncate(new File(directory, SegmentLog.SNAPSHOT_FILENAME), 7);
+        new File(directory, SegmentLog.PREVIOUS_SNAPSHOT_FILENAME).delete();
+
+        Assert.assertTrue(reopen().open());
+        Assert.assertNull(get("a"));
+        Assert.assertEquals("2", get("b"));
+        Assert.assertEquals("3", get("c"));
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            put("key" + i, value(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            if (i % 10 != 0) {
+                log.remove("key" + i);
+            }
+        }
+        // segments are only reclaimed once they are behind the mark of the previous snapshot
+        log.writeSnapshot();
+        int segmentsBefore = log.getSegmentCount();
+        long totalBefore = log.getTotalBytes();
+
+        int reclaimed = log.compact(50);
+        Assert.assertTrue(reclaimed > 0);
+        Assert.assertTrue(log.getSegmentCount() < segmentsBefore);
+        Assert.assertTrue(log.getTotalBytes() < totalBefore);
+        Assert.assertEquals(1, log.getCompactionCount());
+        Assert.assertTrue(log.getRelocatedBytes() > 0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i % 10 == 0 ? value(i) : null, get("key" + i));
+        }
+
+        log.close();
+        Assert.assertTrue(reopen().open());
+        Assert.assertEquals(10, log.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i % 10 == 0 ? value(i) : null, get("key" + i));
+        }
+    }
+
+    @Test
+    public void testCompactionSurvivesCorruptSnapshot() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            put("key" + i, value(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            if (i % 10 != 0) {
+                log.remove("key" + i);
+            }
+        }
+        log.writeSnapshot();
+        Assert.assertTrue(log.compact(50) > 0);
+        put("after", "1");
+        crash();
+
+        // the snapshot written by the compaction is lost; the previous one predates the compaction
+        truncate(new File(directory, SegmentLog.SNAPSHOT_FILENAME), 0);
+
+        Assert.assertTrue(reopen().open());
+        Assert.assertEquals(11, log.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i % 10 == 0 ? value(i) : null, get("key" + i));
+        }
+        Assert.assertEquals("1", get("after"));
+    }
+
+    @Test
+    public void testNoReplayAfterReclaimWithoutSnapshot() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            put("key" + i, value(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            if (i % 10 != 0) {
+                log.remove("key" + i);
+            }
+        }
+        log.writeSnapshot();
+        Assert.assertTrue(log.compact(50) > 0);
+        crash();
+
+        // with both snapshots lost a replay could bring back removed keys, so the log starts empty
+        new File(directory, SegmentLog.SNAPSHOT_FILENAME).delete();
+        new File(directory, SegmentLog.PREVIOUS_SNAPSHOT_FILENAME).delete();
+
+        Assert.assertFalse(reopen().open());
+        Assert.assertEquals(0, log.size());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            put("key" + i, value(i));
+        }
+        log.clear();
+        Assert.assertEquals(0, log.size());
+        Assert.assertEquals(1, log.getSegmentCount());
+        put("a", "1");
+        log.close();
+
+        Assert.assertTrue(reopen().open());
+        Assert.assertEquals(1, log.size());
+        Assert.assertEquals("1", get("a"));
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(length);
+        } finally {
+            raf.close();
+        }
+    }
+}
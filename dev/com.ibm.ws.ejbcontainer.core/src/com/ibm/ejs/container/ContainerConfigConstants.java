@@ -325,6 +325,19 @@ public class ContainerConfigConstants {
     // 391302
     public static final String passivationPolicy = "com.ibm.websphere.csi.passivationpolicy";
 
+    /**
+     * Property that allows the user to specify the compression level used when
+     * writing the state of a passivated stateful session bean. Lower levels
+     * use less CPU to passivate at the cost of larger passivation files.
+     * <B>Property values:</B>
+     * <ul>
+     * <li> -1 : default compression (default)
+     * <li> 0 : no compression
+     * <li> 1 through 9 : fastest through best compression
+     * </ul>
+     **/
+    public static final String passivationCompressionLevel = "com.ibm.websphere.ejbcontainer.passivationCompressionLevel";
+
     public static final String syncToOSThreadSetting = "com.ibm.websphere.security.SyncToOSThread"; // LI2775-107.2
 
     /**
@@ -44,6 +44,7 @@ import static com.ibm.ejs.container.ContainerConfigConstants.maxAsyncResultWaitT
 import static com.ibm.ejs.container.ContainerConfigConstants.maxUnclaimedAsyncResults;
 import static com.ibm.ejs.container.ContainerConfigConstants.noEJBPool;
 import static com.ibm.ejs.container.ContainerConfigConstants.noPrimaryKeyMutation;
+import static com.ibm.ejs.container.ContainerConfigConstants.passivationCompressionLevel;
 import static com.ibm.ejs.container.ContainerConfigConstants.passivationPolicy;
 import static com.ibm.ejs.container.ContainerConfigConstants.persistentTimerSingletonDeadlockTimeout;
 import static com.ibm.ejs.container.ContainerConfigConstants.poolSizeSpecProp;
@@ -406,6 +407,13 @@ public final class ContainerProperties
      **/
     public static final String PassivationPolicy;
 
+    /**
+     * Property that allows the user to specify the compression level used
+     * when passivating stateful session beans; -1 is the default level, which
+     * is also used for values outside -1 through 9.
+     **/
+    public static final int PassivationCompressionLevel;
+
     /**
      * Property that allows the user to specify the deadlock timeout for persistent
      * timers associated with singleton beans.
@@ -646,6 +654,8 @@ public final class ContainerProperties
 
         PassivationPolicy = System.getProperty(passivationPolicy);
 
+        PassivationCompressionLevel = Integer.getInteger(passivationCompressionLevel, -1);
+
         PersistentTimerSingletonDeadlockTimeout = Integer.getInteger(persistentTimerSingletonDeadlockTimeout, 10 * 1000);
 
         PoolSize = System.getProperty(poolSizeSpecProp);
@@ -775,6 +785,7 @@ public final class ContainerProperties
         writer.println("Property: NoEJBPool               = " + NoEJBPool);
         writer.println("Property: NoPrimaryKeyMutation    = " + NoPrimaryKeyMutation);
         writer.println("Property: PassivationPolicy       = " + PassivationPolicy);
+        writer.println("Property: PassivationCompressionLevel = " + PassivationCompressionLevel);
         writer.println("Property: PersistentTimerSingletonDeadlockTimeout = " + PersistentTimerSingletonDeadlockTimeout);
         writer.println("Property: PoolSize                = " + PoolSize);
         writer.println("Property: Portable                = " + Portable);
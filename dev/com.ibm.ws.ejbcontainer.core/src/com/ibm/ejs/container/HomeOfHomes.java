@@ -40,6 +40,7 @@ import com.ibm.ws.ejbcontainer.InternalConstants;
 import com.ibm.ws.ejbcontainer.diagnostics.IncidentStreamWriter;
 import com.ibm.ws.ejbcontainer.diagnostics.IntrospectionWriter;
 import com.ibm.ws.ejbcontainer.runtime.EJBRuntime;
+import com.ibm.ws.ejbcontainer.util.PoolImplBase;
 import com.ibm.ws.ffdc.FFDCFilter;
 import com.ibm.ws.ffdc.IncidentStream;
 
@@ -1471,10 +1472,17 @@ public final class HomeOfHomes implements HomeInternal
 
         writer.begin("homesByName keys : ");
         List<String> j2eeNameStrings = new ArrayList<String>(); // 619922.1
+        List<String> poolStatistics = new ArrayList<String>();
         for (Enumeration<HomeRecord> en = homesByName.elements(); en.hasMoreElements();)
         {
             HomeRecord hr = en.nextElement();
             j2eeNameStrings.add(hr.getJ2EEName().toString());
+
+            HomeInternal home = hr.homeInternal; // volatile
+            if (home instanceof EJSHome && ((EJSHome) home).beanPool instanceof PoolImplBase)
+            {
+                poolStatistics.add(hr.getJ2EEName() + " : " + ((PoolImplBase) ((EJSHome) home).beanPool).getStatistics());
+            }
         }
 
         Collections.sort(j2eeNameStrings);
@@ -1484,6 +1492,14 @@ public final class HomeOfHomes implements HomeInternal
         }
         writer.end();
 
+        writer.begin("bean pools : ");
+        Collections.sort(poolStatistics);
+        for (String poolStatistic : poolStatistics)
+        {
+            writer.println(poolStatistic);
+        }
+        writer.end();
+
         if (ivVersionedModuleNames.size() > 0)
         {
             writer.begin("versioned module names : ");
@@ -30,11 +30,13 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import com.ibm.ejs.container.BeanId;
 import com.ibm.ejs.container.BeanMetaData;
+import com.ibm.ejs.container.ContainerProperties;
 import com.ibm.ejs.container.EJSContainer;
 import com.ibm.ejs.container.StatefulBeanO;
 import com.ibm.ejs.container.passivator.EJBObjectInfo.FieldInfo;
@@ -124,6 +126,7 @@ public abstract class StatefulPassivator
         // LI2775-107.2 Ends
 
         ObjectOutputStream beanStream2 = null; // d430549.11
+        OutputStream fileStream = null;
 
         // Get the JPAExPcBindingContext for this SFSB.
         Object exPC = beanO.getJPAExPcBindingContext(); //d468174
@@ -136,63 +139,26 @@ public abstract class StatefulPassivator
             // whether SFSB failover is enabled or not.  However, to
             // ensure no impact to existing performance when not enabled,
             // we chose to not factor into a common implementation.
-            ByteArrayOutputStream baos = null;
             long lastAccessTime = beanO.getLastAccessTime();
+            boolean failoverEnabled = beanO.sfsbFailoverEnabled();
+            byte[] bytes;
 
-            //PK69093 - Only allow one stream to be open for writing at one time.
-            synchronized (ivPassivateLock)
+            // Serialize and compress the bean state in memory before obtaining
+            // the passivate lock, so that only the write to the bean store is
+            // serialized with other passivations, not the serialization itself.
+            if (failoverEnabled && getEJBModuleVersion(beanO) < BeanMetaData.J2EE_EJB_VERSION_3_0)
             {
-                if (beanO.sfsbFailoverEnabled())
-                {
-                    // For failover, initially write to a ByteArrayOutputStream. This will later be converted to
-                    // bytes and then persisted
-
-                    if (isTraceOn && tc.isDebugEnabled())
-                        Tr.debug(tc, "failover is enabled");
-
-                    // If the EJB module is 3.0 or greater, use the new format, which is later
-                    if (getEJBModuleVersion(beanO) >= BeanMetaData.J2EE_EJB_VERSION_3_0)
-                    {
-                        // Set up the bean stream to initially write to a ByteArrayOutputStream
-                        baos = new ByteArrayOutputStream(1024);
-                        beanStream = createPassivationOutputStream(new GZIPOutputStream(baos));
-                    }
-                    else
-                    {
-                        // pre-3.0 module - Use old format since we may be in a mixed cluster environment
-                        if (isTraceOn && tc.isDebugEnabled())
-                            Tr.debug(tc, "processing EJB 2.1 module or prior");
-
-                        // Serialize and compress the data in SFSB.
-                        byte[] bytes = getCompressedBytes(sb, lastAccessTime, exPC);
-
-                        // Get a file outstream that does not compress the data
-                        // since we already have the data compressed.
-                        OutputStream ostream = ivBeanStore.getOutputStream(bid);
-                        beanStream = createPassivationOutputStream(ostream);
-
-                        // Write length of compressed data.
-                        beanStream.writeInt(bytes.length);
-                        if (isTraceOn && tc.isDebugEnabled())
-                            Tr.debug(tc, "length of compressed bytes is: " + bytes.length);
-
-                        // Write compressed data to file.
-                        beanStream.write(bytes);
-                        beanStream.close();
-
-                        // Replicate compressed data to failover servers by calling
-                        // the method that updates the failover cache entry for this SFSB.
-                        beanO.updateFailoverEntry(bytes, lastAccessTime);
+                // pre-3.0 module - Use old format since we may be in a mixed cluster environment
+                if (isTraceOn && tc.isDebugEnabled())
+                    Tr.debug(tc, "processing EJB 2.1 module or prior");
 
-                        return;
-                    }
-                }
-                else // failover not enabled - setup the beanStream
-                {
-                    if (isTraceOn && tc.isDebugEnabled())
-                        Tr.debug(tc, "failover is NOT enabled");
-                    beanStream = createPassivationOutputStream(ivBeanStore.getGZIPOutputStream(bid));
-                }
+                // Serialize and compress the data in SFSB.
+                bytes = getCompressedBytes(sb, lastAccessTime, exPC);
+            }
+            else
+            {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+                beanStream = createPassivationOutputStream(createGZIPOutputStream(baos));
 
                 // Passivate sb in the 3.0 format
                 EJBObjectInfo objectInfo = null;
@@ -249,22 +215,50 @@ public abstract class StatefulPassivator
                 }
 
                 beanStream.close();
+                bytes = baos.toByteArray();
+            }
 
-                // If failover is enabled, now convert to a byte array and persist it
-                if (beanO.sfsbFailoverEnabled() && baos != null) //d468174
+            //PK69093 - Only allow one stream to be open for writing at one time.
+            synchronized (ivPassivateLock)
+            {
+                if (failoverEnabled)
                 {
-                    byte[] bytes = baos.toByteArray();
+                    if (isTraceOn && tc.isDebugEnabled())
+                        Tr.debug(tc, "failover is enabled");
+
+                    // Get a file outstream that does not compress the data
+                    // since we already have the data compressed.
                     beanStream2 = createPassivationOutputStream(ivBeanStore.getOutputStream(bid));
+
+                    // Write length of compressed data.
                     beanStream2.writeInt(bytes.length);
+                    if (isTraceOn && tc.isDebugEnabled())
+                        Tr.debug(tc, "length of compressed bytes is: " + bytes.length);
+
+                    // Write compressed data to file.
                     beanStream2.write(bytes);
                     beanStream2.close();
+                }
+                else
+                {
+                    if (isTraceOn && tc.isDebugEnabled())
+                        Tr.debug(tc, "failover is NOT enabled");
 
-                    // Replicate compressed data to failover cache servers by calling
-                    // the method that updates the failover cache entry for this SFSB.
-                    beanO.updateFailoverEntry(bytes, lastAccessTime);
+                    // The data is already in the GZIP format that getGZIPOutputStream
+                    // would have written, so write it without compressing it again.
+                    fileStream = ivBeanStore.getOutputStream(bid);
+                    fileStream.write(bytes);
+                    fileStream.close();
                 }
-                // LIDB2018-1 ends
             }
+
+            if (failoverEnabled)
+            {
+                // Replicate compressed data to failover cache servers by calling
+                // the method that updates the failover cache entry for this SFSB.
+                beanO.updateFailoverEntry(bytes, lastAccessTime);
+            }
+            // LIDB2018-1 ends
         } catch (CSIException ex)
         {
             exceptionCaught = true; //155114
@@ -296,6 +290,21 @@ public abstract class StatefulPassivator
                     if (beanStream != null)
                     {
                         beanStream.close();
+                    }
+
+                    // Only remove the file if it was opened for writing.
+                    if (fileStream != null || beanStream2 != null)
+                    {
+                        if (fileStream != null)
+                        {
+                            fileStream.close();
+                        }
+
+                        if (beanStream2 != null) // d430549.11
+                        {
+                            beanStream2.close();
+                        }
+
                         // PK69093 - beanStore.remove will access a file, as such lets synch this call
                         // such that only one file can be open for remove at a time.
                         synchronized (ivRemoveLock)
@@ -303,11 +312,6 @@ public abstract class StatefulPassivator
                             ivBeanStore.remove(bid);
                         }
                     }
-
-                    if (beanStream2 != null) // d430549.11
-                    {
-                        beanStream2.close();
-                    }
                 } catch (Exception ex)
                 {
                     if (isTraceOn && tc.isDebugEnabled())
@@ -345,9 +349,14 @@ public abstract class StatefulPassivator
         // LI2775-107.2 Ends
 
         ObjectInputStream beanStream = null;
-        GZIPInputStream istream = null;
+        InputStream istream = null;
         try
         {
+            // Read the compressed data under the activate lock, but decompress
+            // and deserialize it after the lock has been released, so that only
+            // the read of the bean store is serialized with other activations.
+            byte[] data = null;
+
             //PK69093 - Only allow one stream to be open for reading at one time
             synchronized (ivActivateLock)
             {
@@ -358,8 +367,16 @@ public abstract class StatefulPassivator
                     if (isTraceOn && tc.isDebugEnabled())
                         Tr.debug(tc, "Failover is NOT enabled");
 
-                    istream = ivBeanStore.getGZIPInputStream(bid);
-                    beanStream = createActivationInputStream(istream, beanO, classLoader);
+                    // The file holds the GZIP data written by passivate, so read
+                    // it without decompressing it.
+                    InputStream fis = ivBeanStore.getInputStream(bid);
+                    try
+                    {
+                        data = readFully(fis);
+                    } finally
+                    {
+                        fis.close();
+                    }
                 }
                 else
                 {
@@ -369,7 +386,6 @@ public abstract class StatefulPassivator
                     // SFSB failover is enabled.  Determine whether to
                     // get compressed data from passivation file or
                     // from failover cache.
-                    byte[] data = null;
                     if (ivStatefulFailoverCache.beanExists(bid))
                     {
                         if (isTraceOn && tc.isDebugEnabled())
@@ -420,110 +436,109 @@ public abstract class StatefulPassivator
 
                         beanStream2.close();
                     }
-
-                    // create an input stream for decompressing the SFSB data.
-                    ByteArrayInputStream bais = new ByteArrayInputStream(data);
-                    istream = new GZIPInputStream(bais);
-                    beanStream = createActivationInputStream(istream, beanO, classLoader);
                 }
+            }
 
-                // If failover was enabled and the EJB module is pre-3.0, the old format is used
-                boolean oldFormat = beanO.sfsbFailoverEnabled() && (getEJBModuleVersion(beanO) < BeanMetaData.J2EE_EJB_VERSION_3_0);
+            // create an input stream for decompressing the SFSB data.
+            istream = new GZIPInputStream(new ByteArrayInputStream(data));
+            beanStream = createActivationInputStream(istream, beanO, classLoader);
 
-                //  d204278.2 begin
-                // First read in last access time from input stream
-                // and set it in the StatefulBeanO.
-                long lastAccessTime = beanStream.readLong();
-                if (isTraceOn && tc.isDebugEnabled())
-                    Tr.debug(tc, "read from data last access time: " + lastAccessTime);
-                beanO.setLastAccessTime(lastAccessTime);
-                // d204278.2 end
-
-                // Read the JPAExPcBindingContext.
-                // TODO: ejbteam - Since we are very late in the EJB3 FP cycle I will not
-                // make this change now, but we really should only be passivating and
-                // activating this value when this EJB has ContainerManaged Extended
-                // Persistence Context.    When this change is made we will need to
-                // change this method, but also the passivate method and StatefulBeanO.remove().
-                // It can also be removed from the logic for activating and passivating
-                // 2.0 and 2.1 SFSB's since they will not have an extendedPC
-                // An incomplete change will result in NPE's in certain circumstances.  //d477342
-                Object exPC = beanStream.readObject();
-                beanO.setJPAExPcBindingContext(exPC);
-
-                Map<String, Map<String, Field>> passivatorFields = null;
-                if (oldFormat)
+            // If failover was enabled and the EJB module is pre-3.0, the old format is used
+            boolean oldFormat = beanO.sfsbFailoverEnabled() && (getEJBModuleVersion(beanO) < BeanMetaData.J2EE_EJB_VERSION_3_0);
+
+            //  d204278.2 begin
+            // First read in last access time from input stream
+            // and set it in the StatefulBeanO.
+            long lastAccessTime = beanStream.readLong();
+            if (isTraceOn && tc.isDebugEnabled())
+                Tr.debug(tc, "read from data last access time: " + lastAccessTime);
+            beanO.setLastAccessTime(lastAccessTime);
+            // d204278.2 end
+
+            // Read the JPAExPcBindingContext.
+            // TODO: ejbteam - Since we are very late in the EJB3 FP cycle I will not
+            // make this change now, but we really should only be passivating and
+            // activating this value when this EJB has ContainerManaged Extended
+            // Persistence Context.    When this change is made we will need to
+            // change this method, but also the passivate method and StatefulBeanO.remove().
+            // It can also be removed from the logic for activating and passivating
+            // 2.0 and 2.1 SFSB's since they will not have an extendedPC
+            // An incomplete change will result in NPE's in certain circumstances.  //d477342
+            Object exPC = beanStream.readObject();
+            beanO.setJPAExPcBindingContext(exPC);
+
+            Map<String, Map<String, Field>> passivatorFields = null;
+            if (oldFormat)
+            {
+                // Now read SFSB data from the input stream and close
+                // the input stream.
+                sb = beanStream.readObject(); // d367572.7
+                ejbState = null;
+            }
+            else
+            {
+                EJBObjectInfo sbObjectInfo = (EJBObjectInfo) beanStream.readObject();
+                passivatorFields = getPassivatorFields(bmd); // d648122
+
+                if (sbObjectInfo.isSerializable())
                 {
-                    // Now read SFSB data from the input stream and close
-                    // the input stream.
-                    sb = beanStream.readObject(); // d367572.7
-                    ejbState = null;
+                    sb = sbObjectInfo.getSerializableObject();
                 }
                 else
                 {
-                    EJBObjectInfo sbObjectInfo = (EJBObjectInfo) beanStream.readObject();
-                    passivatorFields = getPassivatorFields(bmd); // d648122
+                    sb = activateObjectFromInfo(sbObjectInfo, bmd.enterpriseBeanClass, passivatorFields); // d648122
+                }
 
-                    if (sbObjectInfo.isSerializable())
-                    {
-                        sb = sbObjectInfo.getSerializableObject();
-                    }
-                    else
-                    {
-                        sb = activateObjectFromInfo(sbObjectInfo, bmd.enterpriseBeanClass, passivatorFields); // d648122
-                    }
+                ejbState = readManagedObjectContext(beanStream, bmd, sb); // F87720
 
-                    ejbState = readManagedObjectContext(beanStream, bmd, sb); // F87720
+                int expectedNumInterceptors = 0;
+                if (bmd.ivInterceptorMetaData != null && bmd.ivInterceptorMetaData.ivInterceptorClasses != null)
+                {
+                    expectedNumInterceptors = bmd.ivInterceptorMetaData.ivInterceptorClasses.length;
+                }
 
-                    int expectedNumInterceptors = 0;
-                    if (bmd.ivInterceptorMetaData != null && bmd.ivInterceptorMetaData.ivInterceptorClasses != null)
-                    {
-                        expectedNumInterceptors = bmd.ivInterceptorMetaData.ivInterceptorClasses.length;
-                    }
+                // Handle interceptors
+                int n = beanStream.readInt();
+                if (isTraceOn && tc.isDebugEnabled())
+                    Tr.debug(tc, "number of interceptors is " + n);
 
-                    // Handle interceptors
-                    int n = beanStream.readInt();
-                    if (isTraceOn && tc.isDebugEnabled())
-                        Tr.debug(tc, "number of interceptors is " + n);
+                if (n == -1)
+                {
+                    n = 0;
+                }
 
-                    if (n == -1)
-                    {
-                        n = 0;
-                    }
+                if (n != expectedNumInterceptors) // RTC97224
+                {
+                    throw new RemoteException("interceptor count " + n +
+                                              " in serialization data does not match actual count " + expectedNumInterceptors);
+                }
 
-                    if (n != expectedNumInterceptors) // RTC97224
-                    {
-                        throw new RemoteException("interceptor count " + n +
-                                                  " in serialization data does not match actual count " + expectedNumInterceptors);
-                    }
+                if (n != 0)
+                {
+                    Class<?>[] interceptorClasses = bmd.ivInterceptorMetaData.ivInterceptorClasses;
+                    Object[] interceptors = new Object[n];
 
-                    if (n != 0)
+                    for (int i = 0; i < n; i++)
                     {
-                        Class<?>[] interceptorClasses = bmd.ivInterceptorMetaData.ivInterceptorClasses;
-                        Object[] interceptors = new Object[n];
-
-                        for (int i = 0; i < n; i++)
+                        EJBObjectInfo interceptorObjectInfo = (EJBObjectInfo) beanStream.readObject();
+                        if (interceptorObjectInfo.isSerializable())
                         {
-                            EJBObjectInfo interceptorObjectInfo = (EJBObjectInfo) beanStream.readObject();
-                            if (interceptorObjectInfo.isSerializable())
-                            {
-                                interceptors[i] = interceptorObjectInfo.getSerializableObject();
-                            }
-                            else
-                            {
-                                interceptors[i] = activateObjectFromInfo(interceptorObjectInfo, interceptorClasses[i], passivatorFields); // d648122
-                            }
-
+                            interceptors[i] = interceptorObjectInfo.getSerializableObject();
+                        }
+                        else
+                        {
+                            interceptors[i] = activateObjectFromInfo(interceptorObjectInfo, interceptorClasses[i], passivatorFields); // d648122
                         }
-                        beanO.setInterceptors(interceptors);
-                    }
 
-                    beanO.setLastAccessTime(lastAccessTime);
+                    }
+                    beanO.setInterceptors(interceptors);
                 }
 
-                beanStream.close();
+                beanO.setLastAccessTime(lastAccessTime);
             }
 
+            beanStream.close();
+
             beanO.setEnterpriseBean(sb, ejbState);
 
             // PK69093 - beanStore.remove will access a file, as such lets synch this call
@@ -673,6 +688,51 @@ public abstract class StatefulPassivator
                     throws IOException,
                     ClassNotFoundException;
 
+    /**
+     * Creates a GZIP stream that compresses at the level specified by the
+     * passivationCompressionLevel container property.
+     */
+    private static GZIPOutputStream createGZIPOutputStream(OutputStream os) throws IOException
+    {
+        return createGZIPOutputStream(os, ContainerProperties.PassivationCompressionLevel);
+    }
+
+    /**
+     * Creates a GZIP stream that compresses at the specified level, or at the
+     * default level if the level is not valid. The data is in the GZIP format
+     * regardless of the level, so it is read the same way.
+     */
+    static GZIPOutputStream createGZIPOutputStream(OutputStream os, final int level) throws IOException
+    {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+        {
+            if (level != Deflater.DEFAULT_COMPRESSION && TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+                Tr.debug(tc, "using default compression for invalid level " + level);
+            return new GZIPOutputStream(os);
+        }
+
+        return new GZIPOutputStream(os)
+        {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    /**
+     * Reads the remaining data of a stream into a byte array.
+     */
+    private static byte[] readFully(InputStream is) throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(4096);
+        byte[] buffer = new byte[4096];
+        for (int bytesRead; (bytesRead = is.read(buffer)) != -1;)
+        {
+            baos.write(buffer, 0, bytesRead);
+        }
+        return baos.toByteArray();
+    }
+
     /**
      * ZIPs the state data in a SFSB and returns as a byte array.
      *
@@ -694,7 +754,7 @@ public abstract class StatefulPassivator
 
         // Serialize SessionBean to a byte[].
         ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-        GZIPOutputStream gout = new GZIPOutputStream(baos);
+        GZIPOutputStream gout = createGZIPOutputStream(baos);
         ObjectOutputStream beanStream2 = createPassivationOutputStream(gout);
 
         if (isTraceOn && tc.isDebugEnabled()) //d204278.2
@@ -462,7 +462,10 @@ public class FileBeanStore
             {
                 public FileInputStream run() throws IOException
                 {
-                    return new FileInputStream(new File(passivationDir, fileName));
+                    // Find the file in the same way as getGZIPInputStream, since
+                    // the GZIP data of a bean is also read by this method.
+                    File statefulBeanFile = getStatefulBeanFile(fileName, true);
+                    return new FileInputStream(statefulBeanFile);
                 }
             });
         } catch (PrivilegedActionException ex)
@@ -138,6 +138,21 @@ implements EvictionStrategy,
     /** Cached enumeration. Will be reset for each sweep. **/
     private final CacheElementEnumerator ivElements; // d103404.2
 
+    /**
+     * Bucket at which the next sweep resumes, or -1 if the previous sweep
+     * walked the whole cache, and the next sweep starts at a random bucket.
+     * A sweep stops once the cache is below the soft limit, so resuming
+     * where it stopped spreads eviction over the whole cache, like the hand
+     * of a clock, rather than examining the same buckets again.
+     **/
+    private int ivResumeBucketIndex = -1;
+
+    // Sweep statistics, for introspection. Only updated by the sweep.
+    private long ivNumSweepsPerformed;
+    private long ivNumElementsSwept;
+    private long ivNumEvicted;
+    private long ivSweepNanos;
+
     /** Minimum value allowed for {@link #ivSweepInterval} : 1000 ms (1 second). **/
     private static final long MINIMUM_SWEEP_INTERVAL = 1000;
 
@@ -561,16 +576,26 @@ implements EvictionStrategy,
                                      " - Cache limit exceeded : " + ivCache.getSize() +
                                      "/" + ivPreferredMaxSize);
 
-        int numEvicted = 0, numEvictedBelowSoftLimit = 0;
-        long sweepCount = 0; // d112258
+        int numEvicted = 0, numEvictedBelowSoftLimit = 0, numSwept = 0;
+        int resumeBucketIndex = -1;
+        long sweepStart = System.nanoTime();
 
         try
         {
-            while (ivElements.hasMoreElements() &&
-                   (numEvictedBelowSoftLimit < ivSoftLimitBuffer ||
-                   preferredSizeReached()))
+            while (ivElements.hasMoreElements())
             {
+                if (numEvictedBelowSoftLimit >= ivSoftLimitBuffer &&
+                    !preferredSizeReached())
+                {
+                    // Enough has been evicted; the next sweep starts again
+                    // with the bucket being enumerated now.
+                    int numBuckets = ivCache.getNumBuckets();
+                    resumeBucketIndex = (ivElements.getBucketIndex() + numBuckets - 1) % numBuckets;
+                    break;
+                }
+
                 Element element = ivElements.nextElement();
+                numSwept++;
 
                 // Basic operations on basic types are atomic, and we
                 // don't care about out-of-sync reads, so we don't
@@ -618,13 +643,22 @@ implements EvictionStrategy,
             return;
         } finally { //PM11713
 
+            ivNumSweepsPerformed++;
+            ivNumElementsSwept += numSwept;
+            ivNumEvicted += numEvicted;
+            ivSweepNanos += System.nanoTime() - sweepStart;
+
             // Reset the cached enumaration, so it is just like new.  This is
             // done for performance, so a new enumeration doesn't have to be
             // created (and discarded) every sweep.                          d103404.2
             // Note: performing the reset AFTER the sweep insures that the
             // cached enumerator does not hold any resources while not in
             // use (such as a copy of one of the cache buckets).               d310114 
-            ivElements.reset();
+            ivResumeBucketIndex = resumeBucketIndex;
+            if (resumeBucketIndex < 0)
+                ivElements.reset();
+            else
+                ivElements.reset(resumeBucketIndex);
         }
 
         if (isTraceOn && isTraceEnabled(false))
@@ -673,6 +707,19 @@ implements EvictionStrategy,
         return sweepCount > ivDiscardThreshold;
     }
 
+    /**
+     * Returns the sweep statistics, for introspection. <p>
+     **/
+    public String getSweepStatistics()
+    {
+        return "sweeps = " + ivNumSweepsPerformed +
+               ", elements swept = " + ivNumElementsSwept +
+               ", evicted = " + ivNumEvicted +
+               ", sweep time (ms) = " + (ivSweepNanos / 1000000) +
+               ", discard threshold = " + ivDiscardThreshold +
+               ", resume bucket = " + ivResumeBucketIndex;
+    }
+
     /**
      * Cancel the Scheduled Future object
      */
@@ -11,6 +11,8 @@
 package com.ibm.ejs.util.cache;
 
 import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.ibm.ejs.container.util.locking.LockTable; // PK04804
 import com.ibm.ejs.util.MathUtil;
@@ -37,7 +39,8 @@ import com.ibm.ws.util.cache.DiscardWithLockStrategy; // PK04804
  * locking to increase concurrency. The number of buckets in the hash
  * table can be configured at the time a <code>Cache</code> object is
  * constructed. The number of buckets does not change once the
- * cache has been created. <p>
+ * cache has been created. No lock on the cache as a whole is taken;
+ * the object count and eviction statistics are atomic counters. <p>
  * 
  * Objects in the cache may be "pinned", preventing them from being
  * evicted from the cache. Objects should be pinned whenever in use,
@@ -142,7 +145,7 @@ public final class Cache implements EJBCache {
     @Override
     public final int getSize()
     {
-        return numObjects;
+        return numObjects.get();
     }
 
     /**
@@ -464,10 +467,7 @@ public final class Cache implements EJBCache {
         }
 
         if (object != null) {
-            synchronized (this) {
-                // ACK! This is going to be a choke point
-                numObjects++;
-            }
+            numObjects.incrementAndGet();
         }
 
         if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
@@ -516,10 +516,7 @@ public final class Cache implements EJBCache {
             }
 
             if (object != null) {
-                synchronized (this) {
-                    // ACK! This is going to be a choke point
-                    numObjects--;
-                }
+                numObjects.decrementAndGet();
             }
         }
 
@@ -566,11 +563,7 @@ public final class Cache implements EJBCache {
             bucket.removeByKey(element.key, dropRef);
         }
 
-        synchronized (this)
-        {
-            // ACK! This is going to be a choke point
-            numObjects--;
-        }
+        numObjects.decrementAndGet();
 
         if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
             Tr.exit(tc, "remove", element.object);
@@ -641,10 +634,7 @@ public final class Cache implements EJBCache {
         } finally {
 
             if (object != null) {
-                synchronized (this) {
-                    // ACK! This is going to be a choke point
-                    numObjects--;
-                }
+                numObjects.decrementAndGet();
             }
         }
 
@@ -686,10 +676,7 @@ public final class Cache implements EJBCache {
                 element.pinned++;
             }
 
-            synchronized (this) {
-                //ACK! This is going to be a choke point
-                numObjects++;
-            }
+            numObjects.incrementAndGet();
 
             return element;
 
@@ -736,11 +723,7 @@ public final class Cache implements EJBCache {
                 element.accessedSweep = numSweeps;
             }
 
-            synchronized (this)
-            {
-                //ACK! This is going to be a choke point
-                numObjects++;
-            }
+            numObjects.incrementAndGet();
 
             return element;
 
@@ -1079,9 +1062,7 @@ public final class Cache implements EJBCache {
         Bucket bucket = getOrCreateBucketForKey(key);
         Element element = null;
 
-        synchronized (this) {
-            numEvictionAttempts++;
-        }
+        numEvictionAttempts.incrementAndGet();
 
         try
         {
@@ -1104,14 +1085,16 @@ public final class Cache implements EJBCache {
 
                     if (element != null)
                     {
-                        synchronized (this) {
-                            numObjects--;
-                            numEvictions++;
-                        }
+                        numObjects.decrementAndGet();
+                        numEvictions.incrementAndGet();
+                        ivTotalEvictions.incrementAndGet();
 
                         // Inform the DiscardStrategy that we just
-                        // evicted an oject
+                        // evicted an oject.  For the bean cache this
+                        // passivates the bean, so also keep track of how
+                        // long the bucket lock is held while discarding.
                         if (discardStrategy != null) {
+                            long discardStart = System.nanoTime();
                             try {
                                 discardStrategy.discardObject(this, element.key,
                                                               element.object);
@@ -1120,7 +1103,10 @@ public final class Cache implements EJBCache {
                                                             "863", this);
                                 Tr.warning(tc, "EXCEPTION_THROWN_BY_DISCARD_STRATEGY_CNTR0054W"
                                            , new Object[] { element, ex }); //p111002.4
+                                ivDiscardFailures.incrementAndGet();
                                 element = null;
+                            } finally {
+                                ivDiscardNanos.addAndGet(System.nanoTime() - discardStart);
                             }
                         }
                     }
@@ -1142,6 +1128,14 @@ public final class Cache implements EJBCache {
         return element != null;
     }
 
+    /**
+     * Returns the number of objects evicted since the cache was created. <p>
+     **/
+    public long getTotalEvictions()
+    {
+        return ivTotalEvictions.get();
+    }
+
     /**
      * Dump the internal state of an object to the trace stream. <p>
      * 
@@ -1172,13 +1166,16 @@ public final class Cache implements EJBCache {
         writer.begin("Cache : " + this);
         writer.println("Name of Cache: " + this.ivName);
         writer.println("Number of buckets: " + this.numBuckets);
-        synchronized (this)
+        writer.println("Number of objects currently in cache: " + numObjects);
+        writer.println("Number of evictions attempted (since last dump): " + numEvictionAttempts.getAndSet(0));
+        writer.println("Number of evictions (since last dump): " + numEvictions.getAndSet(0));
+        writer.println("Total number of evictions: " + ivTotalEvictions);
+        writer.println("Total number of failed discards: " + ivDiscardFailures);
+        writer.println("Total time discarding evicted objects (ms): " + (ivDiscardNanos.get() / 1000000));
+        EvictionStrategy strategy = evictionStrategy;
+        if (strategy instanceof BackgroundLruEvictionStrategy)
         {
-            writer.println("Number of objects currently in cache: " + numObjects);
-            writer.println("Number of evictions attempted (since last dump): " + numEvictionAttempts);
-            writer.println("Number of evictions (since last dump): " + numEvictions);
-            numEvictionAttempts = 0;
-            numEvictions = 0;
+            writer.println("Eviction sweeps: " + ((BackgroundLruEvictionStrategy) strategy).getSweepStatistics());
         }
         writer.end();
     }
@@ -1254,11 +1251,23 @@ public final class Cache implements EJBCache {
     protected final int numBuckets;
 
     /** Number of objects currently held in the cache. **/
-    protected int numObjects = 0;
+    protected final AtomicInteger numObjects = new AtomicInteger();
 
     // Eviction statistics (93859)
-    private int numEvictionAttempts = 0;
-    private int numEvictions = 0;
+    private final AtomicInteger numEvictionAttempts = new AtomicInteger();
+    private final AtomicInteger numEvictions = new AtomicInteger();
+
+    /** Number of objects evicted since the cache was created. **/
+    private final AtomicLong ivTotalEvictions = new AtomicLong();
+
+    /** Number of evicted objects for which the DiscardStrategy failed. **/
+    private final AtomicLong ivDiscardFailures = new AtomicLong();
+
+    /**
+     * Time spent in the DiscardStrategy for evicted objects, in nanoseconds.
+     * For the bean cache, this is the time spent passivating beans.
+     **/
+    private final AtomicLong ivDiscardNanos = new AtomicLong();
 
     /**
      * Number of sweeps made over the Cache for evicting objects.
@@ -148,13 +148,29 @@ final class CacheElementEnumerator
      **/
     void reset()
     {
-        final boolean isTraceOn = TraceComponent.isAnyTracingEnabled();
-        if (isTraceOn && tc.isEntryEnabled())
-            Tr.entry(tc, "reset");
         // Pick a random bucket to start with so that the
         // EvictionStrategy doesn't play favorites.
         Random random = new Random();
-        ivBucketIndex = random.nextInt(ivCache.getNumBuckets());
+        reset(random.nextInt(ivCache.getNumBuckets()));
+    }
+
+    /**
+     * Resets the enumerator back to a new state, like {@link #reset()}, but
+     * positions the enumerator so that the first bucket enumerated is the
+     * one following the specified bucket. <p>
+     *
+     * This allows an eviction strategy to sweep the {@link Cache} a part at
+     * a time, resuming each sweep where the previous one stopped. <p>
+     *
+     * @param bucketIndex index of the bucket to be enumerated last.
+     **/
+    void reset(int bucketIndex)
+    {
+        final boolean isTraceOn = TraceComponent.isAnyTracingEnabled();
+        if (isTraceOn && tc.isEntryEnabled())
+            Tr.entry(tc, "reset");
+
+        ivBucketIndex = bucketIndex;
 
         if (isTraceOn && tc.isDebugEnabled())
         {
@@ -171,7 +187,7 @@ final class CacheElementEnumerator
                         ", max = " + ivMaxBucketSize + ")";
             }
 
-            Tr.debug(tc, "reset : " + ivCache.getName() + " = " + ivCache.numObjects +
+            Tr.debug(tc, "reset : " + ivCache.getName() + " = " + ivCache.getSize() +
                          ", index = " + ivBucketIndex + "/" + ivCache.getNumBuckets() +
                          stats);
 
@@ -211,6 +227,14 @@ final class CacheElementEnumerator
         }
     }
 
+    /**
+     * Returns the index of the bucket currently being enumerated. <p>
+     **/
+    int getBucketIndex()
+    {
+        return ivBucketIndex;
+    }
+
     //
     // Enumeration interface
     //
@@ -374,7 +374,7 @@ implements EvictionStrategy,
 
     public boolean preferredSizeReached()
     {
-        return ivCache.numObjects >= ivPreferredMaxSize;
+        return ivCache.getSize() >= ivPreferredMaxSize;
     }
 
     /**
@@ -505,7 +505,7 @@ implements EvictionStrategy,
                     {
                         ivNumBelowSoftLimit = 0;
 
-                        if (ivCache.numObjects > ivUpperLimit)
+                        if (ivCache.getSize() > ivUpperLimit)
                         {
                             // First, try sweeping more frequently, and then if
                             // that doesn't work, reduce the discard threshold.    d231690
@@ -62,6 +62,22 @@ public abstract class PoolImplBase implements Pool {
     // F73236
     abstract void disable();
 
+    /**
+     * Returns the number of times an instance was retrieved from this pool.
+     */
+    public abstract long getHitCount();
+
+    /**
+     * Returns the number of times this pool was found empty, so that the
+     * caller had to create a new instance.
+     */
+    public abstract long getMissCount();
+
+    /**
+     * Returns the size and usage statistics of this pool, for diagnostics.
+     */
+    public abstract String getStatistics();
+
     /**
      * Destroy this object pool and discard all the objects in it.
      */
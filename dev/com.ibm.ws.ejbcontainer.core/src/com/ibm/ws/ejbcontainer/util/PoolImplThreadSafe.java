@@ -10,6 +10,8 @@
  *******************************************************************************/
 package com.ibm.ws.ejbcontainer.util;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.ibm.websphere.ras.Tr;
 import com.ibm.websphere.ras.TraceComponent;
 import com.ibm.ws.ejbcontainer.EJBPMICollaborator;
@@ -93,6 +95,15 @@ public final class PoolImplThreadSafe extends PoolImplBase {
      */
     private final EJBPMICollaborator beanPerf;
 
+    /**
+     * Usage statistics, kept whether or not PMI is enabled. A miss is a get
+     * which found the pool empty, so the caller created a new instance.
+     */
+    private final AtomicLong ivHits = new AtomicLong();
+    private final AtomicLong ivMisses = new AtomicLong();
+    private final AtomicLong ivDiscards = new AtomicLong();
+    private final AtomicLong ivDrained = new AtomicLong();
+
     /**
      * <code>Pool</code> instances can only be allocated by the
      * <code>PoolManager</code>.
@@ -150,6 +161,12 @@ public final class PoolImplThreadSafe extends PoolImplBase {
     public final Object get() {
         Object o = buffer.pop();
 
+        if (o != null) {
+            ivHits.incrementAndGet();
+        } else {
+            ivMisses.incrementAndGet();
+        }
+
         if (beanPerf != null) { // Update PMI data
             beanPerf.objectRetrieve(buffer.size(), (o != null));
         }
@@ -193,6 +210,7 @@ public final class PoolImplThreadSafe extends PoolImplBase {
         discarded = !buffer.pushWithLimit(o, poolSize.maxSize);
 
         if (discarded) {
+            ivDiscards.incrementAndGet();
             if (discardStrategy != null) {
                 discardStrategy.discard(o);
             }
@@ -271,6 +289,8 @@ public final class PoolImplThreadSafe extends PoolImplBase {
                 break;
         }
 
+        ivDrained.addAndGet(numDiscarded);
+
         if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
             Tr.debug(tc, "drainToSize: numDiscarded=" + numDiscarded + ", inactive=" + ivInactiveNoDrainCount + ", " + this);
 
@@ -287,11 +307,12 @@ public final class PoolImplThreadSafe extends PoolImplBase {
     @Override
     final void completeDrain() {
         Object o = null;
-        int numDiscarded = buffer.size();
+        int numDiscarded = 0;
         LockFreeIndexedStack.StackNode<Object> oldTop = buffer.clean();
 
         while (oldTop != null) {
             o = oldTop.getValue();
+            ++numDiscarded;
 
             if (discardStrategy != null) {
                 discardStrategy.discard(o);
@@ -300,6 +321,8 @@ public final class PoolImplThreadSafe extends PoolImplBase {
             oldTop = oldTop.getNext();
         }
 
+        ivDrained.addAndGet(numDiscarded);
+
         if (beanPerf != null) { // Update PMI data
             beanPerf.poolDrained(0, numDiscarded);
         }
@@ -332,4 +355,24 @@ public final class PoolImplThreadSafe extends PoolImplBase {
         }
     }
 
+    @Override
+    public long getHitCount()
+    {
+        return ivHits.get();
+    }
+
+    @Override
+    public long getMissCount()
+    {
+        return ivMisses.get();
+    }
+
+    @Override
+    public String getStatistics()
+    {
+        SizeData size = poolSize;
+        return "size=" + buffer.size() + ", min=" + size.minSize + ", max=" + size.maxSize +
+               ", hits=" + ivHits + ", misses=" + ivMisses + ", discards=" + ivDiscards + ", drained=" + ivDrained;
+    }
+
 } // PoolImplThreadSafe
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ejs.container.passivator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Verifies that stateful session bean state compressed at each
+ * passivationCompressionLevel is read back by the GZIP stream used to
+ * activate the bean.
+ */
+public class StatefulPassivatorCompressionTest
+{
+    private static List<String> createState()
+    {
+        List<String> state = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++)
+        {
+            state.add("conversational state " + i);
+        }
+        return state;
+    }
+
+    private static byte[] passivate(Object state, int level) throws Exception
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        GZIPOutputStream gout = StatefulPassivator.createGZIPOutputStream(baos, level);
+        ObjectOutputStream oos = new ObjectOutputStream(gout);
+        oos.writeLong(1234);
+        oos.writeObject(state);
+        oos.close();
+        return baos.toByteArray();
+    }
+
+    private static Object activate(byte[] data) throws Exception
+    {
+        ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(data)));
+        try
+        {
+            Assert.assertEquals(1234, ois.readLong());
+            return ois.readObject();
+        } finally
+        {
+            ois.close();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        List<String> state = createState();
+        for (int level = -1; level <= 9; level++)
+        {
+            Assert.assertEquals("level " + level, state, activate(passivate(state, level)));
+        }
+    }
+
+    /**
+     * Verifies that level 0 stores the data without compressing it, but still
+     * in the GZIP format.
+     */
+    @Test
+    public void testNoCompression() throws Exception
+    {
+        List<String> state = createState();
+        byte[] stored = passivate(state, 0);
+        byte[] compressed = passivate(state, -1);
+
+        Assert.assertTrue(stored.length + " <= " + compressed.length, stored.length > compressed.length);
+        Assert.assertEquals(state, activate(stored));
+    }
+
+    /**
+     * Verifies that levels outside -1 through 9 use the default level.
+     */
+    @Test
+    public void testInvalidLevel() throws Exception
+    {
+        List<String> state = createState();
+        byte[] compressed = passivate(state, -1);
+
+        for (int level : new int[] { -2, 10, Integer.MAX_VALUE })
+        {
+            byte[] data = passivate(state, level);
+            Assert.assertTrue("level " + level, Arrays.equals(compressed, data));
+            Assert.assertEquals("level " + level, state, activate(data));
+        }
+    }
+}
@@ -11,6 +11,8 @@
 package com.ibm.ejs.util.cache;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import junit.framework.Assert;
 import junit.framework.AssertionFailedError;
@@ -39,6 +41,98 @@ public class CacheTest
         }
     }
 
+    /**
+     * Verifies the object count is kept exactly when many threads insert
+     * and remove objects at once.
+     */
+    @Test
+    public void testSizeWithConcurrentInsertAndRemove()
+                    throws Exception
+    {
+        final int NUM_THREADS = 8;
+        final int NUM_VALUES = 2000;
+        final Cache cache = new Cache("cache", 64, false);
+        final CountDownLatch testLatch = new CountDownLatch(1);
+        final Throwable[] results = new Throwable[NUM_THREADS];
+
+        Thread[] threads = new Thread[NUM_THREADS];
+        for (int i = 0; i < NUM_THREADS; i++)
+        {
+            final int offset = i * NUM_VALUES;
+            final int index = i;
+            threads[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        testLatch.await();
+                        for (int value = offset; value < offset + NUM_VALUES; value++)
+                        {
+                            cache.insertUnpinned(value, value);
+                        }
+                        for (int value = offset; value < offset + NUM_VALUES; value += 2)
+                        {
+                            Assert.assertEquals(value, cache.remove(value, false));
+                        }
+                    } catch (Throwable t)
+                    {
+                        results[index] = t;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        testLatch.countDown();
+        for (int i = 0; i < NUM_THREADS; i++)
+        {
+            threads[i].join();
+            fail(results[i]);
+        }
+
+        Assert.assertEquals(NUM_THREADS * NUM_VALUES / 2, cache.getSize());
+    }
+
+    /**
+     * Verifies a sweep evicts unpinned objects which have aged, stops once
+     * the cache is below its preferred size, and counts the evictions.
+     */
+    @Test
+    public void testEvictionStatistics()
+                    throws Exception
+    {
+        final int NUM_VALUES = 100;
+        final int PREFERRED_SIZE = 10;
+
+        Cache cache = new Cache("cache", 16, false);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        BackgroundLruEvictionStrategy evictor = new BackgroundLruEvictionStrategy(cache, PREFERRED_SIZE, 1000, executor, executor);
+        cache.setEvictionStrategy(evictor);
+
+        try
+        {
+            for (int value = 0; value < NUM_VALUES; value++)
+            {
+                cache.insertUnpinned(value, value);
+            }
+            cache.pin(0);
+
+            // Age everything in the cache past the discard threshold.
+            cache.numSweeps += 1000;
+            evictor.run();
+        } finally
+        {
+            evictor.cancel();
+            executor.shutdownNow();
+        }
+
+        Assert.assertTrue("size = " + cache.getSize(), cache.getSize() < PREFERRED_SIZE);
+        Assert.assertTrue("pinned object was evicted", cache.contains(0));
+        Assert.assertEquals(NUM_VALUES - cache.getSize(), cache.getTotalEvictions());
+    }
+
     @Test
     @Ignore
     public void testInsertAndRemove()
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.ejbcontainer.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PoolImplThreadSafeTest
+{
+    private ScheduledExecutorService executor;
+    private PoolManagerImpl poolManager;
+    private final List<Object> discarded = new ArrayList<Object>();
+
+    private final PoolDiscardStrategy discardStrategy = new PoolDiscardStrategy()
+    {
+        @Override
+        public void discard(Object o)
+        {
+            synchronized (discarded)
+            {
+                discarded.add(o);
+            }
+        }
+    };
+
+    @Before
+    public void setUp()
+    {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        poolManager = new PoolManagerImpl();
+        poolManager.setScheduledExecutorService(executor);
+        poolManager.setDrainInterval(Long.MAX_VALUE / 2);
+    }
+
+    @After
+    public void tearDown()
+    {
+        poolManager.cancel();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Verifies hits and misses are counted, and instances returned to a full
+     * pool are discarded.
+     */
+    @Test
+    public void testStatistics()
+    {
+        PoolImplBase pool = (PoolImplBase) poolManager.create(0, 2, null, discardStrategy);
+
+        Assert.assertNull(pool.get());
+        pool.put("a");
+        pool.put("b");
+        pool.put("c");
+        Assert.assertEquals(1, discarded.size());
+        Assert.assertEquals("c", discarded.get(0));
+
+        Assert.assertNotNull(pool.get());
+        Assert.assertNotNull(pool.get());
+        Assert.assertNull(pool.get());
+
+        Assert.assertEquals(2, pool.getHitCount());
+        Assert.assertEquals(2, pool.getMissCount());
+
+        pool.put("d");
+        pool.destroy();
+        Assert.assertEquals(2, discarded.size());
+        Assert.assertTrue(pool.getStatistics(), pool.getStatistics().contains("drained=1"));
+    }
+
+    /**
+     * Verifies concurrent gets and puts neither lose nor duplicate instances,
+     * and never hold more than the maximum.
+     */
+    @Test
+    public void testConcurrentGetPut() throws Exception
+    {
+        final int max = 8;
+        final int threads = 8;
+        final int iterations = 10000;
+        final PoolImplBase pool = (PoolImplBase) poolManager.create(0, max, null, discardStrategy);
+        final AtomicInteger created = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(threads);
+        final List<Throwable> failures = new ArrayList<Throwable>();
+
+        for (int i = 0; i < threads; i++)
+        {
+            new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for (int j = 0; j < iterations; j++)
+                        {
+                            Object o = pool.get();
+                            if (o == null)
+                            {
+                                o = new Object();
+                                created.incrementAndGet();
+                            }
+                            pool.put(o);
+                        }
+                    } catch (Throwable t)
+                    {
+                        synchronized (failures)
+                        {
+                            failures.add(t);
+                        }
+                    } finally
+                    {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        done.await();
+        Assert.assertEquals(failures.toString(), 0, failures.size());
+        Assert.assertEquals((long) threads * iterations, pool.getHitCount() + pool.getMissCount());
+        Assert.assertEquals(created.get(), pool.getMissCount());
+
+        int pooled = 0;
+        while (pool.get() != null)
+        {
+            pooled++;
+        }
+        Assert.assertTrue("pooled=" + pooled, pooled <= max);
+        Assert.assertEquals(created.get(), pooled + discarded.size());
+    }
+}
@@ -336,25 +336,85 @@ public final class FreePool implements JCAPMIHelper {
         /*
          * Return mcWrapper to free pool
          */
+        if (pm.waiterCount == 0) {
+            /*
+             * Fast path, no requests are waiting. Only this free pool's lock is needed, so releases
+             * no longer serialize with every other release and waiter check of the pool manager on
+             * the waiterFreePoolLock.
+             *
+             * A request can start waiting between the check above and the add below. It increments
+             * waiterCount before its last look at the free pools (see createOrWaitForConnection),
+             * so either it finds this connection or we see its waiterCount below and hand the
+             * connection to it.
+             */
+            synchronized (freeConnectionLockObject) {
+                mcWrapperList.add(mcWrapper); // Add to end of list
+                mcWrapper.setPoolState(1);
+            }
+            ((com.ibm.ejs.j2c.MCWrapper) mcWrapper).setAlreadyBeingReleased(false);
+            if (pm.waiterCount > 0) {
+                moveToWaiterList(mcWrapper);
+            }
+        } else {
+            synchronized (pm.waiterFreePoolLock) {
+                // waiter code
+                if ((pm.waiterCount > 0) && (pm.waiterCount > pm.mcWrapperWaiterList.size())) {
+                    // there are requests waiting, so notify one of them
+                    pm.mcWrapperWaiterList.add(mcWrapper);
+                    mcWrapper.setPoolState(4);
+                    pm.waiterFreePoolLock.notify();
+                } else {
+                    synchronized (freeConnectionLockObject) {
+                        mcWrapperList.add(mcWrapper); // Add to end of list
+                        mcWrapper.setPoolState(1);
+                    }
+                }
+                ((com.ibm.ejs.j2c.MCWrapper) mcWrapper).setAlreadyBeingReleased(false);
+            } // end synchronized (freeLockObject)
+        }
+
+        if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
+            Tr.exit(this, tc, "returnToFreePoolDelegated");
+        }
+    }
+
+    /**
+     * A request started waiting while the mcWrapper was returned on the fast path. Move the
+     * mcWrapper to the waiter list, unless another request already took it from the free pool.
+     */
+    private void moveToWaiterList(MCWrapper mcWrapper) {
         synchronized (pm.waiterFreePoolLock) {
-            // waiter code
             if ((pm.waiterCount > 0) && (pm.waiterCount > pm.mcWrapperWaiterList.size())) {
-                // there are requests waiting, so notify one of them
-                pm.mcWrapperWaiterList.add(mcWrapper);
-                mcWrapper.setPoolState(4);
-                pm.waiterFreePoolLock.notify();
-            } else {
+                boolean inFreePool;
                 synchronized (freeConnectionLockObject) {
-                    mcWrapperList.add(mcWrapper); // Add to end of list
-                    mcWrapper.setPoolState(1);
+                    inFreePool = mcWrapperList.remove(mcWrapper);
+                }
+                if (inFreePool) {
+                    if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                        Tr.debug(this, tc, "Moving mcWrapper to the waiter list " + mcWrapper);
+                    }
+                    pm.mcWrapperWaiterList.add(mcWrapper);
+                    mcWrapper.setPoolState(4);
+                    pm.waiterFreePoolLock.notify();
                 }
             }
-            ((com.ibm.ejs.j2c.MCWrapper) mcWrapper).setAlreadyBeingReleased(false);
-        } // end synchronized (freeLockObject)
+        }
+    }
 
-        if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) {
-            Tr.exit(this, tc, "returnToFreePoolDelegated");
+    /**
+     * Called by a request that just incremented the waiterCount, before it waits. A connection
+     * returned on the fast path of returnToFreePoolDelegated after this request looked at the free
+     * pools is either visible here or will be moved to the waiter list by the releasing thread.
+     */
+    private boolean isConnectionInAnyFreePool(int maxFreePoolHashSize) {
+        for (int j = 0; j < maxFreePoolHashSize; ++j) {
+            synchronized (pm.freePool[j].freeConnectionLockObject) {
+                if (pm.freePool[j].mcWrapperList.size() > 0) {
+                    return true;
+                }
+            }
         }
+        return false;
     }
 
     /**
@@ -778,9 +838,14 @@ public final class FreePool implements JCAPMIHelper {
                          * Before we synchronized on the pm.waiterFreePoolLock a connection could have
                          * been returned to the free pool.
                          *
-                         * We need to check for this connection before we queue this thread. While we have
-                         * the pm.waiterFreePoolLock, no connection will be return to any free pool. So,
-                         * all we need to do is quickly look at the number of connection in each free pool
+                         * We need to check for this connection before we queue this thread. Holding the
+                         * pm.waiterFreePoolLock does not stop connections from being returned: while
+                         * waiterCount is zero, returnToFreePoolDelegated adds them to the free pool under
+                         * only the free pool lock. So this look at the free pools can miss a connection
+                         * returned right after it. That is handled below, after waiterCount is incremented:
+                         * the free pools are checked again before waiting, and a release that completes
+                         * after that check sees the incremented waiterCount and moves its connection to
+                         * the mcWrapperWaiterList (see moveToWaiterList).
                          */
                         MCWrapper mcWrapperTemp = null;
                         for (int j = 0; j < maxFreePoolHashSize; ++j) {
@@ -916,6 +981,13 @@ public final class FreePool implements JCAPMIHelper {
                                          "waitStartTime is zero.  waiterCount incremented to " + pm.waiterCount);
                             }
 
+                            // The waiterCount must be incremented before this check for the handoff above to work.
+                            if (isConnectionInAnyFreePool(maxFreePoolHashSize)) {
+                                // A connection was returned without the waiterFreePoolLock, look again instead of waiting.
+                                pm.waiterCount--;
+                                continue;
+                            }
+
                             // get the wait start time
                             waitStartTime = System.currentTimeMillis();
                             // call to wait
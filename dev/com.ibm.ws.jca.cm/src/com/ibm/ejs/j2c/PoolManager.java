@@ -99,7 +99,11 @@ public final class PoolManager implements Runnable, PropertyChangeListener, Veto
     protected final AtomicInteger totalConnectionCount = new AtomicInteger(0);
     protected final Integer poolManagerBalancePoolLock = new Integer(0);
     protected final Integer waiterFreePoolLock = new Integer(0);
-    protected int waiterCount = 0;
+    /*
+     * Only updated while holding waiterFreePoolLock. Volatile so that FreePool.returnToFreePoolDelegated
+     * can return a connection without the waiterFreePoolLock when there are no waiters.
+     */
+    protected volatile int waiterCount = 0;
     protected boolean allowConnectionRequests = true;
     private boolean connectionPoolShutDown = false;
     protected final Integer poolManagerTestConnectionLock = new Integer(0);
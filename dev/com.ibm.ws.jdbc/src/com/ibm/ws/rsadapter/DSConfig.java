@@ -51,6 +51,7 @@ public class DSConfig implements FFDCSelfIntrospectable {
                     QUERY_TIMEOUT = "queryTimeout",
                     RECOVERY_AUTH_DATA_REF = "recoveryAuthDataRef",
                     STATEMENT_CACHE_SIZE = "statementCacheSize",
+                    STATEMENT_CACHE_WARMUP = "statementCacheWarmup",
                     SUPPLEMENTAL_JDBC_TRACE = "supplementalJDBCTrace",
                     SYNC_QUERY_TIMEOUT_WITH_TRAN_TIMEOUT = "syncQueryTimeoutWithTransactionTimeout",
                     TYPE = "type",
@@ -74,6 +75,7 @@ public class DSConfig implements FFDCSelfIntrospectable {
                                                                QUERY_TIMEOUT,
                                                                RECOVERY_AUTH_DATA_REF,
                                                                STATEMENT_CACHE_SIZE,
+                                                               STATEMENT_CACHE_WARMUP,
                                                                SUPPLEMENTAL_JDBC_TRACE,
                                                                SYNC_QUERY_TIMEOUT_WITH_TRAN_TIMEOUT,
                                                                DataSourceDef.transactional.name(),
@@ -171,6 +173,13 @@ public class DSConfig implements FFDCSelfIntrospectable {
      */
     public final int statementCacheSize;
 
+    /**
+     * Number of the data source's most frequently used statements to prepare on each new connection.
+     * A value greater than 0 also enables data source wide statement usage tracking, which the statement
+     * cache uses to choose which statements to discard. Default value is 0 (disabled).
+     */
+    public final int statementCacheWarmup;
+
     /**
      * Whether or not supplemental JDBC tracing should be enabled
      */
@@ -248,6 +257,7 @@ public class DSConfig implements FFDCSelfIntrospectable {
         onConnect = remove(ON_CONNECT, (String[]) null);
         queryTimeout = remove(QUERY_TIMEOUT, (Integer) null, 0, TimeUnit.SECONDS);
         statementCacheSize = remove(STATEMENT_CACHE_SIZE, mcf.isUCP ? 0 : 10, 0, null);
+        statementCacheWarmup = remove(STATEMENT_CACHE_WARMUP, 0, 0, null);
         supplementalJDBCTrace = remove(SUPPLEMENTAL_JDBC_TRACE, (Boolean) null);
         syncQueryTimeoutWithTransactionTimeout = remove(SYNC_QUERY_TIMEOUT_WITH_TRAN_TIMEOUT, false);
         transactional = remove(DataSourceDef.transactional.name(), true);
@@ -299,6 +309,7 @@ public class DSConfig implements FFDCSelfIntrospectable {
                                                ENABLE_CONNECTION_CASTING, enableConnectionCasting,
                                                QUERY_TIMEOUT, queryTimeout,
                                                STATEMENT_CACHE_SIZE, statementCacheSize,
+                                               STATEMENT_CACHE_WARMUP, statementCacheWarmup,
                                                SUPPLEMENTAL_JDBC_TRACE, supplementalJDBCTrace,
                                                SYNC_QUERY_TIMEOUT_WITH_TRAN_TIMEOUT, syncQueryTimeoutWithTransactionTimeout,
                                                DataSourceDef.transactional.name(), transactional
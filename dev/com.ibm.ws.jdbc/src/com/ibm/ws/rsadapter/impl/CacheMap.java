@@ -28,6 +28,8 @@ import java.util.LinkedList;
  * performed, an entry from the bucket least recently used is discarded.</li>
  * <li>The hash function is simply the hash code modulus the maximum number of entries.</li>
  * <li>Methods are NOT synchronized. (add, remove, removeAll)</li>
+ * <li>If a StatementCacheManager is provided and enabled, the entry discarded from a bucket is
+ * the one least frequently used across the data source.</li>
  * </ul>
  */
 public class CacheMap {
@@ -69,6 +71,9 @@ public class CacheMap {
     /** Index of the bucket with its "previous" pointing to the MRU bucket. */
     private final int AFTER_MRU;
 
+    /** Data source wide statement usage frequencies. Null if not used. */
+    private final StatementCacheManager frequencies;
+
     /**
      * Create a new CacheMap with a maximum number of entries. When the CacheMap grows beyond
      * the maximum number of entries, an entry from the least recently used bucket is
@@ -77,7 +82,21 @@ public class CacheMap {
      * @param maxSize the maximum number of entries which may be stored in the CacheMap.
      */
     public CacheMap(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Create a new CacheMap with a maximum number of entries. When the CacheMap grows beyond
+     * the maximum number of entries, the least frequently used entry of the least recently used
+     * bucket is discarded.
+     * 
+     * @param maxSize the maximum number of entries which may be stored in the CacheMap.
+     * @param frequencies data source wide usage frequencies of the keys. Null to discard an
+     *            arbitrary entry of the least recently used bucket.
+     */
+    public CacheMap(int maxSize, StatementCacheManager frequencies) {
         maxEntries = maxSize;
+        this.frequencies = frequencies;
 
         // The "next" and "previous" lists reserve the index after the last bucket index for
         // the pointer to the LRU bucket and the following index for the pointer to the MRU
@@ -124,9 +143,13 @@ public class CacheMap {
 
         // Discard an entry from the bucket if it's already at the maximum bucket size.
 
-        Object discardedObject = bucketSize == maxBucketSize ?
-                        discardFromBucket(bucketIndex, --bucketSize) :
-                        null; 
+        Object discardedObject = null;
+        if (bucketSize == maxBucketSize) {
+            --bucketSize;
+            if (frequencies != null && frequencies.isEnabled())
+                swapEntries(bucketIndex, leastFrequentlyUsed(bucketIndex, maxBucketSize), bucketSize);
+            discardedObject = discardFromBucket(bucketIndex, bucketSize);
+        }
 
         // Add the new entry.  We might temporarily exceed the maximum entry limit by 1.  In
         // that case we will end up removing an entry before returning.
@@ -198,6 +221,48 @@ public class CacheMap {
         return values[bucketIndex][entryIndex];
     }
 
+    /**
+     * Find the entry of a bucket which is least frequently used across the data source.
+     * 
+     * @param bucketIndex the index of the bucket.
+     * @param bucketSize the number of entries in the bucket.
+     * 
+     * @return the index of the entry within the bucket.
+     */
+    private int leastFrequentlyUsed(int bucketIndex, int bucketSize) {
+        Object[] bucketKeys = keys[bucketIndex];
+        int index = 0;
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < bucketSize; i++) {
+            int f = frequencies.getFrequency(bucketKeys[i]);
+            if (f < min) {
+                min = f;
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Swap two entries within a bucket.
+     * 
+     * @param bucketIndex the index of the bucket.
+     * @param i the index of an entry within the bucket.
+     * @param j the index of another entry within the bucket.
+     */
+    private void swapEntries(int bucketIndex, int i, int j) {
+        if (i != j) {
+            Object[] bucketKeys = keys[bucketIndex];
+            Object[] bucketValues = values[bucketIndex];
+            Object k = bucketKeys[i];
+            bucketKeys[i] = bucketKeys[j];
+            bucketKeys[j] = k;
+            Object v = bucketValues[i];
+            bucketValues[i] = bucketValues[j];
+            bucketValues[j] = v;
+        }
+    }
+
     /**
      * Creates and returns a String representing this CacheMap in a readable format. This
      * method is provided only for tracing and error reporting purposes. It is unsynchronized
@@ -354,9 +419,13 @@ public class CacheMap {
         numEntries--;
 
         // Choose an entry in the LRU bucket to remove.  The numDiscards counter is used to
-        // reduce the chance of always choosing the same index.
+        // reduce the chance of always choosing the same index, unless we know which entry
+        // is least frequently used.
 
-        int indexToRemove = (numDiscards++ & Integer.MAX_VALUE) % (bucketSize + 1);
+        int indexToRemove = frequencies != null && frequencies.isEnabled() ?
+                        leastFrequentlyUsed(bucketIndex, bucketSize + 1) :
+                        (numDiscards & Integer.MAX_VALUE) % (bucketSize + 1);
+        numDiscards++;
 
         Object value = bucketValues[indexToRemove];
 
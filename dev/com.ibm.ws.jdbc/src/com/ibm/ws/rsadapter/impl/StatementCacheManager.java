@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.rsadapter.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.rsadapter.AdapterUtil;
+
+/**
+ * <p>Data source wide view of statement cache usage, shared by all managed connections of a
+ * managed connection factory. Statements cannot be shared between physical connections, so each
+ * connection keeps its own CacheMap, but the usage counts kept here let every connection make
+ * the same decisions,</p>
+ *
+ * <ul>
+ * <li>When a CacheMap needs room, it discards the statement least frequently used across the
+ * data source instead of an arbitrary statement from the least recently used bucket.</li>
+ * <li>A new connection prepares the data source's most frequently used statements on first use,
+ * so that it does not start with an empty cache.</li>
+ * <li>Hit, miss, prepare time and execute time are recorded per statement.</li>
+ * </ul>
+ *
+ * <p>Enabled by the statementCacheWarmup data source property. Counters are updated without
+ * locking. Frequencies are halved periodically so that statements which are no longer used age
+ * out.</p>
+ */
+public class StatementCacheManager {
+    private static final TraceComponent tc = Tr.register(StatementCacheManager.class, AdapterUtil.TRACE_GROUP, AdapterUtil.NLS_FILE);
+
+    /** Upper limit on the number of distinct statements for which usage is tracked. */
+    static final int MAX_TRACKED_STATEMENTS = 2000;
+
+    /** Frequencies are halved after this many statement uses per tracked statement. */
+    private static final int AGING_FACTOR = 10;
+
+    /** The managed connection factory of the data source. */
+    private final WSManagedConnectionFactoryImpl mcf;
+
+    /** Usage statistics per statement. */
+    private final ConcurrentHashMap<StatementCacheKey, Stats> statistics = new ConcurrentHashMap<StatementCacheKey, Stats>();
+
+    /** Number of statement uses since the frequencies were last halved. */
+    private final AtomicLong usesSinceAging = new AtomicLong();
+
+    /** Number of times the frequencies were halved. */
+    private final AtomicLong agingCount = new AtomicLong();
+
+    /** Number of statements prepared on new connections before they were requested. */
+    private final AtomicLong warmedUpStatements = new AtomicLong();
+
+    /**
+     * Usage statistics for a single statement. Times are in nanoseconds.
+     */
+    public static final class Stats {
+        final AtomicInteger frequency = new AtomicInteger();
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong prepareCount = new AtomicLong();
+        final AtomicLong prepareTime = new AtomicLong();
+        final AtomicLong executeCount = new AtomicLong();
+        final AtomicLong executeTime = new AtomicLong();
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        public long getPrepareCount() {
+            return prepareCount.get();
+        }
+
+        public long getPrepareTime() {
+            return prepareTime.get();
+        }
+
+        public long getExecuteCount() {
+            return executeCount.get();
+        }
+
+        public long getExecuteTime() {
+            return executeTime.get();
+        }
+
+        @Override
+        public String toString() {
+            long prepares = prepareCount.get();
+            long executes = executeCount.get();
+            return new StringBuilder()
+                            .append("frequency=").append(frequency.get())
+                            .append(" hits=").append(hits.get())
+                            .append(" misses=").append(misses.get())
+                            .append(" prepares=").append(prepares)
+                            .append(" avgPrepareMicros=").append(prepares == 0 ? 0 : prepareTime.get() / prepares / 1000)
+                            .append(" executes=").append(executes)
+                            .append(" avgExecuteMicros=").append(executes == 0 ? 0 : executeTime.get() / executes / 1000)
+                            .toString();
+        }
+    }
+
+    /**
+     * Construct a statement cache manager for a data source.
+     *
+     * @param mcf the managed connection factory of the data source.
+     */
+    StatementCacheManager(WSManagedConnectionFactoryImpl mcf) {
+        this.mcf = mcf;
+    }
+
+    /**
+     * @return true if the statementCacheWarmup data source property enables the manager.
+     */
+    public final boolean isEnabled() {
+        return getWarmupSize() > 0;
+    }
+
+    /**
+     * @return the number of statements to prepare on a new connection.
+     */
+    int getWarmupSize() {
+        return mcf.dsConfig.get().statementCacheWarmup;
+    }
+
+    /**
+     * @return the statement cache size of each connection.
+     */
+    int getStatementCacheSize() {
+        return mcf.dsConfig.get().statementCacheSize;
+    }
+
+    /**
+     * Records a statement cache hit.
+     *
+     * @param key the statement cache key.
+     */
+    final void hit(StatementCacheKey key) {
+        Stats stats = use(key);
+        if (stats != null)
+            stats.hits.incrementAndGet();
+    }
+
+    /**
+     * Records a statement cache miss.
+     *
+     * @param key the statement cache key.
+     */
+    final void miss(StatementCacheKey key) {
+        Stats stats = use(key);
+        if (stats != null)
+            stats.misses.incrementAndGet();
+    }
+
+    /**
+     * Records the time taken to prepare a statement.
+     *
+     * @param key the statement cache key. Null if statement caching is disabled.
+     * @param startTime value of System.nanoTime() before the statement was prepared.
+     */
+    public final void prepared(StatementCacheKey key, long startTime) {
+        Stats stats = key == null || !isEnabled() ? null : statistics.get(key);
+        if (stats != null) {
+            stats.prepareCount.incrementAndGet();
+            stats.prepareTime.addAndGet(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Records the time taken to execute a statement.
+     *
+     * @param key the statement cache key. Null if statement caching is disabled.
+     * @param startTime value of System.nanoTime() before the statement was executed.
+     */
+    public final void executed(StatementCacheKey key, long startTime) {
+        Stats stats = key == null || !isEnabled() ? null : statistics.get(key);
+        if (stats != null) {
+            stats.executeCount.incrementAndGet();
+            stats.executeTime.addAndGet(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Returns the data source wide usage frequency of a statement. Used by CacheMap to choose the
+     * statement to discard.
+     *
+     * @param key the statement cache key.
+     * @return the usage frequency, 0 if the statement is not tracked.
+     */
+    final int getFrequency(Object key) {
+        Stats stats = statistics.get(key);
+        return stats == null ? 0 : stats.frequency.get();
+    }
+
+    /**
+     * Returns the most frequently used statements of the data source.
+     *
+     * @param max maximum number of statements to return.
+     * @return cache keys of the most frequently used statements, most frequently used first.
+     */
+    final List<StatementCacheKey> getMostFrequentlyUsed(int max) {
+        List<Map.Entry<StatementCacheKey, Stats>> entries = new ArrayList<Map.Entry<StatementCacheKey, Stats>>(statistics.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<StatementCacheKey, Stats>>() {
+            @Override
+            public int compare(Map.Entry<StatementCacheKey, Stats> e1, Map.Entry<StatementCacheKey, Stats> e2) {
+                int f1 = e1.getValue().frequency.get();
+                int f2 = e2.getValue().frequency.get();
+                return f1 > f2 ? -1 : f1 == f2 ? 0 : 1;
+            }
+        });
+
+        int size = Math.min(max, entries.size());
+        List<StatementCacheKey> keys = new ArrayList<StatementCacheKey>(size);
+        for (int i = 0; i < size; i++)
+            keys.add(entries.get(i).getKey());
+        return keys;
+    }
+
+    /**
+     * @param key the statement cache key.
+     * @return usage statistics for the statement, or null if the statement is not tracked.
+     */
+    public final Stats getStatistics(StatementCacheKey key) {
+        return statistics.get(key);
+    }
+
+    /**
+     * Records that a statement was prepared on a new connection before it was requested.
+     */
+    final void warmedUp() {
+        warmedUpStatements.incrementAndGet();
+    }
+
+    /**
+     * Counts a use of a statement and ages the frequencies when enough uses accumulated.
+     *
+     * @param key the statement cache key.
+     * @return usage statistics for the statement, or null if the statement is not tracked.
+     */
+    private Stats use(StatementCacheKey key) {
+        Stats stats = statistics.get(key);
+        if (stats == null) {
+            if (statistics.size() >= MAX_TRACKED_STATEMENTS)
+                return null;
+            Stats newStats = new Stats();
+            stats = statistics.putIfAbsent(key, newStats);
+            if (stats == null)
+                stats = newStats;
+        }
+        stats.frequency.incrementAndGet();
+
+        long limit = (long) Math.max(statistics.size(), getStatementCacheSize()) * AGING_FACTOR;
+        if (usesSinceAging.incrementAndGet() >= limit && usesSinceAging.getAndSet(0) >= limit)
+            age();
+
+        return stats;
+    }
+
+    /**
+     * Halves all frequencies and stops tracking statements which are no longer used.
+     */
+    private void age() {
+        int removed = 0;
+        for (Map.Entry<StatementCacheKey, Stats> entry : statistics.entrySet()) {
+            AtomicInteger frequency = entry.getValue().frequency;
+            int f;
+            do {
+                f = frequency.get();
+            } while (!frequency.compareAndSet(f, f >> 1));
+            if (f >> 1 == 0 && statistics.remove(entry.getKey(), entry.getValue()))
+                removed++;
+        }
+        agingCount.incrementAndGet();
+
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+            Tr.debug(this, tc, "statement frequencies aged", "tracked: " + statistics.size(), "removed: " + removed);
+    }
+
+    /**
+     * Returns information to log on first failure.
+     *
+     * @return information to log on first failure.
+     */
+    public String introspectSelf() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("StatementCacheManager enabled=").append(isEnabled())
+                        .append(" tracked=").append(statistics.size())
+                        .append(" aging=").append(agingCount.get())
+                        .append(" warmedUp=").append(warmedUpStatements.get());
+        for (StatementCacheKey key : getMostFrequentlyUsed(20))
+            sb.append(AdapterUtil.EOLN).append("  ").append(key).append(": ").append(statistics.get(key));
+        return sb.toString();
+    }
+}
@@ -237,6 +237,11 @@ public class WSManagedConnectionFactoryImpl extends WSManagedConnectionFactory i
      */
     public final AtomicReference<DSConfig> dsConfig;
 
+    /**
+     * Tracks statement cache usage across all ManagedConnections created by this MCF.
+     */
+    public final StatementCacheManager statementCacheManager = new StatementCacheManager(this);
+
     /**
      * Indicates whether or not the JDBC driver supports Connection.getNetworkTimeout.
      */
@@ -1246,6 +1251,9 @@ public class WSManagedConnectionFactoryImpl extends WSManagedConnectionFactory i
         info.append("Counter of fatal connection errors on ManagedConnections created by this MCF:",
                     fatalErrorCount); 
 
+        if (statementCacheManager.isEnabled())
+            info.append(statementCacheManager.introspectSelf());
+
         return info.toStringArray();
     }
 
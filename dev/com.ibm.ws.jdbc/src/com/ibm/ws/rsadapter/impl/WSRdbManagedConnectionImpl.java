@@ -318,6 +318,12 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
     //Cache variables
     private CacheMap statementCache; // Switch to a WebSphere-specific hash map.  
 
+    /**
+     * Indicates whether the statement cache was prepopulated with the most frequently used
+     * statements of the data source.
+     */
+    private boolean statementCacheWarmedUp;
+
     // Key sent to Connection wrapper to permit access to methods such as reassociate.
     static final Object key = new byte[0];
 
@@ -491,7 +497,7 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
         //Create the stmt cache if cachesize > 0
         int statementCacheSize = config.statementCacheSize; 
         if (statementCacheSize > 0) 
-            statementCache = new CacheMap(statementCacheSize); 
+            statementCache = new CacheMap(statementCacheSize, mcf.statementCacheManager); 
 
         //create an instance of WSStateManager
         stateMgr = new WSStateManager();
@@ -877,7 +883,7 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
             if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
                 Tr.debug(this, tc,
                          "enable statement cache with size", newSize);
-            statementCache = new CacheMap(newSize);
+            statementCache = new CacheMap(newSize, mcf.statementCacheManager);
         }
 
         // Check if statement cache is dynamically resized or disabled
@@ -886,7 +892,7 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
                 Tr.debug(this, tc,
                          "resize statement cache to", newSize);
             CacheMap oldCache = statementCache;
-            statementCache = newSize > 0 ? new CacheMap(newSize) : null;
+            statementCache = newSize > 0 ? new CacheMap(newSize, mcf.statementCacheManager) : null;
             Object[] discards = newSize > 0 ? statementCache.addAll(oldCache) : oldCache.removeAll();
             for (Object stmt : discards)
                 destroyStatement(stmt);
@@ -2155,6 +2161,13 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
 
     public final Object getStatement(StatementCacheKey key) 
     {
+        StatementCacheManager manager = mcf.statementCacheManager;
+        boolean managerEnabled = manager.isEnabled();
+        if (managerEnabled && !statementCacheWarmedUp) {
+            statementCacheWarmedUp = true;
+            warmUpStatementCache(manager, key);
+        }
+
         Object stmt = statementCache.remove(key);
         if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) { 
             if (stmt == null) {
@@ -2163,9 +2176,87 @@ public class WSRdbManagedConnectionImpl extends WSManagedConnection implements
                 Tr.debug(this, tc, "Matching Prepared Statement found in cache: " + stmt);
             }
         }
+
+        if (managerEnabled) {
+            if (stmt == null)
+                manager.miss(key);
+            else
+                manager.hit(key);
+        }
         return stmt;
     }
 
+    /**
+     * Prepares the most frequently used statements of the data source and adds them to the
+     * statement cache of this connection. This runs on the thread which uses the connection,
+     * because neither the JDBC connection nor the statement cache is thread safe. Only statements
+     * which were cached with the same holdability, schema and isolation level as the current
+     * values of this connection are prepared. Failures are traced and end the warm up, but are
+     * not reported to the application.
+     * 
+     * @param manager the statement cache manager of the data source.
+     * @param requestedKey key of the statement being requested, which the caller prepares itself.
+     */
+    private void warmUpStatementCache(StatementCacheManager manager, StatementCacheKey requestedKey) {
+        final boolean isTraceOn = TraceComponent.isAnyTracingEnabled();
+        CacheMap cache = statementCache;
+        int max = Math.min(manager.getWarmupSize(), cache.getMaxSize() - 1);
+        if (max <= 0)
+            return;
+
+        if (isTraceOn && tc.isEntryEnabled())
+            Tr.entry(this, tc, "warmUpStatementCache", max);
+
+        int isoLevel = helper.doesStatementCacheIsoLevel() ? currentTransactionIsolation : 0;
+        Integer queryTimeout = dsConfig.get().queryTimeout;
+        int count = 0;
+
+        for (StatementCacheKey key : manager.getMostFrequentlyUsed(max + 1)) {
+            if (count >= max)
+                break;
+            if (key.equals(requestedKey)
+                || key.holdability != currentHoldability
+                || key.statementIsoLevel != isoLevel
+                || !AdapterUtil.match(key.schema, getCurrentSchema()))
+                continue;
+
+            Statement stmt = null;
+            long start = System.nanoTime();
+            try {
+                if (key.statementType == PSCacheKey.PREPARED_STATEMENT)
+                    stmt = key.autoGeneratedKeys == 0 ?
+                                    sqlConn.prepareStatement(key.sql, key.type, key.concurrency) :
+                                    sqlConn.prepareStatement(key.sql, key.autoGeneratedKeys);
+                else if (key.statementType == CSCacheKey.CALLABLE_STATEMENT)
+                    stmt = sqlConn.prepareCall(key.sql, key.type, key.concurrency);
+                else
+                    continue; // DB2 SQLJ statements are prepared through the driver's own APIs
+
+                if (queryTimeout != null)
+                    stmt.setQueryTimeout(queryTimeout);
+            } catch (Exception x) {
+                // No FFDC code needed. The statement is prepared again when the application requests it.
+                // Runtime exceptions from the driver also end the warm up, so that they reach the
+                // application, if at all, from its own request.
+                if (isTraceOn && tc.isDebugEnabled())
+                    Tr.debug(this, tc, "unable to prepare statement for the statement cache", key, x);
+                if (stmt != null)
+                    destroyStatement(stmt);
+                break;
+            }
+            manager.prepared(key, start);
+            manager.warmedUp();
+            count++;
+
+            Object discardedStatement = cache.add(key, stmt);
+            if (discardedStatement != null)
+                destroyStatement(discardedStatement);
+        }
+
+        if (isTraceOn && tc.isEntryEnabled())
+            Tr.exit(this, tc, "warmUpStatementCache", count);
+    }
+
     /**
      * Returns the statement into the cache. The statement is closed if an error occurs
      * attempting to cache it. This method will only called if statement caching was enabled
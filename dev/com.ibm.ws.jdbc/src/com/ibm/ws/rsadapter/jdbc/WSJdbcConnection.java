@@ -1885,7 +1885,9 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
                 Object s = managedConn.getStatement(key);
                 if (s == null) // not found in cache, create a new one
                 {
+                    long prepareStart = System.nanoTime();
                     cstmt = connImpl.prepareCall(sql, type, concurrency);
+                    mcf.statementCacheManager.prepared(key, prepareStart);
                     Integer queryTimeout = dsConfig.get().queryTimeout; 
                     if (queryTimeout != null) { 
                         if(isTraceOn && tc.isDebugEnabled())
@@ -2181,7 +2183,9 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
                 Object s = managedConn.getStatement(key);
                 if (s == null) // not found in cache, so create a new one
                 {
+                    long prepareStart = System.nanoTime();
                     pstmt = connImpl.prepareStatement(sql, type, concurrency);
+                    mcf.statementCacheManager.prepared(key, prepareStart);
                     Integer queryTimeout = dsConfig.get().queryTimeout; 
                     if (queryTimeout != null) { 
                         if(isTraceOn && tc.isDebugEnabled())
@@ -3415,7 +3419,9 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
                 Object s = managedConn.getStatement(key);
                 if (s == null) // not found in cache, so create a new one
                 {
+                    long prepareStart = System.nanoTime();
                     pstmt = connImpl.prepareStatement(sql, type, concurrency, holdability);
+                    mcf.statementCacheManager.prepared(key, prepareStart);
                     Integer queryTimeout = dsConfig.get().queryTimeout; 
                     if (queryTimeout != null) {
                         if(isTraceOn && tc.isDebugEnabled())
@@ -3515,7 +3521,9 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
                 Object s = managedConn.getStatement(key);
                 if (s == null) // not found in cache, so create a new one
                 {
+                    long prepareStart = System.nanoTime();
                     cstmt = connImpl.prepareCall(sql, type, concurrency, holdability);
+                    mcf.statementCacheManager.prepared(key, prepareStart);
                     Integer queryTimeout = dsConfig.get().queryTimeout; 
                     if (queryTimeout != null) { 
                         if(isTraceOn && tc.isDebugEnabled())
@@ -3618,7 +3626,9 @@ public class WSJdbcConnection extends WSJdbcObject implements Connection {
                 Object s = managedConn.getStatement(key);
                 if (s == null) // not found in cache, so create a new one
                 {
+                    long prepareStart = System.nanoTime();
                     pstmt = connImpl.prepareStatement(sql, autoGeneratedKeys);
+                    mcf.statementCacheManager.prepared(key, prepareStart);
                     Integer queryTimeout = dsConfig.get().queryTimeout; 
                     if (queryTimeout != null) { 
                         if(isTraceOn && tc.isDebugEnabled())
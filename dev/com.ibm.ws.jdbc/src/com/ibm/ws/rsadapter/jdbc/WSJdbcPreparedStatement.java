@@ -390,7 +390,9 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
 
             enforceStatementProperties();
 
+            long start = System.nanoTime();
             result = pstmtImpl.execute();
+            mcf.statementCacheManager.executed(key, start);
         } catch (SQLException ex) {
             // No FFDC code needed. Might be an application error. 
             if (isTraceOn && tc.isEntryEnabled())
@@ -447,7 +449,9 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
 
         enforceStatementProperties();
 
+        long start = System.nanoTime();
         Object results = method.invoke(implObject, args);
+        mcf.statementCacheManager.executed(key, start);
 
         if (isTraceOn && tc.isEntryEnabled()) 
             Tr.exit(tc, "executeBatch", results instanceof int[] ? Arrays.toString((int[]) results) : results);
@@ -475,7 +479,10 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
 
             enforceStatementProperties();
 
-            childWrapper = rsetWrapper = createResultSetWrapper(pstmtImpl.executeQuery());
+            long start = System.nanoTime();
+            ResultSet rsetImpl = pstmtImpl.executeQuery();
+            mcf.statementCacheManager.executed(key, start);
+            childWrapper = rsetWrapper = createResultSetWrapper(rsetImpl);
         } catch (SQLException ex) {
             // No FFDC code needed. Might be an application error. 
             if (isTraceOn && tc.isEntryEnabled())
@@ -520,7 +527,9 @@ public class WSJdbcPreparedStatement extends WSJdbcStatement implements Prepared
 
             enforceStatementProperties();
 
+            long start = System.nanoTime();
             numUpdates = pstmtImpl.executeUpdate();
+            mcf.statementCacheManager.executed(key, start);
         } catch (SQLException ex) {
             // No FFDC code needed. Might be an application error.  
             if (isTraceOn && tc.isEntryEnabled())
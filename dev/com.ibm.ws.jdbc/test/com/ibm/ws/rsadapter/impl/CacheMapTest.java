@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.rsadapter.impl;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the eviction policy of CacheMap and the usage frequencies of StatementCacheManager.
+ */
+public class CacheMapTest {
+
+    /**
+     * Statement cache manager with fixed settings in place of the data source configuration.
+     */
+    private static class TestStatementCacheManager extends StatementCacheManager {
+        private final int warmupSize;
+        private final int statementCacheSize;
+
+        TestStatementCacheManager(int warmupSize, int statementCacheSize) {
+            super(null);
+            this.warmupSize = warmupSize;
+            this.statementCacheSize = statementCacheSize;
+        }
+
+        @Override
+        int getWarmupSize() {
+            return warmupSize;
+        }
+
+        @Override
+        int getStatementCacheSize() {
+            return statementCacheSize;
+        }
+    }
+
+    /**
+     * Creates a statement cache key which lands in a chosen bucket.
+     */
+    private static StatementCacheKey key(String sql, int hashCode) {
+        StatementCacheKey key = new PSCacheKey(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, 0, 0, 0, null);
+        key.hCode = hashCode;
+        return key;
+    }
+
+    private static void use(StatementCacheManager manager, StatementCacheKey key, int times) {
+        for (int i = 0; i < times; i++)
+            manager.hit(key);
+    }
+
+    /**
+     * Without a statement cache manager, an entry of the least recently used bucket is discarded.
+     */
+    @Test
+    public void testLeastRecentlyUsedBucket() {
+        CacheMap map = new CacheMap(3); // 4 buckets
+        StatementCacheKey k0 = key("k0", 0), k1 = key("k1", 1), k2 = key("k2", 2), k3 = key("k3", 3);
+
+        Assert.assertNull(map.add(k0, "v0"));
+        Assert.assertNull(map.add(k1, "v1"));
+        Assert.assertNull(map.add(k2, "v2"));
+
+        // use k0, which makes its bucket the most recently used
+        Assert.assertEquals("v0", map.remove(k0));
+        Assert.assertNull(map.add(k0, "v0"));
+
+        Assert.assertEquals("v1", map.add(k3, "v3"));
+        Assert.assertEquals(3, map.size());
+        Assert.assertNull(map.remove(k1));
+        Assert.assertEquals("v0", map.remove(k0));
+    }
+
+    /**
+     * When the cache is full, the least frequently used entry of the least recently used bucket
+     * is discarded rather than an arbitrary one.
+     */
+    @Test
+    public void testFullCacheDiscardsLeastFrequentlyUsed() {
+        StatementCacheManager manager = new TestStatementCacheManager(1, 100);
+        CacheMap map = new CacheMap(3, manager); // 4 buckets
+        StatementCacheKey a = key("a", 0), b = key("b", 4), c = key("c", 1), d = key("d", 2);
+        use(manager, a, 5);
+        use(manager, b, 1);
+
+        Assert.assertNull(map.add(a, "a"));
+        Assert.assertNull(map.add(b, "b"));
+        Assert.assertNull(map.add(c, "c"));
+
+        // without frequencies the first entry of the bucket, a, would be discarded
+        Assert.assertEquals("b", map.add(d, "d"));
+        Assert.assertEquals("a", map.remove(a));
+    }
+
+    /**
+     * When a bucket overflows, its least frequently used entry is discarded.
+     */
+    @Test
+    public void testBucketOverflowDiscardsLeastFrequentlyUsed() {
+        StatementCacheManager manager = new TestStatementCacheManager(1, 100);
+        CacheMap map = new CacheMap(10, manager); // 13 buckets
+
+        StatementCacheKey[] keys = new StatementCacheKey[6];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key("s" + i, i * 13);
+            use(manager, keys[i], i == 2 ? 1 : 10 + i);
+        }
+
+        for (int i = 0; i < 5; i++)
+            Assert.assertNull(map.add(keys[i], "s" + i));
+        Assert.assertEquals("s2", map.add(keys[5], "s5"));
+        Assert.assertEquals(5, map.size());
+        Assert.assertNull(map.remove(keys[2]));
+        Assert.assertEquals("s5", map.remove(keys[5]));
+    }
+
+    /**
+     * A disabled statement cache manager leaves the original policy in place, which discards the
+     * entry in the last position of an overflowing bucket.
+     */
+    @Test
+    public void testDisabledManagerIgnoresFrequencies() {
+        StatementCacheManager manager = new TestStatementCacheManager(0, 100);
+        Assert.assertFalse(manager.isEnabled());
+        CacheMap map = new CacheMap(10, manager);
+
+        StatementCacheKey[] keys = new StatementCacheKey[6];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = key("s" + i, i * 13);
+
+        for (int i = 0; i < 5; i++)
+            Assert.assertNull(map.add(keys[i], "s" + i));
+        Assert.assertEquals("s4", map.add(keys[5], "s5"));
+    }
+
+    /**
+     * Statements are reported most frequently used first, and frequencies are counted per key.
+     */
+    @Test
+    public void testMostFrequentlyUsed() {
+        StatementCacheManager manager = new TestStatementCacheManager(2, 100);
+        StatementCacheKey a = key("a", 1), b = key("b", 2), c = key("c", 3);
+        use(manager, a, 2);
+        use(manager, b, 7);
+        use(manager, c, 4);
+        manager.miss(a);
+
+        Assert.assertEquals(3, manager.getFrequency(a));
+        Assert.assertEquals(7, manager.getFrequency(b));
+        Assert.assertEquals(0, manager.getFrequency(key("unknown", 4)));
+        Assert.assertEquals(Arrays.asList(b, c), manager.getMostFrequentlyUsed(2));
+        Assert.assertEquals(Arrays.asList(b, c, a), manager.getMostFrequentlyUsed(10));
+
+        StatementCacheManager.Stats stats = manager.getStatistics(a);
+        Assert.assertEquals(2, stats.getHits());
+        Assert.assertEquals(1, stats.getMisses());
+    }
+
+    /**
+     * Frequencies are halved once the uses reach ten times the cache size, and statements which
+     * drop to zero are no longer tracked.
+     */
+    @Test
+    public void testAging() {
+        StatementCacheManager manager = new TestStatementCacheManager(1, 5);
+        StatementCacheKey a = key("a", 1), b = key("b", 2);
+        use(manager, a, 49);
+        Assert.assertEquals(49, manager.getFrequency(a));
+
+        use(manager, b, 1);
+        Assert.assertEquals(24, manager.getFrequency(a));
+        Assert.assertEquals(0, manager.getFrequency(b));
+        Assert.assertNull(manager.getStatistics(b));
+    }
+}
@@ -17,11 +17,13 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
@@ -47,18 +49,21 @@ import com.ibm.ws.kernel.boot.cmdline.Utils;
  * It will choose the middle option. a.b/1.0.2.v2 is an iFix on version 1.0.2 of the bundle, but 1.0.2 does not exist, so
  * the iFix is not for this installation. a.b/1.0.0 is ignored because we have an iFix.
  * 
- * Instances of this object are NOT thread safe. Two instances MUST not be used at once accessing the same cache file.
+ * Bundles may be selected from several threads at once. The manifests of the bundles in a base location are read
+ * outside the lock of the repository, shared among the threads which need the location, but two instances MUST not
+ * be used at once accessing the same cache file.
  */
 public class ContentBasedLocalBundleRepository extends AbstractResourceRepository {
     private final File _installDir;
     private final File _cacheFile;
     private final String _defaultLocation;
     private final ConcurrentMap<String, List<Resource>> _cacheBySymbolicName = new ConcurrentHashMap<String, List<Resource>>();
-    private final Set<File> _bundleLocations = new HashSet<File>();
-    private final Set<String> _locations = new HashSet<String>();
-    private boolean _dirty;
+    private final Set<File> _bundleLocations = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+    private final Set<String> _locations = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final ConcurrentMap<String, LocationScan> _scans = new ConcurrentHashMap<String, LocationScan>();
+    private volatile boolean _dirty;
     private final Messages _msgs;
-    private boolean _cacheRead;
+    private volatile boolean _cacheRead;
 
     /**
      * This class represents information about a Bundle. It stores the file on disk, the bundle version,
@@ -128,8 +133,9 @@ public class ContentBasedLocalBundleRepository extends AbstractResourceRepositor
         }
 
         /**
-         * This method reads a line for the cache. If it determines the cache is out of date it re-reads the
-         * data from the manifest. The cache format is
+         * This method reads a line for the cache. If it determines the cache is out of date the symbolic name
+         * is left null, so that the bundle is read from its manifest when its base location is scanned. The
+         * cache format is
          * 
          * <p>&lt;symbolic name&gt;&lt;version&gt;&lt;;&gt;is a fix jar as boolean&lt;last update timestamp&gt;;&lt;bundle
          * file size&gt;;&lt;base location&gt;;&ltabsolute file location&gt;</p>
@@ -170,14 +176,10 @@ public class ContentBasedLocalBundleRepository extends AbstractResourceRepositor
                 beginIndex = cacheLine.lastIndexOf(';', endIndex - 1);
                 symbolicName = cacheLine.substring(beginIndex + 1, endIndex);
             } else {
-                JarFile jar = new JarFile(file);
-                Manifest man = jar.getManifest();
-                Attributes a = man.getMainAttributes();
-                symbolicName = getSymbolicName(a);
-                version = Version.parseVersion(a.getValue(Constants.BUNDLE_VERSION));
-                Object iFixHeader = a.get("IBM-Interim-Fixes");
-                Object tFixHeader = a.get("IBM-Test-Fixes");
-                isFix = (iFixHeader != null || tFixHeader != null);
+                // The manifest is re-read when the base location is scanned, outside the lock of the repository.
+                symbolicName = null;
+                version = null;
+                isFix = false;
             }
         }
 
@@ -265,12 +267,20 @@ public class ContentBasedLocalBundleRepository extends AbstractResourceRepositor
 
     @Override
     protected List<Resource> getResourcesBySymbolicName(String symbolicName) {
-        return _cacheBySymbolicName.get(symbolicName);
+        List<Resource> info = _cacheBySymbolicName.get(symbolicName);
+        if (info == null) {
+            return null;
+        }
+        // Return a copy: the caller sorts the candidates, possibly while other threads select the same bundle.
+        synchronized (info) {
+            return new ArrayList<Resource>(info);
+        }
     }
 
     @Override
     protected boolean isBaseLocationIncluded(String baseLocation) {
-        return _locations.contains(baseLocation);
+        LocationScan scan = _scans.get(baseLocation);
+        return scan != null && scan.isComplete();
     }
 
     /**
@@ -297,6 +307,7 @@ public class ContentBasedLocalBundleRepository extends AbstractResourceRepositor
         }
         _bundleLocations.clear();
         _cacheBySymbolicName.clear();
+        _scans.clear();
     }
 
     /**
@@ -350,78 +361,133 @@ public class ContentBasedLocalBundleRepository extends AbstractResourceRepositor
 
     /**
      * This method scans the provided location under the install dir. It looks at all the jar files in that directory
-     * and provided the file isn't in the cache it'll read the manifest and add it into memory.
+     * and provided the file isn't in the cache it'll read the manifest and add it into memory. The files to read are
+     * listed under the lock of the repository, but the manifests are read outside it, by every thread which needs the
+     * location until all of them are read.
      * 
      * @param baseLocation the directory in the install to scan.
      */
     @Override
-    protected synchronized void includeBaseLocation(String baseLocation) {
-        _locations.add(baseLocation);
-
-        // only do the processing if the cache has been read.
-        if (_cacheRead) {
-            File[] files = new File(_installDir, baseLocation).listFiles(new FileFilter() {
-                @Override
-                public boolean accept(File arg0) {
-                    // select files only if they end .jar and they aren't in the cache already.
-                    return arg0.getName().endsWith(".jar") && !!!_bundleLocations.contains(arg0);
-                }
-            });
+    protected void includeBaseLocation(String baseLocation) {
+        LocationScan scan;
+        synchronized (this) {
+            // only do the processing if the cache has been read.
+            if (!!!_cacheRead) {
+                _locations.add(baseLocation);
+                return;
+            }
 
-            if (files != null) {
-                for (File f : files) {
-                    BundleInfo bInfo;
-                    try {
-                        bInfo = new BundleInfo(f, baseLocation);
-                        if (bInfo.symbolicName != null) {
-                            _dirty = true;
-                            addToCache(bInfo);
-                        }
-                    } catch (IOException e) {
+            scan = _scans.get(baseLocation);
+            if (scan == null) {
+                File[] files = new File(_installDir, baseLocation).listFiles(new FileFilter() {
+                    @Override
+                    public boolean accept(File arg0) {
+                        // select files only if they end .jar and they aren't in the cache already.
+                        return arg0.getName().endsWith(".jar") && !!!_bundleLocations.contains(arg0);
+                    }
+                });
+                scan = new LocationScan(baseLocation, files == null ? new File[0] : files);
+                _scans.put(baseLocation, scan);
+            }
+        }
+
+        scan.run();
+    }
+
+    /**
+     * The manifests of the jar files in a base location that are not in the cache. Each thread which needs the
+     * location reads the manifests not yet claimed by another thread, then waits until all of them are read.
+     */
+    private final class LocationScan {
+        private final String baseLocation;
+        private final File[] files;
+        private final AtomicInteger next = new AtomicInteger();
+        private final CountDownLatch read;
+
+        LocationScan(String baseLocation, File[] files) {
+            this.baseLocation = baseLocation;
+            this.files = files;
+            read = new CountDownLatch(files.length);
+        }
+
+        boolean isComplete() {
+            return read.getCount() == 0;
+        }
+
+        @FFDCIgnore(InterruptedException.class)
+        void run() {
+            for (int i = next.getAndIncrement(); i < files.length; i = next.getAndIncrement()) {
+                try {
+                    BundleInfo bInfo = new BundleInfo(files[i], baseLocation);
+                    if (bInfo.symbolicName != null) {
+                        _dirty = true;
+                        addToCache(bInfo);
                     }
+                } catch (IOException e) {
+                } finally {
+                    read.countDown();
+                }
+            }
+
+            boolean interrupted = false;
+            while (!!!isComplete()) {
+                try {
+                    read.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
                 }
             }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
 
     /**
      * This method reads the cache. Each line in the file represents a different bundle. The BundleInfo
-     * constructor reads the cache line and validates the data re-reading from the bundle manifest if required.
+     * constructor reads the cache line and validates the data, leaving bundles that changed to be read
+     * from their manifests when the base locations are scanned after the cache is read.
      * 
      * @param cache
      */
     @FFDCIgnore(IOException.class)
-    // The feature manager and kernel only do provisioning from a single thread, so this is paranoia, but should
-    // never be contended.
-    private synchronized void readCache() {
+    private void readCache() {
         if (!!!_cacheRead) {
-            BufferedReader reader = null;
-            try {
-                if (_cacheFile != null && _cacheFile.exists() && _cacheFile.isFile()) {
-                    reader = new BufferedReader(new FileReader(_cacheFile));
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        try {
-                            BundleInfo bInfo = new BundleInfo(line);
-                            if (bInfo.file.exists() && bInfo.symbolicName != null) {
-                                addToCache(bInfo);
+            // The feature manager selects bundles from several threads, which wait here for the first of them to read the cache.
+            synchronized (this) {
+                if (!!!_cacheRead) {
+                    BufferedReader reader = null;
+                    try {
+                        if (_cacheFile != null && _cacheFile.exists() && _cacheFile.isFile()) {
+                            reader = new BufferedReader(new FileReader(_cacheFile));
+                            String line;
+                            while ((line = reader.readLine()) != null) {
+                                try {
+                                    BundleInfo bInfo = new BundleInfo(line);
+                                    if (bInfo.file.exists() && bInfo.symbolicName != null) {
+                                        addToCache(bInfo);
+                                    }
+                                } catch (IOException e) {
+                                    // IOException creating BundleInfo.
+                                }
                             }
-                        } catch (IOException e) {
-                            // IOException creating BundleInfo.
                         }
+                    } catch (IOException e) {
+                        // If we can't load the cache then we just throw everything 
+                        // away and do the more expensive read from original data.
+                        _bundleLocations.clear();
+                        _cacheBySymbolicName.clear();
+                    } finally {
+                        Utils.tryToClose(reader);
                     }
+                    _cacheRead = true;
                 }
-            } catch (IOException e) {
-                // If we can't load the cache then we just throw everything 
-                // away and do the more expensive read from original data.
-                _bundleLocations.clear();
-                _cacheBySymbolicName.clear();
-            } finally {
-                Utils.tryToClose(reader);
             }
-            _cacheRead = true;
-            // now we have read the cache we want to insure all base locations are processed.
-            for (String loc : new HashSet<String>(_locations)) {
+        }
+
+        // now we have read the cache we want to insure all base locations are processed.
+        for (String loc : _locations) {
+            if (!!!isBaseLocationIncluded(loc)) {
                 includeBaseLocation(loc);
             }
         }
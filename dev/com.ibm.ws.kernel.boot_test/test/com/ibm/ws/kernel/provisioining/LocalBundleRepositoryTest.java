@@ -16,6 +16,13 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -148,4 +155,42 @@ public class LocalBundleRepositoryTest {
         assertTrue("The file does not exist", f.exists());
         lbr.dispose();
     }
-}
\ No newline at end of file
+
+    /**
+     * This method checks that threads selecting bundles at once, which share the reading of the manifests in each location,
+     * all select the same bundles as a single thread.
+     */
+    @Test
+    public void testConcurrentSelection() throws Exception {
+        String testClassesDir = System.getProperty("test.classesDir", "bin_test");
+        final ContentBasedLocalBundleRepository lbr = new ContentBasedLocalBundleRepository(new File(testClassesDir + "/test data/lbr"), null, true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<File>>> futures = new ArrayList<Future<List<File>>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<List<File>>() {
+                    @Override
+                    public List<File> call() {
+                        List<File> files = new ArrayList<File>();
+                        files.add(lbr.selectBundle("", "x.y", new VersionRange("[1.0.0,1.0.100)")));
+                        files.add(lbr.selectBundle("dev/,lib/", "a.b", new VersionRange("[1.0.0,1.0.100)")));
+                        files.add(lbr.selectBundle("dev/,lib/", "a.b", new VersionRange("[1.0.0,1.0.2]")));
+                        return files;
+                    }
+                }));
+            }
+            for (Future<List<File>> future : futures) {
+                List<File> files = future.get(30, TimeUnit.SECONDS);
+                assertNotNull("A file could not be located", files.get(0));
+                assertEquals("The file name is not correct", "x.y_1.0.jar", files.get(0).getName());
+                assertNotNull("A file could not be located", files.get(1));
+                assertEquals("The file name is not correct", "a.b_1.0.2.v1.jar", files.get(1).getName());
+                assertNotNull("A file could not be located", files.get(2));
+                assertEquals("The file name is not correct", "bad.jar", files.get(2).getName());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        lbr.dispose();
+    }
+}
@@ -1106,6 +1106,7 @@ public class FeatureManager implements FeatureProvisioner, FrameworkReady, Manag
 
         BundleInstallStatus installStatus = new BundleInstallStatus();
         BundleLifecycleStatus startStatus = null;
+        ProvisioningPhaseTimes phaseTimes = new ProvisioningPhaseTimes();
 
         List<Bundle> installedBundles = new ArrayList<Bundle>();
 
@@ -1151,6 +1152,8 @@ public class FeatureManager implements FeatureProvisioner, FrameworkReady, Manag
                     }
                 }
             }
+            phaseTimes.endPhase("resolveFeatures");
+
             if (featureChange.appForceRestart != null) {
                 final Set<String> featureSet = featureRepository.getInstalledFeatures();
                 if (featureChangesRequireRestart(preInstalledFeatures, featureSet)) {
@@ -1164,6 +1167,7 @@ public class FeatureManager implements FeatureProvisioner, FrameworkReady, Manag
                     featureChange.appForceRestart.setResult(false);
                     appForceRestartSet = true;
                 }
+                phaseTimes.endPhase("stopApplications");
             }
 
             if (installStatus.canContinue(continueOnError)) {
@@ -1173,6 +1177,7 @@ public class FeatureManager implements FeatureProvisioner, FrameworkReady, Manag
                     // only need this if features have changed
                     packageInspector.populateSPIInfo(bundleContext, this);
                     regionsToRemove = provisioner.createAndUpdateProductRegions();
+                    phaseTimes.endPhase("updateRegions");
                 }
 
                 // always do the install bundle operation becuase it associates bundles with refeature resources
@@ -1184,8 +1189,10 @@ public class FeatureManager implements FeatureProvisioner, FrameworkReady, Manag
                                            ProvisionerConstants.LEVEL_FEATURE_CONTAINERS,
                                            fwStartLevel.getInitialBundleStartLevel(),
                                            locService);
+                phaseTimes.endPhase("installBundles");
 
                 featureRepository.updateServices();
+                phaseTimes.endPhase("updateServices");
 
                 if (featuresHaveChanges) {
                     // Uninstall extra bundles.
@@ -1198,6 +1205,7 @@ public class FeatureManager implements FeatureProvisioner, FrameworkReady, Manag
                             provisioner.uninstallBundles(bundleContext, remove, installStatus, shutdownHook);
                         }
                     }
+                    phaseTimes.endPhase("uninstallBundles");
 
                     // Refresh any feature bundles that need it
                     // This happens when API end up getting rewired from the system bundle
@@ -1209,6 +1217,7 @@ public class FeatureManager implements FeatureProvisioner, FrameworkReady, Manag
 
                     // refresh any gateway bundles that may need it.
                     provisioner.refreshGatewayBundles(shutdownHook);
+                    phaseTimes.endPhase("refreshBundles");
 
                     // If any (new) bundles were installed, add them to the list to be started
                     if (installStatus.contextIsValid() && installStatus.bundlesToStart()) {
@@ -1228,6 +1237,7 @@ public class FeatureManager implements FeatureProvisioner, FrameworkReady, Manag
 
         // Make sure bundles are ready to start
         provisioner.resolveBundles(bundleContext, installedBundles);
+        phaseTimes.endPhase("resolveBundles");
 
         if (featureChange.featureBundlesResolved != null) {
             featureChange.featureBundlesResolved.setResult(true);
@@ -1235,23 +1245,31 @@ public class FeatureManager implements FeatureProvisioner, FrameworkReady, Manag
             if (featureBundlesProcessed != null) {
                 featureBundlesProcessed.waitForCompletion();
             }
+            phaseTimes.endPhase("processFeatureBundles");
         }
 
         // Analyze unresolved bundles for missing java dependencies
         analyzeUnresolvedBundles(installedBundles, goodFeatures);
+        phaseTimes.endPhase("analyzeBundles");
         startStatus = provisioner.preStartBundles(installedBundles);
+        phaseTimes.endPhase("startBundles");
         status &= checkBundleStatus(startStatus);
 
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "feature update phase times (ms)", featureChange.provisioningMode, phaseTimes);
+        }
+
         if (featureChange.featureUpdatesCompleted != null) {
             featureChange.featureUpdatesCompleted.setResult(true);
         }
 
         //post the updated feature list to EventAdmin
         if (eventAdminService != null) {
-            Map<String, Object> eventProps = new HashMap<String, Object>(2);
+            Map<String, Object> eventProps = new HashMap<String, Object>(3);
             final Set<String> featureSet = featureRepository.getInstalledFeatures();
             eventProps.put("features", featureSet.toArray(new String[featureSet.size()]));
             eventProps.put("sequenceNumber", Long.valueOf(sequenceNumber));
+            eventProps.put(ProvisioningPhaseTimes.EVENT_PROPERTY, phaseTimes.getPhaseMillis());
             Event e = new Event("com/ibm/ws/kernel/feature/internal/FeatureManager/FEATURE_CHANGE", eventProps);
             eventAdminService.postEvent(e);
         }
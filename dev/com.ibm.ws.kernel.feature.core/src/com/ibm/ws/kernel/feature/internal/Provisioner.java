@@ -31,7 +31,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
@@ -152,6 +158,9 @@ public class Provisioner {
 
     private static final String THREAD_CONTEXT_FILTER = "(thread-context=true)";
 
+    /** The most threads, including the provisioning thread, which select bundles to install. */
+    private static final int MAX_SELECT_THREADS = 4;
+
     /** Owning/Associated feature manager */
     private final FeatureManager featureManager;
     private final Region kernelRegion;
@@ -215,6 +224,11 @@ public class Provisioner {
             return;
         final FrameworkWiring fwkWiring = featureManager.bundleContext.getBundle(Constants.SYSTEM_BUNDLE_LOCATION).adapt(FrameworkWiring.class);
         final File bootFile = getBootJar();
+        final Map<FeatureResource, Bundle> installedBundles = new ConcurrentHashMap<FeatureResource, Bundle>();
+        final Map<FeatureResource, File> selectedFiles = new ConcurrentHashMap<FeatureResource, File>();
+        if (!!!libertyBoot) {
+            selectBundleFiles(bundleList, installedBundles, selectedFiles);
+        }
         bundleList.foreach(new BundleList.FeatureResourceHandler() {
             @Override
             @FFDCIgnore({ IllegalStateException.class, Exception.class })
@@ -332,11 +346,18 @@ public class Provisioner {
             }
 
             private Bundle installFeatureBundle(String urlString, String productName, BundleRepositoryHolder bundleRepositoryHolder, FeatureResource fr) throws BundleException, IOException {
-                Bundle bundle = fetchInstalledBundle(urlString, productName);
+                // Use the installed bundle or the file found when the bundles were selected in advance
+                Bundle bundle = installedBundles.get(fr);
+                File bundleFile = selectedFiles.get(fr);
+                if (bundle == null && bundleFile == null) {
+                    bundle = fetchInstalledBundle(urlString, productName);
+                }
                 if (bundle == null) {
                     ContentBasedLocalBundleRepository lbr = bundleRepositoryHolder.getBundleRepository();
-                    // Try to find the file, hopefully using the cached path
-                    File bundleFile = lbr.selectBundle(urlString, fr.getSymbolicName(), fr.getVersionRange());
+                    if (bundleFile == null) {
+                        // Try to find the file, hopefully using the cached path
+                        bundleFile = lbr.selectBundle(urlString, fr.getSymbolicName(), fr.getVersionRange());
+                    }
 
                     if (bundleFile == null) {
                         if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
@@ -368,19 +389,105 @@ public class Provisioner {
                 }
                 return bundle;
             }
+        });
+    }
 
-            private Bundle fetchInstalledBundle(String urlString, String productName) {
-                // We install bundles as references so we need to ensure that we add reference: to the file url.
-                String location = getBundleLocation(BUNDLE_LOC_REFERENCE_TAG + urlString, productName);
-                Bundle b = featureManager.bundleContext.getBundle(location);
+    private Bundle fetchInstalledBundle(String urlString, String productName) {
+        // We install bundles as references so we need to ensure that we add reference: to the file url.
+        String location = getBundleLocation(BUNDLE_LOC_REFERENCE_TAG + urlString, productName);
+        Bundle b = featureManager.bundleContext.getBundle(location);
 
-                if (b != null && b.getState() == Bundle.UNINSTALLED) {
-                    b = null;
-                }
+        if (b != null && b.getState() == Bundle.UNINSTALLED) {
+            b = null;
+        }
 
-                return b;
+        return b;
+    }
+
+    /**
+     * Find the installed bundles, and select the files of the bundles which are not yet installed,
+     * using several threads. Selecting the first bundles from a location reads the manifests of the
+     * bundles in the location that are not in the bundle cache, which the selecting threads share,
+     * while the installs themselves are serialized by the framework.
+     * <p>
+     * The provisioning thread selects bundles along with the threads of the executor, so
+     * that the bundles are selected even when no executor threads are free. Bundles which
+     * are neither found nor selected here are looked for again, and any errors reported, when installing.
+     * 
+     * @param bundleList the bundles to install
+     * @param installedBundles the bundles which are already installed, keyed by feature resource
+     * @param selectedFiles the selected files, keyed by feature resource
+     */
+    @FFDCIgnore({ InterruptedException.class, RejectedExecutionException.class })
+    private void selectBundleFiles(BundleList bundleList, final Map<FeatureResource, Bundle> installedBundles, final Map<FeatureResource, File> selectedFiles) {
+        final List<FeatureResource> resources = new ArrayList<FeatureResource>();
+        final List<BundleRepositoryHolder> holders = new ArrayList<BundleRepositoryHolder>();
+        bundleList.foreach(new BundleList.FeatureResourceHandler() {
+            @Override
+            public boolean handle(FeatureResource fr) {
+                BundleRepositoryHolder bundleRepositoryHolder = featureManager.getBundleRepositoryHolder(fr.getBundleRepositoryType());
+                if (bundleRepositoryHolder != null) {
+                    resources.add(fr);
+                    holders.add(bundleRepositoryHolder);
+                }
+                return true;
             }
         });
+
+        ExecutorService executor = featureManager.executorService;
+        int helpers = Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_SELECT_THREADS), resources.size()) - 1;
+        if (executor == null || helpers <= 0) {
+            return;
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch selected = new CountDownLatch(resources.size());
+        Runnable selector = new Runnable() {
+            @Override
+            @FFDCIgnore(Exception.class)
+            public void run() {
+                for (int i = next.getAndIncrement(); i < resources.size(); i = next.getAndIncrement()) {
+                    FeatureResource fr = resources.get(i);
+                    BundleRepositoryHolder bundleRepositoryHolder = holders.get(i);
+                    try {
+                        Bundle bundle = fetchInstalledBundle(fr.getLocation(), bundleRepositoryHolder.getFeatureType());
+                        if (bundle != null) {
+                            installedBundles.put(fr, bundle);
+                        } else {
+                            File bundleFile = bundleRepositoryHolder.getBundleRepository().selectBundle(fr.getLocation(), fr.getSymbolicName(), fr.getVersionRange());
+                            if (bundleFile != null) {
+                                selectedFiles.put(fr, bundleFile);
+                            }
+                        }
+                    } catch (Exception e) {
+                        // The bundle is selected again when installing, which reports the error.
+                    } finally {
+                        selected.countDown();
+                    }
+                }
+            }
+        };
+
+        long startTime = System.nanoTime();
+        try {
+            for (int i = 0; i < helpers; i++) {
+                executor.execute(selector);
+            }
+        } catch (RejectedExecutionException e) {
+            // The provisioning thread selects the remaining bundles.
+        }
+        selector.run();
+        try {
+            selected.await();
+        } catch (InterruptedException e) {
+            // Use the bundles selected so far; the remainder are selected when installing.
+            Thread.currentThread().interrupt();
+        }
+
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "Found " + installedBundles.size() + " installed and selected " + selectedFiles.size() + " of " + resources.size() + " bundles using "
+                         + (helpers + 1) + " threads in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + " ms");
+        }
     }
 
     private File getBootJar() {
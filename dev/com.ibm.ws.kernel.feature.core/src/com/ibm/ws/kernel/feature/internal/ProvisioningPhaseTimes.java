@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.kernel.feature.internal;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.ibm.websphere.ras.annotation.Trivial;
+
+/**
+ * Times of the phases of a feature update, for startup profiling.
+ * <p>
+ * Each call to {@link #endPhase(String)} records the time since the previous
+ * call, or since this object was created. Times of a phase which is ended more
+ * than once are added together. Not thread safe: the phases of an update are
+ * ended by the thread performing the update.
+ */
+public class ProvisioningPhaseTimes {
+    /** Property of the feature change event which holds the phase times, in milliseconds. */
+    public static final String EVENT_PROPERTY = "phaseTimes";
+
+    private final Map<String, Long> phaseNanos = new LinkedHashMap<String, Long>();
+    private long phaseStart = System.nanoTime();
+
+    @Trivial
+    public void endPhase(String phase) {
+        long now = System.nanoTime();
+        Long previous = phaseNanos.get(phase);
+        phaseNanos.put(phase, (previous == null ? 0 : previous) + (now - phaseStart));
+        phaseStart = now;
+    }
+
+    /**
+     * @return the times of the phases, in milliseconds, in the order the phases were first ended
+     */
+    public Map<String, Long> getPhaseMillis() {
+        Map<String, Long> phaseMillis = new LinkedHashMap<String, Long>(phaseNanos.size());
+        for (Map.Entry<String, Long> entry : phaseNanos.entrySet()) {
+            phaseMillis.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(phaseMillis);
+    }
+
+    @Override
+    @Trivial
+    public String toString() {
+        return getPhaseMillis().toString();
+    }
+}
@@ -170,9 +170,11 @@ final class JsJmsBytesMessageImpl extends JsJmsMessageImpl implements JsJmsBytes
    */
   int guessPayloadLength() {
     int length = 0;
-    byte[] payload = (byte[])getPayload().getField(JmsBytesBodyAccess.BODY_DATA_VALUE);
-    if (payload != null) {
-      length = payload.length + 24;
+    // Estimate from the length held in the encoded body rather than getting the body,
+    // which would copy it out of the message buffer just to find its length.
+    int size = getPayload().estimateFieldValueSize(JmsBytesBodyAccess.BODY_DATA_VALUE);
+    if (size > 0) {
+      length = size + 24;
     }
     return length;
   }
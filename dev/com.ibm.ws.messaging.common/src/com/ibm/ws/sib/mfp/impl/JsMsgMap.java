@@ -136,6 +136,18 @@ public class JsMsgMap extends AbstractMap<String,Object> implements FFDCSelfIntr
     return backingMap.entrySet();
   }
 
+  // AbstractMap implements get and containsKey by iterating the entrySet, which would
+  // create an entry for every property and, for a ListMap, decode every key up to the
+  // one wanted. Delegate to the backingMap instead so that reading a single property
+  // from an unchanged map decodes only the keys it passes and the one value returned.
+  public Object get(Object key) {
+    return backingMap.get(key);
+  }
+
+  public boolean containsKey(Object key) {
+    return backingMap.containsKey(key);
+  }
+
   // The first update to a map causes us to have to write the whole map out again
   // during encode. Therefore don't do a 'first update' unless necessary.
   // Once we've made one update, others don't matter so save time by not checking.  d317373.1
@@ -193,6 +205,28 @@ public class JsMsgMap extends AbstractMap<String,Object> implements FFDCSelfIntr
       return entries;
     }
 
+    // Find the position of a key in the key list, without decoding any values.
+    private int indexOf(Object key) {
+      List keys = (List)keyList;
+      int size = keys.size();
+      for (int i = 0; i < size; i++) {
+        Object k = keys.get(i);
+        if (key == null ? k == null : key.equals(k)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public Object get(Object key) {
+      int index = indexOf(key);
+      return (index == -1) ? null : ((List)valueList).get(index);
+    }
+
+    public boolean containsKey(Object key) {
+      return indexOf(key) != -1;
+    }
+
     private class ListSet extends AbstractSet<Map.Entry<String,Object>> {
       public int size() {
         return keyList.size();
@@ -217,6 +217,12 @@ public interface MessageStoreConstants
     public final static String PROP_JDBC_SPILL_MAX_DISPATCHED_BYTES_PER_THREAD = "jdbcSpillMaxDispatchedBytesPerThread";
     public final static String PROP_JDBC_SPILL_MAX_DISPATCHED_BYTES_PER_THREAD_DEFAULT = "10000000";
 
+    // The time in milliseconds a single Spill batch should take to write. The batch
+    // limits of each worker thread are reduced when batches take longer than this and
+    // raised again towards the maximums while work is queueing. Zero disables adapting.
+    public final static String PROP_JDBC_SPILL_TARGET_BATCH_LATENCY = "jdbcSpillTargetBatchLatency";
+    public final static String PROP_JDBC_SPILL_TARGET_BATCH_LATENCY_DEFAULT = "100";
+
     // Whether message references should be sized using the size of the message they reference
     public final static String PROP_JDBC_SPILL_SIZE_MSG_REFS_BY_MSG_SIZE = "jdbcSpillSizeMsgRefsByMsgSize";
     public final static String PROP_JDBC_SPILL_SIZE_MSG_REFS_BY_MSG_SIZE_DEFAULT = "false";
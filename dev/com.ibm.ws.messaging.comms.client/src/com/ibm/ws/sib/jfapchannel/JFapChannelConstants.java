@@ -205,6 +205,15 @@ public class JFapChannelConstants {
     public final static String RUNTIMEINFO_KEY_MAX_PRIORITY_QUEUE_BYTES = "com.ibm.ws.sib.jfapchannel.maxPriorityQueueBytes";
     // end D192359
 
+    // Time in milliseconds that an idle connection waits for further transmissions to be
+    // queued before it starts a write that would carry fewer than the write batch count
+    // transmissions and write batch bytes.  Zero, the default, starts the write at once.
+    public final static String RUNTIMEINFO_KEY_WRITE_LINGER_TIME = "com.ibm.ws.sib.jfapchannel.writeLingerTime";
+    public final static String RUNTIMEINFO_KEY_WRITE_BATCH_COUNT = "com.ibm.ws.sib.jfapchannel.writeBatchCount";
+    public final static String RUNTIMEINFO_KEY_WRITE_BATCH_BYTES = "com.ibm.ws.sib.jfapchannel.writeBatchBytes";
+    public final static int DEFAULT_WRITE_LINGER_TIME = 0;
+    public final static int DEFAULT_WRITE_BATCH_COUNT = 16;
+
     // The name of the property in the SIB Client SSL file that specifies the JSSE provider. This
     // is only needed in the JFap thin client
     public final static String RUNTIMEINFO_JSSE_PROVIDER = "com.ibm.ws.sib.jsseProvider";
@@ -1604,6 +1604,10 @@ public abstract class Connection implements ConnectionInterface
    {
       StringBuffer sb = new StringBuffer();
       sb.append(eventRecorder);
+      if (writeCompletedCallback != null)
+      {
+         sb.append("\nWrite statistics: ").append(writeCompletedCallback.getStatistics());
+      }
       if (includeConversations)
       {
          synchronized(conversationTable)
@@ -13,6 +13,9 @@ package com.ibm.ws.sib.jfapchannel.impl;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+
+import com.ibm.ejs.util.am.Alarm;
+import com.ibm.ejs.util.am.AlarmListener;
 import com.ibm.websphere.ras.TraceComponent;
 import com.ibm.ws.ffdc.FFDCFilter;
 import com.ibm.ws.sib.jfapchannel.Conversation;
@@ -20,6 +23,7 @@ import com.ibm.ws.sib.jfapchannel.JFapChannelConstants;
 import com.ibm.ws.sib.jfapchannel.SendListener;
 import com.ibm.ws.sib.jfapchannel.buffer.WsByteBuffer;
 import com.ibm.ws.sib.jfapchannel.buffer.WsByteBufferPool;
+import com.ibm.ws.sib.jfapchannel.framework.Framework;
 import com.ibm.ws.sib.jfapchannel.framework.IOWriteCompletedCallback;
 import com.ibm.ws.sib.jfapchannel.framework.IOWriteRequestContext;
 import com.ibm.ws.sib.jfapchannel.framework.NetworkConnection;
@@ -32,7 +36,7 @@ import com.ibm.wsspi.sib.core.exception.SIConnectionDroppedException;
  * owned and registered once per connection.
  * @author prestona
  */
-public class ConnectionWriteCompletedCallback implements IOWriteCompletedCallback
+public class ConnectionWriteCompletedCallback implements IOWriteCompletedCallback, AlarmListener
 {
    private static final TraceComponent tc = SibTr.register(ConnectionWriteCompletedCallback.class, JFapChannelConstants.MSG_GROUP, JFapChannelConstants.MSG_BUNDLE);
    
@@ -78,6 +82,26 @@ public class ConnectionWriteCompletedCallback implements IOWriteCompletedCallbac
    // one off buffer intialisation.
    private boolean firstInvocation = true;                                          // F181603.2
 
+   // How long an idle connection waits for more transmissions before starting a write
+   // that would carry fewer than writeBatchCount transmissions and writeBatchBytes bytes.
+   // Once a write is in progress, transmissions queued meanwhile are always written
+   // together when it completes, so the wait only applies to the first write after idle.
+   private static final int writeLingerTime =
+      getIntProperty(JFapChannelConstants.RUNTIMEINFO_KEY_WRITE_LINGER_TIME, JFapChannelConstants.DEFAULT_WRITE_LINGER_TIME);
+   private static final int writeBatchCount =
+      getIntProperty(JFapChannelConstants.RUNTIMEINFO_KEY_WRITE_BATCH_COUNT, JFapChannelConstants.DEFAULT_WRITE_BATCH_COUNT);
+   private static final int writeBatchBytes =
+      getIntProperty(JFapChannelConstants.RUNTIMEINFO_KEY_WRITE_BATCH_BYTES, JFapChannelConstants.DEFAULT_WRITE_BUFFER_SIZE);
+
+   // Is an alarm set to start a write when the linger time expires.
+   private boolean lingering = false;
+
+   // Statistics, updated only by the thread performing the write.
+   private long writeCount = 0;
+   private long transmissionCount = 0;
+   // Number of times a linger alarm was set, updated while synchronized on this.
+   private long lingerCount = 0;
+
 	/**
     * Creates a new callback which will use the specified queue and send lock.
     * 
@@ -106,23 +130,57 @@ public class ConnectionWriteCompletedCallback implements IOWriteCompletedCallbac
    // being F176003, F181603.2, D192359    
    protected void proddle() throws SIConnectionDroppedException
    {
-      if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "proddle");
+      proddle(false);
+   }
+
+   /**
+    * Proddles the JFAP Channel to write data, see proddle().
+    *
+    * @param lingerExpired True if the linger alarm has fired, in which case any queued data is
+    * written regardless of how much there is.
+    */
+   private void proddle(boolean lingerExpired) throws SIConnectionDroppedException
+   {
+      if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "proddle", Boolean.valueOf(lingerExpired));
       
       boolean writeOnThisThread = false;
+      boolean setLingerAlarm = false;
       
       // begin D226210
       synchronized(priorityQueue)
       {
          synchronized(this)
          {
-            if (idle && !terminate)
+            if (lingerExpired) lingering = false;
+
+            if (idle && !terminate && isWorkAvailable())
             {
-               idle = !isWorkAvailable();
-               if (!idle) writeOnThisThread = true;
+               if (!lingerExpired && shouldLinger())
+               {
+                  // Wait for more transmissions to be queued, unless an alarm is already set.
+                  if (!lingering)
+                  {
+                     lingering = true;
+                     setLingerAlarm = true;
+                     ++lingerCount;
+                  }
+               }
+               else
+               {
+                  idle = false;
+                  writeOnThisThread = true;
+               }
             }
          }
       } 
       // end D226210
+
+      if (setLingerAlarm)
+      {
+         Alarm alarm = Framework.getInstance().getAlarmManager().createNonDeferrable(writeLingerTime, this, null);
+         // Without an alarm nothing would start the write, so start it now.
+         if (alarm == null) proddle(true);
+      }
       
       if (writeOnThisThread)
       {
@@ -152,6 +210,7 @@ public class ConnectionWriteCompletedCallback implements IOWriteCompletedCallbac
          {
             writeBuffer.flip();
             idle = false;
+            ++writeCount;
 
             NetworkConnection vc = null;
                         
@@ -275,6 +334,7 @@ public class ConnectionWriteCompletedCallback implements IOWriteCompletedCallbac
                   if (dequeueTransmissionData(writeBuffer))
                   {
                      writeBuffer.flip();
+                     ++writeCount;
                      vc = null;
                      synchronized(connectionClosedLock)
                      {
@@ -478,6 +538,8 @@ public class ConnectionWriteCompletedCallback implements IOWriteCompletedCallbac
             
             if (finishedThisTransmission)
             {
+               ++transmissionCount;
+
                //We now have a complete transmission for sending.
                //Is this transmission the last one that should be sent over this connection?
                terminate = partiallySentTransmission.isTerminal();
@@ -509,4 +571,60 @@ public class ConnectionWriteCompletedCallback implements IOWriteCompletedCallbac
       return (partiallySentTransmission != null) || (!priorityQueue.isEmpty()); 	
    }
    // end D192359
+
+   /**
+    * Returns true if a write should wait for more transmissions to be queued.  Called with
+    * the priority queue and this callback locked.
+    */
+   private boolean shouldLinger()
+   {
+      return (writeLingerTime > 0) &&
+             (partiallySentTransmission == null) &&
+             priorityQueue.isBelow(writeBatchCount, writeBatchBytes);
+   }
+
+   /**
+    * Part of the alarm listener interface.  Notified when the linger time expires, starts
+    * a write of whatever has been queued.
+    */
+   public void alarm(Object context)
+   {
+      if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "alarm", context);
+      try
+      {
+         proddle(true);
+      }
+      catch(SIConnectionDroppedException e)
+      {
+         // No FFDC code needed
+         // The priority queue was purged while we lingered, so there is nothing to write.
+         if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Caught SIConnectionDroppedException, Priority Queue has been purged");
+      }
+      if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.exit(this, tc, "alarm");
+   }
+
+   /**
+    * @return A description of the writes performed, for diagnostics.
+    */
+   protected String getStatistics()
+   {
+      return "writes=" + writeCount +
+             " transmissions=" + transmissionCount +
+             " transmissionsPerWrite=" + (writeCount == 0 ? 0 : transmissionCount / writeCount) +
+             " lingers=" + lingerCount +
+             " writeLingerTime=" + writeLingerTime;
+   }
+
+   private static int getIntProperty(String key, int defaultValue)
+   {
+      try
+      {
+         return Integer.parseInt(RuntimeInfo.getProperty(key, ""+defaultValue));
+      }
+      catch(NumberFormatException nfe)
+      {
+         // No FFDC code needed
+         return defaultValue;
+      }
+   }
 }
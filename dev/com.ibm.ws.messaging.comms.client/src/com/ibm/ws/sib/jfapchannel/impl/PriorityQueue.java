@@ -569,6 +569,26 @@ public class PriorityQueue
    }
    // end F193735.3
 
+   /**
+    * Returns true iff the priority queue holds fewer transmissions and fewer bytes
+    * than the supplied limits.  Used to decide whether it is worth waiting for more
+    * transmissions before starting a write.
+    * @param depth The number of transmissions.
+    * @param bytes The number of bytes.
+    * @return True iff both the queue depth and the queued bytes are below the limits.
+    */
+   public boolean isBelow(int depth, int bytes)
+   {
+      synchronized(queueMonitor)
+      {
+         if (state != OPEN || totalQueueDepth >= depth) return false;
+         int queuedBytes = 0;
+         for (int i=0; i < JFapChannelConstants.MAX_PRIORITY_LEVELS; ++i)
+            queuedBytes += queueArray[i].bytes;
+         return queuedBytes < bytes;
+      }
+   }
+
    /**
     * Returns true iff this priority queue is empty.
     * @throws SIConnectionDroppedException if the priorty queue has been
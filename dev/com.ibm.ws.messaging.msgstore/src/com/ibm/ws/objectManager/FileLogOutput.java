@@ -42,6 +42,9 @@ import com.ibm.ws.objectManager.utils.Tracing;
  * 
  * This logger allows the size of the log file to be changed while it is use.
  * 
+ * If mappedSegmentSize is set the pages are written through fixed size memory mapped segments
+ * of the log file, see MappedLogSegments, and each flush set is hardened by a single force.
+ * 
  * Linear logging not implemented.
  * 
  * The ObjectManager must terminate any logHelpers before it starts a new log
@@ -224,6 +227,11 @@ public class FileLogOutput
     private Object multiPartIDLock = new Object();
 
     public static long coldStartLogFileSize = 10 * 1024 * 1024; // Initial size of the log.
+    // If greater than zero the log pages are written through memory mapped segments of this many bytes
+    // and forced once per flush set, rather than written synchronously with RandomAccessFile.write(). 
+    public static int mappedSegmentSize = Integer.getInteger("com.ibm.ws.objectManager.mappedLogSegmentSize", 0).intValue();
+    // Writes the log pages when mappedSegmentSize is set, used only by the FlushHelper thread.
+    private MappedLogSegments mappedLogSegments = null;
 
     // Worker thread for flushing.
     protected FlushHelper flushHelper = null;
@@ -481,6 +489,10 @@ public class FileLogOutput
 
         setFileSpaceLeft(); // Calculate the space left in the log file.
 
+        if (mappedSegmentSize > 0 && objectManagerState.nioAvailable)
+            mappedLogSegments = new MappedLogSegments(logFile,
+                                                      mappedSegmentSize);
+
         // Allocate the space available in the log but hold back space for... 
         //         Two FileLogHeaders.
         //         A sector byte on each writable page.
@@ -589,6 +601,8 @@ public class FileLogOutput
             flushHelper.shutdown(); // Complete outstanding work.
         if (notifyHelper != null)
             notifyHelper.shutdown(); // No longer need a notify thread.
+        if (mappedLogSegments != null)
+            mappedLogSegments.release();
 
         logFile = null;
 
@@ -1897,6 +1911,8 @@ public class FileLogOutput
         statistics.put("stalledForMultiPartID", Long.toString(stalledForMultiPartID));
         statistics.put("totalPaddingBytesWritten", Long.toString(totalPaddingBytesWritten));
         statistics.put("totalPaddingRecords", Long.toString(totalPaddingRecords));
+        if (mappedLogSegments != null)
+            mappedLogSegments.captureStatistics(statistics);
 
         String histogram = "(0-15 >15) ";
         for (int n = 0; n < numberOfFlushWaitersFrequency.length; n++) {
@@ -2240,7 +2256,28 @@ public class FileLogOutput
                      */
 
                     // See if the buffer is wrapped.
-                    if (endPage > startPage) {
+                    if (mappedLogSegments != null) {
+                        // Copy into the mapped log file, the FlushHelper forces the pages after writing the flush set.
+                        if (endPage > startPage) {
+                            mappedLogSegments.write(filePosition,
+                                                    buffer,
+                                                    startPage * pageSize,
+                                                    (endPage - startPage) * pageSize);
+                            filePosition = filePosition + (endPage - startPage) * pageSize;
+                        } else {
+                            mappedLogSegments.write(filePosition,
+                                                    buffer,
+                                                    startPage * pageSize,
+                                                    (numberOfPages - startPage) * pageSize);
+                            filePosition = filePosition + (numberOfPages - startPage) * pageSize;
+                            // The log buffer may have wrapped into a new bigger one.
+                            mappedLogSegments.write(filePosition,
+                                                    logBuffer.buffer,
+                                                    0,
+                                                    endPage * pageSize);
+                            filePosition = filePosition + endPage * pageSize;
+                        } // if (endPage > startPage).
+                    } else if (endPage > startPage) {
                         logFile.write(buffer,
                                       startPage * pageSize,
                                       (endPage - startPage) * pageSize);
@@ -2951,6 +2988,11 @@ public class FileLogOutput
                 doWriteAndBufferCycle(endPage, flushFirstPageFilling);
             } // if (cycleLog).
 
+            // Harden the whole flush set with one force of the mapped segments. This must be done
+            // before the header is rewritten and before the flush waiters are notified.
+            if (mappedLogSegments != null)
+                mappedLogSegments.force();
+
             // Should we truncate the log?
             if (truncateRequested) {
                 if (Tracing.isAnyTracingEnabled() && trace.isDebugEnabled())
@@ -3108,6 +3150,8 @@ public class FileLogOutput
 
                                 // Release the space in the file system.
                                 try {
+                                    if (mappedLogSegments != null)
+                                        mappedLogSegments.release();
                                     logFile.seek(filePosition);
                                     logFile.setLength(newFileSize);
 
@@ -3149,6 +3193,8 @@ public class FileLogOutput
 
                         // Reserve the full amount of the file but do not set logHeader.FileSize yet.
                         try {
+                            if (mappedLogSegments != null)
+                                mappedLogSegments.release();
                             logFile.setLength(newFileSize);
                             logFile.seek(fileLogHeader.fileSize);
                             for (long istart = fileLogHeader.fileSize; istart < newFileSize; istart = istart + newPages.length)
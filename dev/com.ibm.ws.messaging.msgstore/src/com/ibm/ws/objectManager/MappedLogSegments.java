@@ -0,0 +1,270 @@
+package com.ibm.ws.objectManager;
+
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+import com.ibm.ws.objectManager.utils.Trace;
+import com.ibm.ws.objectManager.utils.Tracing;
+
+/**
+ * <p>MappedLogSegments, writes the pages of a FileLogOutput through fixed size memory mapped
+ * segments of the log file rather than through RandomAccessFile.write().
+ *
+ * The log file is divided into segments of segmentSize bytes, the last one may be shorter.
+ * Each segment is mapped the first time a page is written into it and stays mapped, so as
+ * the circular log cycles through the file the same segments are reused. Writing a page
+ * is a copy into the page cache, the segments written since the last force are
+ * forced together by force(), so one force hardens every log record in the flush set
+ * whatever the number of transactions waiting for it.
+ *
+ * Only the FlushHelper thread uses an instance, so there is no synchronization.
+ * The log header is still written with RandomAccessFile, callers must force() the pages
+ * before rewriting the header so that the header never points at unwritten data.
+ *
+ * Before the length of the log file is changed release() unmaps the segments explicitly,
+ * a file with live mappings cannot be truncated on some platforms, and a mapping beyond the
+ * end of a shortened file must never be touched.
+ *
+ * @author IBM Corporation
+ */
+class MappedLogSegments
+{
+    private static final Class cclass = MappedLogSegments.class;
+    private static Trace trace = ObjectManager.traceFactory.getTrace(cclass,
+                                                                     ObjectManagerConstants.MSG_GROUP_LOG);
+
+    private final java.nio.channels.FileChannel fileChannel;
+    private final int segmentSize;
+    // Mapped segments indexed by file position / segmentSize, null until first written.
+    private java.nio.MappedByteBuffer[] segments = new java.nio.MappedByteBuffer[0];
+    // Segments written since the last force.
+    private final java.util.BitSet dirtySegments = new java.util.BitSet();
+
+    // Statistics.
+    private long totalNumberOfForces = 0;
+    private long totalNumberOfSegmentsForced = 0;
+    private long totalNumberOfSegmentsMapped = 0;
+    private long totalNumberOfSegmentsUnmapped = 0;
+
+    // There is no public API to unmap a MappedByteBuffer, the JVM's own cleaner is found reflectively.
+    // Java 9 and later, sun.misc.Unsafe.invokeCleaner(ByteBuffer).
+    private static Object unsafe = null;
+    private static java.lang.reflect.Method invokeCleanerMethod = null;
+    // Earlier releases, sun.nio.ch.DirectBuffer.cleaner() returning a sun.misc.Cleaner with clean().
+    private static java.lang.reflect.Method cleanerMethod = null;
+    private static java.lang.reflect.Method cleanMethod = null;
+
+    static {
+        java.security.AccessController.doPrivileged(new java.security.PrivilegedAction<Object>() {
+            @Override
+            public Object run()
+            {
+                try {
+                    Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                    invokeCleanerMethod = unsafeClass.getMethod("invokeCleaner", new Class[] { java.nio.ByteBuffer.class });
+                    java.lang.reflect.Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                    theUnsafe.setAccessible(true);
+                    unsafe = theUnsafe.get(null);
+                } catch (Exception exception) {
+                    // No FFDC Code Needed.
+                    invokeCleanerMethod = null;
+                    try {
+                        cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner", new Class[0]);
+                        cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean", new Class[0]);
+                    } catch (Exception exception2) {
+                        // No FFDC Code Needed.
+                        cleanerMethod = null;
+                        cleanMethod = null;
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Constructor
+     *
+     * @param logFile the log file, opened for read and write.
+     * @param segmentSize the size of each mapped segment in bytes, rounded down to a whole number of pages.
+     */
+    MappedLogSegments(java.io.RandomAccessFile logFile,
+                      int segmentSize)
+    {
+        final String methodName = "<init>";
+        if (Tracing.isAnyTracingEnabled() && trace.isEntryEnabled())
+            trace.entry(this, cclass, methodName, new Object[] { logFile, new Integer(segmentSize) });
+
+        this.fileChannel = logFile.getChannel();
+        this.segmentSize = Math.max(FileLogOutput.pageSize, (segmentSize / FileLogOutput.pageSize) * FileLogOutput.pageSize);
+
+        if (Tracing.isAnyTracingEnabled() && trace.isEntryEnabled())
+            trace.exit(this, cclass, methodName);
+    } // MappedLogSegments().
+
+    /**
+     * Copy bytes into the log file at the given position, mapping segments as needed.
+     * The bytes are not hardened until force() is called.
+     *
+     * @param filePosition the byte address in the log file to write at.
+     * @param buffer containing the bytes to write.
+     * @param offset of the first byte in the buffer.
+     * @param length the number of bytes to write.
+     * @throws java.io.IOException
+     */
+    void write(long filePosition,
+               byte[] buffer,
+               int offset,
+               int length)
+                    throws java.io.IOException
+    {
+        while (length > 0) {
+            int index = (int) (filePosition / segmentSize);
+            int positionInSegment = (int) (filePosition % segmentSize);
+            java.nio.MappedByteBuffer segment = getSegment(index);
+            int bytesToCopy = Math.min(length, segment.capacity() - positionInSegment);
+            if (bytesToCopy <= 0)
+                throw new java.io.IOException("Write at " + filePosition + " is beyond the end of the mapped log file");
+
+            java.nio.ByteBuffer target = segment.duplicate();
+            target.position(positionInSegment);
+            target.put(buffer, offset, bytesToCopy);
+            dirtySegments.set(index);
+
+            filePosition = filePosition + bytesToCopy;
+            offset = offset + bytesToCopy;
+            length = length - bytesToCopy;
+        } // while (length > 0).
+    } // write().
+
+    /**
+     * Force the segments written since the last force to disk.
+     */
+    void force()
+    {
+        if (dirtySegments.isEmpty())
+            return;
+
+        for (int index = dirtySegments.nextSetBit(0); index >= 0; index = dirtySegments.nextSetBit(index + 1)) {
+            segments[index].force();
+            totalNumberOfSegmentsForced++;
+        }
+        dirtySegments.clear();
+        totalNumberOfForces++;
+    } // force().
+
+    /**
+     * Force any outstanding writes and unmap all segments. Must be called before the length of the
+     * log file is changed, segments are remapped at the new length when they are next written.
+     */
+    void release()
+    {
+        if (Tracing.isAnyTracingEnabled() && trace.isEntryEnabled())
+            trace.entry(this, cclass, "release");
+
+        force();
+        java.nio.MappedByteBuffer[] releasedSegments = segments;
+        segments = new java.nio.MappedByteBuffer[0];
+        for (int index = 0; index < releasedSegments.length; index++) {
+            if (releasedSegments[index] != null && unmap(releasedSegments[index]))
+                totalNumberOfSegmentsUnmapped++;
+        }
+
+        if (Tracing.isAnyTracingEnabled() && trace.isEntryEnabled())
+            trace.exit(this, cclass, "release");
+    } // release().
+
+    /**
+     * Unmap a segment. The segment must not be used afterwards, any access to an unmapped
+     * buffer crashes the JVM. If the JVM provides no way to unmap, the mapping is left to be
+     * released when the buffer is garbage collected.
+     *
+     * @param segment to unmap.
+     * @return boolean true if the segment was unmapped.
+     */
+    private boolean unmap(final java.nio.MappedByteBuffer segment)
+    {
+        if (invokeCleanerMethod == null && cleanerMethod == null)
+            return false;
+
+        try {
+            java.security.AccessController.doPrivileged(new java.security.PrivilegedExceptionAction<Object>() {
+                @Override
+                public Object run() throws Exception
+                {
+                    if (invokeCleanerMethod != null) {
+                        invokeCleanerMethod.invoke(unsafe, new Object[] { segment });
+                    } else {
+                        Object cleaner = cleanerMethod.invoke(segment, new Object[0]);
+                        if (cleaner != null)
+                            cleanMethod.invoke(cleaner, new Object[0]);
+                    }
+                    return null;
+                }
+            });
+            return true;
+
+        } catch (java.security.PrivilegedActionException exception) {
+            // No FFDC Code Needed.
+            if (Tracing.isAnyTracingEnabled() && trace.isDebugEnabled())
+                trace.debug(this, cclass, "unmap", exception.getException());
+            return false;
+        } // catch (PrivilegedActionException...
+    } // unmap().
+
+    /**
+     * Find the mapped segment with the given index, mapping it if necessary.
+     *
+     * @param index of the segment.
+     * @return java.nio.MappedByteBuffer the mapped segment.
+     * @throws java.io.IOException
+     */
+    private java.nio.MappedByteBuffer getSegment(int index)
+                    throws java.io.IOException
+    {
+        if (index >= segments.length) {
+            java.nio.MappedByteBuffer[] newSegments = new java.nio.MappedByteBuffer[index + 1];
+            System.arraycopy(segments, 0, newSegments, 0, segments.length);
+            segments = newSegments;
+        }
+
+        java.nio.MappedByteBuffer segment = segments[index];
+        if (segment == null) {
+            long start = (long) index * segmentSize;
+            long size = Math.min(segmentSize, fileChannel.size() - start);
+            if (size <= 0)
+                throw new java.io.IOException("Segment " + index + " is beyond the end of the log file");
+            segment = fileChannel.map(java.nio.channels.FileChannel.MapMode.READ_WRITE, start, size);
+            segments[index] = segment;
+            totalNumberOfSegmentsMapped++;
+
+            if (Tracing.isAnyTracingEnabled() && trace.isDebugEnabled())
+                trace.debug(this, cclass, "getSegment", new Object[] { "Mapped segment", new Integer(index), new Long(start), new Long(size) });
+        }
+        return segment;
+    } // getSegment().
+
+    /**
+     * Add the statistics for the mapped segments.
+     *
+     * @param statistics to add to.
+     */
+    void captureStatistics(java.util.Map statistics)
+    {
+        statistics.put("mappedSegmentSize", Integer.toString(segmentSize));
+        statistics.put("totalNumberOfMappedSegmentForces", Long.toString(totalNumberOfForces));
+        statistics.put("totalNumberOfSegmentsForced", Long.toString(totalNumberOfSegmentsForced));
+        statistics.put("totalNumberOfSegmentsMapped", Long.toString(totalNumberOfSegmentsMapped));
+        statistics.put("totalNumberOfSegmentsUnmapped", Long.toString(totalNumberOfSegmentsUnmapped));
+        totalNumberOfForces = 0;
+        totalNumberOfSegmentsForced = 0;
+    } // captureStatistics().
+} // class MappedLogSegments.
@@ -10,8 +10,10 @@ package com.ibm.ws.sib.msgstore.persistence.dispatcher;
  *     IBM Corporation - initial API and implementation
  *******************************************************************************/
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 
 import com.ibm.ws.sib.admin.JsMessagingEngine;
 import com.ibm.ws.sib.msgstore.MessageStoreConstants;
@@ -75,6 +77,20 @@ public class SpillDispatcher extends DispatcherBase
     // dispatch queue without waiting
     private long _maxDispatchedBytesPerThread;
 
+    // The time in milliseconds a batch should take to write. Each thread reduces
+    // its batch limits below the maximums above when its batches take longer.
+    // Zero disables adapting the batch limits.
+    private long _targetBatchLatency;
+
+    // Number of buckets in the batch size and batch latency histograms. Bucket n
+    // counts values from 2^(n-1) to 2^n - 1, the last bucket counts the rest.
+    private static final int HISTOGRAM_BUCKETS = 12;
+
+    // The time in milliseconds a thread waits before looking again at tasks it left
+    // on its queues because their items were about to be removed. The removal may
+    // roll back, and nothing else wakes the thread when it does.
+    private static final long REMOVING_TASK_RECHECK_INTERVAL = 100;
+
     // The number of successful writes required to reset the error state
     public int _writesToResetErrorState;
 
@@ -150,6 +166,10 @@ public class SpillDispatcher extends DispatcherBase
                                                                  MessageStoreConstants.PROP_JDBC_SPILL_MAX_DISPATCHED_BYTES_PER_THREAD,
                                                                  MessageStoreConstants.PROP_JDBC_SPILL_MAX_DISPATCHED_BYTES_PER_THREAD_DEFAULT,
                                                                  100000L, 1000000000L);
+        _targetBatchLatency = obtainLongConfigParameter(_msi,
+                                                        MessageStoreConstants.PROP_JDBC_SPILL_TARGET_BATCH_LATENCY,
+                                                        MessageStoreConstants.PROP_JDBC_SPILL_TARGET_BATCH_LATENCY_DEFAULT,
+                                                        0L, 60000L);
 
         if (_minBytesPerBatch > _maxDispatchedBytesPerThread)
         {
@@ -388,6 +408,8 @@ public class SpillDispatcher extends DispatcherBase
                     //No FFDC Code Needed.
                 }
             }
+
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Batch statistics", getStatistics());
         } // end if (performingTheStop)
 
 
@@ -415,6 +437,74 @@ public class SpillDispatcher extends DispatcherBase
         if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.exit(this, tc, "threadWriteErrorCleared", "_threadWriteErrorsOutstanding="+_threadWriteErrorsOutstanding);
     }
 
+    /**
+     * Captures the batching statistics of the worker threads. The histograms count
+     * batches by number of tasks and by the milliseconds taken to write them, in
+     * buckets of 0, 1, 2-3, 4-7 and so on.
+     *
+     * @return the statistics keyed by name.
+     */
+    public Map<String, String> getStatistics()
+    {
+        Map<String, String> statistics = new HashMap<String, String>();
+
+        if (_workers != null)
+        {
+            long[] batchSizeFrequency = new long[HISTOGRAM_BUCKETS];
+            long[] batchLatencyFrequency = new long[HISTOGRAM_BUCKETS];
+            StringBuilder taskLimits = new StringBuilder();
+            StringBuilder byteLimits = new StringBuilder();
+
+            for (int i = 0; i < _workers.length; i++)
+            {
+                if (_workers[i] != null)
+                {
+                    _workers[i].addStatistics(batchSizeFrequency, batchLatencyFrequency, taskLimits, byteLimits);
+                }
+            }
+
+            statistics.put("batchSizeFrequency", histogramToString(batchSizeFrequency));
+            statistics.put("batchLatencyFrequency", histogramToString(batchLatencyFrequency));
+            statistics.put("maxTasksPerBatch", taskLimits.toString());
+            statistics.put("maxBytesPerBatch", byteLimits.toString());
+        }
+
+        statistics.put("targetBatchLatency", Long.toString(_targetBatchLatency));
+
+        return statistics;
+    }
+
+    /**
+     * Checks whether the item of a task is about to be removed. Adds and updates
+     * for such items are left on the dispatch queues so that the removal can cancel
+     * them. Not private so that the dispatcher can be tested without a message store.
+     *
+     * @param task The task to check.
+     * @return <tt>true</tt> if the item of the task is in removing state.
+     */
+    boolean isRemoving(Task task)
+    {
+        return (task.getLink() != null) && task.getLink().isRemoving();
+    }
+
+    /**
+     * Returns the histogram bucket for a value.
+     */
+    private static int histogramBucket(long value)
+    {
+        return (value <= 0) ? 0 : Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    private static String histogramToString(long[] frequency)
+    {
+        StringBuilder histogram = new StringBuilder("(0 1 2-3 ... >=" + (1L << (HISTOGRAM_BUCKETS - 2)) + ") ");
+        for (int n = 0; n < frequency.length; n++)
+        {
+            histogram.append(frequency[n]).append(' ');
+        }
+        return histogram.toString();
+    }
+
     // SIB0112d.ms.2
 
     /**
@@ -511,6 +601,19 @@ public class SpillDispatcher extends DispatcherBase
         // Whether there is an unanswered notify() outstanding. If so, don't trigger another
         private boolean _notifyOutstanding = false;
 
+        // The current batch limits of this thread. These start at the configured maximums
+        // and are adapted to the write latency of the batches, see batchWritten().
+        private int _adaptiveMaxTasksPerBatch;
+        private long _adaptiveMaxBytesPerBatch;
+
+        // Histograms of the number of tasks in each batch and the milliseconds taken to write it
+        private final long[] _batchSizeFrequency = new long[HISTOGRAM_BUCKETS];
+        private final long[] _batchLatencyFrequency = new long[HISTOGRAM_BUCKETS];
+
+        // Whether the last call to buildBatch() left tasks on the dispatch queues because
+        // their items were about to be removed
+        private boolean _holdingRemovingTasks = false;
+
 
         /**
          * Constructs a new SpillDispatcherThread.
@@ -528,6 +631,9 @@ public class SpillDispatcher extends DispatcherBase
             _dispatchAddingQueue = new LinkedList();
             _dispatchUpdateQueue = new LinkedList();
             _dispatchRemoveQueue = new LinkedList();
+
+            _adaptiveMaxTasksPerBatch = _maxTasksPerBatch;
+            _adaptiveMaxBytesPerBatch = _maxBytesPerBatch;
         }
 
         /* (non-Javadoc)
@@ -581,9 +687,20 @@ public class SpillDispatcher extends DispatcherBase
 
                                 try
                                 {
-                                    if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Spill dispatcher started indefinite wait", this);
+                                    // If tasks were held back for a removal which then rolls back, no
+                                    // further work need arrive to wake us, so don't wait indefinitely
+                                    if (_holdingRemovingTasks)
+                                    {
+                                        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Spill dispatcher started timed wait", this);
+
+                                        _dispatchingLock.wait(REMOVING_TASK_RECHECK_INTERVAL);
+                                    }
+                                    else
+                                    {
+                                        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Spill dispatcher started indefinite wait", this);
 
-                                    _dispatchingLock.wait(0);
+                                        _dispatchingLock.wait(0);
+                                    }
 
                                     if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Spill dispatcher completed wait", this);
                                 }
@@ -652,8 +769,13 @@ public class SpillDispatcher extends DispatcherBase
 
                         try
                         {
+                            long writeStartTime = System.nanoTime();
+
                             if (writeBatch(batch))
                             {
+                                // Adapt the batch limits to the time taken to write the batch
+                                batchWritten(batch, System.nanoTime() - writeStartTime);
+
                                 // Defect 496154
                                 // Confirm the completion of the writing back to the Persistables
                                 batchCompleted(batch);
@@ -1338,7 +1460,7 @@ public class SpillDispatcher extends DispatcherBase
             // work to do            
             synchronized(_dispatchingLock)
             {
-                int maxTasksInBatch = (_writeErrorOccurred) ? 1 : _maxTasksPerBatch;
+                int maxTasksInBatch = (_writeErrorOccurred) ? 1 : _adaptiveMaxTasksPerBatch;
 
                 int dispatchAddingQueueSize = _dispatchAddingQueue.size();
                 int dispatchUpdateQueueSize = _dispatchUpdateQueue.size();
@@ -1355,7 +1477,7 @@ public class SpillDispatcher extends DispatcherBase
                     SibTr.debug(this, tc, "maxTasksInBatch=" + maxTasksInBatch);
                     SibTr.debug(this, tc, "_dispatchedBytes=" + _dispatchedBytes);
                     SibTr.debug(this, tc, "_minBytesPerBatch=" + _minBytesPerBatch);
-                    SibTr.debug(this, tc, "_maxBytesPerBatch=" + _maxBytesPerBatch);
+                    SibTr.debug(this, tc, "_adaptiveMaxBytesPerBatch=" + _adaptiveMaxBytesPerBatch);
                 }
 
                 if (!_notifyOutstanding &&                             // Don't already have a notify outstanding
@@ -1363,7 +1485,7 @@ public class SpillDispatcher extends DispatcherBase
                     (((dispatchAddingQueueSize +                       // AND (The dispatch queues 
                        dispatchUpdateQueueSize +                       //          contain more than one
                        dispatchRemoveQueueSize) >= maxTasksInBatch) || //           batches worth of work 
-                     (_dispatchedBytes >= _maxBytesPerBatch) ||        //      OR the size of work dispatched is more than one batches worth
+                     (_dispatchedBytes >= _adaptiveMaxBytesPerBatch) ||//      OR the size of work dispatched is more than one batches worth
                      !_waitingQueue.isEmpty()))                        //      OR we have started to fill the waiting queue)
                 {
                     _notifyOutstanding = false;
@@ -1383,9 +1505,11 @@ public class SpillDispatcher extends DispatcherBase
         {
             if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "buildBatch");
 
-            int maxTasksInBatch = (_writeErrorOccurred) ? 1 : _maxTasksPerBatch;
+            int maxTasksInBatch = (_writeErrorOccurred) ? 1 : _adaptiveMaxTasksPerBatch;
             LinkedList batch = new LinkedList();
 
+            _holdingRemovingTasks = false;
+
             int dispatchAddingQueueSize = _dispatchAddingQueue.size();
             int dispatchUpdateQueueSize = _dispatchUpdateQueue.size();
             int dispatchRemoveQueueSize = _dispatchRemoveQueue.size();
@@ -1399,7 +1523,7 @@ public class SpillDispatcher extends DispatcherBase
                 SibTr.debug(this, tc, "maxTasksInBatch=" + maxTasksInBatch);
                 SibTr.debug(this, tc, "_dispatchedBytes=" + _dispatchedBytes);
                 SibTr.debug(this, tc, "_minBytesPerBatch=" + _minBytesPerBatch);
-                SibTr.debug(this, tc, "_maxBytesPerBatch=" + _maxBytesPerBatch);
+                SibTr.debug(this, tc, "_adaptiveMaxBytesPerBatch=" + _adaptiveMaxBytesPerBatch);
             }
 
             // Defect 496154
@@ -1413,6 +1537,7 @@ public class SpillDispatcher extends DispatcherBase
                 (_dispatchedBytes >= _minBytesPerBatch) ||         // OR the size of work dispatched is more than the lower batch limit
                 !_waitingQueue.isEmpty())                          // OR we have started to fill the waiting queue
             {
+                boolean holdRemovingAdds = _waitingQueue.isEmpty(); // Whether adds about to be deleted can be left on the queue
                 int numUncancelledTasksInBatch = 0;   // The number of uncancelled tasks in this batch
                 long bytesInBatch = 0;                // The number of bytes in this batch
                 long remainingDispatchedBytes = _dispatchedBytes; 
@@ -1450,7 +1575,7 @@ public class SpillDispatcher extends DispatcherBase
 
                 while (moreTasksToAdd &&                                  // There are tasks left in the dispatch queues
                        (numUncancelledTasksInBatch < maxTasksInBatch) &&  // AND we haven't reached the TASK limit for a batch yet
-                       (bytesInBatch < _maxBytesPerBatch))                // AND we haven't reach the BYTE limit either
+                       (bytesInBatch < _adaptiveMaxBytesPerBatch))        // AND we haven't reach the BYTE limit either
                 {
                     // Check to see if we have come to the end of the queue. 
                     // If we have then we can move onto the next one. 
@@ -1474,8 +1599,12 @@ public class SpillDispatcher extends DispatcherBase
                                 // add only to find that the update has been batched
                                 // we can check at build batch time to see if we are
                                 // trying to batch an update that is in removing state.
-                                if (!(qe.isUpdate()                   // We are NOT (looking at an update
-                                    && task.getLink().isRemoving()))  //             which is about to be deleted)
+                                // Adds in removing state are also left on the queue, as
+                                // long as nothing is waiting for space, so that the delete
+                                // can cancel the pair rather than both being written.
+                                if (!((qe.isUpdate() ||                      // We are NOT (looking at an update
+                                       (qe.isAdd() && holdRemovingAdds)) &&  //             or a held add
+                                      isRemoving(task)))                     //             for an item which is about to be deleted)
                                 {
                                     int bytesForTask = qe.getDataSize();
     
@@ -1486,7 +1615,7 @@ public class SpillDispatcher extends DispatcherBase
                                     // be exceeded if there is one and only one item in the batch. This allows the
                                     // dispatcher to cope with large data sizes without blowing up by combining them
                                     // with more reasonably sized data.
-                                    if ((bytesForTask + bytesInBatch >= _maxBytesPerBatch) && (numUncancelledTasksInBatch != 0))
+                                    if ((bytesForTask + bytesInBatch >= _adaptiveMaxBytesPerBatch) && (numUncancelledTasksInBatch != 0))
                                     {
                                         if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Stopping batch creation as (bytesInBatch + newTask.size) > maxBytesPerBatch");
     
@@ -1529,6 +1658,8 @@ public class SpillDispatcher extends DispatcherBase
                                 else
                                 {
                                     if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Task skipped as it is a candidate for cancellation: "+task);
+
+                                    _holdingRemovingTasks = true;
                                 }
                             } // end if (!qe.isCancelled())
                             else
@@ -1707,6 +1838,96 @@ public class SpillDispatcher extends DispatcherBase
             return batchWritten;
         }
 
+        /**
+         * This method is called when a batch is successfully written, before
+         * batchCompleted(). It records the batch in the histograms and adapts the
+         * batch limits of this thread to keep the write latency near the target.<p>
+         *
+         * If the batch took longer than the target, the limits are cut to the part
+         * of the batch that could have been written in the target time. If the
+         * batch took less than half the target and more than a batch of work is
+         * queued, the limits are raised by a sixteenth of the configured maximums.
+         * The limits never exceed the configured maximums.
+         *
+         * @param batch The batch of tasks that was written.
+         * @param elapsedNanos The time taken to write the batch.
+         */
+        private void batchWritten(LinkedList batch, long elapsedNanos)
+        {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.entry(this, tc, "batchWritten", new Object[] {Integer.valueOf(batch.size()), Long.valueOf(elapsedNanos)});
+
+            int tasksInBatch = 0;
+            long bytesInBatch = 0;
+
+            Iterator it = batch.iterator();
+            while (it.hasNext())
+            {
+                QueueElement qe = (QueueElement)it.next();
+                if (!qe.isCancelled())
+                {
+                    tasksInBatch++;
+                    bytesInBatch += qe.getDataSize();
+                }
+            }
+
+            long latency = elapsedNanos / 1000000L;
+
+            synchronized(_dispatchingLock)
+            {
+                _batchSizeFrequency[histogramBucket(tasksInBatch)]++;
+                _batchLatencyFrequency[histogramBucket(latency)]++;
+
+                // Batches written one task at a time after a write error say nothing about
+                // the right batch size.
+                if ((_targetBatchLatency > 0) && !_writeErrorOccurred && (tasksInBatch > 0))
+                {
+                    if (latency > _targetBatchLatency)
+                    {
+                        int tasksLimit = (int)Math.max(1L, tasksInBatch * _targetBatchLatency / latency);
+                        long bytesLimit = Math.max(_minBytesPerBatch, bytesInBatch * _targetBatchLatency / latency);
+
+                        _adaptiveMaxTasksPerBatch = Math.min(_adaptiveMaxTasksPerBatch, tasksLimit);
+                        _adaptiveMaxBytesPerBatch = Math.min(_adaptiveMaxBytesPerBatch, bytesLimit);
+                    }
+                    else if ((latency * 2 <= _targetBatchLatency) &&
+                             (((_dispatchAddingQueue.size() +
+                                _dispatchUpdateQueue.size() +
+                                _dispatchRemoveQueue.size() - batch.size()) >= _adaptiveMaxTasksPerBatch) ||
+                              (_dispatchedBytes - bytesInBatch >= _adaptiveMaxBytesPerBatch) ||
+                              !_waitingQueue.isEmpty()))
+                    {
+                        _adaptiveMaxTasksPerBatch = Math.min(_maxTasksPerBatch, _adaptiveMaxTasksPerBatch + Math.max(1, _maxTasksPerBatch / 16));
+                        _adaptiveMaxBytesPerBatch = Math.min(_maxBytesPerBatch, _adaptiveMaxBytesPerBatch + _maxBytesPerBatch / 16);
+                    }
+                }
+
+                if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+                {
+                    SibTr.debug(this, tc, "tasksInBatch=" + tasksInBatch + ", bytesInBatch=" + bytesInBatch + ", latency=" + latency);
+                    SibTr.debug(this, tc, "_adaptiveMaxTasksPerBatch=" + _adaptiveMaxTasksPerBatch + ", _adaptiveMaxBytesPerBatch=" + _adaptiveMaxBytesPerBatch);
+                }
+            } // end synchronized
+
+            if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled()) SibTr.exit(this, tc, "batchWritten");
+        }
+
+        /**
+         * Adds the batching statistics of this thread to those of the dispatcher.
+         */
+        private void addStatistics(long[] batchSizeFrequency, long[] batchLatencyFrequency, StringBuilder taskLimits, StringBuilder byteLimits)
+        {
+            synchronized(_dispatchingLock)
+            {
+                for (int n = 0; n < HISTOGRAM_BUCKETS; n++)
+                {
+                    batchSizeFrequency[n] += _batchSizeFrequency[n];
+                    batchLatencyFrequency[n] += _batchLatencyFrequency[n];
+                }
+                taskLimits.append(_adaptiveMaxTasksPerBatch).append(' ');
+                byteLimits.append(_adaptiveMaxBytesPerBatch).append(' ');
+            } // end synchronized
+        }
+
         // Defect 496154
         /**
          * This method is called when a batch is successfully written.
@@ -1749,9 +1970,19 @@ public class SpillDispatcher extends DispatcherBase
                         // Check which dispatch queue to remove the task from.
                         if (qe.isAdd())
                         {
-                            QueueElement qeTemp = (QueueElement)_dispatchAddingQueue.remove(0);
+                            // The batched adds are normally at the head of the queue but
+                            // adds about to be deleted are skipped by buildBatch() and large
+                            // adds are put at the front, so check before removing the head.
+                            if (_dispatchAddingQueue.getFirst() == qe)
+                            {
+                                _dispatchAddingQueue.removeFirst();
+                            }
+                            else
+                            {
+                                _dispatchAddingQueue.remove(qe);
+                            }
 
-                            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Task removed from ADDING queue after batch completion: "+qeTemp.getTask());
+                            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) SibTr.debug(this, tc, "Task removed from ADDING queue after batch completion: "+qe.getTask());
                         }
                         else if (qe.isUpdate())
                         {
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.objectManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for writing log pages through mapped segments while the log file is resized.
+ */
+public class MappedLogSegmentsTest {
+
+    private static final int PAGE = FileLogOutput.pageSize;
+
+    private File file;
+    private RandomAccessFile logFile;
+    private MappedLogSegments segments;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("MappedLogSegmentsTest", ".log");
+        logFile = new RandomAccessFile(file, "rw");
+        logFile.setLength(4 * PAGE);
+        segments = new MappedLogSegments(logFile, 2 * PAGE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        segments.release();
+        logFile.close();
+        file.delete();
+    }
+
+    private static byte[] pattern(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte) (seed + i);
+        return bytes;
+    }
+
+    private byte[] read(long position, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        logFile.seek(position);
+        logFile.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Writes that span a segment boundary shall be readable through the file.
+     */
+    @Test
+    public void testWriteAcrossSegments() throws Exception {
+        byte[] bytes = pattern(2 * PAGE, 1);
+        segments.write(PAGE, bytes, 0, bytes.length);
+        segments.force();
+
+        Assert.assertArrayEquals(bytes, read(PAGE, bytes.length));
+    }
+
+    /**
+     * The file can be lengthened and shortened once the segments are released, and writes after
+     * the resize use segments mapped at the new length.
+     */
+    @Test
+    public void testResize() throws Exception {
+        logFile.setLength(3 * PAGE);
+        byte[] first = pattern(PAGE, 3);
+        segments.write(2 * PAGE, first, 0, first.length);
+
+        // Lengthen, the last segment was mapped short and must be remapped at its full size.
+        segments.release();
+        logFile.setLength(8 * PAGE);
+        Assert.assertArrayEquals(first, read(2 * PAGE, PAGE));
+
+        byte[] second = pattern(2 * PAGE, 5);
+        segments.write(2 * PAGE, second, 0, second.length);
+        byte[] third = pattern(PAGE, 7);
+        segments.write(7 * PAGE, third, 0, third.length);
+        segments.force();
+        Assert.assertArrayEquals(second, read(2 * PAGE, second.length));
+        Assert.assertArrayEquals(third, read(7 * PAGE, PAGE));
+
+        // Shorten below the segments written so far.
+        segments.release();
+        logFile.setLength(3 * PAGE);
+        Assert.assertEquals(3 * PAGE, file.length());
+
+        byte[] fourth = pattern(PAGE, 11);
+        segments.write(2 * PAGE, fourth, 0, fourth.length);
+        segments.force();
+        Assert.assertArrayEquals(fourth, read(2 * PAGE, PAGE));
+
+        try {
+            segments.write(3 * PAGE, fourth, 0, fourth.length);
+            Assert.fail("write beyond the end of the shortened file");
+        } catch (IOException exception) {
+            // Expected.
+        }
+    }
+
+    /**
+     * Released segments shall be unmapped rather than left for the garbage collector.
+     */
+    @Test
+    public void testReleaseUnmaps() throws Exception {
+        byte[] bytes = pattern(4 * PAGE, 13);
+        segments.write(0, bytes, 0, bytes.length);
+        segments.release();
+        segments.release();
+
+        Map statistics = new HashMap();
+        segments.captureStatistics(statistics);
+        Assert.assertEquals("2", statistics.get("totalNumberOfSegmentsMapped"));
+        Assert.assertEquals("2", statistics.get("totalNumberOfSegmentsUnmapped"));
+        Assert.assertArrayEquals(bytes, read(0, bytes.length));
+    }
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.sib.msgstore.persistence.dispatcher;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.ws.sib.msgstore.SevereMessageStoreException;
+import com.ibm.ws.sib.msgstore.persistence.BatchingContext;
+import com.ibm.ws.sib.msgstore.persistence.BatchingContextFactory;
+import com.ibm.ws.sib.msgstore.persistence.Persistable;
+import com.ibm.ws.sib.msgstore.persistence.impl.Tuple;
+import com.ibm.ws.sib.msgstore.task.Task;
+import com.ibm.ws.sib.msgstore.transactions.impl.PersistentTransaction;
+import com.ibm.ws.sib.msgstore.transactions.impl.TransactionState;
+
+/**
+ * Unit test for the SpillDispatcher holding adds for items which are about to be removed.
+ */
+public class SpillDispatcherTest {
+
+    // More than a batch with the default limits, so that dispatching it alone wakes the thread
+    private static final int TASK_SIZE = 5000000;
+
+    // The tasks whose items are in removing state
+    private final Set<Task> removing = Collections.synchronizedSet(new HashSet<Task>());
+
+    // Counted down as each insert is written
+    private final CountDownLatch written = new CountDownLatch(1);
+
+    /**
+     * Returns zero, false or null for every method of the proxied interface.
+     */
+    private static final InvocationHandler DEFAULTS = new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            Class<?> type = method.getReturnType();
+            if (type == boolean.class)
+                return Boolean.FALSE;
+            if (type == int.class)
+                return Integer.valueOf(0);
+            if (type == long.class)
+                return Long.valueOf(0);
+            return null;
+        }
+    };
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SpillDispatcherTest.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    /**
+     * An add of an item with no link.
+     */
+    private static class TestAddTask extends Task {
+        private final Persistable persistable = proxy(Tuple.class, DEFAULTS);
+
+        TestAddTask() throws SevereMessageStoreException {
+            super(null);
+        }
+
+        @Override
+        public Persistable getPersistable() {
+            return persistable;
+        }
+
+        @Override
+        public boolean isCreateOfPersistentRepresentation() {
+            return true;
+        }
+
+        @Override
+        public int getPersistableInMemorySizeApproximation(TransactionState tranState) {
+            return TASK_SIZE;
+        }
+
+        @Override
+        public void persist(BatchingContext batchingContext, TransactionState transtate) {
+            batchingContext.insert(persistable);
+        }
+
+        @Override
+        public void abort(PersistentTransaction transaction) {}
+
+        @Override
+        public void commitExternal(PersistentTransaction transaction) {}
+
+        @Override
+        public void commitInternal(PersistentTransaction transaction) {}
+
+        @Override
+        public void postAbort(PersistentTransaction transaction) {}
+
+        @Override
+        public void postCommit(PersistentTransaction transaction) {}
+
+        @Override
+        public void preCommit(PersistentTransaction transaction) {}
+    }
+
+    private SpillDispatcher createDispatcher() {
+        final BatchingContext batchingContext = proxy(BatchingContext.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("insert".equals(method.getName()))
+                    written.countDown();
+                return null;
+            }
+        });
+
+        BatchingContextFactory factory = proxy(BatchingContextFactory.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return batchingContext;
+            }
+        });
+
+        return new SpillDispatcher(null, factory, 1) {
+            @Override
+            boolean isRemoving(Task task) {
+                return removing.contains(task);
+            }
+        };
+    }
+
+    @Test
+    public void testHeldAddWrittenAfterRemovalRollback() throws Exception {
+        SpillDispatcher dispatcher = createDispatcher();
+        dispatcher.start();
+        try {
+            Task add = new TestAddTask();
+            removing.add(add);
+            dispatcher.dispatch(Collections.singletonList(add), null, false);
+
+            Assert.assertFalse("add written while its item was being removed", written.await(500, TimeUnit.MILLISECONDS));
+
+            // The removal rolls back and no further work is dispatched
+            removing.remove(add);
+
+            Assert.assertTrue("held add not written after the removal rolled back", written.await(10, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.stop(0);
+        }
+    }
+
+    @Test
+    public void testAddWrittenWithoutRemoval() throws Exception {
+        SpillDispatcher dispatcher = createDispatcher();
+        dispatcher.start();
+        try {
+            dispatcher.dispatch(Collections.singletonList(new TestAddTask()), null, false);
+
+            Assert.assertTrue("add not written", written.await(10, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.stop(0);
+        }
+    }
+}
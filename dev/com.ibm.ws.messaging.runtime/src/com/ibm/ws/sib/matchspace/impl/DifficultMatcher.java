@@ -11,6 +11,8 @@
 package com.ibm.ws.sib.matchspace.impl;
 
 // Import files
+import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -62,9 +64,9 @@ public final class DifficultMatcher extends ContentMatcher
   // Class DifficultMatcher.MatchTargetTypeList
   //------------------------------------------------------------------------------
   /** Maintains a list of MatchTargets organized by type.
-   * This class is used only locally.
+   * This class is used only locally and by SelectorPlan.
    */ //---------------------------------------------------------------------------
-  private class MatchTargetTypeList
+  class MatchTargetTypeList
   {
 
     // Each type of MatchTarget is maintained as a
@@ -248,6 +250,28 @@ public final class DifficultMatcher extends ContentMatcher
 
   } // MatchTargetTypeList
 
+  //------------------------------------------------------------------------------
+  // Class DifficultMatcher.Roots
+  //------------------------------------------------------------------------------
+  /** An immutable copy of roots and objs, from which a SelectorPlan is built.
+   */ //---------------------------------------------------------------------------
+  static final class Roots
+  {
+    final Selector[] roots;
+    final Object[] targets;
+
+    Roots(List roots, List objs)
+    {
+      this.roots = (Selector[]) roots.toArray(new Selector[roots.size()]);
+      this.targets = objs.toArray();
+    }
+
+    public String toString()
+    {
+      return "roots: " + roots.length;
+    }
+  } // Roots
+
   /** Vector of all roots into the subexpression graph.  */
   List roots;
 
@@ -261,6 +285,30 @@ public final class DifficultMatcher extends ContentMatcher
    **/
   MatchTargetTypeList alwaysMatch;
 
+  /** A copy of roots and objs, replaced under the MatchSpace lock after each change to
+   * roots.  Searches do not always hold the MatchSpace lock, so the plan is built from
+   * this copy rather than from the lists themselves.  The copy costs no more than the
+   * indexOf or remove that precedes it.
+   **/
+  private volatile Roots rootsCopy;
+
+  /** The flattened form of roots, null until first needed. */
+  private volatile SelectorPlan plan;
+
+  /** The JVM system property which, when set to "enabled", evaluates the expressions
+   * through a SelectorPlan rather than by walking each expression tree.  The setting
+   * applies to every MatchSpace in the JVM, whichever bus it belongs to.
+   **/
+  public static final String COMPILED_SELECTORS_PROPERTY = "com.ibm.ws.sib.matching.CompiledSelectors";
+
+  /** True if expressions are evaluated through a SelectorPlan. */
+  private static final boolean compiledSelectors = "enabled".equalsIgnoreCase(
+    AccessController.doPrivileged(new PrivilegedAction<String>() {
+      public String run() {
+        return System.getProperty(COMPILED_SELECTORS_PROPERTY);
+      }
+    }));
+
   // Statistics
   public static int totalDifficultEntries = 0;
 
@@ -280,6 +328,7 @@ public final class DifficultMatcher extends ContentMatcher
       tc.entry(cclass, "DifficultMatcher", "pid: " + pid);
     roots = new ArrayList(2);
     objs = new ArrayList(2);
+    rootsCopy = new Roots(roots, objs);
     alwaysMatch = new MatchTargetTypeList();
 
     if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
@@ -338,6 +387,7 @@ public final class DifficultMatcher extends ContentMatcher
           //Add new type list with corresponding expression.
           objs.add(tlist);
           roots.add(expr);
+          rootsCopy = new Roots(roots, objs);
         }
         else
         {
@@ -402,7 +452,32 @@ public final class DifficultMatcher extends ContentMatcher
     if (v.length > 0)
       result.addObjects(v);
 
-    if (msg != null)
+    SelectorPlan currentPlan = null;
+    Object planContext = null;
+    if (msg != null && compiledSelectors && !roots.isEmpty())
+    {
+      // The plan evaluates the expressions for a single context node
+      if (contextValue == null)
+        currentPlan = getPlan();
+      else if (contextValue instanceof SetValEvaluationContext)
+      {
+        SetValEvaluationContext evalContext = (SetValEvaluationContext)contextValue;
+        ArrayList wrappedParentList = evalContext.getWrappedNodeList();
+        if (wrappedParentList.isEmpty())
+          evalContext.addNode(new WrappedNodeResults(Matching.getEvaluator().getDocumentRoot(msg)));
+        if (wrappedParentList.size() == 1)
+        {
+          planContext = ((WrappedNodeResults) wrappedParentList.get(0)).getNode();
+          currentPlan = getPlan();
+        }
+      }
+    }
+
+    if (currentPlan != null)
+    {
+      currentPlan.get(msg, cache, planContext, contextValue != null, result);
+    }
+    else if (msg != null)
     {
       int numExpr = roots.size();
 
@@ -548,6 +623,7 @@ public final class DifficultMatcher extends ContentMatcher
           {
             objs.remove(i);
             roots.remove(i);
+            rootsCopy = new Roots(roots, objs);
           }
         }
       }
@@ -578,6 +654,27 @@ public final class DifficultMatcher extends ContentMatcher
     return result;
   }
   
+  //------------------------------------------------------------------------------
+  // Method: DifficultMatcher.getPlan
+  //------------------------------------------------------------------------------
+  /** Return the plan for the current roots, building it if the roots have changed.
+   * A search that races with a change may use the plan for the roots before the change,
+   * just as the tree walk may see either state.
+   *
+   * @return the plan.
+   */ //---------------------------------------------------------------------------
+  private SelectorPlan getPlan()
+  {
+    Roots source = rootsCopy;
+    SelectorPlan current = plan;
+    if (current == null || current.source != source)
+    {
+      current = new SelectorPlan(source);
+      plan = current;
+    }
+    return current;
+  }
+
   // Override the hasTests method to answer according to whether this DifficultMatcher
   // is a leaf containing only alwaysMatch cases (in which case it has no 'tests').
   boolean hasTests() {
@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.sib.matchspace.impl;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.ws.sib.matchspace.BadMessageFormatMatchingException;
+import com.ibm.ws.sib.matchspace.EvalCache;
+import com.ibm.ws.sib.matchspace.Identifier;
+import com.ibm.ws.sib.matchspace.Literal;
+import com.ibm.ws.sib.matchspace.MatchSpaceKey;
+import com.ibm.ws.sib.matchspace.Operator;
+import com.ibm.ws.sib.matchspace.SearchResults;
+import com.ibm.ws.sib.matchspace.Selector;
+import com.ibm.ws.sib.matchspace.tools.Evaluator;
+import com.ibm.ws.sib.matchspace.utils.MatchSpaceConstants;
+import com.ibm.ws.sib.matchspace.utils.Trace;
+import com.ibm.ws.sib.matchspace.utils.TraceComponent;
+import com.ibm.ws.sib.matchspace.utils.TraceUtils;
+
+/**
+ * A flattened form of the subexpression graph held by a DifficultMatcher. <p>
+ *
+ * Every distinct node reachable from the roots of the DifficultMatcher is given a slot
+ * in a set of parallel arrays, children before their parents, so that a node shared by
+ * several expressions occupies a single slot.  Literal values are resolved when the plan
+ * is built.  At evaluation time the slots needed by the roots are computed at most once
+ * per message, without walking the Selector objects, and
+ * the results of interned nodes are exchanged with the EvalCache so that subexpressions
+ * shared with other DifficultMatchers are still evaluated only once. <p>
+ *
+ * A plan is immutable once built, from a copy of the roots taken under the MatchSpace
+ * lock, so it can be built by a search that does not hold the lock.  Roots that contain
+ * extended (XPath) nodes are not flattened and are evaluated by the Evaluator instead.
+ */
+final class SelectorPlan
+{
+
+  // Standard trace boilerplate
+  private static final Class cclass = SelectorPlan.class;
+  private static Trace tc = TraceUtils.getTrace(SelectorPlan.class,
+      MatchSpaceConstants.MSG_GROUP_LISTS);
+
+  // Kinds of slot
+  private static final int LITERAL = 0;
+  private static final int IDENTIFIER = 1;
+  private static final int OPERATOR = 2;
+
+  // Marks a slot that has not been evaluated for the current message
+  private static final Object UNEVALUATED = new Object();
+
+  /** The node held in each slot. */
+  private final Selector[] nodes;
+
+  /** The kind of each slot. */
+  private final int[] kinds;
+
+  /** The slots of the operands of each OPERATOR slot, -1 if there is no such operand. */
+  private final int[] operand0;
+  private final int[] operand1;
+
+  /** The uniqueId used to exchange the value of each slot with the EvalCache, 0 if none. */
+  private final int[] cacheIds;
+
+  /** The initial value of each slot, the value of LITERAL slots and UNEVALUATED otherwise. */
+  private final Object[] initialValues;
+
+  /** The slot of each root, -1 if the root is evaluated by the Evaluator. */
+  private final int[] rootSlots;
+
+  /** The roots, in the same order as in the DifficultMatcher. */
+  private final Selector[] roots;
+
+  /** The MatchTargetTypeList of each root. */
+  private final Object[] targets;
+
+  /** The copy of the DifficultMatcher roots that the plan was built from. */
+  final DifficultMatcher.Roots source;
+
+  //------------------------------------------------------------------------------
+  // Constructor SelectorPlan
+  //------------------------------------------------------------------------------
+  /** Build a plan from the roots of a DifficultMatcher.
+   *
+   * @param source a copy of the interned roots of the subexpression graph and of the
+   * targets corresponding to each root
+   **/
+  //---------------------------------------------------------------------------
+  SelectorPlan(DifficultMatcher.Roots source)
+  {
+    if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
+      tc.entry(this, cclass, "SelectorPlan", source);
+
+    this.source = source;
+    roots = source.roots;
+    targets = source.targets;
+    int numRoots = roots.length;
+    rootSlots = new int[numRoots];
+
+    // First pass, assign the slots
+    Map slotOf = new IdentityHashMap();
+    List order = new ArrayList();
+    for (int i = 0; i < numRoots; i++)
+    {
+      if (isExtended(roots[i]))
+        rootSlots[i] = -1;
+      else
+        rootSlots[i] = assign(roots[i], slotOf, order);
+    }
+
+    // Second pass, fill in the arrays
+    int numSlots = order.size();
+    nodes = (Selector[]) order.toArray(new Selector[numSlots]);
+    kinds = new int[numSlots];
+    operand0 = new int[numSlots];
+    operand1 = new int[numSlots];
+    cacheIds = new int[numSlots];
+    initialValues = new Object[numSlots];
+    for (int slot = 0; slot < numSlots; slot++)
+    {
+      Selector node = nodes[slot];
+      operand0[slot] = -1;
+      operand1[slot] = -1;
+      if (node instanceof Literal)
+      {
+        kinds[slot] = LITERAL;
+        initialValues[slot] = ((Literal) node).getValue();
+      }
+      else
+      {
+        initialValues[slot] = UNEVALUATED;
+        cacheIds[slot] = node.getUniqueId();
+        if (node instanceof Identifier)
+        {
+          kinds[slot] = IDENTIFIER;
+        }
+        else
+        {
+          kinds[slot] = OPERATOR;
+          Selector[] operands = ((Operator) node).getOperands();
+          operand0[slot] = ((Integer) slotOf.get(operands[0])).intValue();
+          if (operands.length > 1)
+            operand1[slot] = ((Integer) slotOf.get(operands[1])).intValue();
+        }
+      }
+    }
+
+    if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
+      tc.exit(this, cclass, "SelectorPlan", "slots: " + numSlots);
+  }
+
+  // Subroutine: assign slots to a node and its descendants, children first.
+
+  private static int assign(Selector node, Map slotOf, List order)
+  {
+    Integer slot = (Integer) slotOf.get(node);
+    if (slot == null)
+    {
+      if (node instanceof Operator)
+      {
+        Selector[] operands = ((Operator) node).getOperands();
+        for (int i = 0; i < operands.length; i++)
+          assign(operands[i], slotOf, order);
+      }
+      slot = new Integer(order.size());
+      order.add(node);
+      slotOf.put(node, slot);
+    }
+    return slot.intValue();
+  }
+
+  // Subroutine: determine whether a tree contains extended nodes.
+
+  private static boolean isExtended(Selector node)
+  {
+    if (node.isExtended())
+      return true;
+    if (node instanceof Operator)
+    {
+      Selector[] operands = ((Operator) node).getOperands();
+      for (int i = 0; i < operands.length; i++)
+        if (isExtended(operands[i]))
+          return true;
+    }
+    return false;
+  }
+
+  //------------------------------------------------------------------------------
+  // Method: SelectorPlan.get
+  //------------------------------------------------------------------------------
+  /** Evaluate every root against a message and add the targets of those that are true
+   * to the results.
+   *
+   * @param msg the message
+   * @param cache the EvalCache for the message
+   * @param contextValue the context in which identifiers are evaluated
+   * @param permissive true if evaluation observes "permissive" mode
+   * @param result the results to add to
+   **/
+  //---------------------------------------------------------------------------
+  void get(
+    MatchSpaceKey msg,
+    EvalCache cache,
+    Object contextValue,
+    boolean permissive,
+    SearchResults result)
+    throws BadMessageFormatMatchingException
+  {
+    if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
+      tc.entry(this, cclass, "get", new Object[] { msg, cache, contextValue, new Boolean(permissive) });
+
+    Evaluator evaluator = Matching.getEvaluator();
+    Object[] values = (Object[]) initialValues.clone();
+    int matched = 0;
+
+    for (int current = 0; current < roots.length; current++)
+    {
+      Object res;
+      int slot = rootSlots[current];
+      if (slot < 0)
+        res = evaluator.eval(roots[current], msg, cache, contextValue, permissive);
+      else
+        res = evaluate(slot, values, evaluator, msg, cache, contextValue, permissive);
+
+      if (res instanceof Boolean && ((Boolean) res).booleanValue())
+      {
+        List[] v = ((DifficultMatcher.MatchTargetTypeList) targets[current]).lists;
+        if (v.length > 0)
+          result.addObjects(v);
+        matched++;
+      }
+    }
+
+    if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
+      tc.exit(this, cclass, "get", "roots: " + roots.length + " matched: " + matched);
+  }
+
+  // Subroutine: evaluate a slot, evaluating its operands first if needed.  Follows
+  // EvaluatorImpl.eval, an interned value found in the EvalCache is used without
+  // evaluating the operands.
+
+  private Object evaluate(
+    int slot,
+    Object[] values,
+    Evaluator evaluator,
+    MatchSpaceKey msg,
+    EvalCache cache,
+    Object contextValue,
+    boolean permissive)
+    throws BadMessageFormatMatchingException
+  {
+    Object ans = values[slot];
+    if (ans != UNEVALUATED)
+      return ans;
+
+    int cacheId = cacheIds[slot];
+    if (cacheId != 0)
+      ans = cache.getExprValue(cacheId);
+
+    if (ans == null)
+    {
+      if (kinds[slot] == IDENTIFIER)
+      {
+        ans = evaluator.evalIdentifier((Identifier) nodes[slot], msg, contextValue, permissive);
+      }
+      else
+      {
+        Object val0 = evaluate(operand0[slot], values, evaluator, msg, cache, contextValue, permissive);
+        Object val1 = operand1[slot] < 0
+          ? null
+          : evaluate(operand1[slot], values, evaluator, msg, cache, contextValue, permissive);
+        ans = evaluator.evalOperator((Operator) nodes[slot], val0, val1, permissive);
+      }
+      if (cacheId != 0)
+        cache.saveExprValue(cacheId, ans);
+    }
+
+    values[slot] = ans;
+    return ans;
+  }
+}
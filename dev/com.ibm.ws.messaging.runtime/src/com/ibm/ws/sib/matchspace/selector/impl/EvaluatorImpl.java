@@ -152,113 +152,10 @@ public class EvaluatorImpl implements Evaluator
 
     if (sel instanceof Identifier)
     {
-      if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
-        tc.debug(cclass, "Selector is an Identifier");        
-      Identifier id = (Identifier) sel;
-      if (permissive && id.getType() != Selector.UNKNOWN)
-      {
-        // Result may require permissive mode casts.  First, get the value, whatever it
-        // is.
-        boolean returnList = true;
-        if(id.getType() == Selector.BOOLEAN)
-          returnList = false;
-        Object idVal = 
-          bind.getIdentifierValue(id,
-                                  true,
-                                  contextValue, 
-                                  returnList); // true means return a nodelist
-        if (idVal == null)
-        {
-          if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-            tc.exit(cclass, "evalInternal", null);            
-          return null;
-        }
-        // Perform permissive casts
-        switch (id.getType())
-        {
-          case Selector.NUMERIC :
-            if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
-              tc.debug(cclass, "Selector type is numeric");               
-            if (idVal instanceof Number) // was NumericValue
-            {
-              if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-                tc.exit(cclass, "evalInternal", idVal);                
-              return idVal;
-            }
-            else
-            {
-              if(idVal instanceof ArrayList)
-              {
-                theReturn = castToNumberList((ArrayList)idVal);
-              }
-              else
-                theReturn = castToNumber(idVal);
-              if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-                tc.exit(cclass, "evalInternal", theReturn);
-              return theReturn;
-            }
-          case Selector.STRING :
-            if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
-              tc.debug(cclass, "Selector type is string");              
-            if (idVal instanceof String)
-            {
-              if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-                tc.exit(cclass, "evalInternal", idVal);                
-              return idVal;
-            }
-            else
-            {
-              if(idVal instanceof ArrayList)
-              {
-                theReturn = castToStringList((ArrayList)idVal);
-              }
-              else
-                theReturn = idVal.toString();
-              if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-                tc.exit(cclass, "evalInternal", theReturn);
-              return theReturn;
-            }            
-          case Selector.BOOLEAN :
-            if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
-              tc.debug(cclass, "Selector type is boolean");              
-            if (idVal instanceof Boolean) // was BooleanValue
-            {
-              if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-                tc.exit(cclass, "evalInternal", idVal);                
-              return idVal;
-            }
-            else
-            {
-              theReturn = castToBoolean(idVal);
-              if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-                tc.exit(cclass, "evalInternal", theReturn);            
-              return theReturn;              
-            }
-          default :
-            if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
-              tc.debug(cclass, "Selector type is default");              
-            // Normally, permissive mode evaluation would not apply to TOPIC and OBJECT
-            // Identifiers.  But, in any case, there are no valid casts to those types.
-            if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-              tc.exit(cclass, "evalInternal", null);              
-            return null;
-        }
-      }
-      else
-      {
-        // not permissive, or the type is UNKNOWN so no permissive mode casts apply
-        boolean returnList = true;
-        if(id.getType() == Selector.BOOLEAN)
-          returnList = false;
-        theReturn = 
-          bind.getIdentifierValue(id,
-                                  false,
-                                  contextValue, 
-                                  returnList); // true means return a nodelist
-        if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn);         
-        return theReturn;
-      }
+      theReturn = evalIdentifier((Identifier) sel, bind, contextValue, permissive);
+      if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+        tc.exit(cclass, "evalInternal", theReturn);
+      return theReturn;
     }
 
     // Otherwise, it's an Operator
@@ -272,6 +169,171 @@ public class EvaluatorImpl implements Evaluator
         ? null
         : eval(op.getOperands()[1], bind, cache, contextValue, permissive); // was false
 
+    theReturn = evalOperator(op, val0, val1, permissive);
+    if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+      tc.exit(cclass, "evalInternal", theReturn);
+    return theReturn;
+  }
+
+  /** Evaluates an Identifier by letting the MatchSpaceKey retrieve its value.
+   *
+   * @param id the Identifier to evaluate
+   *
+   * @param bind the MatchSpaceKey to use in evaluating the identifier
+   *
+   * @param contextValue the context in which the identifier is evaluated
+   *
+   * @param permissive if true, the permissive mode casts are applied to the value
+   *
+   * @return the value of the identifier, or null if it is missing
+   *
+   * @exception BadMessageFormatMatchingException when the message is corrupted or
+   * ill-formed.
+   **/
+
+  public Object evalIdentifier(
+    Identifier id,
+    MatchSpaceKey bind,
+    Object contextValue,
+    boolean permissive)
+    throws BadMessageFormatMatchingException
+  {
+    if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+      tc.entry(cclass, "evalIdentifier", new Object[] { id, bind, contextValue, new Boolean(permissive) });
+
+    Object theReturn = null;
+    if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
+      tc.debug(cclass, "Selector is an Identifier");        
+    if (permissive && id.getType() != Selector.UNKNOWN)
+    {
+      // Result may require permissive mode casts.  First, get the value, whatever it
+      // is.
+      boolean returnList = true;
+      if(id.getType() == Selector.BOOLEAN)
+        returnList = false;
+      Object idVal = 
+        bind.getIdentifierValue(id,
+                                true,
+                                contextValue, 
+                                returnList); // true means return a nodelist
+      if (idVal == null)
+      {
+        if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+          tc.exit(cclass, "evalIdentifier", null);            
+        return null;
+      }
+      // Perform permissive casts
+      switch (id.getType())
+      {
+        case Selector.NUMERIC :
+          if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
+            tc.debug(cclass, "Selector type is numeric");               
+          if (idVal instanceof Number) // was NumericValue
+          {
+            if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+              tc.exit(cclass, "evalIdentifier", idVal);                
+            return idVal;
+          }
+          else
+          {
+            if(idVal instanceof ArrayList)
+            {
+              theReturn = castToNumberList((ArrayList)idVal);
+            }
+            else
+              theReturn = castToNumber(idVal);
+            if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+              tc.exit(cclass, "evalIdentifier", theReturn);
+            return theReturn;
+          }
+        case Selector.STRING :
+          if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
+            tc.debug(cclass, "Selector type is string");              
+          if (idVal instanceof String)
+          {
+            if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+              tc.exit(cclass, "evalIdentifier", idVal);                
+            return idVal;
+          }
+          else
+          {
+            if(idVal instanceof ArrayList)
+            {
+              theReturn = castToStringList((ArrayList)idVal);
+            }
+            else
+              theReturn = idVal.toString();
+            if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+              tc.exit(cclass, "evalIdentifier", theReturn);
+            return theReturn;
+          }            
+        case Selector.BOOLEAN :
+          if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
+            tc.debug(cclass, "Selector type is boolean");              
+          if (idVal instanceof Boolean) // was BooleanValue
+          {
+            if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+              tc.exit(cclass, "evalIdentifier", idVal);                
+            return idVal;
+          }
+          else
+          {
+            theReturn = castToBoolean(idVal);
+            if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+              tc.exit(cclass, "evalIdentifier", theReturn);            
+            return theReturn;              
+          }
+        default :
+          if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
+            tc.debug(cclass, "Selector type is default");              
+          // Normally, permissive mode evaluation would not apply to TOPIC and OBJECT
+          // Identifiers.  But, in any case, there are no valid casts to those types.
+          if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+            tc.exit(cclass, "evalIdentifier", null);              
+          return null;
+      }
+    }
+    else
+    {
+      // not permissive, or the type is UNKNOWN so no permissive mode casts apply
+      boolean returnList = true;
+      if(id.getType() == Selector.BOOLEAN)
+        returnList = false;
+      theReturn = 
+        bind.getIdentifierValue(id,
+                                false,
+                                contextValue, 
+                                returnList); // true means return a nodelist
+      if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+        tc.exit(cclass, "evalIdentifier", theReturn);         
+      return theReturn;
+    }
+  }
+
+  /** Applies an Operator to the values of its operands, which have already been
+   * evaluated.
+   *
+   * @param op the Operator to apply
+   *
+   * @param val0 the value of the first operand
+   *
+   * @param val1 the value of the second operand, or null if the operator is unary
+   *
+   * @param permissive if true, evaluation observes "permissive" mode
+   *
+   * @return the result, which will be a String, a Boolean, a Number, or null.
+   **/
+
+  public Object evalOperator(
+    Operator op,
+    Object val0,
+    Object val1,
+    boolean permissive)
+  {
+    if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
+      tc.entry(cclass, "evalOperator", new Object[] { op, val0, val1, new Boolean(permissive) });
+
+    Object theReturn = null;
     // Evaluate according to the operator
     switch (op.getOp())
     {
@@ -282,7 +344,7 @@ public class EvaluatorImpl implements Evaluator
         {
           theReturn = not((Boolean) val0);
           if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-            tc.exit(cclass, "evalInternal", theReturn);         
+            tc.exit(cclass, "evalOperator", theReturn);         
           return theReturn;          
         }
         else
@@ -290,13 +352,13 @@ public class EvaluatorImpl implements Evaluator
           {
             theReturn = not(castToBoolean(val0));
             if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-              tc.exit(cclass, "evalInternal", theReturn);         
+              tc.exit(cclass, "evalOperator", theReturn);         
             return theReturn;            
           }
           else
           {
             if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-              tc.exit(cclass, "evalInternal", null);              
+              tc.exit(cclass, "evalOperator", null);              
             return null; 
           }
       case Selector.NEG :
@@ -309,14 +371,14 @@ public class EvaluatorImpl implements Evaluator
             if (val0 == null)
             {
               if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-                tc.exit(cclass, "evalInternal", null);               
+                tc.exit(cclass, "evalOperator", null);               
               return null;
             }
           }
           else
           {
             if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-              tc.exit(cclass, "evalInternal", null);             
+              tc.exit(cclass, "evalOperator", null);             
             return null;
           }
         // val0 is now definitely a Number
@@ -326,7 +388,7 @@ public class EvaluatorImpl implements Evaluator
           tc.debug(cclass, "Selector type ISNULL");
         theReturn = Boolean.valueOf(val0 == null);
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn);         
+          tc.exit(cclass, "evalOperator", theReturn);         
         return theReturn;         
       case Selector.LIKE :
       case Selector.TOPIC_LIKE:
@@ -338,14 +400,14 @@ public class EvaluatorImpl implements Evaluator
           else
           {
             if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-              tc.exit(cclass, "evalInternal", null);              
+              tc.exit(cclass, "evalOperator", null);              
             return null;
           }
         // val0 is a String
         theReturn = Boolean.valueOf(((LikeOperatorImpl) op)
             .getInternalPattern().match((String) val0));
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn);           
+          tc.exit(cclass, "evalOperator", theReturn);           
         return theReturn;
       case Selector.NE :
         if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
@@ -355,7 +417,7 @@ public class EvaluatorImpl implements Evaluator
         else
           theReturn = not(compare(val0, val1, false, permissive));
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn);           
+          tc.exit(cclass, "evalOperator", theReturn);           
         return theReturn;        
       case Selector.EQ :
         if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
@@ -365,7 +427,7 @@ public class EvaluatorImpl implements Evaluator
         else        
           theReturn = compare(val0, val1, false, permissive);
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn); 
+          tc.exit(cclass, "evalOperator", theReturn); 
         return theReturn;
       case Selector.GT :
         if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
@@ -375,7 +437,7 @@ public class EvaluatorImpl implements Evaluator
         else              
           theReturn = compare(val1, val0, true, permissive);
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn); 
+          tc.exit(cclass, "evalOperator", theReturn); 
         return theReturn;        
       case Selector.LT :
         if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
@@ -385,7 +447,7 @@ public class EvaluatorImpl implements Evaluator
         else              
           theReturn = compare(val0, val1, true, permissive);
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn); 
+          tc.exit(cclass, "evalOperator", theReturn); 
         return theReturn;         
       case Selector.GE :
         if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
@@ -395,7 +457,7 @@ public class EvaluatorImpl implements Evaluator
         else              
           theReturn = not(compare(val0, val1, true, permissive));
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn); 
+          tc.exit(cclass, "evalOperator", theReturn); 
         return theReturn;          
       case Selector.LE :
         if (tc.isAnyTracingEnabled() && tc.isDebugEnabled())
@@ -405,7 +467,7 @@ public class EvaluatorImpl implements Evaluator
         else              
           theReturn = not(compare(val1, val0, true, permissive));
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn); 
+          tc.exit(cclass, "evalOperator", theReturn); 
         return theReturn;          
       case Selector.PLUS :
       case Selector.MINUS :
@@ -415,7 +477,7 @@ public class EvaluatorImpl implements Evaluator
           tc.debug(cclass, "Selector type is ARITHMETIC");          
         theReturn = promoteAndEvaluate(op.getOp(), val0, val1, permissive);
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn);         
+          tc.exit(cclass, "evalOperator", theReturn);         
         return theReturn;
       case Selector.AND :
       case Selector.OR :
@@ -432,7 +494,7 @@ public class EvaluatorImpl implements Evaluator
         else
           theReturn = or((Boolean) val0, (Boolean) val1);
         if (tc.isAnyTracingEnabled() && tc.isEntryEnabled())
-          tc.exit(cclass, "evalInternal", theReturn);         
+          tc.exit(cclass, "evalOperator", theReturn);         
         return theReturn;        
       default :
         // Should not occur
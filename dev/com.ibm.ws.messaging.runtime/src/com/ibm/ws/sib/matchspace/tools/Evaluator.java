@@ -13,6 +13,8 @@ package com.ibm.ws.sib.matchspace.tools;
 import java.util.ArrayList;
 
 import com.ibm.ws.sib.matchspace.EvalCache;
+import com.ibm.ws.sib.matchspace.Identifier;
+import com.ibm.ws.sib.matchspace.Operator;
 import com.ibm.ws.sib.matchspace.Selector;
 import com.ibm.ws.sib.matchspace.MatchSpaceKey;
 import com.ibm.ws.sib.matchspace.BadMessageFormatMatchingException;
@@ -59,6 +61,42 @@ public interface Evaluator {
 
   public Object eval(Selector sel);
 
+  /** Evaluates a single Identifier, applying the permissive mode casts if required.
+   * Used by evaluation plans that have flattened a selector tree.
+   *
+   * @param id the Identifier to evaluate
+   *
+   * @param bind the MatchSpaceKey to use in evaluating the identifier
+   *
+   * @param contextValue the context in which the identifier is evaluated
+   *
+   * @param permissive if true, evaluation should observe "permissive" mode
+   *
+   * @return the value of the identifier, or null if it is missing
+   *
+   * @exception BadMessageFormatMatchingException when the method is unable to determine a
+   * value because the message is corrupted or ill-formed.
+   **/
+
+  public Object evalIdentifier(Identifier id, MatchSpaceKey bind, Object contextValue, boolean permissive)
+    throws BadMessageFormatMatchingException;
+
+  /** Applies a single Operator to the already evaluated values of its operands.
+   * Used by evaluation plans that have flattened a selector tree.
+   *
+   * @param op the Operator to apply
+   *
+   * @param val0 the value of the first operand
+   *
+   * @param val1 the value of the second operand, or null if the operator is unary
+   *
+   * @param permissive if true, evaluation should observe "permissive" mode
+   *
+   * @return the result, which will be a String, a Boolean, a Number, or null.
+   **/
+
+  public Object evalOperator(Operator op, Object val0, Object val1, boolean permissive);
+
   /**
    * Get a DOM document root from a message. This method will return null unless driven
    * where XPath support is implemented.
@@ -152,6 +152,13 @@ public class ConsumerDispatcher
      * whenever any consumer is added or removed from the ready consumer stack
      */
     protected long readyConsumerVersion = 0;
+    /**
+     * True if any consumer may be ready, i.e. any of the ready lists or the specific
+     * ready consumer count is non-empty. Updated under the readyConsumerPointLock but
+     * read without it by internalPut to skip the lock when there is no consumer to give
+     * a message to before it has been stored.
+     */
+    private volatile boolean readyConsumersHint = false;
 
     /**
      * dispatcherState - Object representing the state of this consumer dispatcher. This
@@ -947,6 +954,32 @@ public class ConsumerDispatcher
             grabCurrentReadyVersion = true;
         }
 
+        // If no consumer is ready there is nothing to find under the readyConsumerPointLock,
+        // so store the message straight away. This is the common case on a busy queue whose
+        // consumers are all busy and saves every producer from taking the lock shared with
+        // every consumer of the destination twice per message. A consumer that becomes ready
+        // after the hint is read is no different from one that becomes ready after the lock
+        // is released, it is found by the search after the message is stored.
+        if (!storedByCD && !readyConsumersHint)
+        {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled())
+                SibTr.debug(tc, "No ready consumers, storing message");
+
+            storedByIH =
+                            storeMessage(
+                                         (MessageItem) msg,
+                                         tran,
+                                         inputHandlerStore,
+                                         storedByIH);
+            storedByCD = true;
+            grabCurrentReadyVersion = true;
+
+            // As in the search below, a message stored as part of a transaction is given
+            // to a consumer once the transaction has committed
+            if (tran != null && !tran.isAutoCommit())
+                continueSearch = false;
+        }
+
         while (continueSearch)
         {
             synchronized (_baseDestHandler.getReadyConsumerPointLock())
@@ -1250,6 +1283,7 @@ public class ConsumerDispatcher
                                 // Move the cursor on to the next entry
                                 readyFSConsumer = nextReadyFSConsumer;
                             }
+                            updateReadyConsumersHint();
                         }
                     }
                 }
@@ -1457,6 +1491,7 @@ public class ConsumerDispatcher
 
         // Increment the ready version
         ++readyConsumerVersion;
+        readyConsumersHint = true;
 
         if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
             SibTr.exit(tc, "newReadyConsumer", Long.valueOf(readyConsumerVersion));
@@ -1527,11 +1562,23 @@ public class ConsumerDispatcher
                 ((SimpleEntry) consumerKey).remove();
             }
         }
+        updateReadyConsumersHint();
 
         if (TraceComponent.isAnyTracingEnabled() && tc.isEntryEnabled())
             SibTr.exit(tc, "removeReadyConsumer");
     }
 
+    /**
+     * Recalculate whether any consumer may be ready. Must be called under the
+     * readyConsumerPointLock whenever a consumer is removed from the ready lists.
+     */
+    private void updateReadyConsumersHint()
+    {
+        readyConsumersHint = (nonSpecificReadyCPs.getFirst() != null)
+                             || (readyFwdScanningCPs.getFirst() != null)
+                             || (specificReadyConsumerCount > 0);
+    }
+
     /**
      * Attach a new ConsumerPoint to this ConsumerDispatcher. A ConsumerKey
      * object is created for this ConsumerPoint which contains various pieces of
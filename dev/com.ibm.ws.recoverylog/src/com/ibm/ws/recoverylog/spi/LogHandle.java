@@ -13,6 +13,11 @@ package com.ibm.ws.recoverylog.spi;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.ibm.tx.util.logging.FFDCFilter;
 import com.ibm.tx.util.logging.Tr;
@@ -62,6 +67,26 @@ class LogHandle
      */
     private static String RECOVERY_FILE_2_NAME = "log2";
 
+    /**
+     * Flag to configure group commit. When set, concurrent callers of force() share
+     * a single force of the active file: one caller (the leader) forces on behalf of
+     * all callers that requested a force before the leader started, and the others
+     * wait for it to complete.
+     */
+    private static final boolean GROUP_COMMIT = Boolean.getBoolean("com.ibm.ws.recoverylog.spi.GroupCommit");
+
+    /**
+     * The maximum time in microseconds that a group commit leader waits for further
+     * callers to join its force. Zero (the default) means that the leader forces
+     * immediately, and only callers arriving while a force is in progress are grouped.
+     */
+    private static final long GROUP_COMMIT_WINDOW = Math.max(0, Math.min(Long.getLong("com.ibm.ws.recoverylog.spi.GroupCommitWindow", 0), 100000));
+
+    /**
+     * The LogHandles that are currently open, reported by the RecoveryLogIntrospector.
+     */
+    private static final Set<LogHandle> _openLogs = Collections.newSetFromMap(new ConcurrentHashMap<LogHandle, Boolean>());
+
     /**
      * Reference to the recovery log that owns this instance of the LogHandle class
      */
@@ -154,6 +179,51 @@ class LogHandle
      */
     FailureScope _failureScope;
 
+    /**
+     * Lock protecting the group commit state below.
+     */
+    private final Object _forceLock = new Object();
+
+    /**
+     * The number of forces requested. Each caller of force() is given the next value as its ticket.
+     */
+    private long _forceRequests;
+
+    /**
+     * All force requests up to and including this ticket have been satisfied.
+     */
+    private long _forceCompleted;
+
+    /**
+     * Force requests up to and including this ticket were satisfied by a force that failed.
+     */
+    private long _forceFailed;
+
+    /**
+     * The exception from the most recent force that failed.
+     */
+    private Throwable _forceFailure;
+
+    /**
+     * Set while a group commit leader is forcing the active file.
+     */
+    private boolean _forceInProgress;
+
+    /**
+     * The number of times the active file has been forced to disk.
+     */
+    private final AtomicLong _physicalForces = new AtomicLong();
+
+    /**
+     * The number of force requests made by callers of force().
+     */
+    private final AtomicLong _logicalForces = new AtomicLong();
+
+    /**
+     * The total time in nanoseconds taken by the physical forces of the active file.
+     */
+    private final AtomicLong _forceTime = new AtomicLong();
+
     //------------------------------------------------------------------------------
     // Method: LogHandle.LogHandle          
     //------------------------------------------------------------------------------
@@ -633,6 +703,8 @@ class LogHandle
         // Determine the remaining free bytes in the file
         _physicalFreeBytes = _activeFile.freeBytes();
 
+        _openLogs.add(this);
+
         if (tc.isEntryEnabled())
             Tr.exit(tc, "openLog");
     }
@@ -804,6 +876,8 @@ class LogHandle
             throw new InternalLogException(null);
         }
 
+        _openLogs.remove(this);
+
         try
         {
             _file1.fileClose();
@@ -822,6 +896,9 @@ class LogHandle
             throw new InternalLogException(exc);
         }
 
+        if (tc.isDebugEnabled())
+            Tr.debug(tc, "Force statistics for log " + _logName + ": " + forceStatistics());
+
         _file1 = null;
         _file2 = null;
         _activeFile = null;
@@ -871,6 +948,11 @@ class LogHandle
      * is forced out to persistent storeage.
      * </p>
      * 
+     * <p>
+     * If group commit is configured, concurrent callers share a single force of the
+     * active file (see groupForce).
+     * </p>
+     * 
      * @exception InternalLogException An unexpected error has occured.
      */
     void force() throws InternalLogException
@@ -886,6 +968,122 @@ class LogHandle
             throw new InternalLogException(null);
         }
 
+        _logicalForces.incrementAndGet();
+
+        if (GROUP_COMMIT)
+            groupForce();
+        else
+            forceActiveFile();
+
+        if (tc.isEntryEnabled())
+            Tr.exit(tc, "force");
+    }
+
+    //------------------------------------------------------------------------------
+    // Method: LogHandle.groupForce
+    //------------------------------------------------------------------------------
+    /**
+     * <p>
+     * Forces the active file on behalf of a group of callers. Each caller takes a ticket.
+     * If no force is in progress the caller becomes the leader, optionally waits up to
+     * the group commit window for further callers, and then forces the active file once
+     * for every ticket issued before the force started. Other callers wait until a force
+     * covering their ticket has completed. The data written by a caller before it calls
+     * force() is therefore on disk when its force() returns, as without group commit.
+     * </p>
+     * 
+     * @exception InternalLogException The force covering this caller's ticket failed.
+     */
+    private void groupForce() throws InternalLogException
+    {
+        final long ticket;
+        synchronized (_forceLock)
+        {
+            ticket = ++_forceRequests;
+            while (_forceCompleted < ticket && _forceInProgress)
+            {
+                try
+                {
+                    _forceLock.wait();
+                } catch (InterruptedException exc)
+                {
+                    // As for SUSPEND_LOCK, nothing interrupts waiters. Ignore it and wait again.
+                    FFDCFilter.processException(exc, "com.ibm.ws.recoverylog.spi.LogHandle.groupForce", "1013", this);
+                }
+            }
+
+            if (_forceCompleted >= ticket)
+            {
+                if (tc.isDebugEnabled())
+                    Tr.debug(tc, "Force request " + ticket + " satisfied by group commit");
+                if (ticket <= _forceFailed)
+                    throw new InternalLogException(_forceFailure);
+                return;
+            }
+
+            _forceInProgress = true;
+        }
+
+        // This thread is the leader for the next group
+        if (GROUP_COMMIT_WINDOW > 0)
+        {
+            try
+            {
+                Thread.sleep(GROUP_COMMIT_WINDOW / 1000, (int) (GROUP_COMMIT_WINDOW % 1000) * 1000);
+            } catch (InterruptedException exc)
+            {
+                // The window is a maximum, force now
+            }
+        }
+
+        final long groupEnd;
+        synchronized (_forceLock)
+        {
+            groupEnd = _forceRequests;
+        }
+
+        Throwable failure = null;
+        try
+        {
+            forceActiveFile();
+        } catch (Throwable exc)
+        {
+            failure = exc;
+        }
+
+        synchronized (_forceLock)
+        {
+            _forceCompleted = groupEnd;
+            if (failure != null)
+            {
+                _forceFailed = groupEnd;
+                _forceFailure = failure;
+            }
+            _forceInProgress = false;
+            _forceLock.notifyAll();
+        }
+
+        if (tc.isDebugEnabled())
+            Tr.debug(tc, "Group commit forced requests " + ticket + " to " + groupEnd);
+
+        if (failure instanceof InternalLogException)
+            throw (InternalLogException) failure;
+        if (failure != null)
+            throw new InternalLogException(failure);
+    }
+
+    //------------------------------------------------------------------------------
+    // Method: LogHandle.forceActiveFile
+    //------------------------------------------------------------------------------
+    /**
+     * <p>
+     * Forces the active file to disk, waiting while the RecoveryLogService is suspended.
+     * </p>
+     * 
+     * @exception InternalLogException An unexpected error has occured.
+     */
+    private void forceActiveFile() throws InternalLogException
+    {
         // Attempt to get exclusive lock on the lock object provided by RecoveryLogService
         // to protect access to the isSuspended flag, which is toggled during calls
         // to RecoveryLogService suspend/resume
@@ -916,7 +1114,9 @@ class LogHandle
             // for snapshotting
             if (Configuration._isSnapshotSafe)
             {
+                final long startTime = System.nanoTime();
                 _activeFile.force();
+                forceCompleted(startTime);
             }
         }
 
@@ -928,11 +1128,85 @@ class LogHandle
         //  hit when calling the force method 
         if (!Configuration._isSnapshotSafe)
         {
+            final long startTime = System.nanoTime();
             _activeFile.force();
+            forceCompleted(startTime);
         }
+    }
 
-        if (tc.isEntryEnabled())
-            Tr.exit(tc, "force");
+    //------------------------------------------------------------------------------
+    // Method: LogHandle.forceCompleted
+    //------------------------------------------------------------------------------
+    /**
+     * Counts a physical force of the active file and the time it took.
+     * 
+     * @param startTime The value of System.nanoTime() when the force started.
+     */
+    private void forceCompleted(long startTime)
+    {
+        _physicalForces.incrementAndGet();
+        _forceTime.addAndGet(System.nanoTime() - startTime);
+    }
+
+    //------------------------------------------------------------------------------
+    // Method: LogHandle.forceStatistics
+    //------------------------------------------------------------------------------
+    /**
+     * Returns a summary of force activity on this log since the log handle was created:
+     * the number of force requests, the number of physical forces of the active file,
+     * the total time in milliseconds taken by those forces and the requests (commits)
+     * per force. Rates can be derived by comparing two summaries.
+     * 
+     * @return force statistics.
+     */
+    String forceStatistics()
+    {
+        final long requests = _logicalForces.get();
+        final long forces = _physicalForces.get();
+        return "groupCommit=" + GROUP_COMMIT
+               + " requests=" + requests
+               + " forces=" + forces
+               + " forceTimeMillis=" + (_forceTime.get() / 1000000)
+               + " commitsPerForce=" + (forces == 0 ? 0 : (double) requests / forces);
+    }
+
+    //------------------------------------------------------------------------------
+    // Method: LogHandle.openLogs
+    //------------------------------------------------------------------------------
+    /**
+     * Returns the LogHandles that are currently open.
+     * 
+     * @return the open LogHandles.
+     */
+    static Collection<LogHandle> openLogs()
+    {
+        return Collections.unmodifiableSet(_openLogs);
+    }
+
+    //------------------------------------------------------------------------------
+    // Method: LogHandle.getLogDirectory
+    //------------------------------------------------------------------------------
+    /**
+     * Returns the directory in which the files of this recovery log are stored.
+     * 
+     * @return the log directory.
+     */
+    String getLogDirectory()
+    {
+        return _logDirectory;
+    }
+
+    //------------------------------------------------------------------------------
+    // Method: LogHandle.getLogName
+    //------------------------------------------------------------------------------
+    /**
+     * Returns the name of this recovery log.
+     * 
+     * @return the log name.
+     */
+    String getLogName()
+    {
+        return _logName;
     }
 
     //------------------------------------------------------------------------------
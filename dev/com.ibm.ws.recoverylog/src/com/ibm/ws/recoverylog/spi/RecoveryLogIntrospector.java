@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.recoverylog.spi;
+
+import java.io.PrintWriter;
+import java.util.Collection;
+
+import com.ibm.wsspi.logging.Introspector;
+
+//------------------------------------------------------------------------------
+// Class: RecoveryLogIntrospector
+//------------------------------------------------------------------------------
+/**
+ * Reports the force statistics of each open recovery log in a server dump.
+ */
+public class RecoveryLogIntrospector implements Introspector
+{
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.ibm.wsspi.logging.Introspector#getIntrospectorName()
+     */
+    @Override
+    public String getIntrospectorName()
+    {
+        return "RecoveryLogIntrospector";
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.ibm.wsspi.logging.Introspector#getIntrospectorDescription()
+     */
+    @Override
+    public String getIntrospectorDescription()
+    {
+        return "Recovery log force statistics";
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.ibm.wsspi.logging.Introspector#introspect(java.io.PrintWriter)
+     */
+    @Override
+    public void introspect(PrintWriter out) throws Exception
+    {
+        final Collection<LogHandle> logs = LogHandle.openLogs();
+        if (logs.isEmpty())
+        {
+            out.println("No recovery logs are open");
+            return;
+        }
+
+        for (LogHandle log : logs)
+        {
+            out.println(log.getLogDirectory() + " " + log.getLogName());
+            out.println("    " + log.forceStatistics());
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class AuthCacheServiceImpl implements AuthCacheService, UserRegistryChang
 
     private static final TraceComponent tc = Tr.register(AuthCacheServiceImpl.class);
 
-    private Cache cache;
+    private TinyLfuCache cache;
     private final Set<CacheKeyProvider> cacheKeyProviders = new HashSet<CacheKeyProvider>();
     private boolean allowBasicAuthLookup = true;
     private int initialSize = 50;
@@ -155,6 +155,27 @@ public class AuthCacheServiceImpl implements AuthCacheService, UserRegistryChang
         cache.clearAllEntries();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public long getHitCount() {
+        TinyLfuCache c = cache;
+        return c == null ? 0 : c.getHitCount();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMissCount() {
+        TinyLfuCache c = cache;
+        return c == null ? 0 : c.getMissCount();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getEvictionCount() {
+        TinyLfuCache c = cache;
+        return c == null ? 0 : c.getEvictionCount();
+    }
+
     protected CacheObject getCachedObject(Object cacheKey) {
         if (cacheKey instanceof byte[]) {
             cacheKey = new ByteArray((byte[]) cacheKey);
@@ -180,7 +201,7 @@ public class AuthCacheServiceImpl implements AuthCacheService, UserRegistryChang
         }
         authCacheConfig = new AuthCacheConfigImpl(initialSize, maxSize, timeoutInMilliSeconds, allowBasicAuthLookup);
         stopCacheEvictionTask();
-        cache = new Cache(initialSize, maxSize, timeoutInMilliSeconds, cacheEvictionListenerSet);
+        cache = new TinyLfuCache(initialSize, maxSize, timeoutInMilliSeconds, cacheEvictionListenerSet);
     }
 
     protected void deactivate(ComponentContext componentContext) {
@@ -190,6 +211,10 @@ public class AuthCacheServiceImpl implements AuthCacheService, UserRegistryChang
 
     private void stopCacheEvictionTask() {
         if (cache != null) {
+            if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+                Tr.debug(tc, "Stopping the auth cache with size " + cache.size() + ", hits " + cache.getHitCount() + ", misses " + cache.getMissCount()
+                             + ", evictions " + cache.getEvictionCount());
+            }
             cache.stopEvictionTask();
         }
     }
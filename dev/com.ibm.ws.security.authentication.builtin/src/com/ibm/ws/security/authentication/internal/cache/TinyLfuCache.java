@@ -0,0 +1,602 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.security.authentication.internal.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ibm.websphere.ras.Tr;
+import com.ibm.websphere.ras.TraceComponent;
+import com.ibm.ws.security.authentication.cache.CacheEvictionListener;
+
+/**
+ * Concurrent cache with a per-entry time to live and a size bound enforced by the W-TinyLFU policy.
+ * <p>
+ * Reads do not lock. A read looks the entry up in a ConcurrentHashMap and records the access in a
+ * lossy, striped buffer. Accesses are applied to the eviction policy in batches, by whichever thread
+ * obtains the eviction lock, so a reader never waits for it. Writes update the map and then apply
+ * the policy under the eviction lock.
+ * <p>
+ * New entries enter a small LRU admission window. An entry leaving the window is admitted to the main
+ * space, a segmented LRU of probation and protected entries, only if it has been used more often than
+ * the entry it would displace. Usage frequency is estimated by a count-min sketch which is halved
+ * periodically so that old popularity fades. This keeps frequently used subjects cached while one-off
+ * logins pass through the window.
+ * <p>
+ * Each entry expires once the timeout has elapsed since it was inserted. Expired entries are never
+ * returned. They are removed on read, on write, and by a timer so that eviction listeners are notified.
+ */
+public class TinyLfuCache {
+
+    private static final TraceComponent tc = Tr.register(TinyLfuCache.class, "Authentication");
+
+    /** Access queues an entry can be in. */
+    private static final int NONE = 0, WINDOW = 1, PROBATION = 2, PROTECTED = 3;
+
+    /** Number of slots in each read buffer. Must be a power of two. */
+    private static final int READ_BUFFER_SIZE = 64;
+
+    /** Number of reads recorded in a buffer between attempts to drain the buffers. Must be a power of two. */
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = 16;
+
+    /** Number of read buffers. Threads are spread over the buffers to reduce contention. */
+    private static final int READ_BUFFER_STRIPES = tableSizeFor(Math.min(Runtime.getRuntime().availableProcessors(), 16));
+
+    /**
+     * Cache entry. The key, value and expiration time never change. The links are guarded by the eviction lock.
+     */
+    static final class Node {
+        final Object key;
+        final Object value;
+        final long expirationTime;
+
+        Node prev, next;
+        Node writePrev, writeNext;
+        int queue = NONE;
+        boolean retired;
+
+        Node(Object key, Object value, long expirationTime) {
+            this.key = key;
+            this.value = value;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    /**
+     * Doubly linked access order queue, least recently used first. Guarded by the eviction lock.
+     */
+    private static final class AccessQueue {
+        private final Node head = new Node(null, null, 0);
+        private final int id;
+        int size;
+
+        AccessQueue(int id) {
+            this.id = id;
+            head.prev = head.next = head;
+        }
+
+        Node first() {
+            return head.next == head ? null : head.next;
+        }
+
+        void addLast(Node node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+            node.queue = id;
+            size++;
+        }
+
+        void remove(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = node.next = null;
+            node.queue = NONE;
+            size--;
+        }
+
+        void moveToLast(Node node) {
+            remove(node);
+            addLast(node);
+        }
+    }
+
+    /**
+     * Lossy buffer of entries that were read. Slots may be overwritten before they are drained,
+     * which only means that some accesses are not counted.
+     */
+    private static final class ReadBuffer {
+        final AtomicLong writes = new AtomicLong();
+        final AtomicReferenceArray<Node> nodes = new AtomicReferenceArray<Node>(READ_BUFFER_SIZE);
+    }
+
+    /**
+     * Count-min sketch estimating how often each key was used. Guarded by the eviction lock.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        private static final int MAX_COUNT = 15;
+
+        private final int[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int size = tableSizeFor(Math.max(16, Math.min(maximumSize, 1 << 22)));
+            table = new int[size];
+            sampleSize = (int) Math.min(10L * size, Integer.MAX_VALUE);
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < SEEDS.length; i++)
+                frequency = Math.min(frequency, table[indexOf(hash, i)]);
+            return frequency;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = indexOf(hash, i);
+                if (table[index] < MAX_COUNT) {
+                    table[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize)
+                reset();
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++)
+                table[i] >>>= 1;
+            additions >>>= 1;
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+
+        private static int spread(int h) {
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            return (h >>> 16) ^ h;
+        }
+    }
+
+    private final ConcurrentHashMap<Object, Node> data;
+    private final int entryLimit;
+    private final boolean bounded;
+    private final long timeoutInMilliSeconds;
+    private final Set<CacheEvictionListener> cacheEvictionListenerSet;
+
+    private final ReadBuffer[] readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+
+    /** Guards the eviction policy: the access queues, the write order queue and the sketch. */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AccessQueue window = new AccessQueue(WINDOW);
+    private final AccessQueue probation = new AccessQueue(PROBATION);
+    private final AccessQueue protectedQueue = new AccessQueue(PROTECTED);
+    private final Node writeOrder = new Node(null, null, 0);
+    private final FrequencySketch sketch;
+    private final int windowMax;
+    private final int protectedMax;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Timer to schedule the expiration task.
+     */
+    private Timer timer;
+
+    public TinyLfuCache(int initialSize, int entryLimit, long timeoutInMilliSeconds) {
+        this(initialSize, entryLimit, timeoutInMilliSeconds, null);
+    }
+
+    public TinyLfuCache(int initialSize, int entryLimit, long timeoutInMilliSeconds, Set<CacheEvictionListener> callbackSet) {
+        this.data = new ConcurrentHashMap<Object, Node>(initialSize > 0 ? initialSize : 16);
+        this.entryLimit = entryLimit;
+        this.bounded = entryLimit > 0 && entryLimit < Integer.MAX_VALUE;
+        this.timeoutInMilliSeconds = timeoutInMilliSeconds;
+        this.cacheEvictionListenerSet = callbackSet;
+
+        for (int i = 0; i < readBuffers.length; i++)
+            readBuffers[i] = new ReadBuffer();
+        writeOrder.writePrev = writeOrder.writeNext = writeOrder;
+
+        if (bounded) {
+            sketch = new FrequencySketch(entryLimit);
+            windowMax = Math.max(1, entryLimit / 100);
+            protectedMax = (entryLimit - windowMax) * 4 / 5;
+        } else {
+            sketch = null;
+            windowMax = Integer.MAX_VALUE;
+            protectedMax = 0;
+        }
+
+        if (timeoutInMilliSeconds > 0) {
+            scheduleExpirationTask(timeoutInMilliSeconds);
+        }
+    }
+
+    private void scheduleExpirationTask(long timeoutInMilliSeconds) {
+        timer = new Timer(true);
+        long period = Math.max(1, timeoutInMilliSeconds / 2);
+        timer.schedule(new ExpirationTask(), period, period);
+    }
+
+    /**
+     * Find and return the object associated with the specified key.
+     *
+     * @return the cached object, or null if there is none or it has expired.
+     */
+    public Object get(Object key) {
+        Node node = data.get(key);
+        if (node == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        if (node.expirationTime <= System.currentTimeMillis()) {
+            missCount.incrementAndGet();
+            if (data.remove(key, node)) {
+                evictionLock.lock();
+                try {
+                    retire(node);
+                } finally {
+                    evictionLock.unlock();
+                }
+                evictionCount.incrementAndGet();
+                notifyListeners(singletonList(node.value));
+            }
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        recordRead(node);
+        return node.value;
+    }
+
+    /**
+     * Insert the value into the Cache using the specified key.
+     */
+    public void insert(Object key, Object value) {
+        long expirationTime = timeoutInMilliSeconds > 0 ? System.currentTimeMillis() + timeoutInMilliSeconds : Long.MAX_VALUE;
+        Node node = new Node(key, value, expirationTime);
+        Node oldNode = data.put(key, node);
+
+        List<Object> evictedValues = new ArrayList<Object>();
+        if (oldNode != null && oldNode.value != null) {
+            evictedValues.add(oldNode.value);
+        }
+
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            if (oldNode != null) {
+                retire(oldNode);
+            }
+            // A concurrent remove may already have retired the new node
+            if (!node.retired) {
+                if (sketch != null)
+                    sketch.increment(key);
+                window.addLast(node);
+                node.writePrev = writeOrder.writePrev;
+                node.writeNext = writeOrder;
+                writeOrder.writePrev.writeNext = node;
+                writeOrder.writePrev = node;
+            }
+            expireEntries(System.currentTimeMillis(), evictedValues);
+            evictEntries(evictedValues);
+        } finally {
+            evictionLock.unlock();
+        }
+
+        notifyListeners(evictedValues);
+    }
+
+    /**
+     * Remove an object from the Cache.
+     */
+    public void remove(Object key) {
+        Node node = data.remove(key);
+        if (node != null) {
+            evictionLock.lock();
+            try {
+                retire(node);
+            } finally {
+                evictionLock.unlock();
+            }
+            notifyListeners(singletonList(node.value));
+        }
+    }
+
+    /**
+     * Purge all entries from the Cache. Semantically, this should
+     * behave the same way the the expiration of all entries from
+     * the cache.
+     */
+    protected void clearAllEntries() {
+        List<Object> evictedValues = new ArrayList<Object>();
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            for (Node node : data.values()) {
+                if (data.remove(node.key, node)) {
+                    if (node.value != null)
+                        evictedValues.add(node.value);
+                    retire(node);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+
+        notifyListeners(evictedValues);
+    }
+
+    /**
+     * Removes the expired entries and notifies the eviction listeners.
+     */
+    protected void evictExpiredEntries() {
+        List<Object> evictedValues = new ArrayList<Object>();
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            expireEntries(System.currentTimeMillis(), evictedValues);
+        } finally {
+            evictionLock.unlock();
+        }
+
+        if (TraceComponent.isAnyTracingEnabled() && tc.isDebugEnabled()) {
+            Tr.debug(tc, "The current cache size is " + data.size() + ", expired " + evictedValues.size() + ", hits " + hitCount.get() + ", misses " + missCount.get()
+                         + ", evictions " + evictionCount.get());
+        }
+
+        notifyListeners(evictedValues);
+    }
+
+    /**
+     * Records a read of the entry in this thread's read buffer, and drains the buffers
+     * if enough reads were recorded and no other thread holds the eviction lock.
+     */
+    private void recordRead(Node node) {
+        if (!bounded) {
+            return;
+        }
+        ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (READ_BUFFER_STRIPES - 1)];
+        long index = buffer.writes.getAndIncrement();
+        buffer.nodes.lazySet((int) index & (READ_BUFFER_SIZE - 1), node);
+        if (((index + 1) & (READ_BUFFER_DRAIN_THRESHOLD - 1)) == 0 && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies the recorded reads to the eviction policy. Caller holds the eviction lock.
+     */
+    private void drainReadBuffers() {
+        if (!bounded) {
+            return;
+        }
+        for (ReadBuffer buffer : readBuffers) {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                Node node = buffer.nodes.get(i);
+                if (node != null && buffer.nodes.compareAndSet(i, node, null) && !node.retired) {
+                    onAccess(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the frequency and access queues for an entry that was read. Caller holds the eviction lock.
+     */
+    private void onAccess(Node node) {
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                protectedQueue.addLast(node);
+                while (protectedQueue.size > protectedMax) {
+                    Node demoted = protectedQueue.first();
+                    protectedQueue.remove(demoted);
+                    probation.addLast(demoted);
+                }
+                break;
+            case PROTECTED:
+                protectedQueue.moveToLast(node);
+                break;
+            default:
+                // Not linked yet, or already removed
+        }
+    }
+
+    /**
+     * Removes entries whose timeout has elapsed, oldest first. Caller holds the eviction lock.
+     */
+    private void expireEntries(long now, List<Object> evictedValues) {
+        Node node = writeOrder.writeNext;
+        while (node != writeOrder && node.expirationTime <= now) {
+            Node next = node.writeNext;
+            evict(node, evictedValues);
+            node = next;
+        }
+    }
+
+    /**
+     * Moves entries out of the admission window and evicts entries until the cache is within
+     * its entry limit. Caller holds the eviction lock.
+     */
+    private void evictEntries(List<Object> evictedValues) {
+        if (!bounded) {
+            return;
+        }
+
+        int mainMax = entryLimit - windowMax;
+        while (window.size > windowMax) {
+            Node candidate = window.first();
+            window.remove(candidate);
+            if (probation.size + protectedQueue.size < mainMax) {
+                probation.addLast(candidate);
+                continue;
+            }
+
+            Node victim = probation.first();
+            if (victim == null)
+                victim = protectedQueue.first();
+
+            if (victim == null || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                if (victim != null)
+                    evict(victim, evictedValues);
+                probation.addLast(candidate);
+            } else {
+                evict(candidate, evictedValues);
+            }
+        }
+
+        while (window.size + probation.size + protectedQueue.size > entryLimit) {
+            Node victim = probation.first();
+            if (victim == null)
+                victim = protectedQueue.first();
+            if (victim == null)
+                victim = window.first();
+            evict(victim, evictedValues);
+        }
+    }
+
+    /**
+     * Removes an entry chosen by the eviction policy. Caller holds the eviction lock.
+     */
+    private void evict(Node node, List<Object> evictedValues) {
+        if (data.remove(node.key, node)) {
+            evictionCount.incrementAndGet();
+            if (node.value != null)
+                evictedValues.add(node.value);
+        }
+        retire(node);
+    }
+
+    /**
+     * Unlinks an entry that is no longer in the map. Caller holds the eviction lock.
+     */
+    private void retire(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedQueue.remove(node);
+                break;
+            default:
+        }
+        if (node.writeNext != null) {
+            node.writePrev.writeNext = node.writeNext;
+            node.writeNext.writePrev = node.writePrev;
+            node.writePrev = node.writeNext = null;
+        }
+        node.retired = true;
+    }
+
+    private void notifyListeners(List<Object> evictedValues) {
+        if (!evictedValues.isEmpty() && cacheEvictionListenerSet != null) {
+            for (CacheEvictionListener evictionCallback : cacheEvictionListenerSet) {
+                evictionCallback.evicted(evictedValues);
+            }
+        }
+    }
+
+    private static List<Object> singletonList(Object value) {
+        List<Object> values = new ArrayList<Object>(1);
+        if (value != null)
+            values.add(value);
+        return values;
+    }
+
+    private static int tableSizeFor(int n) {
+        int size = 1;
+        while (size < n)
+            size <<= 1;
+        return size;
+    }
+
+    int getEntryLimit() {
+        return entryLimit;
+    }
+
+    /**
+     * @return the number of entries in the cache, including entries that expired but were not yet removed.
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * @return the number of lookups that found a valid entry.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lookups that found no entry or an expired entry.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of entries removed because they expired or to stay within the entry limit.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private class ExpirationTask extends TimerTask {
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            evictExpiredEntries();
+        }
+
+    }
+
+    protected void stopEvictionTask() {
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.ws.security.authentication.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.ibm.ws.security.authentication.cache.CacheEvictionListener;
+
+/**
+ *
+ */
+public class TinyLfuCacheTest {
+
+    private final long defaultTimeoutInMilliSeconds = 600000;
+
+    private final Set<TinyLfuCache> registeredCachesForStoppingEvictionTasks = new HashSet<TinyLfuCache>();
+
+    private final CacheEvictionListenerDouble cacheEvictionListener = new CacheEvictionListenerDouble();
+
+    @After
+    public void tearDown() throws Exception {
+        for (TinyLfuCache cache : registeredCachesForStoppingEvictionTasks) {
+            cache.stopEvictionTask();
+        }
+    }
+
+    private TinyLfuCache createCache(int entryLimit, long timeoutInMilliSeconds) {
+        Set<CacheEvictionListener> evictionListeners = new HashSet<CacheEvictionListener>();
+        evictionListeners.add(cacheEvictionListener);
+        TinyLfuCache cache = new TinyLfuCache(10, entryLimit, timeoutInMilliSeconds, evictionListeners);
+        registeredCachesForStoppingEvictionTasks.add(cache);
+        return cache;
+    }
+
+    @Test
+    public void constructor_IntIntLong() {
+        TinyLfuCache cache = new TinyLfuCache(0, 12345, 0);
+        assertEquals(12345, cache.getEntryLimit());
+    }
+
+    /**
+     * get shall return the inserted value and count a hit, or null and count a miss.
+     */
+    @Test
+    public void get_hitAndMiss() {
+        TinyLfuCache cache = createCache(100, defaultTimeoutInMilliSeconds);
+        cache.insert("1", 1);
+
+        assertEquals(1, cache.get("1"));
+        assertNull(cache.get("2"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * insert shall replace an existing value and notify the listeners of the old value.
+     */
+    @Test
+    public void insert_replace() {
+        TinyLfuCache cache = createCache(100, defaultTimeoutInMilliSeconds);
+        cache.insert("1", 1);
+        cache.insert("1", 2);
+
+        assertEquals(2, cache.get("1"));
+        assertEquals(1, cache.size());
+        assertTrue(cacheEvictionListener.victims.contains(1));
+    }
+
+    /**
+     * The cache shall not grow beyond its entry limit.
+     */
+    @Test
+    public void insert_entryLimit() {
+        TinyLfuCache cache = createCache(10, defaultTimeoutInMilliSeconds);
+        for (int i = 0; i < 100; i++) {
+            cache.insert(i, i);
+        }
+
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.getEvictionCount());
+        assertEquals(90, cacheEvictionListener.victims.size());
+    }
+
+    /**
+     * An entry limit of zero or MAX INT shall leave the cache unbounded.
+     */
+    @Test
+    public void insert_unbounded() {
+        TinyLfuCache zeroLimit = createCache(0, defaultTimeoutInMilliSeconds);
+        TinyLfuCache maxIntLimit = createCache(Integer.MAX_VALUE, defaultTimeoutInMilliSeconds);
+        for (int i = 0; i < 100; i++) {
+            zeroLimit.insert(i, i);
+            maxIntLimit.insert(i, i);
+        }
+
+        assertEquals(100, zeroLimit.size());
+        assertEquals(100, maxIntLimit.size());
+        assertTrue(cacheEvictionListener.victims.isEmpty());
+    }
+
+    /**
+     * A frequently used entry shall not be evicted by a scan of entries that are used once.
+     */
+    @Test
+    public void insert_frequentlyUsedEntrySurvivesScan() {
+        TinyLfuCache cache = createCache(100, defaultTimeoutInMilliSeconds);
+        cache.insert("hot", "hot");
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(cache.get("hot"));
+            cache.insert(i, i);
+        }
+
+        assertEquals("hot", cache.get("hot"));
+    }
+
+    /**
+     * An entry shall not be returned once its timeout has elapsed.
+     */
+    @Test
+    public void get_expired() throws Exception {
+        TinyLfuCache cache = createCache(100, 50);
+        cache.insert("1", 1);
+        Thread.sleep(100);
+
+        assertNull(cache.get("1"));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * evictExpiredEntries shall remove expired entries and notify the listeners.
+     */
+    @Test
+    public void evictExpiredEntries() throws Exception {
+        TinyLfuCache cache = createCache(100, 50);
+        cache.insert("1", 1);
+        Thread.sleep(100);
+        cache.evictExpiredEntries();
+
+        assertEquals(0, cache.size());
+        assertTrue(cacheEvictionListener.victims.contains(1));
+    }
+
+    /**
+     * remove shall remove the entry and notify the listeners.
+     */
+    @Test
+    public void remove() {
+        TinyLfuCache cache = createCache(100, defaultTimeoutInMilliSeconds);
+        cache.insert("1", 1);
+        cache.remove("1");
+
+        assertNull(cache.get("1"));
+        assertTrue(cacheEvictionListener.victims.contains(1));
+    }
+
+    /**
+     * remove shall not notify the listeners if the entry does not exist.
+     */
+    @Test
+    public void remove_entryDoesNotExist() {
+        TinyLfuCache cache = createCache(100, defaultTimeoutInMilliSeconds);
+        cache.remove("keyForEntryThatDoesNotExist");
+
+        assertTrue(cacheEvictionListener.victims.isEmpty());
+    }
+
+    /**
+     * clearAllEntries shall remove all entries and notify the listeners.
+     */
+    @Test
+    public void clearAllEntries() {
+        TinyLfuCache cache = createCache(100, defaultTimeoutInMilliSeconds);
+        cache.insert("1", 1);
+        cache.insert("2", 2);
+        cache.clearAllEntries();
+
+        assertEquals(0, cache.size());
+        assertEquals(2, cacheEvictionListener.victims.size());
+    }
+
+    class CacheEvictionListenerDouble implements CacheEvictionListener {
+        public List<Object> victims = new ArrayList<Object>();
+
+        @Override
+        public void evicted(List<Object> victims) {
+            this.victims.addAll(victims);
+        }
+    };
+
+}
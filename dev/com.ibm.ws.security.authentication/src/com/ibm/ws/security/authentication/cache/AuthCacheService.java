@@ -12,11 +12,15 @@ package com.ibm.ws.security.authentication.cache;
 
 import javax.security.auth.Subject;
 
+import org.osgi.annotation.versioning.ProviderType;
+
 import com.ibm.websphere.ras.annotation.Sensitive;
 
 /**
- * The authentication cache service.
+ * The authentication cache service. Only the authentication bundle provides it; consumers must
+ * not implement it, so that methods can be added in minor versions of the package.
  */
+@ProviderType
 public interface AuthCacheService {
 
     /**
@@ -57,4 +61,27 @@ public interface AuthCacheService {
      */
     public void removeAllEntries();
 
+    /**
+     * Gets the number of lookups that found a valid entry in the cache.
+     * The hit rate is getHitCount() / (getHitCount() + getMissCount()).
+     * 
+     * @return the number of cache hits.
+     */
+    public long getHitCount();
+
+    /**
+     * Gets the number of lookups that did not find a valid entry in the cache.
+     * 
+     * @return the number of cache misses.
+     */
+    public long getMissCount();
+
+    /**
+     * Gets the number of entries removed from the cache because they expired
+     * or to keep the cache within its maximum size.
+     * 
+     * @return the number of evictions.
+     */
+    public long getEvictionCount();
+
 }